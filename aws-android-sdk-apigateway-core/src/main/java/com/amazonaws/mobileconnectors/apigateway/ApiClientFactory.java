@@ -41,6 +41,7 @@ public class ApiClientFactory {
     private String regionOverride;
     private AWSCredentialsProvider provider;
     private ClientConfiguration clientConfiguration;
+    private ApiResponseCache responseCache;
 
     /**
      * Sets the endpoint of the APIs.
@@ -103,6 +104,20 @@ public class ApiClientFactory {
         return this;
     }
 
+    /**
+     * Sets the cache of GET responses. If not set, every call goes to the
+     * endpoint.
+     *
+     * @param responseCache a response cache, may be shared by several
+     *            clients
+     * @return the factory itself for chaining
+     */
+    @SuppressWarnings("checkstyle:hiddenfield")
+    public ApiClientFactory responseCache(ApiResponseCache responseCache) {
+        this.responseCache = responseCache;
+        return this;
+    }
+
     /**
      * Instantiates a client for the given API.
      *
@@ -142,7 +157,8 @@ public class ApiClientFactory {
         // Ensure we always pass a configuration to the handler
         final ClientConfiguration configuration = (clientConfiguration == null) ? new ClientConfiguration() : clientConfiguration;
 
-        return new ApiClientHandler(endpoint, apiName, signer, provider, apiKey, configuration);
+        return new ApiClientHandler(endpoint, apiName, signer, provider, apiKey, configuration,
+                responseCache);
     }
 
     /**
@@ -22,13 +22,11 @@ import com.amazonaws.auth.AWSCredentialsProvider;
 import com.amazonaws.auth.Signer;
 import com.amazonaws.http.ExecutionContext;
 import com.amazonaws.http.HttpClient;
-import com.amazonaws.http.HttpMethodName;
 import com.amazonaws.http.HttpRequest;
 import com.amazonaws.http.HttpRequestFactory;
 import com.amazonaws.http.HttpResponse;
 import com.amazonaws.http.UrlHttpClient;
 import com.amazonaws.mobileconnectors.apigateway.annotation.Operation;
-import com.amazonaws.mobileconnectors.apigateway.annotation.Parameter;
 import com.amazonaws.util.DateUtils;
 import com.amazonaws.util.IOUtils;
 import com.amazonaws.util.StringUtils;
@@ -37,17 +35,16 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
-import java.lang.annotation.Annotation;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
-import java.lang.reflect.Type;
 import java.net.URI;
-import java.util.Collection;
 import java.util.Date;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Invocation handler responsible for serializing a request and deserializing a
@@ -62,6 +59,12 @@ class ApiClientHandler implements InvocationHandler {
                 DateUtils.COMPRESSED_DATE_PATTERN, DateUtils.RFC822_DATE_PATTERN
             })).create();
 
+    /**
+     * Compiled templates by interface method, shared by all clients.
+     */
+    private static final ConcurrentMap<Method, RequestTemplate> TEMPLATES =
+            new ConcurrentHashMap<Method, RequestTemplate>();
+
     private static final int HTTP_RESPONSE_OK = 200;
     private static final int HTTP_RESPONSE_LAST_SUCCESS_STATUSCODE = 300;
 
@@ -78,16 +81,19 @@ class ApiClientHandler implements InvocationHandler {
     private HttpClient client;
     private final HttpRequestFactory requestFactory;
     private final ClientConfiguration clientConfiguration;
+    // cache of GET responses. If null, every request goes to the network
+    private final ApiResponseCache responseCache;
 
     ApiClientHandler(String endpoint, String apiName,
             Signer signer, AWSCredentialsProvider provider, String apiKey,
-            ClientConfiguration clientConfiguration) {
+            ClientConfiguration clientConfiguration, ApiResponseCache responseCache) {
         this.endpoint = endpoint;
         this.apiName = apiName;
         this.signer = signer;
         this.provider = provider;
         this.apiKey = apiKey;
         this.clientConfiguration = clientConfiguration;
+        this.responseCache = responseCache;
 
         client = new UrlHttpClient(this.clientConfiguration);
         requestFactory = new HttpRequestFactory();
@@ -101,12 +107,12 @@ class ApiClientHandler implements InvocationHandler {
             // the execute method call flow
             if (isExecuteMethod(method)) {
                 final HttpRequest httpRequest = invokeExecuteMethod(args);
-                final HttpResponse response = client.execute(httpRequest);
+                final HttpResponse response = execute(httpRequest);
 
                 return new ApiResponse(response);
             } else {
                 final HttpRequest httpRequest = createHttpRequest(method, args);
-                final HttpResponse response = client.execute(httpRequest);
+                final HttpResponse response = execute(httpRequest);
 
                 return handleResponse(response, method);
             }
@@ -119,6 +125,20 @@ class ApiClientHandler implements InvocationHandler {
         }
     }
 
+    /**
+     * Executes the request through the response cache, if there is one.
+     *
+     * @param httpRequest the request
+     * @return the response
+     * @throws IOException if the request fails
+     */
+    HttpResponse execute(HttpRequest httpRequest) throws IOException {
+        if (responseCache == null) {
+            return client.execute(httpRequest);
+        }
+        return responseCache.execute(client, httpRequest);
+    }
+
     /**
      * Build a {@link HttpRequest} object for the given method.
      *
@@ -147,38 +167,20 @@ class ApiClientHandler implements InvocationHandler {
      * @return a {@link Request} object
      */
     Request<?> buildRequest(Method method, Object[] args) {
-        final Operation op = method.getAnnotation(Operation.class);
-        if (op == null) {
-            throw new IllegalArgumentException("Method isn't annotated with Operation");
-        }
+        final RequestTemplate template = getTemplate(method);
 
         final Request<?> request = new DefaultRequest<Object>(apiName);
-        request.setResourcePath(op.path());
+        request.setResourcePath(template.resourcePath(args));
         request.setEndpoint(URI.create(endpoint));
+        template.bindParameters(request, args);
 
-        String content = null;
-        final Annotation[][] annotations = method.getParameterAnnotations();
-        final int length = annotations.length;
-        for (int i = 0; i < length; i++) {
-            // content body
-            if (annotations[i].length == 0) {
-                if (content != null) {
-                    throw new IllegalStateException("Can't have more than one Body");
-                }
-                content = args[i] == null ? null : GSON_WITH_DATE_FORMATTER.toJson(args[i]);
-                continue;
-            }
-
-            for (final Annotation annotation : annotations[i]) {
-                if (annotation instanceof Parameter) {
-                    processParameter(request, (Parameter) annotation, args[i]);
-                    break;
-                }
-            }
-        }
+        final int bodyIndex = template.bodyIndex();
+        final String content = bodyIndex < 0 || args[bodyIndex] == null
+                ? null
+                : GSON_WITH_DATE_FORMATTER.toJson(args[bodyIndex]);
 
         final boolean hasContent = content != null;
-        setHttpMethod(request, op.method(), hasContent);
+        template.setHttpMethod(request, hasContent);
 
         if (hasContent) {
             final byte[] contentBytes = content.getBytes(StringUtils.UTF8);
@@ -202,64 +204,21 @@ class ApiClientHandler implements InvocationHandler {
     }
 
     /**
-     * Process an argument annotated with {@link Parameter}.
+     * Returns the compiled template of the method, compiling it on first use.
      *
-     * @param request request to be set
-     * @param p annotation
-     * @param arg argument
+     * @param method method that annotated with {@link Operation}
+     * @return the template
      */
-    void processParameter(Request<?> request, Parameter p, Object arg) {
-        final String name = p.name();
-        final String location = p.location();
-
-        if (arg == null) {
-            return;
-        }
-
-        if ("header".equals(location)) {
-            request.addHeader(name, String.valueOf(arg));
-        } else if ("path".equals(location)) {
-            String path = request.getResourcePath();
-            path = path.replaceAll("\\{" + name + "\\}", String.valueOf(arg));
-            request.setResourcePath(path);
-        } else if ("query".equals(location)) {
-            if (Map.class.isAssignableFrom(arg.getClass())) {
-                @SuppressWarnings("unchecked")
-                final Map<String, Object> map = (Map<String, Object>) arg;
-                for (final Map.Entry<String, Object> entry : map.entrySet()) {
-                    request.addParameter(entry.getKey(), String.valueOf(entry.getValue()));
-                }
-            } else if (Collection.class.isAssignableFrom(arg.getClass())) {
-                request.addParameter(name, joinList((Collection<?>) arg));
-            } else {
-                request.addParameter(name, String.valueOf(arg));
+    RequestTemplate getTemplate(Method method) {
+        RequestTemplate template = TEMPLATES.get(method);
+        if (template == null) {
+            template = RequestTemplate.compile(method, GSON_WITH_DATE_FORMATTER);
+            final RequestTemplate existing = TEMPLATES.putIfAbsent(method, template);
+            if (existing != null) {
+                template = existing;
             }
-        } else {
-            throw new IllegalArgumentException("unknown parameter location: " + location);
-        }
-    }
-
-    /**
-     * Sets HTTP method to the {@link Request} object. If the given method is
-     * none of GET, POST, PUT, DELETE, and HEAD, then it will be tunneled via
-     * X-HTTP-Method-Override. Note that not all servers support this header.
-     *
-     * @param request request to be set
-     * @param httpMethod given http method
-     * @param hasContent indicate whether the request has content body
-     */
-    void setHttpMethod(Request<?> request, String httpMethod, boolean hasContent) {
-        try {
-            request.setHttpMethod(HttpMethodName.valueOf(httpMethod));
-        } catch (final IllegalArgumentException iae) {
-            // if an HTTP method is unsupported, then 'tunnel' it through
-            // another method by setting the intended method in the
-            // X-HTTP-Method-Override header.
-            request.addHeader("X-HTTP-Method-Override", httpMethod);
-            // depending on whether the request has content or not, choose an
-            // appropriate method.
-            request.setHttpMethod(hasContent ? HttpMethodName.POST : HttpMethodName.GET);
         }
+        return template;
     }
 
     /**
@@ -275,11 +234,11 @@ class ApiClientHandler implements InvocationHandler {
         final InputStream content = response.getContent();
         // successful request if code is 2xx
         if (code >= HTTP_RESPONSE_OK && code < HTTP_RESPONSE_LAST_SUCCESS_STATUSCODE) {
-            final Type t = method.getReturnType();
-            if (t != void.class && content != null) {
+            final RequestTemplate template = getTemplate(method);
+            if (template.hasResponse() && content != null) {
                 final Reader reader = new InputStreamReader(response.getContent(),
                         StringUtils.UTF8);
-                final Object obj = GSON_WITH_DATE_FORMATTER.fromJson(reader, t);
+                final Object obj = template.readResponse(reader);
                 reader.close();
                 return obj;
             } else {
@@ -338,23 +297,6 @@ class ApiClientHandler implements InvocationHandler {
         return requestFactory.createHttpRequest(request, clientConfiguration, context);
     }
 
-    private String joinList(Collection<?> objects) {
-        if (objects == null || objects.isEmpty()) {
-            return "";
-        }
-        final StringBuilder sb = new StringBuilder();
-        boolean first = true;
-        for (final Object object : objects) {
-            if (first) {
-                first = false;
-            } else {
-                sb.append(",");
-            }
-            sb.append(object);
-        }
-        return sb.toString();
-    }
-
     void setClient(HttpClient client) {
         this.client = client;
     }
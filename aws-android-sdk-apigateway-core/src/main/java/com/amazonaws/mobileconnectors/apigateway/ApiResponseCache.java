@@ -0,0 +1,633 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.apigateway;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.http.HttpClient;
+import com.amazonaws.http.HttpRequest;
+import com.amazonaws.http.HttpResponse;
+import com.amazonaws.internal.DiskLruStore;
+import com.amazonaws.logging.Log;
+import com.amazonaws.logging.LogFactory;
+import com.amazonaws.util.BinaryUtils;
+import com.amazonaws.util.DateUtils;
+import com.amazonaws.util.IOUtils;
+import com.amazonaws.util.StringUtils;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * An HTTP cache of GET responses for clients built by
+ * {@link ApiClientFactory}, set with
+ * {@link ApiClientFactory#responseCache(ApiResponseCache)}.
+ * <p>
+ * Responses are keyed by URL and by the caller's identity, that is the
+ * {@code x-api-key} header and the access key or token of the
+ * {@code Authorization} header, and stored with the values of the request
+ * headers named by their {@code Vary} header; a request whose values differ
+ * is a miss. Recently used responses are kept in a memory LRU bounded by
+ * bytes. When a directory is given, every response is also stored there, and
+ * the least recently used files are deleted once the directory exceeds its
+ * byte limit.
+ * <p>
+ * A {@code 200} response is cached unless it is marked {@code no-store} or
+ * varies on {@code *}. It is used without a network call while it is fresh,
+ * that is for its {@code max-age} less its {@code Age}, or until its
+ * {@code Expires} date. Once stale, a response with an {@code ETag} or a
+ * {@code Last-Modified} date is revalidated with {@code If-None-Match} and
+ * {@code If-Modified-Since}, and a {@code 304} serves the cached body. A
+ * response with neither validators nor a freshness lifetime is not cached.
+ * Requests that carry their own conditional or {@code Cache-Control}
+ * headers bypass the cache.
+ * <p>
+ * Concurrent GETs of the same URL by the same identity share one network
+ * call. This class is thread safe.
+ */
+public class ApiResponseCache {
+    private static final Log LOGGER = LogFactory.getLog(ApiResponseCache.class);
+
+    /** Default size of the memory cache */
+    public static final long DEFAULT_MAX_MEMORY_BYTES = 2L * 1024 * 1024;
+
+    /** Default size of the disk cache */
+    public static final long DEFAULT_MAX_DISK_BYTES = 20L * 1024 * 1024;
+
+    private static final int HTTP_OK = 200;
+    private static final int HTTP_NOT_MODIFIED = 304;
+
+    private static final int FILE_VERSION = 1;
+    private static final String ENTRY_SUFFIX = ".response";
+
+    /** Precedes the access key in a SigV4 {@code Authorization} header */
+    private static final String CREDENTIAL_PREFIX = "Credential=";
+
+    /**
+     * Request headers that put the caller in charge of caching, or tunnel
+     * another method through a GET.
+     */
+    private static final String[] BYPASS_HEADERS = {
+            "Cache-Control", "Pragma", "If-None-Match", "If-Modified-Since", "If-Match",
+            "If-Unmodified-Since", "If-Range", "Range", "X-HTTP-Method-Override"
+    };
+
+    /**
+     * Response headers describing the transfer rather than the content; the
+     * body is stored decoded.
+     */
+    private static final String[] TRANSFER_HEADERS = {
+            "Content-Encoding", "Content-Length", "Transfer-Encoding", "Connection", "Keep-Alive"
+    };
+
+    /** Null to cache in memory only */
+    private final DiskLruStore disk;
+    private final long maxMemoryBytes;
+
+    /** Guarded by itself */
+    private final LinkedHashMap<String, Entry> memory =
+            new LinkedHashMap<String, Entry>(16, 0.75f, true);
+    private long memoryBytes;
+
+    private final ConcurrentMap<String, FutureTask<Entry>> inFlight =
+            new ConcurrentHashMap<String, FutureTask<Entry>>();
+
+    /**
+     * Creates a cache with the default limits.
+     *
+     * @param directory the directory for the disk cache, or null to cache in
+     *            memory only.
+     */
+    public ApiResponseCache(File directory) {
+        this(directory, DEFAULT_MAX_MEMORY_BYTES, DEFAULT_MAX_DISK_BYTES);
+    }
+
+    /**
+     * Creates a cache.
+     *
+     * @param directory the directory for the disk cache, or null to cache in
+     *            memory only.
+     * @param maxMemoryBytes the maximum number of body bytes kept in memory.
+     * @param maxDiskBytes the maximum number of bytes kept on disk.
+     */
+    public ApiResponseCache(File directory, long maxMemoryBytes, long maxDiskBytes) {
+        if (maxMemoryBytes < 0 || maxDiskBytes < 0) {
+            throw new IllegalArgumentException("Cache limits must not be negative");
+        }
+        this.disk = directory == null ? null
+                : new DiskLruStore(directory, ENTRY_SUFFIX, maxDiskBytes);
+        this.maxMemoryBytes = maxMemoryBytes;
+    }
+
+    /**
+     * Removes everything from the cache.
+     */
+    public void clear() {
+        synchronized (memory) {
+            memory.clear();
+            memoryBytes = 0;
+        }
+        if (disk != null) {
+            disk.clear();
+        }
+    }
+
+    /**
+     * Executes the request, serving a GET from the cache when possible.
+     *
+     * @param client the client for requests the cache can't serve
+     * @param request the request
+     * @return the response; the content of a GET response is read from
+     *         memory.
+     * @throws IOException if the request fails
+     */
+    HttpResponse execute(final HttpClient client, final HttpRequest request) throws IOException {
+        if (!"GET".equals(request.getMethod()) || bypasses(request)) {
+            return client.execute(request);
+        }
+        final String key = hash(identity(request), request.getUri().toString());
+        final Entry cached = lookup(key, request);
+        if (cached != null && cached.expiresAt > System.currentTimeMillis()) {
+            return cached.toResponse();
+        }
+
+        final FutureTask<Entry> task = new FutureTask<Entry>(new Callable<Entry>() {
+            @Override
+            public Entry call() throws IOException {
+                return load(client, request, key, cached);
+            }
+        });
+        final FutureTask<Entry> existing = inFlight.putIfAbsent(key, task);
+        if (existing == null) {
+            try {
+                task.run();
+            } finally {
+                inFlight.remove(key, task);
+            }
+            return await(task).toResponse();
+        }
+        final Entry shared = await(existing);
+        if (!shared.matches(request)) {
+            // the shared response varies on a header this request differs in
+            return load(client, request, key, lookup(key, request)).toResponse();
+        }
+        return shared.toResponse();
+    }
+
+    private static Entry await(FutureTask<Entry> task) throws IOException {
+        try {
+            return task.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmazonClientException("Interrupted while waiting for a response", e);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new AmazonClientException("Unable to execute request: "
+                    + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Performs the request, conditional on the stale entry if there is one,
+     * and caches the response if it may be.
+     */
+    private Entry load(HttpClient client, HttpRequest request, String key, Entry stale)
+            throws IOException {
+        final HttpRequest conditional = stale == null ? request : conditional(request, stale);
+        final HttpResponse response = client.execute(conditional);
+        final long now = System.currentTimeMillis();
+
+        if (response.getStatusCode() == HTTP_NOT_MODIFIED && stale != null) {
+            IOUtils.closeQuietly(response.getRawContent(), LOGGER);
+            final Entry refreshed = stale.refresh(response.getHeaders(), now);
+            save(key, refreshed);
+            return refreshed;
+        }
+
+        final Map<String, String> headers = new HashMap<String, String>();
+        for (final Map.Entry<String, String> header : response.getHeaders().entrySet()) {
+            if (!contains(TRANSFER_HEADERS, header.getKey())) {
+                headers.put(header.getKey(), header.getValue());
+            }
+        }
+        final InputStream content = response.getContent();
+        final byte[] body = content == null ? new byte[0] : IOUtils.toByteArray(content);
+        final Entry entry = new Entry(response.getStatusCode(), response.getStatusText(),
+                headers, varyValues(request, header(headers, "Vary")), body,
+                expiresAt(headers, now));
+        if (isCacheable(entry)) {
+            save(key, entry);
+        }
+        return entry;
+    }
+
+    private static HttpRequest conditional(HttpRequest request, Entry stale) {
+        final Map<String, String> headers = new HashMap<String, String>(request.getHeaders());
+        final String etag = header(stale.headers, "ETag");
+        if (etag != null) {
+            headers.put("If-None-Match", etag);
+        }
+        final String lastModified = header(stale.headers, "Last-Modified");
+        if (lastModified != null) {
+            headers.put("If-Modified-Since", lastModified);
+        }
+        final HttpRequest conditional = new HttpRequest(request.getMethod(), request.getUri(),
+                headers, request.getContent());
+        conditional.setStreaming(request.isStreaming());
+        return conditional;
+    }
+
+    private static boolean bypasses(HttpRequest request) {
+        for (final String name : request.getHeaders().keySet()) {
+            if (contains(BYPASS_HEADERS, name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A response is worth keeping if it can be served fresh or revalidated.
+     */
+    private static boolean isCacheable(Entry entry) {
+        if (entry.statusCode != HTTP_OK || entry.vary == null
+                || entry.expiresAt == Long.MIN_VALUE) {
+            return false;
+        }
+        return entry.expiresAt > System.currentTimeMillis()
+                || header(entry.headers, "ETag") != null
+                || header(entry.headers, "Last-Modified") != null;
+    }
+
+    /**
+     * The time until which a response may be used without revalidating it:
+     * {@link Long#MIN_VALUE} for {@code no-store}, now for {@code no-cache}
+     * or without a freshness lifetime, now plus {@code max-age} less
+     * {@code Age} when given, and the {@code Expires} date otherwise.
+     */
+    static long expiresAt(Map<String, String> headers, long now) {
+        final String cacheControl = header(headers, "Cache-Control");
+        long maxAgeMillis = -1;
+        if (cacheControl != null) {
+            for (final String part : cacheControl.split(",")) {
+                final String directive = part.trim().toLowerCase(Locale.US);
+                if ("no-store".equals(directive)) {
+                    return Long.MIN_VALUE;
+                } else if ("no-cache".equals(directive)) {
+                    return now;
+                } else if (directive.startsWith("max-age=")) {
+                    final long seconds = parseSeconds(directive.substring("max-age=".length()));
+                    if (seconds >= 0) {
+                        // clamped, as a huge max-age would overflow to the past
+                        maxAgeMillis = Math.min(seconds, Long.MAX_VALUE / 1000) * 1000L;
+                    }
+                }
+            }
+        }
+        if (maxAgeMillis >= 0) {
+            final long ageSeconds = parseSeconds(header(headers, "Age"));
+            final long lifetime = maxAgeMillis
+                    - Math.min(Math.max(0, ageSeconds), Long.MAX_VALUE / 1000) * 1000L;
+            return lifetime > Long.MAX_VALUE - now ? Long.MAX_VALUE : now + lifetime;
+        }
+        final String expires = header(headers, "Expires");
+        if (expires != null) {
+            try {
+                return DateUtils.parseRFC822Date(expires).getTime();
+            } catch (final IllegalArgumentException e) {
+                // a malformed date means already expired
+                return now;
+            }
+        }
+        return now;
+    }
+
+    private static long parseSeconds(String value) {
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value.replace("\"", "").trim());
+        } catch (final NumberFormatException e) {
+            LOGGER.debug("Ignoring malformed cache header value: " + value);
+            return -1;
+        }
+    }
+
+    /**
+     * The values of the request headers the response varies on, or null if
+     * it varies on {@code *}.
+     */
+    private static Map<String, String> varyValues(HttpRequest request, String vary) {
+        final Map<String, String> values = new TreeMap<String, String>();
+        if (vary == null) {
+            return values;
+        }
+        for (final String part : vary.split(",")) {
+            final String name = part.trim().toLowerCase(Locale.US);
+            if (name.isEmpty()) {
+                continue;
+            }
+            if ("*".equals(name)) {
+                return null;
+            }
+            final String value = header(request.getHeaders(), name);
+            values.put(name, value == null ? "" : value);
+        }
+        return values;
+    }
+
+    /** Looks up a header regardless of the case of its name */
+    static String header(Map<String, String> headers, String name) {
+        for (final Map.Entry<String, String> header : headers.entrySet()) {
+            if (name.equalsIgnoreCase(header.getKey())) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static boolean contains(String[] names, String name) {
+        for (final String candidate : names) {
+            if (candidate.equalsIgnoreCase(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the memory or disk entry for the key, fresh or stale, if it
+     * was stored for the same values of its vary headers, promoting a disk
+     * entry into memory.
+     */
+    private Entry lookup(String key, HttpRequest request) {
+        Entry entry;
+        synchronized (memory) {
+            entry = memory.get(key);
+        }
+        if (entry == null) {
+            final File file = disk == null ? null : disk.get(key);
+            if (file == null) {
+                return null;
+            }
+            try {
+                entry = read(file);
+                remember(key, entry);
+            } catch (final IOException e) {
+                // deleted while reading
+                return null;
+            }
+        }
+        return entry != null && entry.matches(request) ? entry : null;
+    }
+
+    private void save(String key, Entry entry) {
+        remember(key, entry);
+        if (disk != null) {
+            store(key, entry);
+        }
+    }
+
+    private void remember(String key, Entry entry) {
+        synchronized (memory) {
+            final Entry previous = memory.remove(key);
+            if (previous != null) {
+                memoryBytes -= previous.body.length;
+            }
+            if (entry.body.length > maxMemoryBytes) {
+                return;
+            }
+            memory.put(key, entry);
+            memoryBytes += entry.body.length;
+            final Iterator<Entry> eldest = memory.values().iterator();
+            while (memoryBytes > maxMemoryBytes && eldest.hasNext()) {
+                memoryBytes -= eldest.next().body.length;
+                eldest.remove();
+            }
+        }
+    }
+
+    private void store(String key, final Entry entry) {
+        try {
+            disk.put(key, new DiskLruStore.EntryWriter() {
+                @Override
+                public void write(OutputStream stream) throws IOException {
+                    final DataOutputStream out = new DataOutputStream(stream);
+                    out.writeInt(FILE_VERSION);
+                    out.writeLong(entry.expiresAt);
+                    out.writeInt(entry.statusCode);
+                    writeField(out, entry.statusText);
+                    writeMap(out, entry.headers);
+                    writeMap(out, entry.vary);
+                    out.writeInt(entry.body.length);
+                    out.write(entry.body);
+                    out.flush();
+                }
+            });
+        } catch (final IOException e) {
+            LOGGER.warn("Unable to store response in the disk cache", e);
+        }
+    }
+
+    private static Entry read(File file) throws IOException {
+        final DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)));
+        try {
+            if (in.readInt() != FILE_VERSION) {
+                throw new IOException("Unknown cache file version in " + file);
+            }
+            final long expiresAt = in.readLong();
+            final int statusCode = in.readInt();
+            final String statusText = readField(in);
+            final Map<String, String> headers = readMap(in, new HashMap<String, String>());
+            final Map<String, String> vary = readMap(in, new TreeMap<String, String>());
+            final byte[] body = new byte[in.readInt()];
+            in.readFully(body);
+            return new Entry(statusCode, statusText, headers, vary, body, expiresAt);
+        } finally {
+            in.close();
+        }
+    }
+
+    private static void writeMap(DataOutputStream out, Map<String, String> map)
+            throws IOException {
+        out.writeInt(map.size());
+        for (final Map.Entry<String, String> entry : map.entrySet()) {
+            writeField(out, entry.getKey());
+            writeField(out, entry.getValue());
+        }
+    }
+
+    private static Map<String, String> readMap(DataInputStream in, Map<String, String> map)
+            throws IOException {
+        final int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            map.put(readField(in), readField(in));
+        }
+        return map;
+    }
+
+    private static void writeField(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        final byte[] bytes = value.getBytes(StringUtils.UTF8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readField(DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StringUtils.UTF8);
+    }
+
+    /**
+     * Who the request is made for: its API key, and the access key of a
+     * SigV4 {@code Authorization} header, which unlike its signature is the
+     * same for every request, or the whole header for other schemes.
+     */
+    private static String identity(HttpRequest request) {
+        final String apiKey = header(request.getHeaders(), "x-api-key");
+        String authorization = header(request.getHeaders(), "Authorization");
+        if (authorization != null) {
+            final int start = authorization.indexOf(CREDENTIAL_PREFIX);
+            if (start >= 0) {
+                final int end = authorization.indexOf('/', start);
+                authorization = authorization.substring(start + CREDENTIAL_PREFIX.length(),
+                        end < 0 ? authorization.length() : end);
+            }
+        }
+        return (apiKey == null ? "" : apiKey) + "\n"
+                + (authorization == null ? "" : authorization);
+    }
+
+    /**
+     * The cache key: a hex SHA-256 of the identity and the URL, also used as
+     * the file name.
+     */
+    private static String hash(String identity, String url) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update("GET\n".getBytes(StringUtils.UTF8));
+            digest.update(identity.getBytes(StringUtils.UTF8));
+            digest.update("\n".getBytes(StringUtils.UTF8));
+            digest.update(url.getBytes(StringUtils.UTF8));
+            return BinaryUtils.toHex(digest.digest());
+        } catch (final NoSuchAlgorithmException e) {
+            throw new AmazonClientException("SHA-256 is not available", e);
+        }
+    }
+
+    /** A response held by the cache, shared read-only by every hit */
+    private static final class Entry {
+        final int statusCode;
+        final String statusText;
+        final Map<String, String> headers;
+        /** Lower case header name to request value; null if not cacheable */
+        final Map<String, String> vary;
+        final byte[] body;
+        final long expiresAt;
+
+        Entry(int statusCode, String statusText, Map<String, String> headers,
+                Map<String, String> vary, byte[] body, long expiresAt) {
+            this.statusCode = statusCode;
+            this.statusText = statusText;
+            this.headers = headers;
+            this.vary = vary;
+            this.body = body;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean matches(HttpRequest request) {
+            if (vary == null) {
+                return false;
+            }
+            for (final Map.Entry<String, String> entry : vary.entrySet()) {
+                final String value = header(request.getHeaders(), entry.getKey());
+                if (!entry.getValue().equals(value == null ? "" : value)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * The entry with the headers of a {@code 304} response merged in,
+         * and its freshness computed again.
+         */
+        Entry refresh(Map<String, String> notModified, long now) {
+            final Map<String, String> merged = new HashMap<String, String>(headers);
+            for (final Map.Entry<String, String> header : notModified.entrySet()) {
+                if (contains(TRANSFER_HEADERS, header.getKey())) {
+                    continue;
+                }
+                final Iterator<String> names = merged.keySet().iterator();
+                while (names.hasNext()) {
+                    if (names.next().equalsIgnoreCase(header.getKey())) {
+                        names.remove();
+                    }
+                }
+                merged.put(header.getKey(), header.getValue());
+            }
+            return new Entry(statusCode, statusText, merged, vary, body,
+                    expiresAt(merged, now));
+        }
+
+        HttpResponse toResponse() {
+            final HttpResponse.Builder builder = HttpResponse.builder()
+                    .statusCode(statusCode)
+                    .statusText(statusText)
+                    .content(new ByteArrayInputStream(body));
+            for (final Map.Entry<String, String> header : headers.entrySet()) {
+                builder.header(header.getKey(), header.getValue());
+            }
+            builder.header("Content-Length", String.valueOf(body.length));
+            return builder.build();
+        }
+    }
+}
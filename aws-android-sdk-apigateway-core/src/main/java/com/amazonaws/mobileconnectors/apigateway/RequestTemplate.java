@@ -0,0 +1,308 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.apigateway;
+
+import com.amazonaws.Request;
+import com.amazonaws.http.HttpMethodName;
+import com.amazonaws.mobileconnectors.apigateway.annotation.Operation;
+import com.amazonaws.mobileconnectors.apigateway.annotation.Parameter;
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The parts of a request that only depend on the interface method: the HTTP
+ * method, the resource path split around its path parameters, how each
+ * argument is bound and the Gson adapter of the return type. A template is
+ * compiled once per method, so a call only binds its arguments.
+ * <p>
+ * Templates are immutable and can be shared by all clients.
+ */
+final class RequestTemplate {
+
+    private static final int NO_PARAMETER = -1;
+
+    /** Where an argument goes */
+    private enum Location {
+        HEADER, PATH, QUERY, BODY, UNKNOWN, IGNORED
+    }
+
+    private final String httpMethod;
+    /** null if the method is tunneled through X-HTTP-Method-Override */
+    private final HttpMethodName httpMethodName;
+
+    /** Literal parts of the path, with the placeholders in between */
+    private final String[] pathLiterals;
+    /** Index of the argument for each placeholder after a literal */
+    private final int[] pathArguments;
+    private final String[] pathPlaceholders;
+
+    /** Index of the body argument, or -1 if there is none */
+    private final int bodyIndex;
+    private final Location[] locations;
+    private final String[] names;
+    private final String[] rawLocations;
+
+    /** null for void methods */
+    private final TypeAdapter<?> responseAdapter;
+
+    private RequestTemplate(Operation op, Annotation[][] annotations, TypeAdapter<?> responseAdapter) {
+        httpMethod = op.method();
+        HttpMethodName methodName;
+        try {
+            methodName = HttpMethodName.valueOf(httpMethod);
+        } catch (final IllegalArgumentException iae) {
+            methodName = null;
+        }
+        httpMethodName = methodName;
+        this.responseAdapter = responseAdapter;
+
+        final int length = annotations.length;
+        locations = new Location[length];
+        names = new String[length];
+        rawLocations = new String[length];
+        final Map<String, Integer> pathParameters = new HashMap<String, Integer>();
+        int body = NO_PARAMETER;
+        for (int i = 0; i < length; i++) {
+            // content body
+            if (annotations[i].length == 0) {
+                if (body != NO_PARAMETER) {
+                    throw new IllegalStateException("Can't have more than one Body");
+                }
+                body = i;
+                locations[i] = Location.BODY;
+                continue;
+            }
+
+            locations[i] = Location.IGNORED;
+            for (final Annotation annotation : annotations[i]) {
+                if (annotation instanceof Parameter) {
+                    final Parameter p = (Parameter) annotation;
+                    names[i] = p.name();
+                    rawLocations[i] = p.location();
+                    locations[i] = locationOf(p.location());
+                    if (locations[i] == Location.PATH && !pathParameters.containsKey(p.name())) {
+                        pathParameters.put(p.name(), i);
+                    }
+                    break;
+                }
+            }
+        }
+
+        bodyIndex = body;
+
+        // split the path around the placeholders of path parameters, other
+        // braces are left as they are
+        final String path = op.path();
+        final List<String> literals = new ArrayList<String>();
+        final List<Integer> arguments = new ArrayList<Integer>();
+        final List<String> placeholders = new ArrayList<String>();
+        int literalStart = 0;
+        int open = path.indexOf('{');
+        while (open >= 0) {
+            final int close = path.indexOf('}', open);
+            if (close < 0) {
+                break;
+            }
+            final Integer argument = pathParameters.get(path.substring(open + 1, close));
+            if (argument != null) {
+                literals.add(path.substring(literalStart, open));
+                arguments.add(argument);
+                placeholders.add(path.substring(open, close + 1));
+                literalStart = close + 1;
+            }
+            open = path.indexOf('{', argument != null ? close + 1 : open + 1);
+        }
+        literals.add(path.substring(literalStart));
+        pathLiterals = literals.toArray(new String[literals.size()]);
+        pathPlaceholders = placeholders.toArray(new String[placeholders.size()]);
+        pathArguments = new int[arguments.size()];
+        for (int i = 0; i < pathArguments.length; i++) {
+            pathArguments[i] = arguments.get(i);
+        }
+    }
+
+    /**
+     * Compiles the template of a method.
+     *
+     * @param method method that annotated with {@link Operation}
+     * @param gson the Gson to read responses with
+     * @return the template
+     */
+    static RequestTemplate compile(Method method, Gson gson) {
+        final Operation op = method.getAnnotation(Operation.class);
+        if (op == null) {
+            throw new IllegalArgumentException("Method isn't annotated with Operation");
+        }
+        final Class<?> returnType = method.getReturnType();
+        final TypeAdapter<?> responseAdapter = returnType == void.class
+                ? null
+                : gson.getAdapter(TypeToken.get(returnType));
+        return new RequestTemplate(op, method.getParameterAnnotations(), responseAdapter);
+    }
+
+    private static Location locationOf(String location) {
+        if ("header".equals(location)) {
+            return Location.HEADER;
+        } else if ("path".equals(location)) {
+            return Location.PATH;
+        } else if ("query".equals(location)) {
+            return Location.QUERY;
+        }
+        return Location.UNKNOWN;
+    }
+
+    /**
+     * @return the resource path with the path arguments filled in.
+     */
+    String resourcePath(Object[] args) {
+        if (pathArguments.length == 0) {
+            return pathLiterals[0];
+        }
+        final StringBuilder sb = new StringBuilder(pathLiterals[0]);
+        for (int i = 0; i < pathArguments.length; i++) {
+            final Object arg = args[pathArguments[i]];
+            sb.append(arg == null ? pathPlaceholders[i] : String.valueOf(arg));
+            sb.append(pathLiterals[i + 1]);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return the index of the body argument, or -1 if there is none.
+     */
+    int bodyIndex() {
+        return bodyIndex;
+    }
+
+    /**
+     * Adds the header and query arguments to the request.
+     */
+    void bindParameters(Request<?> request, Object[] args) {
+        for (int i = 0; i < locations.length; i++) {
+            final Object arg = args[i];
+            if (arg == null) {
+                continue;
+            }
+            switch (locations[i]) {
+                case HEADER:
+                    request.addHeader(names[i], String.valueOf(arg));
+                    break;
+                case QUERY:
+                    bindQuery(request, names[i], arg);
+                    break;
+                case UNKNOWN:
+                    throw new IllegalArgumentException("unknown parameter location: "
+                            + rawLocations[i]);
+                default:
+                    // path arguments are part of the resource path
+                    break;
+            }
+        }
+    }
+
+    private static void bindQuery(Request<?> request, String name, Object arg) {
+        if (Map.class.isAssignableFrom(arg.getClass())) {
+            @SuppressWarnings("unchecked")
+            final Map<String, Object> map = (Map<String, Object>) arg;
+            for (final Map.Entry<String, Object> entry : map.entrySet()) {
+                request.addParameter(entry.getKey(), String.valueOf(entry.getValue()));
+            }
+        } else if (Collection.class.isAssignableFrom(arg.getClass())) {
+            request.addParameter(name, joinList((Collection<?>) arg));
+        } else {
+            request.addParameter(name, String.valueOf(arg));
+        }
+    }
+
+    /**
+     * Sets HTTP method to the {@link Request} object. If the method is none of
+     * GET, POST, PUT, DELETE, and HEAD, then it will be tunneled via
+     * X-HTTP-Method-Override. Note that not all servers support this header.
+     *
+     * @param request request to be set
+     * @param hasContent indicate whether the request has content body
+     */
+    void setHttpMethod(Request<?> request, boolean hasContent) {
+        if (httpMethodName != null) {
+            request.setHttpMethod(httpMethodName);
+        } else {
+            request.addHeader("X-HTTP-Method-Override", httpMethod);
+            request.setHttpMethod(hasContent ? HttpMethodName.POST : HttpMethodName.GET);
+        }
+    }
+
+    /**
+     * @return whether the method returns a value.
+     */
+    boolean hasResponse() {
+        return responseAdapter != null;
+    }
+
+    /**
+     * Reads the response the way {@link Gson#fromJson(Reader, java.lang.reflect.Type)}
+     * does, but with the adapter resolved at compile time.
+     *
+     * @param reader the response content
+     * @return the response object, or null for an empty document
+     */
+    Object readResponse(Reader reader) throws IOException {
+        final JsonReader jsonReader = new JsonReader(reader);
+        jsonReader.setLenient(true);
+        try {
+            jsonReader.peek();
+        } catch (final EOFException e) {
+            // an empty document
+            return null;
+        }
+        final Object result = responseAdapter.read(jsonReader);
+        if (result != null && jsonReader.peek() != JsonToken.END_DOCUMENT) {
+            throw new JsonIOException("JSON document was not fully consumed.");
+        }
+        return result;
+    }
+
+    private static String joinList(Collection<?> objects) {
+        if (objects == null || objects.isEmpty()) {
+            return "";
+        }
+        final StringBuilder sb = new StringBuilder();
+        boolean first = true;
+        for (final Object object : objects) {
+            if (first) {
+                first = false;
+            } else {
+                sb.append(",");
+            }
+            sb.append(object);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.benchmark;
+
+import com.amazonaws.util.Base64;
+import com.amazonaws.util.BinaryUtils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Base64 and hex codecs, at the size of a digest and of a record payload.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CodecBenchmark {
+
+    @Param({"32", "4096"})
+    private int size;
+
+    private byte[] data;
+    private String base64;
+    private byte[] base64Bytes;
+    private String hex;
+
+    @Setup
+    public void setup() {
+        data = new byte[size];
+        new Random(size).nextBytes(data);
+        base64 = Base64.encodeAsString(data);
+        base64Bytes = Base64.encode(data);
+        hex = BinaryUtils.toHex(data);
+    }
+
+    @Benchmark
+    public String base64EncodeAsString() {
+        return Base64.encodeAsString(data);
+    }
+
+    @Benchmark
+    public byte[] base64Encode() {
+        return Base64.encode(data);
+    }
+
+    @Benchmark
+    public byte[] base64DecodeString() {
+        return Base64.decode(base64);
+    }
+
+    @Benchmark
+    public byte[] base64DecodeBytes() {
+        return Base64.decode(base64Bytes);
+    }
+
+    @Benchmark
+    public String toHex() {
+        return BinaryUtils.toHex(data);
+    }
+
+    @Benchmark
+    public byte[] fromHex() {
+        return BinaryUtils.fromHex(hex);
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.benchmark;
+
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.Request;
+import com.amazonaws.handlers.RequestHandler2;
+import com.amazonaws.http.AmazonHttpClient;
+import com.amazonaws.http.ExecutionContext;
+import com.amazonaws.http.JsonErrorResponseHandler;
+import com.amazonaws.http.JsonResponseHandler;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.GetItemResult;
+import com.amazonaws.services.dynamodbv2.model.transform.GetItemRequestMarshaller;
+import com.amazonaws.services.dynamodbv2.model.transform.GetItemResultJsonUnmarshaller;
+import com.amazonaws.transform.JsonErrorUnmarshaller;
+import com.amazonaws.util.StringUtils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A DynamoDB GetItem through {@link AmazonHttpClient#execute} against a stub
+ * server on the loopback interface, from marshalling the request to
+ * unmarshalling the response. Requests are not signed.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HttpClientBenchmark {
+
+    private static final String GET_ITEM_RESPONSE = "{\"Item\":{"
+            + "\"ForumName\":{\"S\":\"Amazon DynamoDB\"},"
+            + "\"Subject\":{\"S\":\"DynamoDB Thread 1\"},"
+            + "\"LastPostedBy\":{\"S\":\"User A\"},"
+            + "\"Views\":{\"N\":\"100\"},"
+            + "\"Tags\":{\"SS\":[\"index\",\"primarykey\",\"table\"]}}}";
+
+    private StubServer server;
+    private URI endpoint;
+    private AmazonHttpClient client;
+    private GetItemRequest getItemRequest;
+    private GetItemRequestMarshaller marshaller;
+    private JsonResponseHandler<GetItemResult> responseHandler;
+    private JsonErrorResponseHandler errorResponseHandler;
+
+    @Setup
+    public void setup() throws IOException {
+        server = new StubServer(GET_ITEM_RESPONSE.getBytes(StringUtils.UTF8));
+        endpoint = URI.create("http://127.0.0.1:" + server.getPort());
+
+        client = new AmazonHttpClient(new ClientConfiguration());
+        getItemRequest = new GetItemRequest()
+                .withTableName("Thread")
+                .addKeyEntry("ForumName", new AttributeValue("Amazon DynamoDB"))
+                .addKeyEntry("Subject", new AttributeValue("DynamoDB Thread 1"));
+        marshaller = new GetItemRequestMarshaller();
+        responseHandler = new JsonResponseHandler<GetItemResult>(
+                GetItemResultJsonUnmarshaller.getInstance());
+        errorResponseHandler = new JsonErrorResponseHandler(
+                Collections.singletonList(new JsonErrorUnmarshaller()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.shutdown();
+        server.close();
+    }
+
+    @Benchmark
+    public GetItemResult getItem() {
+        final Request<GetItemRequest> request = marshaller.marshall(getItemRequest);
+        request.setEndpoint(endpoint);
+        final ExecutionContext executionContext = new ExecutionContext(
+                Collections.<RequestHandler2> emptyList(), false, null);
+        return client.execute(request, responseHandler, errorResponseHandler, executionContext)
+                .getAwsResponse();
+    }
+
+    /**
+     * An HTTP/1.1 server that answers every request with the same response,
+     * in a single write, and keeps connections open. Unlike a general purpose
+     * server it adds no latency of its own, so the client dominates the
+     * measurement.
+     */
+    private static final class StubServer implements Runnable {
+        private final ServerSocket serverSocket;
+        private final byte[] response;
+
+        StubServer(byte[] body) throws IOException {
+            final String headers = "HTTP/1.1 200 OK\r\n"
+                    + "Content-Type: application/x-amz-json-1.0\r\n"
+                    + "x-amzn-RequestId: BENCHMARK\r\n"
+                    + "Content-Length: " + body.length + "\r\n\r\n";
+            final byte[] head = headers.getBytes(StringUtils.UTF8);
+            response = new byte[head.length + body.length];
+            System.arraycopy(head, 0, response, 0, head.length);
+            System.arraycopy(body, 0, response, head.length, body.length);
+
+            serverSocket = new ServerSocket(0, 0, InetAddress.getLoopbackAddress());
+            final Thread acceptor = new Thread(this, "benchmark-stub-server");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        void close() {
+            try {
+                serverSocket.close();
+            } catch (final IOException e) {
+                // the acceptor stops either way
+            }
+        }
+
+        @Override
+        public void run() {
+            while (!serverSocket.isClosed()) {
+                try {
+                    final Socket socket = serverSocket.accept();
+                    socket.setTcpNoDelay(true);
+                    final Thread connection = new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            serve(socket);
+                        }
+                    }, "benchmark-stub-connection");
+                    connection.setDaemon(true);
+                    connection.start();
+                } catch (final IOException e) {
+                    // closed
+                }
+            }
+        }
+
+        private void serve(Socket socket) {
+            try {
+                final InputStream in = new BufferedInputStream(socket.getInputStream());
+                final OutputStream out = socket.getOutputStream();
+                while (true) {
+                    final int contentLength = readHeaders(in);
+                    if (contentLength < 0) {
+                        break;
+                    }
+                    for (long skipped = 0; skipped < contentLength;) {
+                        final long n = in.skip(contentLength - skipped);
+                        if (n <= 0) {
+                            return;
+                        }
+                        skipped += n;
+                    }
+                    out.write(response);
+                    out.flush();
+                }
+            } catch (final IOException e) {
+                // the client closed the connection
+            } finally {
+                try {
+                    socket.close();
+                } catch (final IOException e) {
+                    // ignored
+                }
+            }
+        }
+
+        /**
+         * Reads the request line and headers.
+         *
+         * @return the content length of the request, or -1 at the end of the
+         *         stream.
+         */
+        private static int readHeaders(InputStream in) throws IOException {
+            int contentLength = 0;
+            final StringBuilder line = new StringBuilder();
+            boolean firstLine = true;
+            int c;
+            while ((c = in.read()) != -1) {
+                if (c == '\r') {
+                    continue;
+                }
+                if (c != '\n') {
+                    line.append((char) c);
+                    continue;
+                }
+                if (line.length() == 0) {
+                    return contentLength;
+                }
+                final String header = line.toString().toLowerCase(Locale.US);
+                if (!firstLine && header.startsWith("content-length:")) {
+                    contentLength = Integer.parseInt(header.substring(15).trim());
+                }
+                firstLine = false;
+                line.setLength(0);
+            }
+            return -1;
+        }
+    }
+}
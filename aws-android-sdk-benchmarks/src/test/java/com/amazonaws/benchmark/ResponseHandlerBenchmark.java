@@ -0,0 +1,115 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.benchmark;
+
+import com.amazonaws.http.HttpResponse;
+import com.amazonaws.http.JsonResponseHandler;
+import com.amazonaws.http.StaxResponseHandler;
+import com.amazonaws.services.dynamodbv2.model.QueryResult;
+import com.amazonaws.services.dynamodbv2.model.transform.QueryResultJsonUnmarshaller;
+import com.amazonaws.services.s3.internal.S3XmlResponseHandler;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.transform.Unmarshallers;
+import com.amazonaws.services.sqs.model.ReceiveMessageResult;
+import com.amazonaws.services.sqs.model.transform.ReceiveMessageResultStaxUnmarshaller;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Unmarshalling of recorded responses of the JSON, REST-XML and Query
+ * protocols: a DynamoDB Query, an S3 ListObjects and an SQS ReceiveMessage,
+ * each with ten to twenty items.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ResponseHandlerBenchmark {
+
+    private byte[] dynamoDBQuery;
+    private String dynamoDBQueryCrc32;
+    private byte[] s3ListObjects;
+    private byte[] sqsReceiveMessage;
+
+    private JsonResponseHandler<QueryResult> queryHandler;
+    private S3XmlResponseHandler<ObjectListing> listObjectsHandler;
+    private StaxResponseHandler<ReceiveMessageResult> receiveMessageHandler;
+
+    @Setup
+    public void setup() {
+        dynamoDBQuery = Responses.load(Responses.DYNAMODB_QUERY);
+        final CRC32 crc32 = new CRC32();
+        crc32.update(dynamoDBQuery);
+        dynamoDBQueryCrc32 = String.valueOf(crc32.getValue());
+        s3ListObjects = Responses.load(Responses.S3_LIST_OBJECTS);
+        sqsReceiveMessage = Responses.load(Responses.SQS_RECEIVE_MESSAGE);
+
+        queryHandler = new JsonResponseHandler<QueryResult>(
+                QueryResultJsonUnmarshaller.getInstance());
+        listObjectsHandler = new S3XmlResponseHandler<ObjectListing>(
+                new Unmarshallers.ListObjectsUnmarshaller(false));
+        receiveMessageHandler = new StaxResponseHandler<ReceiveMessageResult>(
+                ReceiveMessageResultStaxUnmarshaller.getInstance());
+    }
+
+    @Benchmark
+    public QueryResult dynamoDBQuery() throws Exception {
+        final HttpResponse response = HttpResponse.builder()
+                .statusCode(200)
+                .header("Content-Type", "application/x-amz-json-1.0")
+                .header("x-amz-crc32", dynamoDBQueryCrc32)
+                .header("x-amzn-RequestId", "RJ8FR7RBAN9PHFKV3V4T3DN3DRVV4KQNSO5AEMVJF66Q9ASUAAJG")
+                .content(new ByteArrayInputStream(dynamoDBQuery))
+                .build();
+        return queryHandler.handle(response).getResult();
+    }
+
+    @Benchmark
+    public ObjectListing s3ListObjects() throws Exception {
+        final HttpResponse response = HttpResponse.builder()
+                .statusCode(200)
+                .header("Content-Type", "application/xml")
+                .header("x-amz-request-id", "656c76696e6727732072657175657374")
+                .content(new ByteArrayInputStream(s3ListObjects))
+                .build();
+        return listObjectsHandler.handle(response).getResult();
+    }
+
+    @Benchmark
+    public ReceiveMessageResult sqsReceiveMessage() throws Exception {
+        final HttpResponse response = HttpResponse.builder()
+                .statusCode(200)
+                .header("Content-Type", "text/xml")
+                .content(new ByteArrayInputStream(sqsReceiveMessage))
+                .build();
+        return receiveMessageHandler.handle(response).getResult();
+    }
+}
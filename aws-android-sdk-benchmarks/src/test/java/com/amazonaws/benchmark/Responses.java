@@ -0,0 +1,52 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.benchmark;
+
+import com.amazonaws.util.IOUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Service responses recorded for the benchmarks, in the test resources.
+ */
+public final class Responses {
+
+    public static final String DYNAMODB_QUERY = "responses/dynamodb-query.json";
+    public static final String S3_LIST_OBJECTS = "responses/s3-list-objects.xml";
+    public static final String SQS_RECEIVE_MESSAGE = "responses/sqs-receive-message.xml";
+
+    private Responses() {
+    }
+
+    /**
+     * @param name the resource name of the response.
+     * @return the content of the response.
+     */
+    public static byte[] load(String name) {
+        final InputStream in = Responses.class.getClassLoader().getResourceAsStream(name);
+        if (in == null) {
+            throw new IllegalArgumentException("No recorded response " + name);
+        }
+        try {
+            return IOUtils.toByteArray(in);
+        } catch (final IOException e) {
+            throw new IllegalStateException("Unable to read recorded response " + name, e);
+        } finally {
+            IOUtils.closeQuietly(in, null);
+        }
+    }
+}
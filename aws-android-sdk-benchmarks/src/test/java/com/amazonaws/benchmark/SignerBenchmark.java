@@ -0,0 +1,112 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.benchmark;
+
+import com.amazonaws.DefaultRequest;
+import com.amazonaws.Request;
+import com.amazonaws.auth.AWS4Signer;
+import com.amazonaws.auth.AWSCredentials;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.http.HttpMethodName;
+import com.amazonaws.util.StringUtils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Signature Version 4 signing of a JSON protocol request with a body and of a
+ * GET request with query parameters.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SignerBenchmark {
+
+    private static final String QUERY_REQUEST = "{\"TableName\":\"Thread\","
+            + "\"KeyConditionExpression\":\"ForumName = :name\","
+            + "\"ExpressionAttributeValues\":{\":name\":{\"S\":\"Amazon DynamoDB\"}},"
+            + "\"ReturnConsumedCapacity\":\"TOTAL\",\"Limit\":10}";
+
+    private final AWSCredentials credentials = new BasicAWSCredentials(
+            "AKIDEXAMPLE", "wJalrXUtnFEMI/K7MDENG+bPxRfiCYEXAMPLEKEY");
+
+    private AWS4Signer jsonSigner;
+    private Request<?> jsonRequest;
+    private Map<String, String> jsonHeaders;
+
+    private AWS4Signer querySigner;
+    private Request<?> queryRequest;
+    private Map<String, String> queryHeaders;
+
+    @Setup
+    public void setup() {
+        jsonSigner = new AWS4Signer();
+        jsonSigner.setServiceName("dynamodb");
+        jsonSigner.setRegionName("us-east-1");
+        jsonRequest = new DefaultRequest<Object>("AmazonDynamoDB");
+        jsonRequest.setEndpoint(URI.create("https://dynamodb.us-east-1.amazonaws.com"));
+        jsonRequest.setHttpMethod(HttpMethodName.POST);
+        jsonRequest.addHeader("X-Amz-Target", "DynamoDB_20120810.Query");
+        jsonRequest.addHeader("Content-Type", "application/x-amz-json-1.0");
+        jsonRequest.setContent(new ByteArrayInputStream(QUERY_REQUEST.getBytes(StringUtils.UTF8)));
+        jsonHeaders = new HashMap<String, String>(jsonRequest.getHeaders());
+
+        querySigner = new AWS4Signer(false);
+        querySigner.setServiceName("s3");
+        querySigner.setRegionName("us-west-2");
+        queryRequest = new DefaultRequest<Object>("Amazon S3");
+        queryRequest.setEndpoint(URI.create("https://examplebucket.s3.us-west-2.amazonaws.com"));
+        queryRequest.setHttpMethod(HttpMethodName.GET);
+        queryRequest.setResourcePath("/photos/2019/07/IMG_0001.jpg");
+        queryRequest.addParameter("versionId", "3/L4kqtJlcpXroDTDmJ+rmSpXd3dIbrHY+MTRCxf3vjVBH40Nr8X8gdRQBpUMLUo");
+        queryRequest.addParameter("response-content-type", "image/jpeg");
+        queryRequest.addHeader("Range", "bytes=0-65535");
+        queryRequest.setContent(new ByteArrayInputStream(new byte[0]));
+        queryHeaders = new HashMap<String, String>(queryRequest.getHeaders());
+    }
+
+    @Benchmark
+    public String signJsonRequest() {
+        // drop the headers of the previous signature
+        jsonRequest.setHeaders(jsonHeaders);
+        jsonSigner.sign(jsonRequest, credentials);
+        return jsonRequest.getHeaders().get("Authorization");
+    }
+
+    @Benchmark
+    public String signGetRequest() {
+        queryRequest.setHeaders(queryHeaders);
+        querySigner.sign(queryRequest, credentials);
+        return queryRequest.getHeaders().get("Authorization");
+    }
+}
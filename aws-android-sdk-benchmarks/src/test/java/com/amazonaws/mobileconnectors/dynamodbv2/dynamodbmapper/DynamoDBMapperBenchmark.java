@@ -0,0 +1,228 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper;
+
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClient;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion of an annotated item to and from its attribute values with the
+ * item converter of {@link DynamoDBMapper}, as save and load do it. No
+ * service calls are made.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DynamoDBMapperBenchmark {
+
+    private ItemConverter converter;
+    private ForumThread thread;
+    private Map<String, AttributeValue> attributes;
+
+    @Setup
+    public void setup() {
+        final DynamoDBMapper mapper = DynamoDBMapper.builder()
+                .dynamoDBClient(new AmazonDynamoDBClient(new BasicAWSCredentials("access", "secret")))
+                .build();
+        converter = mapper.getConverter(DynamoDBMapperConfig.DEFAULT);
+
+        final Author author = new Author();
+        author.setName("User A");
+        author.setPosts(42);
+        thread = new ForumThread();
+        thread.setForumName("Amazon DynamoDB");
+        thread.setSubject("DynamoDB Thread 1");
+        thread.setMessage("DynamoDB thread 1 message text, long enough to be realistic for a post.");
+        thread.setLastPostedDateTime(new Date(1562011102514L));
+        thread.setViews(100L);
+        thread.setReplies(3);
+        thread.setAnswered(Boolean.TRUE);
+        thread.setTags(new HashSet<String>(Arrays.asList("index", "primarykey", "table")));
+        thread.setEdits(Arrays.asList("2019-07-01", "2019-07-02"));
+        thread.setAuthor(author);
+        thread.setVersion(7L);
+        attributes = converter.convert(thread);
+    }
+
+    @Benchmark
+    public Map<String, AttributeValue> marshall() {
+        return converter.convert(thread);
+    }
+
+    @Benchmark
+    public ForumThread unmarshall() {
+        return converter.unconvert(ForumThread.class, attributes);
+    }
+
+    @DynamoDBTable(tableName = "Thread")
+    public static class ForumThread {
+        private String forumName;
+        private String subject;
+        private String message;
+        private Date lastPostedDateTime;
+        private Long views;
+        private Integer replies;
+        private Boolean answered;
+        private Set<String> tags;
+        private List<String> edits;
+        private Author author;
+        private Long version;
+
+        @DynamoDBHashKey(attributeName = "ForumName")
+        public String getForumName() {
+            return forumName;
+        }
+
+        public void setForumName(String forumName) {
+            this.forumName = forumName;
+        }
+
+        @DynamoDBRangeKey(attributeName = "Subject")
+        public String getSubject() {
+            return subject;
+        }
+
+        public void setSubject(String subject) {
+            this.subject = subject;
+        }
+
+        @DynamoDBAttribute(attributeName = "Message")
+        public String getMessage() {
+            return message;
+        }
+
+        public void setMessage(String message) {
+            this.message = message;
+        }
+
+        @DynamoDBAttribute(attributeName = "LastPostedDateTime")
+        public Date getLastPostedDateTime() {
+            return lastPostedDateTime;
+        }
+
+        public void setLastPostedDateTime(Date lastPostedDateTime) {
+            this.lastPostedDateTime = lastPostedDateTime;
+        }
+
+        @DynamoDBAttribute(attributeName = "Views")
+        public Long getViews() {
+            return views;
+        }
+
+        public void setViews(Long views) {
+            this.views = views;
+        }
+
+        @DynamoDBAttribute(attributeName = "Replies")
+        public Integer getReplies() {
+            return replies;
+        }
+
+        public void setReplies(Integer replies) {
+            this.replies = replies;
+        }
+
+        @DynamoDBAttribute(attributeName = "Answered")
+        public Boolean getAnswered() {
+            return answered;
+        }
+
+        public void setAnswered(Boolean answered) {
+            this.answered = answered;
+        }
+
+        @DynamoDBAttribute(attributeName = "Tags")
+        public Set<String> getTags() {
+            return tags;
+        }
+
+        public void setTags(Set<String> tags) {
+            this.tags = tags;
+        }
+
+        @DynamoDBAttribute(attributeName = "Edits")
+        public List<String> getEdits() {
+            return edits;
+        }
+
+        public void setEdits(List<String> edits) {
+            this.edits = edits;
+        }
+
+        @DynamoDBAttribute(attributeName = "Author")
+        public Author getAuthor() {
+            return author;
+        }
+
+        public void setAuthor(Author author) {
+            this.author = author;
+        }
+
+        @DynamoDBVersionAttribute
+        public Long getVersion() {
+            return version;
+        }
+
+        public void setVersion(Long version) {
+            this.version = version;
+        }
+    }
+
+    @DynamoDBDocument
+    public static class Author {
+        private String name;
+        private int posts;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public int getPosts() {
+            return posts;
+        }
+
+        public void setPosts(int posts) {
+            this.posts = posts;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.kinesis.kinesisrecorder;
+
+import com.amazonaws.mobileconnectors.kinesis.kinesisrecorder.FileRecordStore.RecordIterator;
+import com.amazonaws.util.StringUtils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saving records to the {@link FileRecordStore} of a Kinesis recorder, and
+ * draining a batch of records the way the recorder submits them: parsing
+ * every line and removing the read records.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileRecordStoreBenchmark {
+
+    private static final String STREAM_NAME = "benchmark-stream";
+    private static final int RECORD_SIZE = 512;
+    private static final int BATCH_SIZE = 128;
+
+    /**
+     * A store in a temporary directory, emptied at the start of every
+     * iteration so the file does not grow over the run.
+     */
+    @State(Scope.Thread)
+    public static class Store {
+        private File directory;
+        FileRecordStore store;
+        String record;
+
+        @Setup
+        public void setup() throws IOException {
+            directory = File.createTempFile("FileRecordStoreBenchmark", "");
+            if (!directory.delete() || !directory.mkdir()) {
+                throw new IOException("Unable to create " + directory);
+            }
+            store = new FileRecordStore(directory, Constants.RECORDS_FILE_NAME, Long.MAX_VALUE);
+            final StringBuilder data = new StringBuilder(RECORD_SIZE);
+            while (data.length() < RECORD_SIZE) {
+                data.append("{\"event\":\"click\",\"screen\":\"home\",\"timestamp\":1562011102514}");
+            }
+            record = FileRecordParser.asString(STREAM_NAME,
+                    data.substring(0, RECORD_SIZE).getBytes(StringUtils.UTF8));
+        }
+
+        @Setup(Level.Iteration)
+        public void clear() throws IOException {
+            store.iterator().removeAllRecords();
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            store.iterator().removeAllRecords();
+            final File[] files = directory.listFiles();
+            if (files != null) {
+                for (final File file : files) {
+                    file.delete();
+                }
+            }
+            directory.delete();
+        }
+    }
+
+    /**
+     * A store filled with a batch before each drain. A drain takes long
+     * enough for the overhead of an invocation level setup not to matter.
+     */
+    @State(Scope.Thread)
+    public static class FilledStore extends Store {
+        @Setup(Level.Invocation)
+        public void fill() throws IOException {
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                store.put(record);
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean put(Store state) throws IOException {
+        return state.store.put(state.record);
+    }
+
+    @Benchmark
+    public int drain(FilledStore state) throws IOException {
+        final RecordIterator iterator = state.store.iterator();
+        final FileRecordParser parser = new FileRecordParser();
+        int size = 0;
+        try {
+            while (iterator.hasNext()) {
+                parser.parse(iterator.next());
+                size += parser.bytes.length;
+            }
+            iterator.removeReadRecords();
+        } finally {
+            iterator.close();
+        }
+        return size;
+    }
+}
@@ -17,11 +17,11 @@ package com.amazonaws.services.cloudwatch;
 
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.AmazonServiceException;
+import com.amazonaws.async.SdkExecutors;
 import com.amazonaws.handlers.AsyncHandler;
 import com.amazonaws.ClientConfiguration;
 import com.amazonaws.auth.AWSCredentials;
@@ -105,14 +105,14 @@ public class AmazonCloudWatchAsyncClient extends AmazonCloudWatchClient implemen
      */
     @Deprecated
     public AmazonCloudWatchAsyncClient(ClientConfiguration clientConfiguration) {
-        this(new DefaultAWSCredentialsProviderChain(), clientConfiguration, Executors
-                .newFixedThreadPool(clientConfiguration.getMaxConnections()));
+        this(new DefaultAWSCredentialsProviderChain(), clientConfiguration, SdkExecutors
+                .newClientExecutor(clientConfiguration.getMaxConnections()));
     }
 
     /**
      * Constructs a new asynchronous client to invoke service methods on Amazon
      * CloudWatch using the specified AWS account credentials. Default client
-     * settings will be used, and a fixed size thread pool will be created for
+     * settings will be used, and a shared SDK thread pool will be used for
      * executing the asynchronous tasks.
      * <p>
      * All calls made using this new client object are non-blocking, and will
@@ -123,7 +123,7 @@ public class AmazonCloudWatchAsyncClient extends AmazonCloudWatchClient implemen
      *            to use when authenticating with AWS services.
      */
     public AmazonCloudWatchAsyncClient(AWSCredentials awsCredentials) {
-        this(awsCredentials, Executors.newFixedThreadPool(DEFAULT_THREAD_POOL_SIZE));
+        this(awsCredentials, SdkExecutors.newClientExecutor(DEFAULT_THREAD_POOL_SIZE));
     }
 
     /**
@@ -171,8 +171,8 @@ public class AmazonCloudWatchAsyncClient extends AmazonCloudWatchClient implemen
     /**
      * Constructs a new asynchronous client to invoke service methods on Amazon
      * CloudWatch using the specified AWS account credentials provider. Default
-     * client settings will be used, and a fixed size thread pool will be
-     * created for executing the asynchronous tasks.
+     * client settings will be used, and a shared SDK thread pool will be
+     * used for executing the asynchronous tasks.
      * <p>
      * All calls made using this new client object are non-blocking, and will
      * immediately return a Java Future object that the caller can later check
@@ -183,7 +183,7 @@ public class AmazonCloudWatchAsyncClient extends AmazonCloudWatchClient implemen
      *            services.
      */
     public AmazonCloudWatchAsyncClient(AWSCredentialsProvider awsCredentialsProvider) {
-        this(awsCredentialsProvider, Executors.newFixedThreadPool(DEFAULT_THREAD_POOL_SIZE));
+        this(awsCredentialsProvider, SdkExecutors.newClientExecutor(DEFAULT_THREAD_POOL_SIZE));
     }
 
     /**
@@ -223,8 +223,8 @@ public class AmazonCloudWatchAsyncClient extends AmazonCloudWatchClient implemen
      */
     public AmazonCloudWatchAsyncClient(AWSCredentialsProvider awsCredentialsProvider,
             ClientConfiguration clientConfiguration) {
-        this(awsCredentialsProvider, clientConfiguration, Executors
-                .newFixedThreadPool(clientConfiguration.getMaxConnections()));
+        this(awsCredentialsProvider, clientConfiguration, SdkExecutors
+                .newClientExecutor(clientConfiguration.getMaxConnections()));
     }
 
     /**
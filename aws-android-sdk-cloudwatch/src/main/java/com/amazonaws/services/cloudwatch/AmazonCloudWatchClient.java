@@ -820,6 +820,8 @@ public class AmazonCloudWatchClient extends AmazonWebServiceClient implements Am
         Response<Void> response = null;
         try {
             request = new PutMetricDataRequestMarshaller().marshall(putMetricDataRequest);
+            // PutMetricData accepts gzip encoded payloads.
+            request.setCompressible(true);
             // Binds the request metrics to the current request.
             request.setAWSRequestMetrics(awsRequestMetrics);
             invoke(request, null, executionContext);
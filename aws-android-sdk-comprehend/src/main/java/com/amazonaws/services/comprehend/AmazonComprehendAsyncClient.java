@@ -17,11 +17,11 @@ package com.amazonaws.services.comprehend;
 
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.AmazonServiceException;
+import com.amazonaws.async.SdkExecutors;
 import com.amazonaws.handlers.AsyncHandler;
 import com.amazonaws.ClientConfiguration;
 import com.amazonaws.auth.AWSCredentials;
@@ -91,14 +91,14 @@ public class AmazonComprehendAsyncClient extends AmazonComprehendClient implemen
      */
     @Deprecated
     public AmazonComprehendAsyncClient(ClientConfiguration clientConfiguration) {
-        this(new DefaultAWSCredentialsProviderChain(), clientConfiguration, Executors
-                .newFixedThreadPool(clientConfiguration.getMaxConnections()));
+        this(new DefaultAWSCredentialsProviderChain(), clientConfiguration, SdkExecutors
+                .newClientExecutor(clientConfiguration.getMaxConnections()));
     }
 
     /**
      * Constructs a new asynchronous client to invoke service methods on Amazon
      * Comprehend using the specified AWS account credentials. Default client
-     * settings will be used, and a fixed size thread pool will be created for
+     * settings will be used, and a shared SDK thread pool will be used for
      * executing the asynchronous tasks.
      * <p>
      * All calls made using this new client object are non-blocking, and will
@@ -109,7 +109,7 @@ public class AmazonComprehendAsyncClient extends AmazonComprehendClient implemen
      *            to use when authenticating with AWS services.
      */
     public AmazonComprehendAsyncClient(AWSCredentials awsCredentials) {
-        this(awsCredentials, Executors.newFixedThreadPool(DEFAULT_THREAD_POOL_SIZE));
+        this(awsCredentials, SdkExecutors.newClientExecutor(DEFAULT_THREAD_POOL_SIZE));
     }
 
     /**
@@ -157,8 +157,8 @@ public class AmazonComprehendAsyncClient extends AmazonComprehendClient implemen
     /**
      * Constructs a new asynchronous client to invoke service methods on Amazon
      * Comprehend using the specified AWS account credentials provider. Default
-     * client settings will be used, and a fixed size thread pool will be
-     * created for executing the asynchronous tasks.
+     * client settings will be used, and a shared SDK thread pool will be
+     * used for executing the asynchronous tasks.
      * <p>
      * All calls made using this new client object are non-blocking, and will
      * immediately return a Java Future object that the caller can later check
@@ -169,7 +169,7 @@ public class AmazonComprehendAsyncClient extends AmazonComprehendClient implemen
      *            services.
      */
     public AmazonComprehendAsyncClient(AWSCredentialsProvider awsCredentialsProvider) {
-        this(awsCredentialsProvider, Executors.newFixedThreadPool(DEFAULT_THREAD_POOL_SIZE));
+        this(awsCredentialsProvider, SdkExecutors.newClientExecutor(DEFAULT_THREAD_POOL_SIZE));
     }
 
     /**
@@ -209,8 +209,8 @@ public class AmazonComprehendAsyncClient extends AmazonComprehendClient implemen
      */
     public AmazonComprehendAsyncClient(AWSCredentialsProvider awsCredentialsProvider,
             ClientConfiguration clientConfiguration) {
-        this(awsCredentialsProvider, clientConfiguration, Executors
-                .newFixedThreadPool(clientConfiguration.getMaxConnections()));
+        this(awsCredentialsProvider, clientConfiguration, SdkExecutors
+                .newClientExecutor(clientConfiguration.getMaxConnections()));
     }
 
     /**
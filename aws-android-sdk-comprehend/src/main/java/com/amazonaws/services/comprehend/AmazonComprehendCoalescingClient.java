@@ -0,0 +1,503 @@
+/*
+ * Copyright 2010-2022 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.services.comprehend;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.AmazonServiceException.ErrorType;
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.RequestClientOptions.Marker;
+import com.amazonaws.async.SdkExecutors;
+import com.amazonaws.auth.AWSCredentialsProvider;
+import com.amazonaws.services.comprehend.model.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * An {@link AmazonComprehendAsyncClient} that coalesces concurrent
+ * single-document {@code detectSentiment}, {@code detectEntities},
+ * {@code detectKeyPhrases} and {@code detectDominantLanguage} calls into the
+ * matching {@code BatchDetect*} requests.
+ * <p>
+ * The first call for an operation and language code opens a batch and waits
+ * up to the coalescing window for other calls to join it; the batch is sent
+ * when the window ends or it holds {@value #MAX_BATCH_SIZE} documents. Each
+ * call then returns its own entry of the batch result, or throws an
+ * {@link AmazonServiceException} built from its {@link BatchItemError}. A
+ * batch nobody joined is sent as the original single-document request.
+ * <p>
+ * Both the blocking methods and their {@code *Async} counterparts are
+ * coalesced; at most as many asynchronous calls as the executor has threads
+ * can share a batch. Calls that name a custom entity recognizer endpoint, or
+ * that carry their own credentials, progress listener, metric collector or
+ * user agent, are sent unchanged, as a batch can only be sent with one of
+ * each.
+ */
+public class AmazonComprehendCoalescingClient extends AmazonComprehendAsyncClient {
+
+    /** The maximum number of documents in a BatchDetect* request */
+    public static final int MAX_BATCH_SIZE = 25;
+
+    /** Item error codes of failures on the service's side */
+    private static final Set<String> SERVER_FAULT_ERROR_CODES = new HashSet<String>(
+            Arrays.asList("INTERNAL_SERVER_ERROR", "InternalServerException",
+                    "InternalFailure", "ServiceUnavailable"));
+
+    /** 20 milliseconds */
+    public static final long DEFAULT_WINDOW_MILLIS = 20;
+
+    private final long windowMillis;
+
+    /** Open batches by operation and language code, guarded by itself */
+    private final Map<String, Batch<?, ?>> openBatches = new HashMap<String, Batch<?, ?>>();
+
+    /**
+     * Constructs a new coalescing client using the specified AWS account
+     * credentials provider, default client settings and the default
+     * coalescing window.
+     *
+     * @param awsCredentialsProvider The AWS credentials provider which will
+     *            provide credentials to authenticate requests with AWS
+     *            services.
+     */
+    public AmazonComprehendCoalescingClient(AWSCredentialsProvider awsCredentialsProvider) {
+        this(awsCredentialsProvider, new ClientConfiguration());
+    }
+
+    /**
+     * Constructs a new coalescing client using the specified AWS account
+     * credentials provider and client configuration options, and the default
+     * coalescing window.
+     *
+     * @param awsCredentialsProvider The AWS credentials provider which will
+     *            provide credentials to authenticate requests with AWS
+     *            services.
+     * @param clientConfiguration Client configuration options (ex: max retry
+     *            limit, proxy settings, etc).
+     */
+    public AmazonComprehendCoalescingClient(AWSCredentialsProvider awsCredentialsProvider,
+            ClientConfiguration clientConfiguration) {
+        this(awsCredentialsProvider, clientConfiguration, SdkExecutors
+                .newClientExecutor(clientConfiguration.getMaxConnections()),
+                DEFAULT_WINDOW_MILLIS);
+    }
+
+    /**
+     * Constructs a new coalescing client.
+     *
+     * @param awsCredentialsProvider The AWS credentials provider which will
+     *            provide credentials to authenticate requests with AWS
+     *            services.
+     * @param clientConfiguration Client configuration options (ex: max retry
+     *            limit, proxy settings, etc).
+     * @param executorService The executor service by which all asynchronous
+     *            requests will be executed.
+     * @param windowMillis how long the first call of a batch waits for others
+     *            to join it, in milliseconds.
+     */
+    public AmazonComprehendCoalescingClient(AWSCredentialsProvider awsCredentialsProvider,
+            ClientConfiguration clientConfiguration, ExecutorService executorService,
+            long windowMillis) {
+        super(awsCredentialsProvider, clientConfiguration, executorService);
+        if (windowMillis < 0) {
+            throw new IllegalArgumentException("windowMillis must not be negative");
+        }
+        this.windowMillis = windowMillis;
+    }
+
+    /**
+     * @return how long the first call of a batch waits for others to join it,
+     *         in milliseconds.
+     */
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+
+    @Override
+    public DetectSentimentResult detectSentiment(DetectSentimentRequest detectSentimentRequest)
+            throws AmazonServiceException, AmazonClientException {
+        if (detectSentimentRequest.getText() == null
+                || detectSentimentRequest.getLanguageCode() == null
+                || !isCoalescable(detectSentimentRequest)) {
+            return super.detectSentiment(detectSentimentRequest);
+        }
+        return coalesce("DetectSentiment", detectSentimentRequest.getLanguageCode(),
+                detectSentimentRequest, sentiment);
+    }
+
+    @Override
+    public DetectEntitiesResult detectEntities(DetectEntitiesRequest detectEntitiesRequest)
+            throws AmazonServiceException, AmazonClientException {
+        if (detectEntitiesRequest.getText() == null
+                || detectEntitiesRequest.getLanguageCode() == null
+                || detectEntitiesRequest.getEndpointArn() != null
+                || !isCoalescable(detectEntitiesRequest)) {
+            return super.detectEntities(detectEntitiesRequest);
+        }
+        return coalesce("DetectEntities", detectEntitiesRequest.getLanguageCode(),
+                detectEntitiesRequest, entities);
+    }
+
+    @Override
+    public DetectKeyPhrasesResult detectKeyPhrases(DetectKeyPhrasesRequest detectKeyPhrasesRequest)
+            throws AmazonServiceException, AmazonClientException {
+        if (detectKeyPhrasesRequest.getText() == null
+                || detectKeyPhrasesRequest.getLanguageCode() == null
+                || !isCoalescable(detectKeyPhrasesRequest)) {
+            return super.detectKeyPhrases(detectKeyPhrasesRequest);
+        }
+        return coalesce("DetectKeyPhrases", detectKeyPhrasesRequest.getLanguageCode(),
+                detectKeyPhrasesRequest, keyPhrases);
+    }
+
+    @Override
+    public DetectDominantLanguageResult detectDominantLanguage(
+            DetectDominantLanguageRequest detectDominantLanguageRequest)
+            throws AmazonServiceException, AmazonClientException {
+        if (detectDominantLanguageRequest.getText() == null
+                || !isCoalescable(detectDominantLanguageRequest)) {
+            return super.detectDominantLanguage(detectDominantLanguageRequest);
+        }
+        return coalesce("DetectDominantLanguage", null, detectDominantLanguageRequest,
+                dominantLanguage);
+    }
+
+    /**
+     * @return whether the request can share a batch with other calls, that
+     *         is it only relies on the client's credentials, listeners and
+     *         user agent.
+     */
+    @SuppressWarnings("deprecation")
+    private static boolean isCoalescable(AmazonWebServiceRequest request) {
+        return request.getRequestCredentials() == null
+                && request.getGeneralProgressListener() == null
+                && request.getRequestMetricCollector() == null
+                && request.getRequestClientOptions().getClientMarker(Marker.USER_AGENT) == null;
+    }
+
+    /**
+     * Adds the request to the open batch for its operation and language code,
+     * sending the batch if this call opened it, and waits for its result.
+     */
+    @SuppressWarnings("unchecked")
+    private <Req, Res> Res coalesce(String operation, String languageCode, Req request,
+            Operation<Req, Res> op) {
+        String key = operation + "/" + languageCode;
+        Batch<Req, Res> batch;
+        boolean leader;
+        int index;
+        synchronized (openBatches) {
+            batch = (Batch<Req, Res>) openBatches.get(key);
+            leader = batch == null;
+            if (leader) {
+                batch = new Batch<Req, Res>(languageCode, op);
+                openBatches.put(key, batch);
+            }
+            index = batch.add(request);
+            if (batch.size() >= MAX_BATCH_SIZE) {
+                openBatches.remove(key);
+                batch.close();
+            }
+        }
+        if (leader) {
+            batch.awaitClose(windowMillis);
+            synchronized (openBatches) {
+                if (openBatches.get(key) == batch) {
+                    openBatches.remove(key);
+                }
+            }
+            batch.send();
+        }
+        return batch.get(index);
+    }
+
+    /**
+     * Converts an item error of a batch result into the exception thrown by
+     * the call of that item.
+     */
+    static AmazonServiceException convert(BatchItemError error) {
+        AmazonServiceException toReturn = new AmazonServiceException(error.getErrorMessage());
+        toReturn.setErrorCode(error.getErrorCode());
+        toReturn.setErrorType(SERVER_FAULT_ERROR_CODES.contains(error.getErrorCode())
+                ? ErrorType.Service : ErrorType.Client);
+        toReturn.setServiceName("AmazonComprehend");
+        return toReturn;
+    }
+
+    /**
+     * Sends a single-document operation, alone or as a batch.
+     *
+     * @param <Req> the single-document request type
+     * @param <Res> the single-document result type
+     */
+    private abstract static class Operation<Req, Res> {
+        /** Sends the request unbatched */
+        abstract Res single(Req request);
+
+        /** Sends the requests as one batch, completing each item of it */
+        abstract void batch(String languageCode, List<Req> requests, Batch<Req, Res> batch);
+    }
+
+    private final Operation<DetectSentimentRequest, DetectSentimentResult> sentiment =
+            new Operation<DetectSentimentRequest, DetectSentimentResult>() {
+        @Override
+        DetectSentimentResult single(DetectSentimentRequest request) {
+            return AmazonComprehendCoalescingClient.super.detectSentiment(request);
+        }
+
+        @Override
+        void batch(String languageCode, List<DetectSentimentRequest> requests,
+                Batch<DetectSentimentRequest, DetectSentimentResult> batch) {
+            List<String> texts = new ArrayList<String>(requests.size());
+            for (DetectSentimentRequest request : requests) {
+                texts.add(request.getText());
+            }
+            BatchDetectSentimentResult result = batchDetectSentiment(
+                    new BatchDetectSentimentRequest()
+                            .withTextList(texts)
+                            .withLanguageCode(languageCode));
+            if (result.getResultList() != null) {
+                for (BatchDetectSentimentItemResult item : result.getResultList()) {
+                    batch.succeed(item.getIndex(), new DetectSentimentResult()
+                            .withSentiment(item.getSentiment())
+                            .withSentimentScore(item.getSentimentScore()));
+                }
+            }
+            batch.fail(result.getErrorList());
+        }
+    };
+
+    private final Operation<DetectEntitiesRequest, DetectEntitiesResult> entities =
+            new Operation<DetectEntitiesRequest, DetectEntitiesResult>() {
+        @Override
+        DetectEntitiesResult single(DetectEntitiesRequest request) {
+            return AmazonComprehendCoalescingClient.super.detectEntities(request);
+        }
+
+        @Override
+        void batch(String languageCode, List<DetectEntitiesRequest> requests,
+                Batch<DetectEntitiesRequest, DetectEntitiesResult> batch) {
+            List<String> texts = new ArrayList<String>(requests.size());
+            for (DetectEntitiesRequest request : requests) {
+                texts.add(request.getText());
+            }
+            BatchDetectEntitiesResult result = batchDetectEntities(
+                    new BatchDetectEntitiesRequest()
+                            .withTextList(texts)
+                            .withLanguageCode(languageCode));
+            if (result.getResultList() != null) {
+                for (BatchDetectEntitiesItemResult item : result.getResultList()) {
+                    batch.succeed(item.getIndex(), new DetectEntitiesResult()
+                            .withEntities(item.getEntities()));
+                }
+            }
+            batch.fail(result.getErrorList());
+        }
+    };
+
+    private final Operation<DetectKeyPhrasesRequest, DetectKeyPhrasesResult> keyPhrases =
+            new Operation<DetectKeyPhrasesRequest, DetectKeyPhrasesResult>() {
+        @Override
+        DetectKeyPhrasesResult single(DetectKeyPhrasesRequest request) {
+            return AmazonComprehendCoalescingClient.super.detectKeyPhrases(request);
+        }
+
+        @Override
+        void batch(String languageCode, List<DetectKeyPhrasesRequest> requests,
+                Batch<DetectKeyPhrasesRequest, DetectKeyPhrasesResult> batch) {
+            List<String> texts = new ArrayList<String>(requests.size());
+            for (DetectKeyPhrasesRequest request : requests) {
+                texts.add(request.getText());
+            }
+            BatchDetectKeyPhrasesResult result = batchDetectKeyPhrases(
+                    new BatchDetectKeyPhrasesRequest()
+                            .withTextList(texts)
+                            .withLanguageCode(languageCode));
+            if (result.getResultList() != null) {
+                for (BatchDetectKeyPhrasesItemResult item : result.getResultList()) {
+                    batch.succeed(item.getIndex(), new DetectKeyPhrasesResult()
+                            .withKeyPhrases(item.getKeyPhrases()));
+                }
+            }
+            batch.fail(result.getErrorList());
+        }
+    };
+
+    private final Operation<DetectDominantLanguageRequest, DetectDominantLanguageResult> dominantLanguage =
+            new Operation<DetectDominantLanguageRequest, DetectDominantLanguageResult>() {
+        @Override
+        DetectDominantLanguageResult single(DetectDominantLanguageRequest request) {
+            return AmazonComprehendCoalescingClient.super.detectDominantLanguage(request);
+        }
+
+        @Override
+        void batch(String languageCode, List<DetectDominantLanguageRequest> requests,
+                Batch<DetectDominantLanguageRequest, DetectDominantLanguageResult> batch) {
+            List<String> texts = new ArrayList<String>(requests.size());
+            for (DetectDominantLanguageRequest request : requests) {
+                texts.add(request.getText());
+            }
+            BatchDetectDominantLanguageResult result = batchDetectDominantLanguage(
+                    new BatchDetectDominantLanguageRequest()
+                            .withTextList(texts));
+            if (result.getResultList() != null) {
+                for (BatchDetectDominantLanguageItemResult item : result.getResultList()) {
+                    batch.succeed(item.getIndex(), new DetectDominantLanguageResult()
+                            .withLanguages(item.getLanguages()));
+                }
+            }
+            batch.fail(result.getErrorList());
+        }
+    };
+
+    /**
+     * The calls of one operation and language code that are sent together.
+     * Calls are added while the batch is open; the call that opened it then
+     * sends it and the others wait for their results.
+     */
+    private static final class Batch<Req, Res> {
+        private final String languageCode;
+        private final Operation<Req, Res> op;
+        private final List<Req> requests = new ArrayList<Req>(MAX_BATCH_SIZE);
+        private final List<Res> results = new ArrayList<Res>(MAX_BATCH_SIZE);
+        private final List<AmazonClientException> failures =
+                new ArrayList<AmazonClientException>(MAX_BATCH_SIZE);
+        private boolean closed;
+        private boolean done;
+
+        Batch(String languageCode, Operation<Req, Res> op) {
+            this.languageCode = languageCode;
+            this.op = op;
+        }
+
+        /** Called with the lock of the open batches held */
+        synchronized int add(Req request) {
+            requests.add(request);
+            results.add(null);
+            failures.add(null);
+            return requests.size() - 1;
+        }
+
+        synchronized int size() {
+            return requests.size();
+        }
+
+        synchronized void close() {
+            closed = true;
+            notifyAll();
+        }
+
+        /** Waits until the batch is full or the window has passed */
+        synchronized void awaitClose(long windowMillis) {
+            long deadline = System.nanoTime() + windowMillis * 1000000L;
+            long remaining;
+            try {
+                while (!closed && (remaining = deadline - System.nanoTime()) > 0) {
+                    // wait(0) means "wait forever", can't have that.
+                    wait(Math.max(1, remaining / 1000000L));
+                }
+            } catch (InterruptedException e) {
+                // send what we have; the interrupt is left for the caller.
+                Thread.currentThread().interrupt();
+            }
+            closed = true;
+        }
+
+        synchronized void succeed(Integer index, Res result) {
+            if (index != null && index >= 0 && index < results.size()) {
+                results.set(index, result);
+            }
+        }
+
+        synchronized void fail(List<BatchItemError> errors) {
+            if (errors == null) {
+                return;
+            }
+            for (BatchItemError error : errors) {
+                Integer index = error.getIndex();
+                if (index != null && index >= 0 && index < failures.size()) {
+                    failures.set(index, convert(error));
+                }
+            }
+        }
+
+        /** Sends the batch once it no longer accepts calls */
+        void send() {
+            List<Req> toSend;
+            synchronized (this) {
+                toSend = new ArrayList<Req>(requests);
+            }
+            try {
+                if (toSend.size() == 1) {
+                    Res result = op.single(toSend.get(0));
+                    synchronized (this) {
+                        results.set(0, result);
+                    }
+                } else {
+                    op.batch(languageCode, toSend, this);
+                }
+            } catch (AmazonClientException e) {
+                failAll(e);
+            } catch (RuntimeException e) {
+                failAll(new AmazonClientException("Unable to send batch", e));
+            } finally {
+                synchronized (this) {
+                    for (int i = 0; i < results.size(); i++) {
+                        if (results.get(i) == null && failures.get(i) == null) {
+                            failures.set(i, new AmazonClientException(
+                                    "No result returned for document " + i + " of the batch"));
+                        }
+                    }
+                    done = true;
+                    notifyAll();
+                }
+            }
+        }
+
+        private synchronized void failAll(AmazonClientException e) {
+            for (int i = 0; i < failures.size(); i++) {
+                failures.set(i, e);
+            }
+        }
+
+        /** Waits for the batch to be sent and returns the call's result */
+        synchronized Res get(int index) {
+            try {
+                while (!done) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                AmazonClientException ce = new AmazonClientException(
+                        "Thread interrupted while waiting for execution result");
+                ce.initCause(e);
+                throw ce;
+            }
+            if (failures.get(index) != null) {
+                throw failures.get(index);
+            }
+            return results.get(index);
+        }
+    }
+}
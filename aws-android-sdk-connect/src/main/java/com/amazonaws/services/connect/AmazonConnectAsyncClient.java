@@ -17,11 +17,11 @@ package com.amazonaws.services.connect;
 
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.AmazonServiceException;
+import com.amazonaws.async.SdkExecutors;
 import com.amazonaws.handlers.AsyncHandler;
 import com.amazonaws.ClientConfiguration;
 import com.amazonaws.auth.AWSCredentials;
@@ -115,14 +115,14 @@ public class AmazonConnectAsyncClient extends AmazonConnectClient implements Ama
      */
     @Deprecated
     public AmazonConnectAsyncClient(ClientConfiguration clientConfiguration) {
-        this(new DefaultAWSCredentialsProviderChain(), clientConfiguration, Executors
-                .newFixedThreadPool(clientConfiguration.getMaxConnections()));
+        this(new DefaultAWSCredentialsProviderChain(), clientConfiguration, SdkExecutors
+                .newClientExecutor(clientConfiguration.getMaxConnections()));
     }
 
     /**
      * Constructs a new asynchronous client to invoke service methods on Amazon
      * Connect using the specified AWS account credentials. Default client
-     * settings will be used, and a fixed size thread pool will be created for
+     * settings will be used, and a shared SDK thread pool will be used for
      * executing the asynchronous tasks.
      * <p>
      * All calls made using this new client object are non-blocking, and will
@@ -133,7 +133,7 @@ public class AmazonConnectAsyncClient extends AmazonConnectClient implements Ama
      *            to use when authenticating with AWS services.
      */
     public AmazonConnectAsyncClient(AWSCredentials awsCredentials) {
-        this(awsCredentials, Executors.newFixedThreadPool(DEFAULT_THREAD_POOL_SIZE));
+        this(awsCredentials, SdkExecutors.newClientExecutor(DEFAULT_THREAD_POOL_SIZE));
     }
 
     /**
@@ -180,8 +180,8 @@ public class AmazonConnectAsyncClient extends AmazonConnectClient implements Ama
     /**
      * Constructs a new asynchronous client to invoke service methods on Amazon
      * Connect using the specified AWS account credentials provider. Default
-     * client settings will be used, and a fixed size thread pool will be
-     * created for executing the asynchronous tasks.
+     * client settings will be used, and a shared SDK thread pool will be
+     * used for executing the asynchronous tasks.
      * <p>
      * All calls made using this new client object are non-blocking, and will
      * immediately return a Java Future object that the caller can later check
@@ -192,7 +192,7 @@ public class AmazonConnectAsyncClient extends AmazonConnectClient implements Ama
      *            services.
      */
     public AmazonConnectAsyncClient(AWSCredentialsProvider awsCredentialsProvider) {
-        this(awsCredentialsProvider, Executors.newFixedThreadPool(DEFAULT_THREAD_POOL_SIZE));
+        this(awsCredentialsProvider, SdkExecutors.newClientExecutor(DEFAULT_THREAD_POOL_SIZE));
     }
 
     /**
@@ -232,8 +232,8 @@ public class AmazonConnectAsyncClient extends AmazonConnectClient implements Ama
      */
     public AmazonConnectAsyncClient(AWSCredentialsProvider awsCredentialsProvider,
             ClientConfiguration clientConfiguration) {
-        this(awsCredentialsProvider, clientConfiguration, Executors
-                .newFixedThreadPool(clientConfiguration.getMaxConnections()));
+        this(awsCredentialsProvider, clientConfiguration, SdkExecutors
+                .newClientExecutor(clientConfiguration.getMaxConnections()));
     }
 
     /**
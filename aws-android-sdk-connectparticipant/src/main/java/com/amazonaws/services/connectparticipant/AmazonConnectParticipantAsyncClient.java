@@ -17,11 +17,11 @@ package com.amazonaws.services.connectparticipant;
 
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.AmazonServiceException;
+import com.amazonaws.async.SdkExecutors;
 import com.amazonaws.handlers.AsyncHandler;
 import com.amazonaws.ClientConfiguration;
 import com.amazonaws.auth.AWSCredentials;
@@ -63,7 +63,7 @@ public class AmazonConnectParticipantAsyncClient extends AmazonConnectParticipan
      * will not return until the service call completes.
      */
     public AmazonConnectParticipantAsyncClient() {
-        this(Executors.newFixedThreadPool(DEFAULT_THREAD_POOL_SIZE));
+        this(SdkExecutors.newClientExecutor(DEFAULT_THREAD_POOL_SIZE));
     }
 
     /**
@@ -78,7 +78,7 @@ public class AmazonConnectParticipantAsyncClient extends AmazonConnectParticipan
      *            proxy settings, retry counts, etc.).
      */
     public AmazonConnectParticipantAsyncClient(ClientConfiguration clientConfiguration) {
-        this(clientConfiguration, Executors.newFixedThreadPool(clientConfiguration
+        this(clientConfiguration, SdkExecutors.newClientExecutor(clientConfiguration
                 .getMaxConnections()));
     }
 
@@ -56,6 +56,12 @@ public class ClientConfiguration {
      */
     public static final RetryPolicy DEFAULT_RETRY_POLICY = PredefinedRetryPolicies.DEFAULT;
 
+    /**
+     * The default minimum size in bytes of a request payload to be compressed
+     * when request compression is enabled.
+     */
+    public static final int DEFAULT_REQUEST_COMPRESSION_THRESHOLD = 10 * 1024;
+
     /** The HTTP user agent header passed with all HTTP requests. */
     private String userAgent = DEFAULT_USER_AGENT;
 
@@ -173,6 +179,23 @@ public class ClientConfiguration {
      */
     private boolean enableGzip = false;
 
+    /**
+     * Optional whether to gzip the payload of requests to operations that
+     * accept compressed payloads.
+     */
+    private boolean enableRequestCompression = false;
+
+    /**
+     * Optional whether to limit retries with a retry quota and to slow down
+     * the sending rate of the client when it is throttled.
+     */
+    private boolean enableAdaptiveRetry = false;
+
+    /**
+     * The minimum size in bytes of a request payload to be compressed.
+     */
+    private int requestCompressionThreshold = DEFAULT_REQUEST_COMPRESSION_THRESHOLD;
+
     /**
      * Constructor.
      */
@@ -206,6 +229,9 @@ public class ClientConfiguration {
         this.trustManager = other.trustManager;
         this.curlLogging = other.curlLogging;
         this.enableGzip = other.enableGzip;
+        this.enableRequestCompression = other.enableRequestCompression;
+        this.enableAdaptiveRetry = other.enableAdaptiveRetry;
+        this.requestCompressionThreshold = other.requestCompressionThreshold;
     }
 
     /**
@@ -1120,4 +1146,118 @@ public class ClientConfiguration {
         setEnableGzip(enableGzip);
         return this;
     }
+
+    /**
+     * Returns whether the payload of requests to operations that accept
+     * compressed payloads, such as CloudWatch PutMetricData, is sent with
+     * gzip content encoding. Only payloads of at least
+     * {@link #getRequestCompressionThreshold()} bytes are compressed.
+     *
+     * @return if request compression is used.
+     */
+    public boolean isEnableRequestCompression() {
+        return enableRequestCompression;
+    }
+
+    /**
+     * Sets whether the payload of requests to operations that accept
+     * compressed payloads should be compressed with gzip.
+     *
+     * @param enableRequestCompression true to compress request payloads.
+     */
+    @SuppressWarnings("checkstyle:hiddenfield")
+    public void setEnableRequestCompression(boolean enableRequestCompression) {
+        this.enableRequestCompression = enableRequestCompression;
+    }
+
+    /**
+     * Sets whether the payload of requests to operations that accept
+     * compressed payloads should be compressed with gzip.
+     *
+     * @param enableRequestCompression true to compress request payloads.
+     * @return The updated ClientConfiguration object.
+     */
+    @SuppressWarnings("checkstyle:hiddenfield")
+    public ClientConfiguration withEnableRequestCompression(boolean enableRequestCompression) {
+        setEnableRequestCompression(enableRequestCompression);
+        return this;
+    }
+
+    /**
+     * Returns whether the client retries adaptively. In adaptive mode every
+     * retry is drawn from a quota that is shared by all requests of the
+     * client and refilled by successful requests, so a client stops retrying
+     * when most of its requests fail. Once a request is throttled, the client
+     * also limits its sending rate, and raises the limit again as requests
+     * succeed. The retry policy still decides whether and when to retry.
+     *
+     * @return if adaptive retry is used.
+     */
+    public boolean isEnableAdaptiveRetry() {
+        return enableAdaptiveRetry;
+    }
+
+    /**
+     * Sets whether the client retries adaptively.
+     *
+     * @param enableAdaptiveRetry true to use a retry quota and a client side
+     *            sending rate limit.
+     * @see #isEnableAdaptiveRetry()
+     */
+    @SuppressWarnings("checkstyle:hiddenfield")
+    public void setEnableAdaptiveRetry(boolean enableAdaptiveRetry) {
+        this.enableAdaptiveRetry = enableAdaptiveRetry;
+    }
+
+    /**
+     * Sets whether the client retries adaptively.
+     *
+     * @param enableAdaptiveRetry true to use a retry quota and a client side
+     *            sending rate limit.
+     * @return The updated ClientConfiguration object.
+     * @see #isEnableAdaptiveRetry()
+     */
+    @SuppressWarnings("checkstyle:hiddenfield")
+    public ClientConfiguration withEnableAdaptiveRetry(boolean enableAdaptiveRetry) {
+        setEnableAdaptiveRetry(enableAdaptiveRetry);
+        return this;
+    }
+
+    /**
+     * Returns the minimum size in bytes of a request payload to be compressed.
+     * Smaller payloads are sent as is since compressing them saves little.
+     *
+     * @return the request compression threshold in bytes.
+     */
+    public int getRequestCompressionThreshold() {
+        return requestCompressionThreshold;
+    }
+
+    /**
+     * Sets the minimum size in bytes of a request payload to be compressed.
+     *
+     * @param requestCompressionThreshold the threshold in bytes, 0 to
+     *            compress every payload.
+     */
+    @SuppressWarnings("checkstyle:hiddenfield")
+    public void setRequestCompressionThreshold(int requestCompressionThreshold) {
+        if (requestCompressionThreshold < 0) {
+            throw new IllegalArgumentException(
+                    "requestCompressionThreshold must not be negative");
+        }
+        this.requestCompressionThreshold = requestCompressionThreshold;
+    }
+
+    /**
+     * Sets the minimum size in bytes of a request payload to be compressed.
+     *
+     * @param requestCompressionThreshold the threshold in bytes, 0 to
+     *            compress every payload.
+     * @return The updated ClientConfiguration object.
+     */
+    @SuppressWarnings("checkstyle:hiddenfield")
+    public ClientConfiguration withRequestCompressionThreshold(int requestCompressionThreshold) {
+        setRequestCompressionThreshold(requestCompressionThreshold);
+        return this;
+    }
 }
@@ -37,6 +37,8 @@ public class DefaultRequest<T> implements Request<T> {
     private String resourcePath;
 
     private boolean streaming = false;
+
+    private boolean compressible = false;
     /**
      * Map of the parameters being sent as part of this request.
      * <p>
@@ -375,6 +377,16 @@ public class DefaultRequest<T> implements Request<T> {
         this.streaming = streaming;
     }
 
+    @Override
+    public boolean isCompressible() {
+        return this.compressible;
+    }
+
+    @Override
+    public void setCompressible(boolean compressible) {
+        this.compressible = compressible;
+    }
+
     @Override
     public String getEncodedUriResourcePath() {
         return encodedUriResourcePath;
@@ -265,6 +265,22 @@ public interface Request<T> {
      */
     public void setStreaming(boolean streaming);
 
+    /**
+     * Flag that indicates that the service accepts the payload of this request
+     * with gzip content encoding. The payload is only compressed if request
+     * compression is also enabled in the client configuration.
+     *
+     * @return true if the request payload may be compressed.
+     */
+    public boolean isCompressible();
+
+    /**
+     * Set compressible flag
+     *
+     * @param compressible the compressible flag.
+     */
+    public void setCompressible(boolean compressible);
+
     /**
      * Get Encoded Uri Resource Path
      */
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2018-2019 Amazon.com, Inc. or its affiliates.
+ * All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.amazonaws.async;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Threads shared by the asynchronous clients and connectors of the SDK, so
+ * that an app using many services does not keep a pool of idle threads for
+ * each of them.
+ * <p>
+ * Tasks run on one pool of daemon threads, whose threads exit when idle. The
+ * tasks are mostly blocking network calls, some of which wait for other
+ * tasks, so the pool starts a thread for each task up to a high cap rather
+ * than sizing itself by the number of processors. Each client submits
+ * through its own view of the pool, created with
+ * {@link #newClientExecutor(int)}, which limits how many of the client's
+ * tasks run at once and queues the rest, so one busy client can't take every
+ * thread. Shutting a view down only affects the tasks of that view.
+ * <p>
+ * Delayed and periodic work runs on a single shared scheduler thread, and
+ * should hand anything long running to an executor.
+ */
+public final class SdkExecutors {
+
+    private static final int MAX_THREADS = 128;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private SdkExecutors() {
+    }
+
+    /** Created on first use */
+    private static final class Pool {
+        static final ThreadPoolExecutor INSTANCE = create();
+
+        private static ThreadPoolExecutor create() {
+            // every thread is a core thread, so a new task gets a new thread
+            // until the cap instead of queueing behind busy ones
+            final ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS,
+                    KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                    new DaemonThreadFactory("aws-sdk-async-"));
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
+    }
+
+    /** Created on first use */
+    private static final class Scheduler {
+        static final ScheduledThreadPoolExecutor INSTANCE = create();
+
+        private static ScheduledThreadPoolExecutor create() {
+            final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1,
+                    new DaemonThreadFactory("aws-sdk-scheduler-"));
+            // the thread only exits while no task is scheduled
+            executor.setKeepAliveTime(KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
+    }
+
+    private static final class DaemonThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger count = new AtomicInteger();
+
+        DaemonThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            final Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    /**
+     * Creates an executor for one client that runs its tasks on the shared
+     * pool, at most {@code maxConcurrency} at a time. Shutting it down does
+     * not affect the shared pool.
+     *
+     * @param maxConcurrency the maximum number of tasks of this executor
+     *            running at once
+     * @return the executor
+     */
+    public static ExecutorService newClientExecutor(int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency must be positive");
+        }
+        return new ClientExecutor(Pool.INSTANCE, maxConcurrency);
+    }
+
+    /**
+     * Runs a task once after a delay on the shared scheduler.
+     *
+     * @param task the task, which should not block
+     * @param delay the delay
+     * @param unit the unit of the delay
+     * @return a future to cancel the task with
+     */
+    public static ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit) {
+        return Scheduler.INSTANCE.schedule(task, delay, unit);
+    }
+
+    /**
+     * Runs a task repeatedly on the shared scheduler, with a fixed delay
+     * between the end of a run and the start of the next.
+     *
+     * @param task the task, which should not block
+     * @param initialDelay the delay before the first run
+     * @param delay the delay between runs
+     * @param unit the unit of the delays
+     * @return a future to cancel the task with
+     */
+    public static ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, long initialDelay,
+            long delay, TimeUnit unit) {
+        return Scheduler.INSTANCE.scheduleWithFixedDelay(task, initialDelay, delay, unit);
+    }
+
+    /**
+     * A view of a shared executor that queues its tasks and hands at most
+     * {@code maxConcurrency} of them to the shared executor at a time.
+     */
+    static final class ClientExecutor extends AbstractExecutorService {
+        private final ThreadPoolExecutor pool;
+        private final int maxConcurrency;
+
+        /** Guarded by this */
+        private final Queue<Runnable> queue = new ArrayDeque<Runnable>();
+        private final Set<Thread> running = new HashSet<Thread>();
+        private int active;
+        private boolean shutdown;
+
+        ClientExecutor(ThreadPoolExecutor pool, int maxConcurrency) {
+            this.pool = pool;
+            this.maxConcurrency = maxConcurrency;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            if (command == null) {
+                throw new NullPointerException("command");
+            }
+            synchronized (this) {
+                if (shutdown) {
+                    throw new RejectedExecutionException("Executor has been shut down");
+                }
+                queue.add(command);
+            }
+            dispatch();
+        }
+
+        /** Hands queued tasks to the pool while under the limit */
+        private void dispatch() {
+            while (true) {
+                final Runnable task;
+                synchronized (this) {
+                    if (active >= maxConcurrency || queue.isEmpty()) {
+                        return;
+                    }
+                    task = queue.poll();
+                    active++;
+                }
+                try {
+                    pool.execute(new Worker(task));
+                } catch (final RejectedExecutionException e) {
+                    synchronized (this) {
+                        active--;
+                    }
+                    throw e;
+                }
+            }
+        }
+
+        private final class Worker implements Runnable {
+            private final Runnable task;
+
+            Worker(Runnable task) {
+                this.task = task;
+            }
+
+            @Override
+            public void run() {
+                final Thread thread = Thread.currentThread();
+                synchronized (ClientExecutor.this) {
+                    running.add(thread);
+                }
+                try {
+                    task.run();
+                } finally {
+                    synchronized (ClientExecutor.this) {
+                        running.remove(thread);
+                        active--;
+                        ClientExecutor.this.notifyAll();
+                    }
+                    // an interrupt from shutdownNow must not reach the next
+                    // task of the shared thread
+                    Thread.interrupted();
+                    dispatch();
+                }
+            }
+        }
+
+        @Override
+        public synchronized void shutdown() {
+            shutdown = true;
+            notifyAll();
+        }
+
+        @Override
+        public synchronized List<Runnable> shutdownNow() {
+            shutdown = true;
+            final List<Runnable> pending = new ArrayList<Runnable>(queue);
+            queue.clear();
+            for (final Thread thread : running) {
+                thread.interrupt();
+            }
+            notifyAll();
+            return pending;
+        }
+
+        @Override
+        public synchronized boolean isShutdown() {
+            return shutdown;
+        }
+
+        @Override
+        public synchronized boolean isTerminated() {
+            return shutdown && active == 0 && queue.isEmpty();
+        }
+
+        @Override
+        public synchronized boolean awaitTermination(long timeout, TimeUnit unit)
+                throws InterruptedException {
+            final long deadline = System.nanoTime() + unit.toNanos(timeout);
+            while (!isTerminated()) {
+                final long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+            return true;
+        }
+    }
+}
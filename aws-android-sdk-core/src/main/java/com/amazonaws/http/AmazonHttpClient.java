@@ -34,7 +34,9 @@ import com.amazonaws.handlers.RequestHandler2;
 import com.amazonaws.internal.CRC32MismatchException;
 import com.amazonaws.metrics.AwsSdkMetrics;
 import com.amazonaws.metrics.RequestMetricCollector;
+import com.amazonaws.retry.ClientSideRateLimiter;
 import com.amazonaws.retry.RetryPolicy;
+import com.amazonaws.retry.RetryQuota;
 import com.amazonaws.retry.RetryUtils;
 import com.amazonaws.util.AWSRequestMetrics;
 import com.amazonaws.util.AWSRequestMetrics.Field;
@@ -70,6 +72,7 @@ public class AmazonHttpClient {
     private static final int HTTP_STATUS_TEMP_REDIRECT = 307;
     private static final int HTTP_STATUS_MULTIPLE_CHOICES = 300;
     private static final int HTTP_STATUS_REQ_TOO_LONG = 413;
+    private static final int HTTP_STATUS_TOO_MANY_REQUESTS = 429;
     private static final int HTTP_STATUS_SERVICE_UNAVAILABLE = 503;
 
     private static final long TIME_MILLISEC = 1000L;
@@ -104,6 +107,13 @@ public class AmazonHttpClient {
 
     private final HttpRequestFactory requestFactory = new HttpRequestFactory();
 
+    /**
+     * Retry budget and sending rate limit shared by all requests of this
+     * client; only used when adaptive retry is enabled.
+     */
+    private final RetryQuota retryQuota = new RetryQuota();
+    private final ClientSideRateLimiter rateLimiter = new ClientSideRateLimiter();
+
     /**
      * Constructs a new AWS client using the specified client configuration
      * options (ex: max retry attempts, proxy settings, etc).
@@ -305,7 +315,12 @@ public class AmazonHttpClient {
         // user-agent.
         setUserAgent(request);
         request.addHeader(HEADER_SDK_TRANSACTION_ID, UUID.randomUUID().toString());
+        // Compress before the originals are captured below, so that every
+        // attempt sends and signs the same compressed payload.
+        requestFactory.compressRequestPayload(request, config, awsRequestMetrics);
+        final boolean adaptiveRetry = config.isEnableAdaptiveRetry();
         int requestCount = 0;
+        int lastRetryCost = 0;
         long lastBackoffDelay = 0;
         URI redirectedURI = null;
         AmazonClientException retriedException = null;
@@ -357,6 +372,14 @@ public class AmazonHttpClient {
                         content.reset();
                     }
                 }
+                if (adaptiveRetry) {
+                    awsRequestMetrics.startEvent(Field.RateLimiterDelay);
+                    try {
+                        rateLimiter.acquire();
+                    } finally {
+                        awsRequestMetrics.endEvent(Field.RateLimiterDelay);
+                    }
+                }
                 request.addHeader(HEADER_SDK_RETRY_INFO,
                         (requestCount - 1) + "/" + lastBackoffDelay);
 
@@ -394,6 +417,12 @@ public class AmazonHttpClient {
                      * If we get back any 2xx status code, then we know we
                      * should treat the service call as successful.
                      */
+                    if (adaptiveRetry) {
+                        updateSendingRate(false, awsRequestMetrics);
+                        retryQuota.release(lastRetryCost);
+                        awsRequestMetrics.addProperty(Field.RetryQuotaCapacity,
+                                retryQuota.getAvailableCapacity());
+                    }
                     leaveHttpConnectionOpen = responseHandler.needsConnectionLeftOpen();
                     final T response = handleResponse(request, responseHandler,
                             httpResponse,
@@ -422,6 +451,9 @@ public class AmazonHttpClient {
                     awsRequestMetrics.addProperty(Field.AWSRequestID, ase.getRequestId());
                     awsRequestMetrics.addProperty(Field.AWSErrorCode, ase.getErrorCode());
                     awsRequestMetrics.addProperty(Field.StatusCode, ase.getStatusCode());
+                    if (adaptiveRetry) {
+                        updateSendingRate(isThrottle(ase), awsRequestMetrics);
+                    }
 
                     if (!shouldRetry(request.getOriginalRequest(),
                             httpRequest.getContent(),
@@ -430,6 +462,9 @@ public class AmazonHttpClient {
                             config.getRetryPolicy())) {
                         throw ase;
                     }
+                    if (adaptiveRetry) {
+                        lastRetryCost = acquireRetryQuota(ase, awsRequestMetrics);
+                    }
 
                     // Cache the retryable exception
                     retriedException = ase;
@@ -461,6 +496,9 @@ public class AmazonHttpClient {
                         config.getRetryPolicy())) {
                     throw ace;
                 }
+                if (adaptiveRetry) {
+                    lastRetryCost = acquireRetryQuota(ace, awsRequestMetrics);
+                }
 
                 // Cache the retryable exception
                 retriedException = ace;
@@ -621,6 +659,47 @@ public class AmazonHttpClient {
                 retries);
     }
 
+    /**
+     * Draws the cost of a retry from the retry quota of this client.
+     *
+     * @param exception The exception of the failed attempt, which is thrown
+     *            if the quota is exhausted.
+     * @return the number of tokens drawn.
+     */
+    private int acquireRetryQuota(AmazonClientException exception,
+            AWSRequestMetrics awsRequestMetrics) {
+        final int cost = retryQuota.acquire(exception);
+        awsRequestMetrics.addProperty(Field.RetryQuotaCapacity,
+                retryQuota.getAvailableCapacity());
+        if (cost == 0) {
+            if (log.isDebugEnabled()) {
+                log.debug("Retry quota exhausted, not retrying: " + exception.getMessage());
+            }
+            awsRequestMetrics.incrementCounter(Field.RetryQuotaExceeded);
+            throw exception;
+        }
+        return cost;
+    }
+
+    private void updateSendingRate(boolean throttled, AWSRequestMetrics awsRequestMetrics) {
+        rateLimiter.updateSendingRate(throttled);
+        if (rateLimiter.isEnabled()) {
+            awsRequestMetrics.addProperty(Field.SendRate, rateLimiter.getFillRate());
+        }
+    }
+
+    /**
+     * Returns true if the service throttled the request, which slows down the
+     * sending rate in adaptive retry mode.
+     */
+    private static boolean isThrottle(AmazonServiceException ase) {
+        return RetryUtils.isThrottlingException(ase)
+                || ase.getStatusCode() == HTTP_STATUS_TOO_MANY_REQUESTS
+                || "TooManyRequestsException".equals(ase.getErrorCode())
+                || "RequestLimitExceeded".equals(ase.getErrorCode())
+                || "SlowDown".equals(ase.getErrorCode());
+    }
+
     private static boolean isTemporaryRedirect(HttpResponse response) {
         final int statusCode = response.getStatusCode();
         final String location = response.getHeaders().get("Location");
@@ -15,17 +15,24 @@
 
 package com.amazonaws.http;
 
+import com.amazonaws.AmazonClientException;
 import com.amazonaws.ClientConfiguration;
 import com.amazonaws.Request;
+import com.amazonaws.util.AWSRequestMetrics;
+import com.amazonaws.util.AWSRequestMetrics.Field;
 import com.amazonaws.util.HttpUtils;
 import com.amazonaws.util.StringUtils;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Responsible for converting AWS {@link Request}s to {@link HttpRequest}s.
@@ -33,6 +40,7 @@ import java.util.Map.Entry;
 public class HttpRequestFactory {
 
     private static final String DEFAULT_ENCODING = "UTF-8";
+    private static final int COMPRESSION_BUFFER_SIZE = 8 * 1024;
 
     /**
      * Creates an {@link HttpClient} request object based on the specified AWS
@@ -121,6 +129,132 @@ public class HttpRequestFactory {
         return httpRequest;
     }
 
+    /**
+     * Compresses the payload of the specified AWS request with gzip if the
+     * operation accepts compressed payloads, request compression is enabled in
+     * the client configuration, and the payload is at least
+     * {@link ClientConfiguration#getRequestCompressionThreshold()} bytes. The
+     * compressed payload replaces the content of the request along with its
+     * Content-Length, and a Content-Encoding header is added.
+     * <p>
+     * This must be called before the request is signed, so that the
+     * Content-Encoding header is signed and the payload hash of SigV4 is
+     * computed over the bytes actually sent. The parameters of a POST request
+     * without content, which would otherwise be sent as a form-encoded body,
+     * are compressed into the content of the request.
+     * <p>
+     * The payload is compressed once, before the first attempt, and retries
+     * reuse the compressed bytes. Payloads of unknown length are not
+     * compressed, since the threshold cannot be applied without buffering them.
+     *
+     * @param request The request whose payload should be compressed.
+     * @param clientConfiguration The client configuration.
+     * @param awsRequestMetrics The metrics the compression ratio and time are
+     *            recorded to.
+     * @return true if the payload was compressed, false otherwise.
+     */
+    public boolean compressRequestPayload(Request<?> request,
+            ClientConfiguration clientConfiguration, AWSRequestMetrics awsRequestMetrics) {
+        if (!clientConfiguration.isEnableRequestCompression()
+                || !request.isCompressible()
+                || request.isStreaming()
+                || headerName(request, HttpHeader.CONTENT_ENCODING) != null) {
+            return false;
+        }
+
+        final InputStream source;
+        final long uncompressedLength;
+        final boolean isFormPayload = request.getContent() == null;
+        if (isFormPayload) {
+            final String encodedParams = HttpUtils.encodeParameters(request);
+            if (request.getHttpMethod() != HttpMethodName.POST || encodedParams == null) {
+                return false;
+            }
+            final byte[] contentBytes = encodedParams.getBytes(StringUtils.UTF8);
+            source = new ByteArrayInputStream(contentBytes);
+            uncompressedLength = contentBytes.length;
+        } else {
+            final String contentLengthHeader = headerName(request, HttpHeader.CONTENT_LENGTH);
+            if (contentLengthHeader == null) {
+                return false;
+            }
+            try {
+                uncompressedLength = Long.parseLong(
+                        request.getHeaders().get(contentLengthHeader).trim());
+            } catch (final NumberFormatException e) {
+                return false;
+            }
+            source = request.getContent();
+        }
+        if (uncompressedLength < clientConfiguration.getRequestCompressionThreshold()) {
+            return false;
+        }
+
+        final byte[] compressed;
+        awsRequestMetrics.startEvent(Field.RequestCompressionTime);
+        try {
+            compressed = gzip(source, uncompressedLength);
+        } catch (final IOException e) {
+            throw new AmazonClientException(
+                    "Unable to compress request payload: " + e.getMessage(), e);
+        } finally {
+            awsRequestMetrics.endEvent(Field.RequestCompressionTime);
+        }
+
+        if (isFormPayload) {
+            request.setParameters(new LinkedHashMap<String, String>());
+            if (headerName(request, HttpHeader.CONTENT_TYPE) == null) {
+                request.addHeader(HttpHeader.CONTENT_TYPE, "application/x-www-form-urlencoded; "
+                        + "charset=" + StringUtils.lowerCase(DEFAULT_ENCODING));
+            }
+        }
+        final String contentLengthHeader = headerName(request, HttpHeader.CONTENT_LENGTH);
+        if (contentLengthHeader != null) {
+            request.getHeaders().remove(contentLengthHeader);
+        }
+        request.addHeader(HttpHeader.CONTENT_LENGTH, String.valueOf(compressed.length));
+        request.addHeader(HttpHeader.CONTENT_ENCODING, "gzip");
+        request.setContent(new ByteArrayInputStream(compressed));
+        awsRequestMetrics.addProperty(Field.RequestCompressionRatio,
+                uncompressedLength == 0 ? 1.0 : (double) compressed.length / uncompressedLength);
+        return true;
+    }
+
+    /**
+     * Streams the source through a gzip encoder, so the uncompressed payload
+     * never has to be held in memory as a whole.
+     */
+    private static byte[] gzip(InputStream source, long uncompressedLength) throws IOException {
+        // Text payloads such as metric data usually compress well; start small.
+        final int initialSize = (int) Math.min(Integer.MAX_VALUE - COMPRESSION_BUFFER_SIZE,
+                uncompressedLength / 4 + COMPRESSION_BUFFER_SIZE);
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(initialSize);
+        final GZIPOutputStream gzip = new GZIPOutputStream(bytes, COMPRESSION_BUFFER_SIZE);
+        try {
+            final byte[] buffer = new byte[COMPRESSION_BUFFER_SIZE];
+            int read;
+            while ((read = source.read(buffer)) != -1) {
+                gzip.write(buffer, 0, read);
+            }
+        } finally {
+            gzip.close();
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Returns the name under which the given header is set in the request,
+     * matched case-insensitively; or null if the header is not set.
+     */
+    private static String headerName(Request<?> request, String header) {
+        for (final String name : request.getHeaders().keySet()) {
+            if (header.equalsIgnoreCase(name)) {
+                return name;
+            }
+        }
+        return null;
+    }
+
     /** Configures the headers in the specified Apache HTTP request. */
     private void configureHeaders(Map<String, String> headers, Request<?> request,
             ExecutionContext context, ClientConfiguration clientConfiguration) {
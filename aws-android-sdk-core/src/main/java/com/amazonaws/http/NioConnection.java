@@ -0,0 +1,1003 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.http;
+
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.http.NioHttpClient.Exchange;
+import com.amazonaws.http.NioHttpClient.HostPool;
+import com.amazonaws.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLPeerUnverifiedException;
+
+/**
+ * One HTTP/1.1 connection of a {@link NioHttpClient}, optionally over TLS.
+ * Requests are written in the order they were assigned and their responses
+ * are parsed in the same order.
+ * <p>
+ * Everything except {@link ResponseBody} is confined to the reactor thread.
+ */
+final class NioConnection {
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+    private static final int MAX_LINE_LENGTH = 64 * 1024;
+    private static final byte[] LAST_CHUNK = "0\r\n\r\n".getBytes(StringUtils.UTF8);
+    private static final byte[] CRLF = "\r\n".getBytes(StringUtils.UTF8);
+
+    /** Where the parser is within the current response */
+    private enum State {
+        STATUS_LINE, HEADERS, FIXED_BODY, CHUNK_SIZE, CHUNK_DATA, CHUNK_END, TRAILERS,
+        BODY_UNTIL_CLOSE
+    }
+
+    private final HostPool pool;
+    private final NioHttpClient client;
+    private final SocketChannel channel;
+    private SelectionKey key;
+    private final String host;
+    private final SSLEngine engine;
+    private final boolean verifyHostname;
+
+    private ByteBuffer netIn;
+    private final ByteBuffer netOut;
+    private ByteBuffer appIn;
+    private final ByteBuffer appOut;
+
+    /** Requests written or waiting to be written, whose responses are due */
+    private final ArrayDeque<Exchange> inFlight = new ArrayDeque<Exchange>();
+    private final ArrayDeque<Exchange> toWrite = new ArrayDeque<Exchange>();
+    private Exchange writing;
+    private long contentRemaining;
+    private boolean contentDone;
+    private final byte[] chunk = new byte[BUFFER_SIZE];
+
+    private boolean open = true;
+    private boolean connected;
+    private boolean handshaking;
+    private boolean paused;
+    private boolean persistent;
+    private final long connectStart;
+    private long lastActivity;
+
+    private State state = State.STATUS_LINE;
+    private final StringBuilder line = new StringBuilder();
+    private boolean http11;
+    private int statusCode;
+    private String statusText;
+    private Map<String, String> headers;
+    private long remaining;
+    private boolean keepAlive;
+    private ResponseBody body;
+
+    NioConnection(HostPool pool, InetSocketAddress address, String host, int port,
+            SSLContext sslContext) throws IOException {
+        this.pool = pool;
+        this.client = pool.getClient();
+        this.host = host;
+        final ClientConfiguration config = client.getConfig();
+        channel = SocketChannel.open();
+        try {
+            channel.configureBlocking(false);
+            final Socket socket = channel.socket();
+            socket.setTcpNoDelay(true);
+            final int[] hints = config.getSocketBufferSizeHints();
+            if (hints[0] > 0) {
+                socket.setSendBufferSize(hints[0]);
+            }
+            if (hints[1] > 0) {
+                socket.setReceiveBufferSize(hints[1]);
+            }
+            if (sslContext != null) {
+                engine = sslContext.createSSLEngine(host, port);
+                engine.setUseClientMode(true);
+                verifyHostname = !enableEndpointIdentification(engine);
+                final int packetSize = engine.getSession().getPacketBufferSize();
+                netIn = ByteBuffer.allocate(packetSize);
+                netOut = ByteBuffer.allocate(packetSize);
+                appIn = ByteBuffer.allocate(engine.getSession().getApplicationBufferSize());
+            } else {
+                engine = null;
+                verifyHostname = false;
+                netOut = null;
+                appIn = ByteBuffer.allocate(BUFFER_SIZE);
+            }
+            appOut = ByteBuffer.allocate(BUFFER_SIZE);
+            connectStart = System.currentTimeMillis();
+            lastActivity = connectStart;
+            connected = channel.connect(address);
+            key = channel.register(client.getSelector(),
+                    connected ? SelectionKey.OP_WRITE : SelectionKey.OP_CONNECT, this);
+            if (connected) {
+                onConnected();
+            }
+        } catch (final IOException e) {
+            closeQuietly();
+            throw e;
+        }
+    }
+
+    /**
+     * Asks the engine to check the host name itself. Older Android releases
+     * lack the API, in which case the default host name verifier is applied
+     * once the handshake completes.
+     */
+    private static boolean enableEndpointIdentification(SSLEngine engine) {
+        try {
+            final SSLParameters params = engine.getSSLParameters();
+            params.setEndpointIdentificationAlgorithm("HTTPS");
+            engine.setSSLParameters(params);
+            return true;
+        } catch (final NoSuchMethodError e) {
+            return false;
+        }
+    }
+
+    /** Whether the connection can take a request right away */
+    boolean isIdle() {
+        return open && inFlight.isEmpty();
+    }
+
+    /**
+     * Whether the request may be queued behind the requests already sent on
+     * this connection.
+     */
+    boolean canPipeline(Exchange exchange) {
+        if (!open || !connected || !persistent || inFlight.isEmpty()
+                || inFlight.size() >= NioHttpClient.MAX_PIPELINE_DEPTH
+                || !exchange.isPipelinable()) {
+            return false;
+        }
+        for (final Exchange pending : inFlight) {
+            if (!pending.isPipelinable()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void assign(Exchange exchange) {
+        inFlight.add(exchange);
+        toWrite.add(exchange);
+        lastActivity = System.currentTimeMillis();
+        updateInterest();
+    }
+
+    void handle(SelectionKey key) {
+        try {
+            if (!key.isValid()) {
+                return;
+            }
+            if (!connected && key.isConnectable()) {
+                if (!channel.finishConnect()) {
+                    return;
+                }
+                connected = true;
+                onConnected();
+            }
+            pump();
+        } catch (final IOException e) {
+            fail(e);
+        } catch (final RuntimeException e) {
+            fail(new IOException(e));
+        }
+    }
+
+    void checkTimeout(long now) {
+        if (!open) {
+            return;
+        }
+        final ClientConfiguration config = client.getConfig();
+        if (!connected) {
+            if (config.getConnectionTimeout() > 0
+                    && now - connectStart > config.getConnectionTimeout()) {
+                fail(new SocketTimeoutException("connect timed out"));
+            }
+        } else if (handshaking || !inFlight.isEmpty()) {
+            if (!paused && config.getSocketTimeout() > 0
+                    && now - lastActivity > config.getSocketTimeout()) {
+                fail(new SocketTimeoutException("Read timed out"));
+            }
+        } else if (now - lastActivity > NioHttpClient.IDLE_TIMEOUT_MILLIS) {
+            close(null);
+        }
+    }
+
+    /**
+     * Fails every request on the connection without retrying any of them.
+     */
+    void abort(IOException cause) {
+        final List<Exchange> pending = new ArrayList<Exchange>(inFlight);
+        inFlight.clear();
+        closeQuietly();
+        if (body != null) {
+            body.fail(cause);
+        }
+        for (final Exchange exchange : pending) {
+            exchange.fail(cause);
+        }
+    }
+
+    private void onConnected() throws IOException {
+        lastActivity = System.currentTimeMillis();
+        if (engine != null) {
+            engine.beginHandshake();
+            handshaking = true;
+        }
+    }
+
+    /**
+     * Moves as much data as possible between the request queue, the socket
+     * and the response parser without blocking.
+     */
+    private void pump() throws IOException {
+        boolean progress = true;
+        while (progress && open && connected) {
+            progress = false;
+            if (engine == null) {
+                progress |= fillAppOut();
+                progress |= flush(appOut);
+                progress |= readPlain();
+            } else {
+                progress |= runDelegatedTasks();
+                if (!handshaking) {
+                    progress |= fillAppOut();
+                }
+                progress |= wrap();
+                progress |= flush(netOut);
+                progress |= readTls();
+            }
+        }
+        updateInterest();
+    }
+
+    private void updateInterest() {
+        if (!open || !key.isValid()) {
+            return;
+        }
+        int ops;
+        if (!connected) {
+            ops = SelectionKey.OP_CONNECT;
+        } else {
+            ops = paused ? 0 : SelectionKey.OP_READ;
+            final boolean wantWrite;
+            if (engine == null) {
+                wantWrite = appOut.position() > 0 || writing != null || !toWrite.isEmpty();
+            } else if (handshaking) {
+                wantWrite = netOut.position() > 0
+                        || engine.getHandshakeStatus() == HandshakeStatus.NEED_WRAP;
+            } else {
+                wantWrite = netOut.position() > 0 || appOut.position() > 0
+                        || writing != null || !toWrite.isEmpty();
+            }
+            if (wantWrite) {
+                ops |= SelectionKey.OP_WRITE;
+            }
+        }
+        key.interestOps(ops);
+    }
+
+    /**
+     * Encodes pending requests into the outgoing application buffer.
+     */
+    private boolean fillAppOut() throws IOException {
+        boolean progress = false;
+        while (appOut.hasRemaining()) {
+            if (writing == null) {
+                writing = toWrite.poll();
+                if (writing == null) {
+                    break;
+                }
+                contentRemaining = writing.contentLength;
+                contentDone = writing.content == null
+                        || (!writing.chunked && contentRemaining == 0);
+            }
+            final ByteBuffer head = writing.head;
+            if (head.hasRemaining()) {
+                final int n = Math.min(head.remaining(), appOut.remaining());
+                final int limit = head.limit();
+                head.limit(head.position() + n);
+                appOut.put(head);
+                head.limit(limit);
+                progress = true;
+                continue;
+            }
+            if (contentDone) {
+                writing = null;
+                continue;
+            }
+            final InputStream content = writing.content;
+            if (writing.chunked) {
+                // room for a chunk size of up to eight hex digits and two CRLFs
+                final int room = appOut.remaining() - 12;
+                if (room <= 0) {
+                    break;
+                }
+                final int n = content.read(chunk, 0, Math.min(room, chunk.length));
+                if (n == -1) {
+                    if (appOut.remaining() < LAST_CHUNK.length) {
+                        break;
+                    }
+                    appOut.put(LAST_CHUNK);
+                    contentDone = true;
+                } else if (n == 0) {
+                    break;
+                } else {
+                    appOut.put(Integer.toHexString(n).getBytes(StringUtils.UTF8));
+                    appOut.put(CRLF);
+                    appOut.put(chunk, 0, n);
+                    appOut.put(CRLF);
+                }
+            } else {
+                final int max = (int) Math.min(contentRemaining, appOut.remaining());
+                final int n = content.read(appOut.array(),
+                        appOut.arrayOffset() + appOut.position(), max);
+                if (n == -1) {
+                    throw new IOException("The request content ended " + contentRemaining
+                            + " bytes short of its Content-Length");
+                }
+                if (n == 0) {
+                    break;
+                }
+                appOut.position(appOut.position() + n);
+                contentRemaining -= n;
+                contentDone = contentRemaining == 0;
+            }
+            progress = true;
+        }
+        return progress;
+    }
+
+    private boolean flush(ByteBuffer buffer) throws IOException {
+        if (buffer.position() == 0) {
+            return false;
+        }
+        buffer.flip();
+        final int n;
+        try {
+            n = channel.write(buffer);
+        } finally {
+            buffer.compact();
+        }
+        if (n > 0) {
+            lastActivity = System.currentTimeMillis();
+        }
+        return n > 0;
+    }
+
+    private boolean readPlain() throws IOException {
+        if (paused) {
+            return false;
+        }
+        final int n = channel.read(appIn);
+        if (n == -1) {
+            onEndOfStream();
+            return false;
+        }
+        if (n == 0) {
+            return false;
+        }
+        lastActivity = System.currentTimeMillis();
+        deliverAppIn();
+        return true;
+    }
+
+    private boolean runDelegatedTasks() {
+        boolean ran = false;
+        Runnable task;
+        while ((task = engine.getDelegatedTask()) != null) {
+            task.run();
+            ran = true;
+        }
+        return ran;
+    }
+
+    private boolean wrap() throws IOException {
+        boolean progress = false;
+        appOut.flip();
+        try {
+            while (true) {
+                final HandshakeStatus status = engine.getHandshakeStatus();
+                if (handshaking ? status != HandshakeStatus.NEED_WRAP : !appOut.hasRemaining()) {
+                    break;
+                }
+                final SSLEngineResult result = engine.wrap(appOut, netOut);
+                if (result.getStatus() == SSLEngineResult.Status.BUFFER_OVERFLOW) {
+                    break;
+                }
+                if (result.getStatus() == SSLEngineResult.Status.CLOSED) {
+                    throw new IOException("The TLS session was closed");
+                }
+                checkHandshake(result);
+                if (result.bytesConsumed() == 0 && result.bytesProduced() == 0) {
+                    break;
+                }
+                progress = true;
+            }
+        } finally {
+            appOut.compact();
+        }
+        return progress;
+    }
+
+    private boolean readTls() throws IOException {
+        if (paused && !handshaking) {
+            return unwrap();
+        }
+        final int n = channel.read(netIn);
+        if (n == -1) {
+            unwrap();
+            try {
+                engine.closeInbound();
+            } catch (final SSLException e) {
+                // the peer closed without close_notify; the parser decides
+                // whether the response was truncated
+            }
+            onEndOfStream();
+            return false;
+        }
+        if (n > 0) {
+            lastActivity = System.currentTimeMillis();
+        }
+        return unwrap() || n > 0;
+    }
+
+    private boolean unwrap() throws IOException {
+        boolean progress = false;
+        // a failed delegated task only surfaces from the next unwrap, even
+        // without new input
+        boolean attempt = handshaking;
+        netIn.flip();
+        try {
+            while ((netIn.hasRemaining() || attempt) && open) {
+                attempt = false;
+                final SSLEngineResult result = engine.unwrap(netIn, appIn);
+                final SSLEngineResult.Status status = result.getStatus();
+                if (status == SSLEngineResult.Status.BUFFER_UNDERFLOW) {
+                    if (netIn.limit() == netIn.capacity()) {
+                        netIn = grow(netIn, engine.getSession().getPacketBufferSize());
+                    }
+                    break;
+                }
+                if (status == SSLEngineResult.Status.BUFFER_OVERFLOW) {
+                    if (appIn.position() == 0) {
+                        appIn = ByteBuffer.allocate(
+                                engine.getSession().getApplicationBufferSize());
+                    } else {
+                        deliverAppIn();
+                    }
+                    continue;
+                }
+                checkHandshake(result);
+                if (status == SSLEngineResult.Status.CLOSED) {
+                    break;
+                }
+                if (result.bytesConsumed() == 0 && result.bytesProduced() == 0) {
+                    if (result.getHandshakeStatus() != HandshakeStatus.NEED_TASK) {
+                        break;
+                    }
+                    runDelegatedTasks();
+                }
+                progress = true;
+                if (engine.getHandshakeStatus() == HandshakeStatus.NEED_WRAP) {
+                    break;
+                }
+            }
+        } finally {
+            netIn.compact();
+        }
+        if (appIn.position() > 0) {
+            deliverAppIn();
+        }
+        return progress;
+    }
+
+    private static ByteBuffer grow(ByteBuffer flipped, int capacity) {
+        final ByteBuffer bigger = ByteBuffer.allocate(Math.max(capacity,
+                flipped.capacity() * 2));
+        bigger.put(flipped);
+        bigger.flip();
+        return bigger;
+    }
+
+    private void checkHandshake(SSLEngineResult result) throws IOException {
+        if (!handshaking) {
+            return;
+        }
+        final HandshakeStatus status = result.getHandshakeStatus();
+        if (status == HandshakeStatus.NEED_TASK) {
+            runDelegatedTasks();
+        }
+        if (status == HandshakeStatus.FINISHED
+                || engine.getHandshakeStatus() == HandshakeStatus.NOT_HANDSHAKING) {
+            handshaking = false;
+            if (verifyHostname && !HttpsURLConnection.getDefaultHostnameVerifier()
+                    .verify(host, engine.getSession())) {
+                throw new SSLPeerUnverifiedException("Hostname " + host
+                        + " does not match the certificate of the server");
+            }
+        }
+    }
+
+    /**
+     * Hands the decrypted bytes to the response parser, which consumes all
+     * of them.
+     */
+    private void deliverAppIn() throws IOException {
+        appIn.flip();
+        try {
+            parse(appIn);
+        } finally {
+            appIn.clear();
+        }
+    }
+
+    private void parse(ByteBuffer in) throws IOException {
+        while (in.hasRemaining() && open) {
+            switch (state) {
+                case FIXED_BODY:
+                case CHUNK_DATA: {
+                    final int n = (int) Math.min(in.remaining(), remaining);
+                    deliverBody(in, n);
+                    remaining -= n;
+                    if (remaining == 0) {
+                        if (state == State.FIXED_BODY) {
+                            endOfResponse();
+                        } else {
+                            state = State.CHUNK_END;
+                        }
+                    }
+                    break;
+                }
+                case BODY_UNTIL_CLOSE:
+                    deliverBody(in, in.remaining());
+                    break;
+                default:
+                    final String text = readLine(in);
+                    if (text != null) {
+                        onLine(text);
+                    }
+                    break;
+            }
+        }
+    }
+
+    private String readLine(ByteBuffer in) throws IOException {
+        while (in.hasRemaining()) {
+            final char c = (char) (in.get() & 0xff);
+            if (c == '\n') {
+                final int end = line.length() > 0 && line.charAt(line.length() - 1) == '\r'
+                        ? line.length() - 1
+                        : line.length();
+                final String text = line.substring(0, end);
+                line.setLength(0);
+                return text;
+            }
+            if (line.length() >= MAX_LINE_LENGTH) {
+                throw new IOException("The response contains a line longer than "
+                        + MAX_LINE_LENGTH + " bytes");
+            }
+            line.append(c);
+        }
+        return null;
+    }
+
+    private void onLine(String text) throws IOException {
+        switch (state) {
+            case STATUS_LINE:
+                if (text.length() > 0) {
+                    onStatusLine(text);
+                }
+                break;
+            case HEADERS:
+                if (text.length() == 0) {
+                    onHeadersComplete();
+                } else {
+                    final int colon = text.indexOf(':');
+                    if (colon > 0) {
+                        final String name = text.substring(0, colon).trim();
+                        final String value = text.substring(colon + 1).trim();
+                        final String previous = headers.get(name);
+                        headers.put(name, previous == null ? value : previous + "," + value);
+                    }
+                }
+                break;
+            case CHUNK_SIZE: {
+                final int extension = text.indexOf(';');
+                final String size = (extension == -1 ? text : text.substring(0, extension))
+                        .trim();
+                try {
+                    remaining = Long.parseLong(size, 16);
+                } catch (final NumberFormatException e) {
+                    throw new IOException("Invalid chunk size: " + text);
+                }
+                state = remaining == 0 ? State.TRAILERS : State.CHUNK_DATA;
+                break;
+            }
+            case CHUNK_END:
+                if (text.length() != 0) {
+                    throw new IOException("Missing CRLF after chunk data");
+                }
+                state = State.CHUNK_SIZE;
+                break;
+            case TRAILERS:
+                if (text.length() == 0) {
+                    endOfResponse();
+                }
+                break;
+            default:
+                throw new IllegalStateException("Unexpected parser state " + state);
+        }
+    }
+
+    private void onStatusLine(String text) throws IOException {
+        if (inFlight.isEmpty()) {
+            throw new IOException("Received a response without a request: " + text);
+        }
+        final int firstSpace = text.indexOf(' ');
+        if (!text.startsWith("HTTP/") || firstSpace == -1) {
+            throw new IOException("Invalid status line: " + text);
+        }
+        http11 = !text.startsWith("HTTP/1.0");
+        final int secondSpace = text.indexOf(' ', firstSpace + 1);
+        final String code = secondSpace == -1 ? text.substring(firstSpace + 1)
+                : text.substring(firstSpace + 1, secondSpace);
+        try {
+            statusCode = Integer.parseInt(code.trim());
+        } catch (final NumberFormatException e) {
+            throw new IOException("Invalid status line: " + text);
+        }
+        statusText = secondSpace == -1 ? "" : text.substring(secondSpace + 1);
+        headers = new LinkedHashMap<String, String>();
+        inFlight.peek().responseStarted = true;
+        state = State.HEADERS;
+    }
+
+    private void onHeadersComplete() throws IOException {
+        if (statusCode >= 100 && statusCode < 200) {
+            // interim response, the final one follows
+            state = State.STATUS_LINE;
+            return;
+        }
+        final Exchange exchange = inFlight.peek();
+        final String connection = header("Connection");
+        keepAlive = http11
+                ? connection == null || !connection.toLowerCase(Locale.US).contains("close")
+                : connection != null
+                        && connection.toLowerCase(Locale.US).contains("keep-alive");
+        final String transferEncoding = header("Transfer-Encoding");
+        final String contentLength = header(HttpHeader.CONTENT_LENGTH);
+        boolean hasBody = true;
+        if ("HEAD".equals(exchange.method) || statusCode == 204 || statusCode == 304) {
+            hasBody = false;
+        } else if (transferEncoding != null
+                && transferEncoding.toLowerCase(Locale.US).contains("chunked")) {
+            state = State.CHUNK_SIZE;
+        } else if (contentLength != null) {
+            try {
+                remaining = Long.parseLong(contentLength.trim());
+            } catch (final NumberFormatException e) {
+                throw new IOException("Invalid Content-Length: " + contentLength);
+            }
+            hasBody = remaining > 0;
+            state = State.FIXED_BODY;
+        } else {
+            keepAlive = false;
+            state = State.BODY_UNTIL_CLOSE;
+        }
+
+        body = new ResponseBody(this);
+        final HttpResponse.Builder builder = HttpResponse.builder()
+                .statusCode(statusCode)
+                .statusText(statusText)
+                .content(body);
+        for (final Map.Entry<String, String> header : headers.entrySet()) {
+            builder.header(header.getKey(), header.getValue());
+        }
+        exchange.complete(builder.build());
+        if (!hasBody) {
+            endOfResponse();
+        }
+    }
+
+    private String header(String name) {
+        for (final Map.Entry<String, String> header : headers.entrySet()) {
+            if (header.getKey().equalsIgnoreCase(name)) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+
+    private void deliverBody(ByteBuffer in, int n) {
+        if (body.feed(in.array(), in.arrayOffset() + in.position(), n)) {
+            paused = true;
+        }
+        in.position(in.position() + n);
+    }
+
+    private void endOfResponse() {
+        body.finish();
+        body = null;
+        final Exchange done = inFlight.poll();
+        state = State.STATUS_LINE;
+        // whatever the finished body still buffers no longer holds up the socket
+        paused = false;
+        lastActivity = System.currentTimeMillis();
+        if (!keepAlive || writing == done) {
+            // also covers a server answering before reading the whole body
+            close(null);
+            return;
+        }
+        persistent = true;
+        pool.dispatch();
+    }
+
+    private void onEndOfStream() throws IOException {
+        if (state == State.BODY_UNTIL_CLOSE) {
+            keepAlive = false;
+            endOfResponse();
+        } else if (inFlight.isEmpty()) {
+            close(null);
+        } else {
+            throw new IOException("The server closed the connection before sending the"
+                    + " complete response");
+        }
+    }
+
+    /**
+     * Closes the connection after an error. The response being received
+     * fails; requests whose responses have not started are retried when that
+     * is safe.
+     */
+    private void fail(IOException cause) {
+        if (!open) {
+            return;
+        }
+        if (body != null) {
+            body.fail(cause);
+            body = null;
+        }
+        close(cause);
+    }
+
+    /**
+     * Closes the connection and releases its unanswered requests, either to
+     * be retried or failed with the cause.
+     */
+    private void close(IOException cause) {
+        if (!open) {
+            return;
+        }
+        final List<Exchange> pending = new ArrayList<Exchange>(inFlight);
+        inFlight.clear();
+        toWrite.clear();
+        writing = null;
+        closeQuietly();
+        pool.remove(this);
+        // a timeout or a TLS failure would only recur on another connection
+        final boolean retryable = !(cause instanceof SocketTimeoutException)
+                && !(cause instanceof SSLException);
+        for (int i = pending.size() - 1; i >= 0; i--) {
+            final Exchange exchange = pending.get(i);
+            if (exchange.responseStarted) {
+                exchange.fail(cause != null ? cause
+                        : new IOException("The connection was closed"));
+            } else if (retryable && exchange.isRetryable()) {
+                pool.requeue(exchange);
+            } else {
+                exchange.fail(cause != null ? cause
+                        : new IOException("The connection was closed before the response"
+                                + " was received"));
+            }
+        }
+        pool.dispatch();
+    }
+
+    private void closeQuietly() {
+        open = false;
+        if (key != null) {
+            key.cancel();
+        }
+        if (engine != null) {
+            engine.closeOutbound();
+        }
+        try {
+            channel.close();
+        } catch (final IOException e) {
+            // nothing more to release
+        }
+    }
+
+    void requestResume() {
+        client.submit(new Runnable() {
+            @Override
+            public void run() {
+                if (!open || !paused) {
+                    return;
+                }
+                paused = false;
+                lastActivity = System.currentTimeMillis();
+                handle(key);
+            }
+        });
+    }
+
+    void requestAbandon(final ResponseBody abandoned) {
+        client.submit(new Runnable() {
+            @Override
+            public void run() {
+                if (open && body == abandoned) {
+                    // the rest of the response would have to be drained
+                    body = null;
+                    close(null);
+                }
+            }
+        });
+    }
+
+    /**
+     * A response body fed by the reactor thread and read by the caller. When
+     * more than {@link #HIGH_WATER_MARK} bytes are buffered the connection
+     * stops reading until the caller has drained the buffer to
+     * {@link #LOW_WATER_MARK}. Closing the stream before the end abandons the
+     * connection.
+     */
+    static final class ResponseBody extends InputStream {
+        static final int HIGH_WATER_MARK = 256 * 1024;
+        static final int LOW_WATER_MARK = 64 * 1024;
+
+        private final NioConnection connection;
+        private final ArrayDeque<byte[]> chunks = new ArrayDeque<byte[]>();
+        private int offset;
+        private int buffered;
+        private boolean finished;
+        private boolean closed;
+        private boolean paused;
+        private IOException failure;
+
+        ResponseBody(NioConnection connection) {
+            this.connection = connection;
+        }
+
+        /**
+         * @return true if the connection should stop reading
+         */
+        synchronized boolean feed(byte[] b, int off, int len) {
+            if (closed || len == 0) {
+                return false;
+            }
+            final byte[] copy = new byte[len];
+            System.arraycopy(b, off, copy, 0, len);
+            chunks.add(copy);
+            buffered += len;
+            notifyAll();
+            if (buffered >= HIGH_WATER_MARK) {
+                paused = true;
+            }
+            return paused;
+        }
+
+        synchronized void finish() {
+            finished = true;
+            notifyAll();
+        }
+
+        synchronized void fail(IOException cause) {
+            if (!finished) {
+                failure = cause;
+                notifyAll();
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            final byte[] one = new byte[1];
+            final int n = read(one, 0, 1);
+            return n == -1 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            final int n;
+            boolean resume = false;
+            synchronized (this) {
+                while (chunks.isEmpty()) {
+                    if (closed) {
+                        throw new IOException("Stream closed");
+                    }
+                    if (failure != null) {
+                        throw failure;
+                    }
+                    if (finished) {
+                        return -1;
+                    }
+                    try {
+                        wait();
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted while reading the"
+                                + " response");
+                    }
+                }
+                final byte[] head = chunks.peek();
+                n = Math.min(len, head.length - offset);
+                System.arraycopy(head, offset, b, off, n);
+                offset += n;
+                if (offset == head.length) {
+                    chunks.poll();
+                    offset = 0;
+                }
+                buffered -= n;
+                if (paused && buffered <= LOW_WATER_MARK) {
+                    paused = false;
+                    resume = true;
+                }
+            }
+            if (resume) {
+                connection.requestResume();
+            }
+            return n;
+        }
+
+        @Override
+        public synchronized int available() {
+            return buffered;
+        }
+
+        @Override
+        public void close() {
+            final boolean abandon;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                abandon = !finished && failure == null;
+                chunks.clear();
+                buffered = 0;
+                notifyAll();
+            }
+            if (abandon) {
+                connection.requestAbandon(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,695 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.http;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.async.SdkExecutors;
+import com.amazonaws.logging.Log;
+import com.amazonaws.logging.LogFactory;
+import com.amazonaws.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+
+/**
+ * An {@link HttpClient} that multiplexes all of its connections over a single
+ * selector thread instead of holding one thread per in-flight request.
+ * <p>
+ * Connections are pooled per host, up to
+ * {@link ClientConfiguration#getMaxConnections()} for each host, and kept
+ * alive between requests. Idempotent requests without a body may be pipelined
+ * on a connection that has already proven to be persistent. Response bodies
+ * are buffered up to a bounded size; once a caller stops reading, the
+ * connection stops reading from the socket until the caller catches up.
+ * <p>
+ * {@link #execute(HttpRequest)} blocks until the response headers arrive, so
+ * the client can be passed to
+ * {@link AmazonHttpClient#AmazonHttpClient(ClientConfiguration, HttpClient)}.
+ * {@link #executeAsync(HttpRequest, Callback)} returns immediately and
+ * notifies the callback on a separate executor, never on the selector thread.
+ * <p>
+ * Request bodies are read on the selector thread as the socket accepts
+ * them, so they should be backed by memory or a local file rather than by
+ * another network stream. Proxies are not supported; use
+ * {@link UrlHttpClient} when a proxy is configured.
+ */
+public class NioHttpClient implements HttpClient {
+
+    private static final Log log = LogFactory.getLog(NioHttpClient.class);
+
+    /** Maximum number of requests outstanding on a pipelined connection */
+    static final int MAX_PIPELINE_DEPTH = 4;
+
+    /** Time after which an unused pooled connection is closed */
+    static final long IDLE_TIMEOUT_MILLIS = 60 * 1000L;
+
+    /** Upper bound on how late a timeout is noticed */
+    private static final long SELECT_TIMEOUT_MILLIS = 250;
+
+    private static final int DEFAULT_CALLBACK_CONCURRENCY = 2;
+
+    private static final AtomicInteger INSTANCE_COUNT = new AtomicInteger();
+
+    private final ClientConfiguration config;
+    private final Selector selector;
+    private final Thread reactor;
+    private final ArrayDeque<Runnable> tasks = new ArrayDeque<Runnable>();
+    private final ExecutorService callbackExecutor;
+    private final boolean ownsCallbackExecutor;
+
+    /** Only accessed on the reactor thread */
+    private final Map<String, HostPool> pools = new HashMap<String, HostPool>();
+    private SSLContext sslContext;
+    private boolean closed;
+
+    /** Guarded by {@link #tasks} */
+    private boolean terminated;
+
+    private volatile boolean shutdown;
+
+    /**
+     * Receives the outcome of a request submitted with
+     * {@link NioHttpClient#executeAsync(HttpRequest, Callback)}.
+     */
+    public interface Callback {
+        /**
+         * Called once the status line and headers have been received. The
+         * response content may still be arriving.
+         *
+         * @param response the response
+         */
+        void onResponse(HttpResponse response);
+
+        /**
+         * Called when the request could not be sent or no response was
+         * received.
+         *
+         * @param e the cause of the failure
+         */
+        void onFailure(IOException e);
+    }
+
+    /**
+     * Creates a client whose callbacks run on a small internal thread pool.
+     *
+     * @param config the client configuration
+     */
+    public NioHttpClient(ClientConfiguration config) {
+        this(config, null);
+    }
+
+    /**
+     * Creates a client whose callbacks run on the given executor.
+     *
+     * @param config the client configuration
+     * @param callbackExecutor the executor for callbacks, or null to run
+     *            them on the SDK's shared threads
+     */
+    public NioHttpClient(ClientConfiguration config, ExecutorService callbackExecutor) {
+        this.config = config;
+        final int id = INSTANCE_COUNT.incrementAndGet();
+        if (callbackExecutor == null) {
+            this.callbackExecutor = SdkExecutors.newClientExecutor(DEFAULT_CALLBACK_CONCURRENCY);
+            this.ownsCallbackExecutor = true;
+        } else {
+            this.callbackExecutor = callbackExecutor;
+            this.ownsCallbackExecutor = false;
+        }
+        try {
+            selector = Selector.open();
+        } catch (final IOException e) {
+            throw new AmazonClientException("Unable to open a selector", e);
+        }
+        reactor = daemonThreadFactory("aws-nio-http-reactor-" + id).newThread(new Runnable() {
+            @Override
+            public void run() {
+                runReactor();
+            }
+        });
+        reactor.start();
+    }
+
+    @Override
+    public HttpResponse execute(HttpRequest request) throws IOException {
+        try {
+            return executeAsync(request, null).get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the response");
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Sends the request without waiting for the response.
+     *
+     * @param request the request to send
+     * @param callback notified of the outcome, may be null
+     * @return a future which completes once the response headers arrive
+     */
+    public Future<HttpResponse> executeAsync(HttpRequest request, Callback callback) {
+        final Exchange exchange = new Exchange(request, callback, callbackExecutor);
+        if (shutdown) {
+            exchange.fail(new IOException("The client has been shut down"));
+            return exchange;
+        }
+        try {
+            exchange.prepare();
+        } catch (final IOException e) {
+            exchange.fail(e);
+            return exchange;
+        }
+        final boolean submitted = submit(new Runnable() {
+            @Override
+            public void run() {
+                if (closed) {
+                    exchange.fail(new IOException("The client has been shut down"));
+                    return;
+                }
+                try {
+                    poolFor(exchange).enqueue(exchange);
+                } catch (final IOException e) {
+                    exchange.fail(e);
+                }
+            }
+        });
+        if (!submitted) {
+            exchange.fail(new IOException("The client has been shut down"));
+        }
+        return exchange;
+    }
+
+    /**
+     * Fails all outstanding requests and closes every connection. The client
+     * cannot be used afterwards.
+     */
+    @Override
+    public void shutdown() {
+        if (shutdown) {
+            return;
+        }
+        shutdown = true;
+        submit(new Runnable() {
+            @Override
+            public void run() {
+                closed = true;
+            }
+        });
+    }
+
+    ClientConfiguration getConfig() {
+        return config;
+    }
+
+    Selector getSelector() {
+        return selector;
+    }
+
+    /**
+     * Runs the task on the reactor thread.
+     *
+     * @return false if the reactor has already terminated
+     */
+    boolean submit(Runnable task) {
+        synchronized (tasks) {
+            if (terminated) {
+                return false;
+            }
+            tasks.add(task);
+        }
+        selector.wakeup();
+        return true;
+    }
+
+    private void runReactor() {
+        try {
+            while (!closed) {
+                runTasks();
+                if (closed) {
+                    break;
+                }
+                selector.select(SELECT_TIMEOUT_MILLIS);
+                final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    final SelectionKey key = keys.next();
+                    keys.remove();
+                    ((NioConnection) key.attachment()).handle(key);
+                }
+                checkTimeouts();
+            }
+        } catch (final Throwable t) {
+            log.error("The NIO reactor stopped unexpectedly", t);
+        } finally {
+            terminate();
+        }
+    }
+
+    private void runTasks() {
+        while (true) {
+            final Runnable task;
+            synchronized (tasks) {
+                task = tasks.poll();
+            }
+            if (task == null) {
+                return;
+            }
+            try {
+                task.run();
+            } catch (final RuntimeException e) {
+                log.error("Unexpected error in the NIO reactor", e);
+            }
+        }
+    }
+
+    private void checkTimeouts() {
+        final long now = System.currentTimeMillis();
+        for (final HostPool pool : new ArrayList<HostPool>(pools.values())) {
+            for (final NioConnection connection : new ArrayList<NioConnection>(
+                    pool.connections)) {
+                connection.checkTimeout(now);
+            }
+        }
+    }
+
+    private void terminate() {
+        final List<Runnable> remaining;
+        synchronized (tasks) {
+            terminated = true;
+            remaining = new ArrayList<Runnable>(tasks);
+            tasks.clear();
+        }
+        closed = true;
+        for (final Runnable task : remaining) {
+            try {
+                task.run();
+            } catch (final RuntimeException e) {
+                log.error("Unexpected error in the NIO reactor", e);
+            }
+        }
+        final IOException cause = new IOException("The client has been shut down");
+        for (final HostPool pool : pools.values()) {
+            pool.close(cause);
+        }
+        pools.clear();
+        try {
+            selector.close();
+        } catch (final IOException e) {
+            log.debug("Unable to close the selector", e);
+        }
+        if (ownsCallbackExecutor) {
+            callbackExecutor.shutdown();
+        }
+    }
+
+    private HostPool poolFor(Exchange exchange) throws IOException {
+        HostPool pool = pools.get(exchange.poolKey);
+        if (pool == null) {
+            pool = new HostPool(exchange.secure ? sslContext() : null);
+            pools.put(exchange.poolKey, pool);
+        }
+        return pool;
+    }
+
+    private SSLContext sslContext() throws IOException {
+        if (sslContext == null) {
+            try {
+                if (config.getTrustManager() != null) {
+                    final SSLContext context = SSLContext.getInstance("TLS");
+                    context.init(null, new TrustManager[] {
+                            config.getTrustManager()
+                    }, null);
+                    sslContext = context;
+                } else {
+                    sslContext = SSLContext.getDefault();
+                }
+            } catch (final Exception e) {
+                throw new IOException("Unable to initialize the SSL context", e);
+            }
+        }
+        return sslContext;
+    }
+
+    private static ThreadFactory daemonThreadFactory(final String name) {
+        return new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                final Thread t = new Thread(r, name.endsWith("-")
+                        ? name + count.incrementAndGet()
+                        : name);
+                t.setDaemon(true);
+                return t;
+            }
+        };
+    }
+
+    /**
+     * The connections to one scheme, host and port, and the requests waiting
+     * for one of them. Only accessed on the reactor thread.
+     */
+    final class HostPool {
+        private final SSLContext sslContext;
+        final List<NioConnection> connections = new ArrayList<NioConnection>();
+        private final ArrayDeque<Exchange> waiting = new ArrayDeque<Exchange>();
+
+        HostPool(SSLContext sslContext) {
+            this.sslContext = sslContext;
+        }
+
+        NioHttpClient getClient() {
+            return NioHttpClient.this;
+        }
+
+        void enqueue(Exchange exchange) {
+            waiting.add(exchange);
+            dispatch();
+        }
+
+        /**
+         * Puts a request that was never answered back at the head of the
+         * queue, to be sent again on another connection.
+         */
+        void requeue(Exchange exchange) {
+            exchange.attempts++;
+            exchange.head.rewind();
+            waiting.addFirst(exchange);
+        }
+
+        void remove(NioConnection connection) {
+            connections.remove(connection);
+        }
+
+        /**
+         * Hands waiting requests to idle connections first, then to new
+         * connections up to the limit, and finally pipelines them on
+         * persistent connections.
+         */
+        void dispatch() {
+            while (!waiting.isEmpty() && !closed) {
+                final Exchange next = waiting.peekFirst();
+                NioConnection target = null;
+                for (final NioConnection connection : connections) {
+                    if (connection.isIdle()) {
+                        target = connection;
+                        break;
+                    }
+                }
+                if (target == null && connections.size() < config.getMaxConnections()) {
+                    try {
+                        target = new NioConnection(this, next.address, next.host, next.port,
+                                sslContext);
+                    } catch (final IOException e) {
+                        waiting.pollFirst().fail(e);
+                        continue;
+                    }
+                    connections.add(target);
+                }
+                if (target == null) {
+                    for (final NioConnection connection : connections) {
+                        if (connection.canPipeline(next)) {
+                            target = connection;
+                            break;
+                        }
+                    }
+                }
+                if (target == null) {
+                    return;
+                }
+                waiting.pollFirst();
+                target.assign(next);
+            }
+        }
+
+        void close(IOException cause) {
+            for (final Exchange exchange : waiting) {
+                exchange.fail(cause);
+            }
+            waiting.clear();
+            for (final NioConnection connection : new ArrayList<NioConnection>(connections)) {
+                connection.abort(cause);
+            }
+            connections.clear();
+        }
+    }
+
+    /**
+     * A request together with its eventual response. The request is encoded
+     * on the calling thread; everything else happens on the reactor thread
+     * until the response or failure is published.
+     */
+    static final class Exchange implements Future<HttpResponse> {
+        private static final int MAX_ATTEMPTS = 2;
+
+        final HttpRequest request;
+        private final Callback callback;
+        private final ExecutorService callbackExecutor;
+        private final CountDownLatch latch = new CountDownLatch(1);
+
+        String method;
+        String host;
+        int port;
+        boolean secure;
+        String poolKey;
+        InetSocketAddress address;
+        ByteBuffer head;
+        InputStream content;
+        boolean chunked;
+        long contentLength;
+        boolean responseStarted;
+        int attempts;
+
+        private volatile HttpResponse response;
+        private volatile IOException failure;
+        private boolean done;
+
+        Exchange(HttpRequest request, Callback callback, ExecutorService callbackExecutor) {
+            this.request = request;
+            this.callback = callback;
+            this.callbackExecutor = callbackExecutor;
+        }
+
+        /**
+         * Resolves the host and encodes the request line and headers.
+         */
+        void prepare() throws IOException {
+            final URI uri = request.getUri();
+            final String scheme = uri.getScheme() == null ? ""
+                    : uri.getScheme().toLowerCase(Locale.US);
+            if (!"http".equals(scheme) && !"https".equals(scheme)) {
+                throw new IOException("Unsupported scheme: " + uri.getScheme());
+            }
+            method = request.getMethod();
+            secure = "https".equals(scheme);
+            host = uri.getHost();
+            if (host == null) {
+                throw new IOException("No host in " + uri);
+            }
+            final int defaultPort = secure ? 443 : 80;
+            port = uri.getPort() == -1 ? defaultPort : uri.getPort();
+            poolKey = scheme + "://" + host + ":" + port;
+            address = new InetSocketAddress(host, port);
+            if (address.isUnresolved()) {
+                throw new UnknownHostException(host);
+            }
+
+            content = request.getContent();
+            String declaredLength = null;
+            final StringBuilder sb = new StringBuilder(256);
+            String path = uri.getRawPath();
+            if (path == null || path.length() == 0) {
+                path = "/";
+            }
+            sb.append(method).append(' ').append(path);
+            if (uri.getRawQuery() != null) {
+                sb.append('?').append(uri.getRawQuery());
+            }
+            sb.append(" HTTP/1.1\r\n");
+            sb.append("Host: ").append(host);
+            if (port != defaultPort) {
+                sb.append(':').append(port);
+            }
+            sb.append("\r\n");
+            for (final Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+                final String name = header.getKey();
+                if (HttpHeader.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                    declaredLength = header.getValue();
+                    continue;
+                }
+                if (HttpHeader.HOST.equalsIgnoreCase(name)
+                        || "Expect".equalsIgnoreCase(name)
+                        || "Connection".equalsIgnoreCase(name)
+                        || "Transfer-Encoding".equalsIgnoreCase(name)) {
+                    continue;
+                }
+                sb.append(name).append(": ").append(header.getValue()).append("\r\n");
+            }
+            if (content != null) {
+                chunked = request.isStreaming() || declaredLength == null;
+                if (chunked) {
+                    sb.append("Transfer-Encoding: chunked\r\n");
+                } else {
+                    try {
+                        contentLength = Long.parseLong(declaredLength.trim());
+                    } catch (final NumberFormatException e) {
+                        throw new IOException("Invalid Content-Length: " + declaredLength);
+                    }
+                    sb.append("Content-Length: ").append(contentLength).append("\r\n");
+                }
+            } else if ("POST".equals(method) || "PUT".equals(method)
+                    || "PATCH".equals(method)) {
+                sb.append("Content-Length: 0\r\n");
+            }
+            sb.append("\r\n");
+            head = ByteBuffer.wrap(sb.toString().getBytes(StringUtils.UTF8));
+        }
+
+        /**
+         * Whether the request can be sent behind other requests on the same
+         * connection.
+         */
+        boolean isPipelinable() {
+            return content == null
+                    && ("GET".equals(method) || "HEAD".equals(method)
+                            || "OPTIONS".equals(method));
+        }
+
+        /**
+         * Whether the request can be sent again after its connection failed
+         * before any part of the response arrived.
+         */
+        boolean isRetryable() {
+            return !responseStarted && attempts + 1 < MAX_ATTEMPTS && content == null
+                    && ("GET".equals(method) || "HEAD".equals(method)
+                            || "OPTIONS".equals(method) || "PUT".equals(method)
+                            || "DELETE".equals(method));
+        }
+
+        void complete(HttpResponse response) {
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                done = true;
+                this.response = response;
+            }
+            latch.countDown();
+            notifyCallback();
+        }
+
+        void fail(IOException e) {
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                done = true;
+                this.failure = e;
+            }
+            latch.countDown();
+            notifyCallback();
+        }
+
+        private void notifyCallback() {
+            if (callback == null) {
+                return;
+            }
+            final Runnable notify = new Runnable() {
+                @Override
+                public void run() {
+                    if (failure != null) {
+                        callback.onFailure(failure);
+                    } else {
+                        callback.onResponse(response);
+                    }
+                }
+            };
+            try {
+                callbackExecutor.execute(notify);
+            } catch (final RejectedExecutionException e) {
+                notify.run();
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return false;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public boolean isDone() {
+            return latch.getCount() == 0;
+        }
+
+        @Override
+        public HttpResponse get() throws InterruptedException, ExecutionException {
+            latch.await();
+            return result();
+        }
+
+        @Override
+        public HttpResponse get(long timeout, TimeUnit unit) throws InterruptedException,
+                ExecutionException, TimeoutException {
+            if (!latch.await(timeout, unit)) {
+                throw new TimeoutException();
+            }
+            return result();
+        }
+
+        private HttpResponse result() throws ExecutionException {
+            if (failure != null) {
+                throw new ExecutionException(failure);
+            }
+            return response;
+        }
+    }
+}
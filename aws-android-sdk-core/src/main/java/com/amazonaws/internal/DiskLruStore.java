@@ -0,0 +1,248 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.internal;
+
+import com.amazonaws.logging.Log;
+import com.amazonaws.logging.LogFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A directory of files bounded by bytes, which deletes the least recently
+ * used files once it exceeds its limit. Each entry is a file named by its key
+ * and a suffix, and its modification time records its last use. Entries are
+ * written to a temporary file and renamed into place, so a partially written
+ * entry is never read.
+ * <p>
+ * Internal class backing the disk caches of the SDK clients. This class may
+ * change without notice and may not be reflected in the SDK versioning
+ * scheme. This class is thread safe.
+ */
+public class DiskLruStore {
+    private static final Log LOGGER = LogFactory.getLog(DiskLruStore.class);
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /**
+     * Writes the content of an entry.
+     */
+    public interface EntryWriter {
+        /**
+         * Writes the entry to the stream, which is closed afterwards.
+         *
+         * @param out the stream to the temporary file.
+         * @throws IOException if the entry can't be written.
+         */
+        void write(OutputStream out) throws IOException;
+    }
+
+    private final File directory;
+    private final String suffix;
+    private final long maxBytes;
+
+    /** Guarded by {@link #lock} */
+    private long bytes = -1;
+    private final Object lock = new Object();
+
+    /**
+     * Creates a store, creating the directory if it does not exist. The
+     * size of the files already in the directory is read on first write.
+     *
+     * @param directory the directory holding the entries.
+     * @param suffix the file name suffix of the entries, such as ".audio".
+     * @param maxBytes the maximum number of bytes kept in the directory.
+     */
+    public DiskLruStore(File directory, String suffix, long maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("maxBytes must not be negative");
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IllegalArgumentException("Unable to create cache directory " + directory);
+        }
+        this.directory = directory;
+        this.suffix = suffix;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the file of an entry and records its use, or null if it is not
+     * stored. The file may still be deleted by a concurrent trim before it is
+     * read.
+     *
+     * @param key the key of the entry.
+     * @return the file of the entry, or null.
+     */
+    public File get(String key) {
+        final File file = fileOf(key);
+        if (!file.isFile()) {
+            return null;
+        }
+        if (!file.setLastModified(System.currentTimeMillis())) {
+            LOGGER.debug("Unable to update the access time of " + file);
+        }
+        return file;
+    }
+
+    /**
+     * Returns whether an entry is stored, without recording a use.
+     *
+     * @param key the key of the entry.
+     * @return true if the entry's file exists.
+     */
+    public boolean contains(String key) {
+        return fileOf(key).isFile();
+    }
+
+    /**
+     * Writes an entry, replacing any previous one, and deletes the least
+     * recently used entries until the directory is within its limit. An entry
+     * larger than the limit is not stored.
+     *
+     * @param key the key of the entry.
+     * @param writer writes the content of the entry.
+     * @throws IOException if the entry can't be written; the previous entry,
+     *             if any, is kept.
+     */
+    public void put(String key, EntryWriter writer) throws IOException {
+        final File file = fileOf(key);
+        final File temp = new File(directory, key + TEMP_SUFFIX);
+        try {
+            final OutputStream out = new BufferedOutputStream(new FileOutputStream(temp));
+            try {
+                writer.write(out);
+            } finally {
+                out.close();
+            }
+            final long length = temp.length();
+            if (length > maxBytes) {
+                temp.delete();
+                return;
+            }
+            synchronized (lock) {
+                initBytes();
+                deleteFile(file);
+                if (!temp.renameTo(file)) {
+                    throw new IOException("Unable to rename " + temp + " to " + file);
+                }
+                bytes += length;
+                trim();
+            }
+        } catch (final IOException e) {
+            temp.delete();
+            throw e;
+        }
+    }
+
+    /**
+     * Deletes an entry if it is stored.
+     *
+     * @param key the key of the entry.
+     */
+    public void remove(String key) {
+        synchronized (lock) {
+            deleteFile(fileOf(key));
+        }
+    }
+
+    /**
+     * Deletes every entry.
+     */
+    public void clear() {
+        synchronized (lock) {
+            for (final File file : listFiles()) {
+                deleteFile(file);
+            }
+            bytes = 0;
+        }
+    }
+
+    /** Must hold {@link #lock} */
+    private void initBytes() {
+        if (bytes >= 0) {
+            return;
+        }
+        bytes = 0;
+        for (final File file : listFiles()) {
+            bytes += file.length();
+        }
+    }
+
+    /**
+     * Deletes the least recently used files until the directory is within
+     * its limit. Must hold {@link #lock}.
+     */
+    private void trim() {
+        if (bytes <= maxBytes) {
+            return;
+        }
+        final List<File> files = listFiles();
+        // snapshot the modification times, as a concurrent get may touch a
+        // file while sorting and break the ordering
+        final Map<File, Long> used = new HashMap<File, Long>();
+        for (final File file : files) {
+            used.put(file, file.lastModified());
+        }
+        Collections.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                final long x = used.get(a);
+                final long y = used.get(b);
+                return x < y ? -1 : (x == y ? 0 : 1);
+            }
+        });
+        for (final File file : files) {
+            if (bytes <= maxBytes) {
+                break;
+            }
+            deleteFile(file);
+        }
+    }
+
+    /** Must hold {@link #lock} */
+    private void deleteFile(File file) {
+        final long length = file.length();
+        if (file.delete() && bytes > 0) {
+            bytes -= length;
+        }
+    }
+
+    private List<File> listFiles() {
+        final File[] files = directory.listFiles();
+        final List<File> entryFiles = new ArrayList<File>();
+        if (files != null) {
+            for (final File file : files) {
+                if (file.getName().endsWith(suffix)) {
+                    entryFiles.add(file);
+                }
+            }
+        }
+        return entryFiles;
+    }
+
+    private File fileOf(String key) {
+        return new File(directory, key + suffix);
+    }
+}
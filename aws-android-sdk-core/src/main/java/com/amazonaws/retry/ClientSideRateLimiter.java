@@ -0,0 +1,191 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.retry;
+
+import com.amazonaws.AmazonClientException;
+
+/**
+ * Limits the rate at which a client sends requests once a service has
+ * throttled it. The limit is a token bucket whose fill rate follows CUBIC
+ * congestion control: a throttled response cuts the rate to a fraction of the
+ * rate the client was sending at, and successful responses raise it again,
+ * slowly near the rate that was last throttled and faster beyond it. The rate
+ * never exceeds twice the rate the client actually sends at.
+ * <p>
+ * Until the first throttled response, the limiter only measures the sending
+ * rate and never delays a request.
+ * <p>
+ * This class is thread safe.
+ */
+public class ClientSideRateLimiter {
+
+    private static final double MIN_FILL_RATE = 0.5;
+    private static final double MIN_CAPACITY = 1.0;
+    /** Weight of the latest measurement in the measured sending rate */
+    private static final double SMOOTH = 0.8;
+    /** Fraction of the sending rate kept after a throttled response */
+    private static final double BETA = 0.7;
+    private static final double SCALE_CONSTANT = 0.4;
+    private static final double NANOS_PER_SECOND = 1000000000.0;
+    private static final long MILLIS_PER_SECOND = 1000L;
+
+    private double fillRate;
+    private double maxCapacity;
+    private double currentCapacity;
+    private double lastTimestamp = -1;
+    private boolean enabled;
+
+    private double measuredTxRate;
+    private double lastTxRateBucket;
+    private int requestCount;
+    private double lastMaxRate;
+    private double lastThrottleTime;
+    private double timeWindow;
+
+    /**
+     * Constructs a limiter that does not limit until the first throttled
+     * response.
+     */
+    public ClientSideRateLimiter() {
+        this(now());
+    }
+
+    ClientSideRateLimiter(double now) {
+        lastTxRateBucket = Math.floor(now);
+        lastThrottleTime = now;
+    }
+
+    /**
+     * Waits until the sending rate allows another request.
+     *
+     * @throws AmazonClientException if the thread is interrupted while
+     *             waiting.
+     */
+    public void acquire() {
+        final double delay = acquireDelay(now());
+        if (delay <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep((long) Math.ceil(delay * MILLIS_PER_SECOND));
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmazonClientException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Takes a token for a request sent at the given time.
+     *
+     * @return the number of seconds the request has to wait.
+     */
+    synchronized double acquireDelay(double now) {
+        if (!enabled) {
+            return 0;
+        }
+        refill(now);
+        double delay = 0;
+        if (currentCapacity < 1) {
+            delay = (1 - currentCapacity) / fillRate;
+        }
+        // a request that waits takes the token it waits for in advance
+        currentCapacity -= 1;
+        return delay;
+    }
+
+    /**
+     * Adjusts the sending rate after a response.
+     *
+     * @param throttled whether the service throttled the request.
+     */
+    public void updateSendingRate(boolean throttled) {
+        updateSendingRate(throttled, now());
+    }
+
+    synchronized void updateSendingRate(boolean throttled, double now) {
+        updateMeasuredRate(now);
+        double calculatedRate;
+        if (throttled) {
+            final double rateToUse = enabled ? Math.min(measuredTxRate, fillRate) : measuredTxRate;
+            lastMaxRate = rateToUse;
+            calculateTimeWindow();
+            lastThrottleTime = now;
+            calculatedRate = rateToUse * BETA;
+            enabled = true;
+        } else {
+            calculateTimeWindow();
+            final double sinceThrottle = now - lastThrottleTime - timeWindow;
+            calculatedRate = SCALE_CONSTANT * sinceThrottle * sinceThrottle * sinceThrottle
+                    + lastMaxRate;
+        }
+        updateBucketRate(Math.min(calculatedRate, 2 * measuredTxRate), now);
+    }
+
+    /**
+     * @return whether a throttled response has enabled the limit.
+     */
+    public synchronized boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the number of requests per second the limit allows.
+     */
+    public synchronized double getFillRate() {
+        return fillRate;
+    }
+
+    synchronized double getMeasuredTxRate() {
+        return measuredTxRate;
+    }
+
+    private void refill(double now) {
+        if (lastTimestamp < 0) {
+            lastTimestamp = now;
+            return;
+        }
+        final double fillAmount = (now - lastTimestamp) * fillRate;
+        currentCapacity = Math.min(maxCapacity, currentCapacity + fillAmount);
+        lastTimestamp = now;
+    }
+
+    private void updateBucketRate(double newRate, double now) {
+        refill(now);
+        fillRate = Math.max(newRate, MIN_FILL_RATE);
+        maxCapacity = Math.max(newRate, MIN_CAPACITY);
+        currentCapacity = Math.min(currentCapacity, maxCapacity);
+    }
+
+    private void updateMeasuredRate(double now) {
+        // requests are counted in half second buckets
+        final double timeBucket = Math.floor(now * 2) / 2;
+        requestCount++;
+        if (timeBucket > lastTxRateBucket) {
+            final double currentRate = requestCount / (timeBucket - lastTxRateBucket);
+            measuredTxRate = currentRate * SMOOTH + measuredTxRate * (1 - SMOOTH);
+            requestCount = 0;
+            lastTxRateBucket = timeBucket;
+        }
+    }
+
+    private void calculateTimeWindow() {
+        timeWindow = Math.cbrt(lastMaxRate * (1 - BETA) / SCALE_CONSTANT);
+    }
+
+    private static double now() {
+        return System.nanoTime() / NANOS_PER_SECOND;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.retry;
+
+import com.amazonaws.AmazonClientException;
+
+import java.net.SocketTimeoutException;
+
+/**
+ * A budget of retries shared by all requests of a client. Every retry draws
+ * tokens from the quota and every successful request puts some back, so when
+ * most requests of a client fail it stops retrying, rather than multiplying
+ * the load on a service that is already failing, and it resumes retrying as
+ * requests succeed again.
+ * <p>
+ * This class is thread safe.
+ */
+public class RetryQuota {
+
+    /** Number of tokens a quota starts with */
+    public static final int DEFAULT_CAPACITY = 500;
+    /** Tokens a retry draws */
+    public static final int RETRY_COST = 5;
+    /** Tokens a retry after a timeout draws */
+    public static final int TIMEOUT_RETRY_COST = 10;
+    /** Tokens a request that succeeded without retry puts back */
+    public static final int NO_RETRY_INCREMENT = 1;
+
+    private final int capacity;
+    private int availableCapacity;
+
+    /**
+     * Constructs a full quota of {@link #DEFAULT_CAPACITY} tokens.
+     */
+    public RetryQuota() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a full quota.
+     *
+     * @param capacity the number of tokens of the quota.
+     */
+    public RetryQuota(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity must not be negative");
+        }
+        this.capacity = capacity;
+        this.availableCapacity = capacity;
+    }
+
+    /**
+     * Draws the tokens for retrying after the exception, if the quota has
+     * enough of them left.
+     *
+     * @param exception the exception of the failed attempt.
+     * @return the number of tokens drawn, which the request passes back to
+     *         {@link #release(int)} if it succeeds; or 0 if the quota is
+     *         exhausted and the request should not be retried.
+     */
+    public synchronized int acquire(AmazonClientException exception) {
+        final int cost = isTimeout(exception) ? TIMEOUT_RETRY_COST : RETRY_COST;
+        if (availableCapacity < cost) {
+            return 0;
+        }
+        availableCapacity -= cost;
+        return cost;
+    }
+
+    /**
+     * Puts tokens back after a successful request: the tokens drawn for its
+     * last retry, or {@link #NO_RETRY_INCREMENT} if it was not retried.
+     *
+     * @param lastRetryCost the value {@link #acquire(AmazonClientException)}
+     *            returned for the last retry of the request, or 0.
+     */
+    public synchronized void release(int lastRetryCost) {
+        final int increment = lastRetryCost > 0 ? lastRetryCost : NO_RETRY_INCREMENT;
+        availableCapacity = Math.min(capacity, availableCapacity + increment);
+    }
+
+    /**
+     * @return the number of tokens left.
+     */
+    public synchronized int getAvailableCapacity() {
+        return availableCapacity;
+    }
+
+    private static boolean isTimeout(AmazonClientException exception) {
+        return exception != null && exception.getCause() instanceof SocketTimeoutException;
+    }
+}
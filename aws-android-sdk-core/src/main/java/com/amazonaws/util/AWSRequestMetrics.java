@@ -74,9 +74,25 @@ public class AWSRequestMetrics {
          */
         HttpRequestTime,
 
+        /**
+         * Number of milliseconds a request waited for the client side sending
+         * rate limit of adaptive retry.
+         */
+        RateLimiterDelay,
+
         /** RedirectLocation. */
         RedirectLocation,
 
+        /**
+         * Size of a compressed request payload relative to its uncompressed
+         * size; for example 0.25 means the payload shrank to a quarter.
+         */
+        RequestCompressionRatio,
+        /**
+         * Number of milliseconds taken to compress a request payload.
+         */
+        RequestCompressionTime,
+
         /** RequestMarshallTime. */
         RequestMarshallTime,
         /**
@@ -115,10 +131,26 @@ public class AWSRequestMetrics {
 
         /** RetryPauseTime. */
         RetryPauseTime,
+        /**
+         * Capacity left in the retry quota of adaptive retry after a request
+         * drew from or refilled it.
+         */
+        RetryQuotaCapacity,
+        /**
+         * Number of retries not made because the retry quota of adaptive
+         * retry was exhausted.
+         */
+        RetryQuotaExceeded,
         // S3DownloadThroughput, // migrated to S3RequestMetric in the S3 clint
         // library
         // S3UploadThroughput, // migrated to S3RequestMetric in the S3 clint
         // library
+        /**
+         * Requests per second the client side rate limit of adaptive retry
+         * allows after a response; only reported once the client has been
+         * throttled.
+         */
+        SendRate,
         /** ServiceEndpoint. */
         ServiceEndpoint,
 
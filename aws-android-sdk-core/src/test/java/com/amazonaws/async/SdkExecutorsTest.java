@@ -0,0 +1,156 @@
+/*
+ * Copyright 2018-2019 Amazon.com, Inc. or its affiliates.
+ * All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.amazonaws.async;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SdkExecutorsTest {
+
+    @Test
+    public void testLimitsConcurrencyOfClient() throws Exception {
+        final ExecutorService executor = SdkExecutors.newClientExecutor(2);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(8);
+        for (int i = 0; i < 8; i++) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    final int now = running.incrementAndGet();
+                    synchronized (maxRunning) {
+                        maxRunning.set(Math.max(maxRunning.get(), now));
+                    }
+                    try {
+                        Thread.sleep(20);
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    running.decrementAndGet();
+                    done.countDown();
+                }
+            });
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(2, maxRunning.get());
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testBlockedTasksDoNotHoldBackOtherTasks() throws Exception {
+        // more blocking tasks than a pool sized by processors would run
+        final int tasks = 32;
+        final ExecutorService executor = SdkExecutors.newClientExecutor(tasks);
+        final CountDownLatch allRunning = new CountDownLatch(tasks);
+        final CountDownLatch done = new CountDownLatch(tasks);
+        for (int i = 0; i < tasks; i++) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    allRunning.countDown();
+                    try {
+                        if (allRunning.await(10, TimeUnit.SECONDS)) {
+                            done.countDown();
+                        }
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        executor.shutdown();
+    }
+
+    @Test
+    public void testShutdownNowOnlyAffectsClient() throws Exception {
+        final ExecutorService first = SdkExecutors.newClientExecutor(1);
+        final ExecutorService second = SdkExecutors.newClientExecutor(1);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        first.execute(new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    Thread.sleep(10000);
+                } catch (final InterruptedException e) {
+                    interrupted.countDown();
+                }
+            }
+        });
+        first.execute(new Runnable() {
+            @Override
+            public void run() {
+                // never runs
+            }
+        });
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        final List<Runnable> pending = first.shutdownNow();
+        assertEquals(1, pending.size());
+        assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+        assertTrue(first.awaitTermination(10, TimeUnit.SECONDS));
+
+        final Future<Boolean> result = second.submit(new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                return Thread.currentThread().isInterrupted();
+            }
+        });
+        assertFalse(result.get(10, TimeUnit.SECONDS));
+        assertFalse(second.isShutdown());
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void testRejectsAfterShutdown() {
+        final ExecutorService executor = SdkExecutors.newClientExecutor(1);
+        executor.shutdown();
+        assertTrue(executor.isTerminated());
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+            }
+        });
+    }
+
+    @Test
+    public void testSchedule() throws Exception {
+        final CountDownLatch ran = new CountDownLatch(1);
+        SdkExecutors.schedule(new Runnable() {
+            @Override
+            public void run() {
+                ran.countDown();
+            }
+        }, 10, TimeUnit.MILLISECONDS);
+        assertTrue(ran.await(10, TimeUnit.SECONDS));
+    }
+}
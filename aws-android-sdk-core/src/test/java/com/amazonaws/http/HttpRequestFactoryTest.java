@@ -16,18 +16,28 @@
 package com.amazonaws.http;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import com.amazonaws.ClientConfiguration;
 import com.amazonaws.DefaultRequest;
 import com.amazonaws.Request;
+import com.amazonaws.util.AWSRequestMetrics;
+import com.amazonaws.util.AWSRequestMetricsFullSupport;
+import com.amazonaws.util.HttpUtils;
+import com.amazonaws.util.IOUtils;
+import com.amazonaws.util.StringUtils;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.net.URI;
 import java.util.Map;
+import java.util.zip.GZIPInputStream;
 
 public class HttpRequestFactoryTest {
 
@@ -81,4 +91,85 @@ public class HttpRequestFactoryTest {
         assertEquals(URI.create(expectedUri), httpRequest.getUri());
     }
 
+    @Test
+    public void testCompressFormPayload() throws IOException {
+        clientConfiguration.withEnableRequestCompression(true).withRequestCompressionThreshold(100);
+        request.setCompressible(true);
+        request.setHttpMethod(HttpMethodName.POST);
+        for (int i = 0; i < 50; i++) {
+            request.addParameter("MetricData.member." + i + ".MetricName", "latency");
+        }
+        final String form = HttpUtils.encodeParameters(request);
+        final AWSRequestMetrics metrics = new AWSRequestMetricsFullSupport();
+
+        assertTrue(factory.compressRequestPayload(request, clientConfiguration, metrics));
+        assertTrue(request.getParameters().isEmpty());
+        assertEquals("gzip", request.getHeaders().get(HttpHeader.CONTENT_ENCODING));
+
+        final byte[] compressed = IOUtils.toByteArray(request.getContent());
+        assertEquals(String.valueOf(compressed.length),
+                request.getHeaders().get(HttpHeader.CONTENT_LENGTH));
+        assertEquals(form, new String(gunzip(compressed), StringUtils.UTF8));
+        final double ratio = (Double) metrics.getProperty(
+                AWSRequestMetrics.Field.RequestCompressionRatio).get(0);
+        assertTrue("compression ratio " + ratio, ratio > 0 && ratio < 1);
+
+        // The compressed body is sent as is, with no parameters in the URI.
+        request.setContent(new ByteArrayInputStream(compressed));
+        final HttpRequest httpRequest = factory.createHttpRequest(request, clientConfiguration,
+                context);
+        assertNull(httpRequest.getUri().getQuery());
+    }
+
+    @Test
+    public void testCompressContentReplacesContentLength() throws IOException {
+        clientConfiguration.withEnableRequestCompression(true).withRequestCompressionThreshold(10);
+        request.setCompressible(true);
+        request.setHttpMethod(HttpMethodName.POST);
+        final byte[] payload = "{\"a\":\"aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa\"}"
+                .getBytes(StringUtils.UTF8);
+        request.setContent(new ByteArrayInputStream(payload));
+        request.addHeader("content-length", String.valueOf(payload.length));
+
+        assertTrue(factory.compressRequestPayload(request, clientConfiguration,
+                new AWSRequestMetrics()));
+        assertNull(request.getHeaders().get("content-length"));
+        final byte[] compressed = IOUtils.toByteArray(request.getContent());
+        assertEquals(String.valueOf(compressed.length),
+                request.getHeaders().get(HttpHeader.CONTENT_LENGTH));
+        assertEquals(new String(payload, StringUtils.UTF8),
+                new String(gunzip(compressed), StringUtils.UTF8));
+    }
+
+    @Test
+    public void testCompressionRequiresOptInAndThreshold() {
+        request.setHttpMethod(HttpMethodName.POST);
+        request.addParameter("Action", "PutMetricData");
+        final AWSRequestMetrics metrics = new AWSRequestMetrics();
+
+        // disabled in the client configuration
+        request.setCompressible(true);
+        assertFalse(factory.compressRequestPayload(request, clientConfiguration, metrics));
+
+        // the operation does not accept compressed payloads
+        clientConfiguration.withEnableRequestCompression(true).withRequestCompressionThreshold(0);
+        request.setCompressible(false);
+        assertFalse(factory.compressRequestPayload(request, clientConfiguration, metrics));
+
+        // below the threshold
+        request.setCompressible(true);
+        clientConfiguration.withRequestCompressionThreshold(1024);
+        assertFalse(factory.compressRequestPayload(request, clientConfiguration, metrics));
+
+        // already encoded
+        clientConfiguration.withRequestCompressionThreshold(0);
+        request.addHeader(HttpHeader.CONTENT_ENCODING, "aws-chunked");
+        assertFalse(factory.compressRequestPayload(request, clientConfiguration, metrics));
+        assertEquals("PutMetricData", request.getParameters().get("Action"));
+        assertNull(request.getContent());
+    }
+
+    private static byte[] gunzip(byte[] compressed) throws IOException {
+        return IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(compressed)));
+    }
 }
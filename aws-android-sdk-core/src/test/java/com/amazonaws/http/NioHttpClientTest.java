@@ -0,0 +1,466 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.http;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.util.StringUtils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class NioHttpClientTest {
+
+    private MockServer server;
+    private ClientConfiguration config;
+    private NioHttpClient client;
+
+    @Before
+    public void setup() throws IOException {
+        server = new MockServer();
+        config = new ClientConfiguration();
+        config.setSocketTimeout(5000);
+    }
+
+    @After
+    public void teardown() throws IOException {
+        if (client != null) {
+            client.shutdown();
+        }
+        server.close();
+    }
+
+    @Test
+    public void testKeepAliveReusesConnection() throws Exception {
+        client = new NioHttpClient(config);
+        for (int i = 0; i < 3; i++) {
+            final HttpResponse response = client.execute(get("/hello?i=" + i));
+            assertEquals(200, response.getStatusCode());
+            assertEquals("OK", response.getStatusText());
+            assertEquals("GET /hello?i=" + i, read(response));
+        }
+        assertEquals(1, server.connections.get());
+    }
+
+    @Test
+    public void testPostWithContentLength() throws Exception {
+        client = new NioHttpClient(config);
+        final byte[] content = "Action=Echo&Value=1".getBytes(StringUtils.UTF8);
+        final Map<String, String> headers = new HashMap<String, String>();
+        headers.put("Content-Length", String.valueOf(content.length));
+        headers.put("Content-Type", "application/x-www-form-urlencoded");
+        final HttpRequest request = new HttpRequest("POST", server.uri("/"), headers,
+                new ByteArrayInputStream(content));
+        final HttpResponse response = client.execute(request);
+        assertEquals("POST / Action=Echo&Value=1", read(response));
+        assertEquals(String.valueOf(content.length), server.lastHeaders.get("content-length"));
+        assertNull(server.lastHeaders.get("transfer-encoding"));
+    }
+
+    @Test
+    public void testStreamingRequestAndChunkedResponse() throws Exception {
+        client = new NioHttpClient(config);
+        final byte[] content = new byte[100 * 1024];
+        new Random(1).nextBytes(content);
+        final HttpRequest request = new HttpRequest("PUT", server.uri("/chunked"),
+                new HashMap<String, String>(), new ByteArrayInputStream(content));
+        request.setStreaming(true);
+        final HttpResponse response = client.execute(request);
+        assertEquals("chunked", server.lastHeaders.get("transfer-encoding"));
+        assertArrayEquals(content, server.lastBody);
+        assertEquals("PUT /chunked " + content.length, read(response));
+    }
+
+    @Test
+    public void testLargeResponseIsReadThroughBoundedBuffer() throws Exception {
+        client = new NioHttpClient(config);
+        final HttpResponse response = client.execute(get("/large"));
+        final InputStream in = response.getContent();
+        // let the connection fill the buffer and pause before reading
+        Thread.sleep(200);
+        final byte[] expected = MockServer.largeBody();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[1000];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+        }
+        in.close();
+        assertArrayEquals(expected, out.toByteArray());
+        // the connection is reused once the body has been consumed
+        assertEquals("GET /again", read(client.execute(get("/again"))));
+        assertEquals(1, server.connections.get());
+    }
+
+    @Test
+    public void testPipelinedRequestsOnSingleConnection() throws Exception {
+        config.setMaxConnections(1);
+        client = new NioHttpClient(config);
+        assertEquals("GET /first", read(client.execute(get("/first"))));
+        final List<Future<HttpResponse>> futures = new ArrayList<Future<HttpResponse>>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(client.executeAsync(get("/p" + i), null));
+        }
+        for (int i = 0; i < 10; i++) {
+            assertEquals("GET /p" + i, read(futures.get(i).get(5, TimeUnit.SECONDS)));
+        }
+        assertEquals(1, server.connections.get());
+        assertTrue(server.maxPipelined.get() > 1);
+    }
+
+    @Test
+    public void testConcurrentRequestsRespectConnectionLimit() throws Exception {
+        config.setMaxConnections(3);
+        server.delayMillis = 100;
+        client = new NioHttpClient(config);
+        final List<Future<HttpResponse>> futures = new ArrayList<Future<HttpResponse>>();
+        for (int i = 0; i < 12; i++) {
+            final Map<String, String> headers = new HashMap<String, String>();
+            headers.put("Content-Length", "1");
+            futures.add(client.executeAsync(new HttpRequest("POST", server.uri("/c" + i),
+                    headers, new ByteArrayInputStream(new byte[] {'x'})), null));
+        }
+        for (int i = 0; i < 12; i++) {
+            assertEquals("POST /c" + i + " x", read(futures.get(i).get(5, TimeUnit.SECONDS)));
+        }
+        assertEquals(3, server.connections.get());
+    }
+
+    @Test
+    public void testCallbackReceivesResponse() throws Exception {
+        client = new NioHttpClient(config);
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicReference<String> body = new AtomicReference<String>();
+        final AtomicReference<String> thread = new AtomicReference<String>();
+        client.executeAsync(get("/callback"), new NioHttpClient.Callback() {
+            @Override
+            public void onResponse(HttpResponse response) {
+                thread.set(Thread.currentThread().getName());
+                try {
+                    body.set(read(response));
+                } catch (final IOException e) {
+                    body.set(e.toString());
+                }
+                latch.countDown();
+            }
+
+            @Override
+            public void onFailure(IOException e) {
+                latch.countDown();
+            }
+        });
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals("GET /callback", body.get());
+        assertTrue(thread.get().startsWith("aws-sdk-async-"));
+    }
+
+    @Test
+    public void testConnectionCloseOpensNewConnection() throws Exception {
+        client = new NioHttpClient(config);
+        assertEquals("GET /close", read(client.execute(get("/close"))));
+        assertEquals("GET /close", read(client.execute(get("/close"))));
+        assertEquals(2, server.connections.get());
+    }
+
+    @Test
+    public void testHeadResponseHasNoBody() throws Exception {
+        client = new NioHttpClient(config);
+        final HttpResponse head = client.execute(new HttpRequest("HEAD", server.uri("/head")));
+        assertEquals(200, head.getStatusCode());
+        assertEquals(-1, head.getContent().read());
+        assertEquals("GET /after", read(client.execute(get("/after"))));
+        assertEquals(1, server.connections.get());
+    }
+
+    @Test
+    public void testReadTimeout() throws Exception {
+        config.setSocketTimeout(300);
+        client = new NioHttpClient(config);
+        try {
+            client.execute(get("/hang"));
+            fail("Expected a read timeout");
+        } catch (final SocketTimeoutException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testShutdownFailsPendingRequests() throws Exception {
+        client = new NioHttpClient(config);
+        final Future<HttpResponse> future = client.executeAsync(get("/hang"), null);
+        Thread.sleep(100);
+        client.shutdown();
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail("Expected the request to fail");
+        } catch (final ExecutionException expected) {
+            assertTrue(expected.getCause() instanceof IOException);
+        }
+        try {
+            client.execute(get("/after"));
+            fail("Expected the client to be shut down");
+        } catch (final IOException expected) {
+            // expected
+        }
+    }
+
+    private HttpRequest get(String path) {
+        return new HttpRequest("GET", server.uri(path));
+    }
+
+    private static String read(HttpResponse response) throws IOException {
+        final InputStream in = response.getContent();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[4096];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+        }
+        in.close();
+        return new String(out.toByteArray(), StringUtils.UTF8);
+    }
+
+    /**
+     * A minimal HTTP/1.1 server answering each request with its method, path
+     * and body, handling pipelined requests in order.
+     */
+    private static final class MockServer {
+        private final ServerSocket serverSocket;
+        private final List<Socket> sockets = new ArrayList<Socket>();
+        final AtomicInteger connections = new AtomicInteger();
+        final AtomicInteger maxPipelined = new AtomicInteger();
+        volatile long delayMillis;
+        volatile Map<String, String> lastHeaders;
+        volatile byte[] lastBody;
+
+        MockServer() throws IOException {
+            serverSocket = new ServerSocket(0);
+            final Thread acceptor = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    accept();
+                }
+            });
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        URI uri(String path) {
+            return URI.create("http://localhost:" + serverSocket.getLocalPort() + path);
+        }
+
+        static byte[] largeBody() {
+            final byte[] body = new byte[2 * 1024 * 1024];
+            new Random(7).nextBytes(body);
+            return body;
+        }
+
+        void close() throws IOException {
+            serverSocket.close();
+            synchronized (sockets) {
+                for (final Socket socket : sockets) {
+                    socket.close();
+                }
+            }
+        }
+
+        private void accept() {
+            while (true) {
+                final Socket socket;
+                try {
+                    socket = serverSocket.accept();
+                } catch (final IOException e) {
+                    return;
+                }
+                connections.incrementAndGet();
+                synchronized (sockets) {
+                    sockets.add(socket);
+                }
+                final Thread handler = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            serve(socket);
+                        } catch (final Exception e) {
+                            // the client went away
+                        }
+                    }
+                });
+                handler.setDaemon(true);
+                handler.start();
+            }
+        }
+
+        private void serve(Socket socket) throws Exception {
+            final BufferedInputStream in = new BufferedInputStream(socket.getInputStream());
+            final OutputStream out = socket.getOutputStream();
+            while (true) {
+                final String requestLine = readLine(in);
+                if (requestLine == null) {
+                    return;
+                }
+                final Map<String, String> headers = new HashMap<String, String>();
+                String header;
+                while ((header = readLine(in)) != null && header.length() > 0) {
+                    final int colon = header.indexOf(':');
+                    headers.put(header.substring(0, colon).trim().toLowerCase(Locale.US),
+                            header.substring(colon + 1).trim());
+                }
+                final byte[] body = readBody(in, headers);
+                lastHeaders = headers;
+                lastBody = body;
+                // requests already waiting behind this one were pipelined
+                final int pipelined = in.available() > 0 ? 2 : 1;
+                if (pipelined > maxPipelined.get()) {
+                    maxPipelined.set(pipelined);
+                }
+
+                final String[] parts = requestLine.split(" ");
+                final String method = parts[0];
+                final String path = parts[1];
+                if (path.startsWith("/hang")) {
+                    Thread.sleep(60 * 1000);
+                    return;
+                }
+                if (delayMillis > 0) {
+                    Thread.sleep(delayMillis);
+                }
+                if (path.startsWith("/large")) {
+                    final byte[] large = largeBody();
+                    out.write(("HTTP/1.1 200 OK\r\nContent-Length: " + large.length
+                            + "\r\n\r\n").getBytes(StringUtils.UTF8));
+                    out.write(large);
+                    out.flush();
+                    continue;
+                }
+                String text = method + " " + path;
+                if (path.startsWith("/chunked")) {
+                    text += " " + body.length;
+                } else if (body.length > 0) {
+                    text += " " + new String(body, StringUtils.UTF8);
+                }
+                final byte[] response = text.getBytes(StringUtils.UTF8);
+                final boolean close = path.startsWith("/close");
+                final StringBuilder head = new StringBuilder("HTTP/1.1 200 OK\r\n");
+                if (close) {
+                    head.append("Connection: close\r\n");
+                }
+                if (path.startsWith("/chunked")) {
+                    head.append("Transfer-Encoding: chunked\r\n\r\n");
+                    out.write(head.toString().getBytes(StringUtils.UTF8));
+                    final int half = response.length / 2;
+                    writeChunk(out, response, 0, half);
+                    writeChunk(out, response, half, response.length - half);
+                    out.write("0\r\nX-Trailer: 1\r\n\r\n".getBytes(StringUtils.UTF8));
+                } else {
+                    head.append("Content-Length: ").append(response.length).append("\r\n\r\n");
+                    out.write(head.toString().getBytes(StringUtils.UTF8));
+                    if (!"HEAD".equals(method)) {
+                        out.write(response);
+                    }
+                }
+                out.flush();
+                if (close) {
+                    socket.close();
+                    return;
+                }
+            }
+        }
+
+        private static void writeChunk(OutputStream out, byte[] b, int off, int len)
+                throws IOException {
+            out.write((Integer.toHexString(len) + "\r\n").getBytes(StringUtils.UTF8));
+            out.write(b, off, len);
+            out.write("\r\n".getBytes(StringUtils.UTF8));
+        }
+
+        private static byte[] readBody(InputStream in, Map<String, String> headers)
+                throws IOException {
+            final ByteArrayOutputStream body = new ByteArrayOutputStream();
+            if ("chunked".equals(headers.get("transfer-encoding"))) {
+                while (true) {
+                    final int size = Integer.parseInt(readLine(in), 16);
+                    if (size == 0) {
+                        readLine(in);
+                        break;
+                    }
+                    copy(in, body, size);
+                    readLine(in);
+                }
+            } else if (headers.containsKey("content-length")) {
+                copy(in, body, Integer.parseInt(headers.get("content-length")));
+            }
+            return body.toByteArray();
+        }
+
+        private static void copy(InputStream in, OutputStream out, int length)
+                throws IOException {
+            final byte[] buffer = new byte[8192];
+            while (length > 0) {
+                final int n = in.read(buffer, 0, Math.min(buffer.length, length));
+                if (n == -1) {
+                    throw new IOException("Unexpected end of stream");
+                }
+                out.write(buffer, 0, n);
+                length -= n;
+            }
+        }
+
+        private static String readLine(InputStream in) throws IOException {
+            final StringBuilder sb = new StringBuilder();
+            int c;
+            while ((c = in.read()) != -1) {
+                if (c == '\n') {
+                    final int end = sb.length() > 0 && sb.charAt(sb.length() - 1) == '\r'
+                            ? sb.length() - 1
+                            : sb.length();
+                    return sb.substring(0, end);
+                }
+                sb.append((char) c);
+            }
+            return sb.length() == 0 ? null : sb.toString();
+        }
+    }
+}
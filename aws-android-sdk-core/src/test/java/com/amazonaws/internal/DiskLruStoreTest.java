@@ -0,0 +1,145 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.internal;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.amazonaws.util.IOUtils;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+public class DiskLruStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testPutAndGet() throws Exception {
+        final DiskLruStore store = new DiskLruStore(folder.newFolder(), ".entry", 100);
+        store.put("a", writer(new byte[] {1, 2, 3}));
+
+        assertTrue(store.contains("a"));
+        assertArrayEquals(new byte[] {1, 2, 3}, read(store.get("a")));
+        assertNull(store.get("b"));
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() throws Exception {
+        final File dir = folder.newFolder();
+        final DiskLruStore store = new DiskLruStore(dir, ".entry", 20);
+        store.put("a", writer(new byte[10]));
+        store.put("b", writer(new byte[10]));
+        new File(dir, "a.entry").setLastModified(System.currentTimeMillis() - 120000);
+        new File(dir, "b.entry").setLastModified(System.currentTimeMillis() - 60000);
+        // a use makes the older file the most recent one
+        store.get("a");
+        store.put("c", writer(new byte[10]));
+
+        assertTrue(store.contains("a"));
+        assertFalse(store.contains("b"));
+        assertTrue(store.contains("c"));
+        assertEquals(2, dir.listFiles().length);
+    }
+
+    @Test
+    public void testCountsFilesFromEarlierInstance() throws Exception {
+        final File dir = folder.newFolder();
+        new DiskLruStore(dir, ".entry", 20).put("a", writer(new byte[15]));
+        new File(dir, "a.entry").setLastModified(System.currentTimeMillis() - 60000);
+
+        final DiskLruStore store = new DiskLruStore(dir, ".entry", 20);
+        store.put("b", writer(new byte[15]));
+        assertFalse(store.contains("a"));
+        assertTrue(store.contains("b"));
+    }
+
+    @Test
+    public void testEntryLargerThanLimitIsNotStored() throws Exception {
+        final File dir = folder.newFolder();
+        final DiskLruStore store = new DiskLruStore(dir, ".entry", 5);
+        store.put("a", writer(new byte[10]));
+
+        assertFalse(store.contains("a"));
+        assertEquals(0, dir.listFiles().length);
+    }
+
+    @Test
+    public void testFailedWriteKeepsPreviousEntry() throws Exception {
+        final File dir = folder.newFolder();
+        final DiskLruStore store = new DiskLruStore(dir, ".entry", 100);
+        store.put("a", writer(new byte[] {1}));
+        try {
+            store.put("a", new DiskLruStore.EntryWriter() {
+                @Override
+                public void write(OutputStream out) throws IOException {
+                    out.write(2);
+                    throw new IOException("failed");
+                }
+            });
+            fail("expected IOException");
+        } catch (final IOException e) {
+            assertEquals("failed", e.getMessage());
+        }
+
+        assertArrayEquals(new byte[] {1}, read(store.get("a")));
+        assertEquals(1, dir.listFiles().length);
+    }
+
+    @Test
+    public void testRemoveAndClear() throws Exception {
+        final File dir = folder.newFolder();
+        final DiskLruStore store = new DiskLruStore(dir, ".entry", 100);
+        store.put("a", writer(new byte[] {1}));
+        store.put("b", writer(new byte[] {2}));
+
+        store.remove("a");
+        assertFalse(store.contains("a"));
+        assertTrue(store.contains("b"));
+        store.clear();
+        assertEquals(0, dir.listFiles().length);
+    }
+
+    private static DiskLruStore.EntryWriter writer(final byte[] bytes) {
+        return new DiskLruStore.EntryWriter() {
+            @Override
+            public void write(OutputStream out) throws IOException {
+                out.write(bytes);
+            }
+        };
+    }
+
+    private static byte[] read(File file) throws IOException {
+        final InputStream in = new FileInputStream(file);
+        try {
+            return IOUtils.toByteArray(in);
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.amazonaws.retry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class ClientSideRateLimiterTest {
+
+    private static final double DELTA = 1e-9;
+
+    /**
+     * Sends ten requests per second that all succeed, from the given time for
+     * the given number of seconds.
+     *
+     * @return the time after the last request.
+     */
+    private static double sendSuccessfully(ClientSideRateLimiter limiter, double start,
+            int seconds) {
+        double now = start;
+        for (int i = 0; i < seconds * 10; i++) {
+            now += 0.1;
+            limiter.acquireDelay(now);
+            limiter.updateSendingRate(false, now);
+        }
+        return now;
+    }
+
+    @Test
+    public void testDoesNotLimitBeforeThrottle() {
+        ClientSideRateLimiter limiter = new ClientSideRateLimiter(0);
+        double now = sendSuccessfully(limiter, 0, 3);
+        assertFalse(limiter.isEnabled());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(0, limiter.acquireDelay(now), DELTA);
+        }
+    }
+
+    @Test
+    public void testMeasuresSendingRate() {
+        ClientSideRateLimiter limiter = new ClientSideRateLimiter(0);
+        sendSuccessfully(limiter, 0, 5);
+        assertEquals(10, limiter.getMeasuredTxRate(), 1);
+    }
+
+    @Test
+    public void testThrottleCutsRate() {
+        ClientSideRateLimiter limiter = new ClientSideRateLimiter(0);
+        double now = sendSuccessfully(limiter, 0, 5);
+        limiter.updateSendingRate(true, now + 0.05);
+        assertTrue(limiter.isEnabled());
+        assertEquals(limiter.getMeasuredTxRate() * 0.7, limiter.getFillRate(), DELTA);
+    }
+
+    @Test
+    public void testThrottledLimiterSpacesBurst() {
+        ClientSideRateLimiter limiter = new ClientSideRateLimiter(0);
+        double now = sendSuccessfully(limiter, 0, 5);
+        limiter.updateSendingRate(true, now);
+        // the bucket holds a second worth of requests
+        assertEquals(0, limiter.acquireDelay(now), DELTA);
+        double previous = 0;
+        double delay = 0;
+        for (int i = 0; i < 20; i++) {
+            previous = delay;
+            delay = limiter.acquireDelay(now);
+            assertTrue(delay >= previous);
+        }
+        assertTrue(delay > 1);
+        assertEquals(1 / limiter.getFillRate(), delay - previous, DELTA);
+    }
+
+    @Test
+    public void testSuccessRaisesRateAfterThrottle() {
+        ClientSideRateLimiter limiter = new ClientSideRateLimiter(0);
+        double now = sendSuccessfully(limiter, 0, 5);
+        limiter.updateSendingRate(true, now);
+        double throttledRate = limiter.getFillRate();
+        sendSuccessfully(limiter, now, 5);
+        assertTrue(limiter.getFillRate() > throttledRate);
+        // never more than twice the measured rate
+        assertTrue(limiter.getFillRate() <= 2 * limiter.getMeasuredTxRate() + DELTA);
+    }
+
+    @Test
+    public void testMinimumFillRate() {
+        ClientSideRateLimiter limiter = new ClientSideRateLimiter(0);
+        limiter.updateSendingRate(true, 0.1);
+        assertEquals(0.5, limiter.getFillRate(), DELTA);
+    }
+}
@@ -0,0 +1,59 @@
+package com.amazonaws.retry;
+
+import static org.junit.Assert.assertEquals;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+
+import org.junit.Test;
+
+import java.net.SocketTimeoutException;
+
+public class RetryQuotaTest {
+
+    @Test
+    public void testRetryDrawsFromQuota() {
+        RetryQuota quota = new RetryQuota(12);
+        assertEquals(RetryQuota.RETRY_COST, quota.acquire(new AmazonServiceException("")));
+        assertEquals(7, quota.getAvailableCapacity());
+        assertEquals(RetryQuota.RETRY_COST, quota.acquire(new AmazonServiceException("")));
+        assertEquals(2, quota.getAvailableCapacity());
+    }
+
+    @Test
+    public void testTimeoutCostsMore() {
+        RetryQuota quota = new RetryQuota();
+        AmazonClientException timeout = new AmazonClientException("timeout",
+                new SocketTimeoutException());
+        assertEquals(RetryQuota.TIMEOUT_RETRY_COST, quota.acquire(timeout));
+        assertEquals(RetryQuota.DEFAULT_CAPACITY - RetryQuota.TIMEOUT_RETRY_COST,
+                quota.getAvailableCapacity());
+    }
+
+    @Test
+    public void testExhaustedQuota() {
+        RetryQuota quota = new RetryQuota(4);
+        assertEquals(0, quota.acquire(new AmazonServiceException("")));
+        assertEquals(4, quota.getAvailableCapacity());
+    }
+
+    @Test
+    public void testSuccessRefillsQuota() {
+        RetryQuota quota = new RetryQuota(20);
+        int cost = quota.acquire(new AmazonServiceException(""));
+        quota.acquire(new AmazonServiceException(""));
+        assertEquals(10, quota.getAvailableCapacity());
+        quota.release(cost);
+        assertEquals(15, quota.getAvailableCapacity());
+        quota.release(0);
+        assertEquals(16, quota.getAvailableCapacity());
+    }
+
+    @Test
+    public void testRefillIsCappedAtCapacity() {
+        RetryQuota quota = new RetryQuota(20);
+        quota.release(0);
+        quota.release(RetryQuota.RETRY_COST);
+        assertEquals(20, quota.getAvailableCapacity());
+    }
+}
@@ -0,0 +1,78 @@
+package com.amazonaws.mobileconnectors.dynamodbv2.document;
+
+import java.util.List;
+
+/**
+ * Configuration for the Table.BatchGetItems operation
+ */
+public class BatchGetItemOperationConfig {
+
+    private List<String> attributesToGet;
+
+    private boolean consistentRead;
+
+    private int maxConcurrency = Table.DEFAULT_BATCH_MAX_CONCURRENCY;
+
+    /**
+     * List of attributes to retrieve
+     *
+     * @return List of attributes to retrieve.
+     */
+    public List<String> getAttributesToGet() {
+        return attributesToGet;
+    }
+
+    /**
+     * set List of attributes to retrieve
+     *
+     * @param attributesToGet List of attributes to retrieve.
+     */
+    public void setAttributesToGet(List<String> attributesToGet) {
+        this.attributesToGet = attributesToGet;
+    }
+
+    /**
+     * If set to true, this flag ensures that the most recently written data is
+     * returned.
+     *
+     * @return if Table.BatchGetItems operation is consistent read.
+     */
+    public boolean isConsistentRead() {
+        return consistentRead;
+    }
+
+    /**
+     * If set to true, this flag ensures that the most recently written data is
+     * returned.
+     *
+     * @param consistentRead If set to true, this flag ensures that the most
+     *            recently written data is returned.
+     */
+    public void setConsistentRead(boolean consistentRead) {
+        this.consistentRead = consistentRead;
+    }
+
+    /**
+     * Maximum number of BatchGetItem requests that are sent at the same time.
+     *
+     * @return the maximum number of concurrent requests.
+     */
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * Set the maximum number of BatchGetItem requests that are sent at the
+     * same time.
+     *
+     * @param maxConcurrency the maximum number of concurrent requests, at
+     *            least 1.
+     */
+    public void setMaxConcurrency(int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be at least 1");
+        }
+        this.maxConcurrency = maxConcurrency;
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.amazonaws.mobileconnectors.dynamodbv2.document;
+
+/**
+ * Configuration for the Table.BatchWriteItems operation
+ */
+public class BatchWriteItemOperationConfig {
+
+    private int maxConcurrency = Table.DEFAULT_BATCH_MAX_CONCURRENCY;
+
+    /**
+     * Maximum number of BatchWriteItem requests that are sent at the same
+     * time.
+     *
+     * @return the maximum number of concurrent requests.
+     */
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * Set the maximum number of BatchWriteItem requests that are sent at the
+     * same time.
+     *
+     * @param maxConcurrency the maximum number of concurrent requests, at
+     *            least 1.
+     */
+    public void setMaxConcurrency(int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be at least 1");
+        }
+        this.maxConcurrency = maxConcurrency;
+    }
+
+}
@@ -0,0 +1,196 @@
+package com.amazonaws.mobileconnectors.dynamodbv2.document;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.async.SdkExecutors;
+import com.amazonaws.mobileconnectors.dynamodbv2.document.datatype.Document;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Iterator over the documents of a parallel scan. Each segment is scanned by
+ * its own worker which pages through the segment and hands its pages to the
+ * iterator through a bounded queue, so a slow consumer holds back the workers
+ * instead of buffering the whole table. Call {@link #cancel()} if the
+ * iterator is abandoned before it is exhausted.
+ */
+public class ParallelScanIterator implements Iterator<Document> {
+
+    /** The max value of TotalSegments accepted by DynamoDB */
+    static final int MAX_TOTAL_SEGMENTS = 4096;
+
+    /** The max number of segment scans that run at the same time */
+    private static final int MAX_WORKER_THREADS = 16;
+
+    /** Number of pages buffered per worker */
+    private static final int PAGES_PER_WORKER = 2;
+
+    private static final long OFFER_TIMEOUT_IN_MILLISECONDS = 100;
+
+    private final ExecutorService executorService;
+    private final BlockingQueue<Page> pages;
+    private final int totalSegments;
+    private volatile boolean cancelled;
+
+    private int completedSegments;
+    private Iterator<Document> current = Collections.<Document> emptyList().iterator();
+
+    ParallelScanIterator(AmazonDynamoDB client, ScanRequest template, int totalSegments) {
+        this.totalSegments = totalSegments;
+        final int workers = Math.min(totalSegments, MAX_WORKER_THREADS);
+        this.pages = new ArrayBlockingQueue<Page>(workers * PAGES_PER_WORKER);
+        this.executorService = SdkExecutors.newClientExecutor(workers);
+        for (int segment = 0; segment < totalSegments; segment++) {
+            executorService.execute(new SegmentScan(client, copyOf(template)
+                    .withTotalSegments(totalSegments)
+                    .withSegment(segment)
+                    .withExclusiveStartKey(null)));
+        }
+        executorService.shutdown();
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!current.hasNext()) {
+            if (completedSegments == totalSegments) {
+                return false;
+            }
+            final Page page;
+            try {
+                page = pages.take();
+            } catch (final InterruptedException e) {
+                cancel();
+                Thread.currentThread().interrupt();
+                throw new AmazonClientException("Parallel scan interrupted by other thread.", e);
+            }
+            if (page.exception != null) {
+                cancel();
+                throw page.exception;
+            }
+            if (page.last) {
+                completedSegments++;
+            }
+            current = page.documents.iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public Document next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.next();
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("remove is not supported");
+    }
+
+    /**
+     * Stops the segment scans that are still running. Subsequent pages are
+     * discarded.
+     */
+    public void cancel() {
+        cancelled = true;
+        executorService.shutdownNow();
+    }
+
+    private static ScanRequest copyOf(ScanRequest template) {
+        final ScanRequest request = new ScanRequest()
+                .withTableName(template.getTableName())
+                .withIndexName(template.getIndexName())
+                .withAttributesToGet(template.getAttributesToGet())
+                .withLimit(template.getLimit())
+                .withSelect(template.getSelect())
+                .withScanFilter(template.getScanFilter())
+                .withConditionalOperator(template.getConditionalOperator())
+                .withFilterExpression(template.getFilterExpression())
+                .withProjectionExpression(template.getProjectionExpression())
+                .withExpressionAttributeNames(template.getExpressionAttributeNames())
+                .withExpressionAttributeValues(template.getExpressionAttributeValues())
+                .withConsistentRead(template.getConsistentRead())
+                .withReturnConsumedCapacity(template.getReturnConsumedCapacity())
+                .withRequestMetricCollector(template.getRequestMetricCollector())
+                .withGeneralProgressListener(template.getGeneralProgressListener());
+        return Table.appendDynamoDBDocumentUserAgentString(request);
+    }
+
+    private static final class Page {
+        private final List<Document> documents;
+        private final boolean last;
+        private final AmazonClientException exception;
+
+        private Page(List<Document> documents, boolean last, AmazonClientException exception) {
+            this.documents = documents;
+            this.last = last;
+            this.exception = exception;
+        }
+    }
+
+    private final class SegmentScan implements Runnable {
+        private final AmazonDynamoDB client;
+        private final ScanRequest request;
+
+        private SegmentScan(AmazonDynamoDB client, ScanRequest request) {
+            this.client = client;
+            this.request = request;
+        }
+
+        @Override
+        public void run() {
+            try {
+                Map<String, AttributeValue> lastKey;
+                do {
+                    final ScanResult result = client.scan(request);
+                    final List<Document> documents = new ArrayList<Document>(
+                            result.getItems().size());
+                    for (final Map<String, AttributeValue> item : result.getItems()) {
+                        documents.add(Document.fromAttributeMap(item));
+                    }
+                    lastKey = result.getLastEvaluatedKey();
+                    final boolean last = lastKey == null || lastKey.isEmpty();
+                    if (!offer(new Page(documents, last, null))) {
+                        return;
+                    }
+                    request.setExclusiveStartKey(lastKey);
+                } while (lastKey != null && !lastKey.isEmpty());
+            } catch (final AmazonClientException e) {
+                offer(new Page(null, true, e));
+            } catch (final RuntimeException e) {
+                offer(new Page(null, true, new AmazonClientException(e.getMessage(), e)));
+            }
+        }
+
+        /**
+         * Hands a page to the iterator, waiting while the queue is full.
+         *
+         * @return false if the scan was cancelled.
+         */
+        private boolean offer(Page page) {
+            try {
+                while (!cancelled) {
+                    if (pages.offer(page, OFFER_TIMEOUT_IN_MILLISECONDS, TimeUnit.MILLISECONDS)) {
+                        return true;
+                    }
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return false;
+        }
+    }
+}
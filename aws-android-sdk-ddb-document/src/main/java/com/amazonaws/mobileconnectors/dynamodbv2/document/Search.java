@@ -299,6 +299,33 @@ public class Search {
 
     private List<Document> getNextScanResultSet() {
         final List<Document> returnValue = new ArrayList<Document>();
+        final ScanRequest request = buildScanRequest();
+
+        if (this.totalSegments != 0) {
+            request.withTotalSegments(totalSegments)
+                    .withSegment(segment);
+        }
+
+        final ScanResult result = table.getClient().scan(request);
+        for (final Map<String, AttributeValue> item : result.getItems()) {
+            final Document doc = Document.fromAttributeMap(item);
+            returnValue.add(doc);
+            if (this.collectResults) {
+                this.matches.add(doc);
+            }
+        }
+        nextKey = result.getLastEvaluatedKey();
+        if (nextKey == null || nextKey.size() == 0) {
+            isDone = true;
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Builds a scan request for this search, without segment information.
+     */
+    ScanRequest buildScanRequest() {
         final ScanRequest request = new ScanRequest();
         request.withExclusiveStartKey(nextKey)
                 .withAttributesToGet(attributesToGet)
@@ -326,27 +353,30 @@ public class Search {
             request.setConditionalOperator(this.conditionalOperator);
         }
 
-        if (this.totalSegments != 0) {
-            request.withTotalSegments(totalSegments)
-                    .withSegment(segment);
-        }
-
         Table.appendDynamoDBDocumentUserAgentString(request);
+        return request;
+    }
 
-        final ScanResult result = table.getClient().scan(request);
-        for (final Map<String, AttributeValue> item : result.getItems()) {
-            final Document doc = Document.fromAttributeMap(item);
-            returnValue.add(doc);
-            if (this.collectResults) {
-                this.matches.add(doc);
-            }
+    /**
+     * Scans the table with {@code totalSegments} parallel segment scans and
+     * merges their pages into a single iterator. Documents are returned in
+     * the order their pages arrive, not in key order. The scan does not
+     * advance this search and its documents are not collected in the
+     * matches of this search. Only applies to Scan searches.
+     *
+     * @param totalSegments the number of segments to scan at the same time,
+     *            between 1 and 4096.
+     * @return iterator over the documents of all segments.
+     */
+    public ParallelScanIterator parallelScan(int totalSegments) {
+        if (this.searchType != SearchType.SCAN) {
+            throw new IllegalStateException("parallelScan is only supported for scan searches");
         }
-        nextKey = result.getLastEvaluatedKey();
-        if (nextKey == null || nextKey.size() == 0) {
-            isDone = true;
+        if (totalSegments < 1 || totalSegments > ParallelScanIterator.MAX_TOTAL_SEGMENTS) {
+            throw new IllegalArgumentException("totalSegments must be between 1 and "
+                    + ParallelScanIterator.MAX_TOTAL_SEGMENTS);
         }
-
-        return returnValue;
+        return new ParallelScanIterator(table.getClient(), buildScanRequest(), totalSegments);
     }
 
     private List<Document> getNextQueryResultSet() {
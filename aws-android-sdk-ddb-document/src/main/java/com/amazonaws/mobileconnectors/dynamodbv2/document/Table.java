@@ -1,6 +1,7 @@
 
 package com.amazonaws.mobileconnectors.dynamodbv2.document;
 
+import com.amazonaws.AmazonClientException;
 import com.amazonaws.AmazonWebServiceRequest;
 import com.amazonaws.mobileconnectors.dynamodbv2.document.Search.SearchType;
 import com.amazonaws.mobileconnectors.dynamodbv2.document.datatype.Document;
@@ -9,34 +10,48 @@ import com.amazonaws.mobileconnectors.dynamodbv2.document.datatype.Primitive;
 import com.amazonaws.mobileconnectors.dynamodbv2.document.datatype.Primitive.DynamoDBPrimitiveType;
 import com.amazonaws.mobileconnectors.dynamodbv2.document.internal.Key;
 import com.amazonaws.mobileconnectors.dynamodbv2.document.internal.KeyDescription;
+import com.amazonaws.mobileconnectors.dynamodbv2.document.internal.ParallelTasks;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.model.AttributeDefinition;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.AttributeValueUpdate;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
 import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
 import com.amazonaws.services.dynamodbv2.model.DeleteItemRequest;
 import com.amazonaws.services.dynamodbv2.model.DeleteItemResult;
+import com.amazonaws.services.dynamodbv2.model.DeleteRequest;
 import com.amazonaws.services.dynamodbv2.model.DescribeTableRequest;
 import com.amazonaws.services.dynamodbv2.model.DescribeTableResult;
 import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
 import com.amazonaws.services.dynamodbv2.model.GetItemResult;
 import com.amazonaws.services.dynamodbv2.model.GlobalSecondaryIndexDescription;
 import com.amazonaws.services.dynamodbv2.model.KeySchemaElement;
+import com.amazonaws.services.dynamodbv2.model.KeysAndAttributes;
 import com.amazonaws.services.dynamodbv2.model.LocalSecondaryIndexDescription;
 import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
 import com.amazonaws.services.dynamodbv2.model.PutItemResult;
+import com.amazonaws.services.dynamodbv2.model.PutRequest;
 import com.amazonaws.services.dynamodbv2.model.ReturnValue;
 import com.amazonaws.services.dynamodbv2.model.TableDescription;
 import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
 import com.amazonaws.services.dynamodbv2.model.UpdateItemResult;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
 import com.amazonaws.util.VersionInfoUtils;
+import com.google.common.collect.Lists;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 /**
  * The Table class is the starting object when using the Document API. It is
@@ -46,6 +61,33 @@ import java.util.Set;
 @SuppressWarnings("checkstyle:hiddenfield")
 public class Table {
 
+    /** The max number of keys allowed in a BatchGetItem request */
+    static final int MAX_KEYS_PER_BATCH_GET = 100;
+
+    /** The max number of items allowed in a BatchWriteItem request */
+    static final int MAX_ITEMS_PER_BATCH_WRITE = 25;
+
+    /** The default number of batch requests sent at the same time */
+    static final int DEFAULT_BATCH_MAX_CONCURRENCY = 4;
+
+    /**
+     * The number of consecutive BatchGetItem attempts that may return no data
+     * before giving up on the unprocessed keys.
+     */
+    static final int BATCH_GET_MAX_RETRY_COUNT_ALL_KEYS = 5;
+
+    /**
+     * The number of consecutive BatchWriteItem attempts that may process no
+     * items before giving up on the unprocessed items.
+     */
+    static final int BATCH_WRITE_MAX_RETRY_COUNT_ALL_ITEMS = 5;
+
+    /** The max back off time between batch retries */
+    static final long MAX_BACKOFF_IN_MILLISECONDS = 1000 * 3;
+
+    private static final int EXPONENTIAL_BACKOFF_OFFSET = 500;
+    private static final int EXPONENTIAL_BACKOFF_RANDOMIZATION_OFFSET = 100;
+
     private final AmazonDynamoDB client;
     private final String tableName;
     private TableDescription tableDescription;
@@ -415,6 +457,236 @@ public class Table {
         return returnDocument;
     }
 
+    /**
+     * Gets multiple documents from DynamoDB by primary key. The keys are split
+     * into BatchGetItem requests of up to 100 keys which are sent in parallel,
+     * and unprocessed keys are retried with exponential backoff.
+     *
+     * @param keys documents that contain the primary key attributes of the
+     *            items to get.
+     * @return the documents that were found, in no particular order.
+     */
+    public List<Document> batchGetItems(List<Document> keys) {
+        return batchGetItems(keys, null);
+    }
+
+    /**
+     * Gets multiple documents from DynamoDB by primary key, using specified
+     * configs. The keys are split into BatchGetItem requests of up to 100 keys
+     * which are sent in parallel, and unprocessed keys are retried with
+     * exponential backoff.
+     *
+     * @param keys documents that contain the primary key attributes of the
+     *            items to get.
+     * @param config the {@link BatchGetItemOperationConfig}.
+     * @return the documents that were found, in no particular order.
+     */
+    public List<Document> batchGetItems(List<Document> keys,
+            final BatchGetItemOperationConfig config) {
+        if (keys == null) {
+            throw new IllegalArgumentException("keys must be specified");
+        }
+
+        // BatchGetItem rejects requests that contain the same key twice.
+        final Set<Key> uniqueKeys = new LinkedHashSet<Key>();
+        for (final Document keyDocument : keys) {
+            uniqueKeys.add(makeKey(keyDocument));
+        }
+
+        final List<Callable<List<Document>>> tasks = new ArrayList<Callable<List<Document>>>();
+        for (final List<Key> chunk : Lists.partition(new ArrayList<Key>(uniqueKeys),
+                MAX_KEYS_PER_BATCH_GET)) {
+            tasks.add(new Callable<List<Document>>() {
+                @Override
+                public List<Document> call() {
+                    return batchGetChunk(chunk, config);
+                }
+            });
+        }
+
+        final int maxConcurrency = config == null ? DEFAULT_BATCH_MAX_CONCURRENCY
+                : config.getMaxConcurrency();
+        final List<Document> documents = new ArrayList<Document>();
+        for (final List<Document> chunkDocuments : ParallelTasks.invokeAll(tasks, maxConcurrency)) {
+            documents.addAll(chunkDocuments);
+        }
+        return documents;
+    }
+
+    private List<Document> batchGetChunk(List<Key> keys, BatchGetItemOperationConfig config) {
+        final KeysAndAttributes keysAndAttributes = new KeysAndAttributes()
+                .withKeys(new ArrayList<Map<String, AttributeValue>>(keys));
+        if (config != null) {
+            keysAndAttributes.setConsistentRead(config.isConsistentRead());
+            if (config.getAttributesToGet() != null && config.getAttributesToGet().size() > 0) {
+                keysAndAttributes.setAttributesToGet(config.getAttributesToGet());
+            }
+        }
+
+        Map<String, KeysAndAttributes> requestItems = new HashMap<String, KeysAndAttributes>();
+        requestItems.put(tableName, keysAndAttributes);
+
+        final List<Document> documents = new ArrayList<Document>();
+        int retries = 0;
+        while (requestItems != null && requestItems.size() > 0) {
+            if (retries > BATCH_GET_MAX_RETRY_COUNT_ALL_KEYS) {
+                throw new AmazonClientException(
+                        "Batch Get Item request to server hasn't received any data. "
+                                + "Please try again later.");
+            }
+            pauseExponentially(retries);
+
+            final BatchGetItemRequest request = new BatchGetItemRequest()
+                    .withRequestItems(requestItems);
+            Table.appendDynamoDBDocumentUserAgentString(request);
+            final BatchGetItemResult result = client.batchGetItem(request);
+
+            final List<Map<String, AttributeValue>> items = result.getResponses() == null ? null
+                    : result.getResponses().get(tableName);
+            if (items != null && items.size() > 0) {
+                for (final Map<String, AttributeValue> item : items) {
+                    final Document document = fromAttributeMap(item);
+                    document.commit();
+                    documents.add(document);
+                }
+                retries = 0;
+            }
+            retries++;
+            requestItems = result.getUnprocessedKeys();
+        }
+        return documents;
+    }
+
+    /**
+     * Puts and deletes multiple documents in DynamoDB. The writes are split
+     * into BatchWriteItem requests of up to 25 items which are sent in
+     * parallel, and unprocessed items are retried with exponential backoff
+     * until a few attempts in a row process none of them.
+     *
+     * @param documentsToPut the documents to put, may be null.
+     * @param keysToDelete documents that contain the primary key attributes of
+     *            the items to delete, may be null.
+     * @return the writes that were still unprocessed when the retries gave
+     *         up, empty if every write succeeded.
+     * @throws IllegalArgumentException if the same key is written twice.
+     */
+    public List<WriteRequest> batchWriteItems(List<Document> documentsToPut,
+            List<Document> keysToDelete) {
+        return batchWriteItems(documentsToPut, keysToDelete, null);
+    }
+
+    /**
+     * Puts and deletes multiple documents in DynamoDB, using specified
+     * configs. The writes are split into BatchWriteItem requests of up to 25
+     * items which are sent in parallel, and unprocessed items are retried with
+     * exponential backoff until a few attempts in a row process none of them.
+     *
+     * @param documentsToPut the documents to put, may be null.
+     * @param keysToDelete documents that contain the primary key attributes of
+     *            the items to delete, may be null.
+     * @param config the {@link BatchWriteItemOperationConfig}.
+     * @return the writes that were still unprocessed when the retries gave
+     *         up, empty if every write succeeded.
+     * @throws IllegalArgumentException if the same key is written twice.
+     */
+    public List<WriteRequest> batchWriteItems(List<Document> documentsToPut,
+            List<Document> keysToDelete, BatchWriteItemOperationConfig config) {
+        // BatchWriteItem rejects a whole request that touches the same key
+        // twice, which would fail a chunk after others were written.
+        final Set<Key> uniqueKeys = new HashSet<Key>();
+        final List<WriteRequest> writeRequests = new ArrayList<WriteRequest>();
+        if (documentsToPut != null) {
+            for (final Document document : documentsToPut) {
+                checkUniqueKey(uniqueKeys, makeKey(document));
+                writeRequests.add(new WriteRequest(new PutRequest(toAttributeMap(document))));
+            }
+        }
+        if (keysToDelete != null) {
+            for (final Document keyDocument : keysToDelete) {
+                final Key key = makeKey(keyDocument);
+                checkUniqueKey(uniqueKeys, key);
+                writeRequests.add(new WriteRequest(new DeleteRequest(key)));
+            }
+        }
+
+        final List<Callable<List<WriteRequest>>> tasks =
+                new ArrayList<Callable<List<WriteRequest>>>();
+        for (final List<WriteRequest> chunk : Lists.partition(writeRequests,
+                MAX_ITEMS_PER_BATCH_WRITE)) {
+            tasks.add(new Callable<List<WriteRequest>>() {
+                @Override
+                public List<WriteRequest> call() {
+                    return batchWriteChunk(chunk);
+                }
+            });
+        }
+
+        final int maxConcurrency = config == null ? DEFAULT_BATCH_MAX_CONCURRENCY
+                : config.getMaxConcurrency();
+        final List<WriteRequest> unprocessed = new ArrayList<WriteRequest>();
+        for (final List<WriteRequest> chunkUnprocessed : ParallelTasks.invokeAll(tasks,
+                maxConcurrency)) {
+            unprocessed.addAll(chunkUnprocessed);
+        }
+        return unprocessed;
+    }
+
+    private static void checkUniqueKey(Set<Key> uniqueKeys, Key key) {
+        if (!uniqueKeys.add(key)) {
+            throw new IllegalArgumentException("Key " + key
+                    + " is written more than once in the same batch");
+        }
+    }
+
+    private List<WriteRequest> batchWriteChunk(List<WriteRequest> writeRequests) {
+        List<WriteRequest> pending = new ArrayList<WriteRequest>(writeRequests);
+
+        int retries = 0;
+        while (!pending.isEmpty()) {
+            if (retries > BATCH_WRITE_MAX_RETRY_COUNT_ALL_ITEMS) {
+                return pending;
+            }
+            pauseExponentially(retries);
+
+            final Map<String, List<WriteRequest>> requestItems =
+                    new HashMap<String, List<WriteRequest>>();
+            requestItems.put(tableName, pending);
+            final BatchWriteItemRequest request = new BatchWriteItemRequest()
+                    .withRequestItems(requestItems);
+            Table.appendDynamoDBDocumentUserAgentString(request);
+            final BatchWriteItemResult result = client.batchWriteItem(request);
+
+            final List<WriteRequest> unprocessed = result.getUnprocessedItems() == null ? null
+                    : result.getUnprocessedItems().get(tableName);
+            final int remaining = unprocessed == null ? 0 : unprocessed.size();
+            if (remaining < pending.size()) {
+                retries = 0;
+            }
+            retries++;
+            pending = remaining == 0 ? new ArrayList<WriteRequest>() : unprocessed;
+        }
+        return pending;
+    }
+
+    private void pauseExponentially(int retries) {
+        if (retries == 0) {
+            return;
+        }
+
+        final Random random = new Random();
+        final long scaleFactor = EXPONENTIAL_BACKOFF_OFFSET
+                + random.nextInt(EXPONENTIAL_BACKOFF_RANDOMIZATION_OFFSET);
+        long delay = (long) (Math.pow(2, retries) * scaleFactor);
+        delay = Math.min(delay, MAX_BACKOFF_IN_MILLISECONDS);
+
+        try {
+            Thread.sleep(delay);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmazonClientException(e.getMessage(), e);
+        }
+    }
+
     /**
      * Update a document in DynamoDB.
      *
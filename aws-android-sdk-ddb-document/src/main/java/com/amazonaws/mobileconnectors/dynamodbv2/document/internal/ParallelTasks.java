@@ -0,0 +1,76 @@
+package com.amazonaws.mobileconnectors.dynamodbv2.document.internal;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.async.SdkExecutors;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Runs a list of tasks with bounded parallelism and collects their results.
+ */
+public final class ParallelTasks {
+
+    private ParallelTasks() {
+    }
+
+    /**
+     * Runs the tasks with at most {@code maxConcurrency} of them in flight and
+     * waits for all of them to finish.
+     *
+     * @param tasks the tasks to run.
+     * @param maxConcurrency the maximum number of tasks that run at the same
+     *            time.
+     * @param <T> the result type of the tasks.
+     * @return the results, in the same order as the tasks.
+     * @throws AmazonClientException wrapping the first task failure.
+     */
+    public static <T> List<T> invokeAll(List<Callable<T>> tasks, int maxConcurrency) {
+        final List<T> results = new ArrayList<T>(tasks.size());
+        if (tasks.isEmpty()) {
+            return results;
+        }
+
+        // A single task runs on the caller's thread.
+        if (tasks.size() == 1 || maxConcurrency <= 1) {
+            for (final Callable<T> task : tasks) {
+                try {
+                    results.add(task.call());
+                } catch (final AmazonClientException e) {
+                    throw e;
+                } catch (final Exception e) {
+                    throw new AmazonClientException(e.getMessage(), e);
+                }
+            }
+            return results;
+        }
+
+        final ExecutorService executor = SdkExecutors.newClientExecutor(
+                Math.min(maxConcurrency, tasks.size()));
+        try {
+            final List<Future<T>> futures = new ArrayList<Future<T>>(tasks.size());
+            for (final Callable<T> task : tasks) {
+                futures.add(executor.submit(task));
+            }
+            for (final Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmazonClientException("Interrupted while waiting for batch operations", e);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof AmazonClientException) {
+                throw (AmazonClientException) cause;
+            }
+            throw new AmazonClientException(cause.getMessage(), cause);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
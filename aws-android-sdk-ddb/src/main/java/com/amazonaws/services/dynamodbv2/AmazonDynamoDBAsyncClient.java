@@ -17,11 +17,11 @@ package com.amazonaws.services.dynamodbv2;
 
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.AmazonServiceException;
+import com.amazonaws.async.SdkExecutors;
 import com.amazonaws.handlers.AsyncHandler;
 import com.amazonaws.ClientConfiguration;
 import com.amazonaws.auth.AWSCredentials;
@@ -107,14 +107,14 @@ public class AmazonDynamoDBAsyncClient extends AmazonDynamoDBClient implements A
      */
     @Deprecated
     public AmazonDynamoDBAsyncClient(ClientConfiguration clientConfiguration) {
-        this(new DefaultAWSCredentialsProviderChain(), clientConfiguration, Executors
-                .newFixedThreadPool(clientConfiguration.getMaxConnections()));
+        this(new DefaultAWSCredentialsProviderChain(), clientConfiguration, SdkExecutors
+                .newClientExecutor(clientConfiguration.getMaxConnections()));
     }
 
     /**
      * Constructs a new asynchronous client to invoke service methods on Amazon
      * DynamoDB using the specified AWS account credentials. Default client
-     * settings will be used, and a fixed size thread pool will be created for
+     * settings will be used, and a shared SDK thread pool will be used for
      * executing the asynchronous tasks.
      * <p>
      * All calls made using this new client object are non-blocking, and will
@@ -125,7 +125,7 @@ public class AmazonDynamoDBAsyncClient extends AmazonDynamoDBClient implements A
      *            to use when authenticating with AWS services.
      */
     public AmazonDynamoDBAsyncClient(AWSCredentials awsCredentials) {
-        this(awsCredentials, Executors.newFixedThreadPool(DEFAULT_THREAD_POOL_SIZE));
+        this(awsCredentials, SdkExecutors.newClientExecutor(DEFAULT_THREAD_POOL_SIZE));
     }
 
     /**
@@ -172,8 +172,8 @@ public class AmazonDynamoDBAsyncClient extends AmazonDynamoDBClient implements A
     /**
      * Constructs a new asynchronous client to invoke service methods on Amazon
      * DynamoDB using the specified AWS account credentials provider. Default
-     * client settings will be used, and a fixed size thread pool will be
-     * created for executing the asynchronous tasks.
+     * client settings will be used, and a shared SDK thread pool will be
+     * used for executing the asynchronous tasks.
      * <p>
      * All calls made using this new client object are non-blocking, and will
      * immediately return a Java Future object that the caller can later check
@@ -184,7 +184,7 @@ public class AmazonDynamoDBAsyncClient extends AmazonDynamoDBClient implements A
      *            services.
      */
     public AmazonDynamoDBAsyncClient(AWSCredentialsProvider awsCredentialsProvider) {
-        this(awsCredentialsProvider, Executors.newFixedThreadPool(DEFAULT_THREAD_POOL_SIZE));
+        this(awsCredentialsProvider, SdkExecutors.newClientExecutor(DEFAULT_THREAD_POOL_SIZE));
     }
 
     /**
@@ -224,8 +224,8 @@ public class AmazonDynamoDBAsyncClient extends AmazonDynamoDBClient implements A
      */
     public AmazonDynamoDBAsyncClient(AWSCredentialsProvider awsCredentialsProvider,
             ClientConfiguration clientConfiguration) {
-        this(awsCredentialsProvider, clientConfiguration, Executors
-                .newFixedThreadPool(clientConfiguration.getMaxConnections()));
+        this(awsCredentialsProvider, clientConfiguration, SdkExecutors
+                .newClientExecutor(clientConfiguration.getMaxConnections()));
     }
 
     /**
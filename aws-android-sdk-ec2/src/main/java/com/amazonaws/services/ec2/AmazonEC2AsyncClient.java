@@ -16,11 +16,11 @@ package com.amazonaws.services.ec2;
 
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.AmazonServiceException;
+import com.amazonaws.async.SdkExecutors;
 import com.amazonaws.handlers.AsyncHandler;
 import com.amazonaws.ClientConfiguration;
 import com.amazonaws.auth.AWSCredentials;
@@ -94,14 +94,14 @@ public class AmazonEC2AsyncClient extends AmazonEC2Client
      */
     @Deprecated
     public AmazonEC2AsyncClient(ClientConfiguration clientConfiguration) {
-        this(new DefaultAWSCredentialsProviderChain(), clientConfiguration, Executors.newFixedThreadPool(clientConfiguration.getMaxConnections()));
+        this(new DefaultAWSCredentialsProviderChain(), clientConfiguration, SdkExecutors.newClientExecutor(clientConfiguration.getMaxConnections()));
     }
 
     /**
      * Constructs a new asynchronous client to invoke service methods on
      * AmazonEC2 using the specified AWS account credentials.
-     * Default client settings will be used, and a fixed size thread pool will be
-     * created for executing the asynchronous tasks.
+     * Default client settings will be used, and a shared SDK thread pool will be
+     * used for executing the asynchronous tasks.
      *
      * <p>
      * All calls made using this new client object are non-blocking, and will immediately
@@ -112,7 +112,7 @@ public class AmazonEC2AsyncClient extends AmazonEC2Client
      *                       when authenticating with AWS services.
      */
     public AmazonEC2AsyncClient(AWSCredentials awsCredentials) {
-        this(awsCredentials, Executors.newFixedThreadPool(DEFAULT_THREAD_POOL_SIZE));
+        this(awsCredentials, SdkExecutors.newClientExecutor(DEFAULT_THREAD_POOL_SIZE));
     }
 
     /**
@@ -166,8 +166,8 @@ public class AmazonEC2AsyncClient extends AmazonEC2Client
     /**
      * Constructs a new asynchronous client to invoke service methods on
      * AmazonEC2 using the specified AWS account credentials provider.
-     * Default client settings will be used, and a fixed size thread pool will be
-     * created for executing the asynchronous tasks.
+     * Default client settings will be used, and a shared SDK thread pool will be
+     * used for executing the asynchronous tasks.
      *
      * <p>
      * All calls made using this new client object are non-blocking, and will immediately
@@ -179,7 +179,7 @@ public class AmazonEC2AsyncClient extends AmazonEC2Client
      *            to authenticate requests with AWS services.
      */
     public AmazonEC2AsyncClient(AWSCredentialsProvider awsCredentialsProvider) {
-        this(awsCredentialsProvider, Executors.newFixedThreadPool(DEFAULT_THREAD_POOL_SIZE));
+        this(awsCredentialsProvider, SdkExecutors.newClientExecutor(DEFAULT_THREAD_POOL_SIZE));
     }
 
     /**
@@ -222,7 +222,7 @@ public class AmazonEC2AsyncClient extends AmazonEC2Client
      */
     public AmazonEC2AsyncClient(AWSCredentialsProvider awsCredentialsProvider,
                 ClientConfiguration clientConfiguration) {
-        this(awsCredentialsProvider, clientConfiguration, Executors.newFixedThreadPool(clientConfiguration.getMaxConnections()));
+        this(awsCredentialsProvider, clientConfiguration, SdkExecutors.newClientExecutor(clientConfiguration.getMaxConnections()));
     }
 
     /**
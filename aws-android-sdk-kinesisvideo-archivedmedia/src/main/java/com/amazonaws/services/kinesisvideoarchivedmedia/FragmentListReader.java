@@ -0,0 +1,353 @@
+/*
+ * Copyright 2010-2022 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.services.kinesisvideoarchivedmedia;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.async.SdkExecutors;
+import com.amazonaws.services.kinesisvideoarchivedmedia.model.Fragment;
+import com.amazonaws.services.kinesisvideoarchivedmedia.model.FragmentSelector;
+import com.amazonaws.services.kinesisvideoarchivedmedia.model.FragmentSelectorType;
+import com.amazonaws.services.kinesisvideoarchivedmedia.model.GetMediaForFragmentListRequest;
+import com.amazonaws.services.kinesisvideoarchivedmedia.model.GetMediaForFragmentListResult;
+import com.amazonaws.services.kinesisvideoarchivedmedia.model.ListFragmentsRequest;
+import com.amazonaws.services.kinesisvideoarchivedmedia.model.ListFragmentsResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Reads the media of all fragments selected by a {@link ListFragmentsRequest}
+ * as one MKV stream, in timestamp order.
+ * <p>
+ * The reader pages through {@code ListFragments}, sorts the fragments, which
+ * the service returns in no particular order, and fetches them in groups
+ * through {@code GetMediaForFragmentList}. Several groups are fetched
+ * concurrently ahead of the group being read. The prefetch window is bounded
+ * by the number of groups and by the fragment sizes reported by
+ * {@code ListFragments}, so memory stays bounded however long the time range
+ * is.
+ * <p>
+ * The client must be configured with the data endpoint of the stream. The
+ * fragments are listed on the first read. Close the reader to stop
+ * prefetching.
+ */
+public class FragmentListReader extends InputStream {
+
+    /** The default number of fragments fetched by each request */
+    public static final int DEFAULT_FRAGMENTS_PER_REQUEST = 5;
+
+    /** The default number of requests in flight */
+    public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 4;
+
+    /** 32 MB */
+    public static final long DEFAULT_MAX_BUFFERED_BYTES = 32L * 1024 * 1024;
+
+    /** The maximum number of fragments in a GetMediaForFragmentList request */
+    private static final int MAX_FRAGMENTS_PER_REQUEST = 1000;
+
+    private final AWSKinesisVideoArchivedMedia client;
+    private final ListFragmentsRequest listFragmentsRequest;
+    private final int fragmentsPerRequest;
+    private final int maxConcurrentRequests;
+    private final long maxBufferedBytes;
+    private final ExecutorService executor;
+
+    /** Fragment groups in the order they are read */
+    private List<List<Fragment>> groups;
+    private int nextGroup;
+    /** Groups being fetched or fetched but not read yet, in order */
+    private final Deque<PendingGroup> pendingGroups = new ArrayDeque<PendingGroup>();
+    private long bufferedBytes;
+    private InputStream currentGroup;
+    private boolean closed;
+
+    private static final class PendingGroup {
+        private final Future<byte[]> media;
+        private final long sizeInBytes;
+
+        PendingGroup(Future<byte[]> media, long sizeInBytes) {
+            this.media = media;
+            this.sizeInBytes = sizeInBytes;
+        }
+    }
+
+    /**
+     * Constructs a reader with the default request size, concurrency and
+     * buffer limit.
+     *
+     * @param client the client to call, configured with the data endpoint of
+     *            the stream.
+     * @param listFragmentsRequest the stream and fragment selector to read.
+     */
+    public FragmentListReader(AWSKinesisVideoArchivedMedia client,
+            ListFragmentsRequest listFragmentsRequest) {
+        this(client, listFragmentsRequest, DEFAULT_FRAGMENTS_PER_REQUEST,
+                DEFAULT_MAX_CONCURRENT_REQUESTS, DEFAULT_MAX_BUFFERED_BYTES);
+    }
+
+    /**
+     * Constructs a reader.
+     *
+     * @param client the client to call, configured with the data endpoint of
+     *            the stream.
+     * @param listFragmentsRequest the stream and fragment selector to read.
+     * @param fragmentsPerRequest the number of fragments fetched by each
+     *            {@code GetMediaForFragmentList} request.
+     * @param maxConcurrentRequests the maximum number of requests in flight,
+     *            which also limits the number of fetched groups waiting to be
+     *            read.
+     * @param maxBufferedBytes the maximum size of the fragments being fetched
+     *            or waiting to be read. The next group is always fetched,
+     *            even if it is larger.
+     */
+    public FragmentListReader(AWSKinesisVideoArchivedMedia client,
+            ListFragmentsRequest listFragmentsRequest, int fragmentsPerRequest,
+            int maxConcurrentRequests, long maxBufferedBytes) {
+        if (client == null || listFragmentsRequest == null) {
+            throw new IllegalArgumentException("client and listFragmentsRequest must not be null");
+        }
+        if (fragmentsPerRequest <= 0 || fragmentsPerRequest > MAX_FRAGMENTS_PER_REQUEST) {
+            throw new IllegalArgumentException("fragmentsPerRequest must be between 1 and "
+                    + MAX_FRAGMENTS_PER_REQUEST);
+        }
+        if (maxConcurrentRequests <= 0 || maxBufferedBytes <= 0) {
+            throw new IllegalArgumentException(
+                    "maxConcurrentRequests and maxBufferedBytes must be greater than 0");
+        }
+        this.client = client;
+        this.listFragmentsRequest = listFragmentsRequest;
+        this.fragmentsPerRequest = fragmentsPerRequest;
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        this.maxBufferedBytes = maxBufferedBytes;
+        this.executor = SdkExecutors.newClientExecutor(maxConcurrentRequests);
+    }
+
+    @Override
+    public int read() throws IOException {
+        final byte[] one = new byte[1];
+        return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+    }
+
+    @Override
+    public synchronized int read(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("Reader is closed");
+        }
+        if (len == 0) {
+            return 0;
+        }
+        while (true) {
+            if (currentGroup != null) {
+                final int read = currentGroup.read(b, off, len);
+                if (read >= 0) {
+                    return read;
+                }
+                currentGroup = null;
+            }
+            if (!nextGroup()) {
+                return -1;
+            }
+        }
+    }
+
+    @Override
+    public synchronized int available() throws IOException {
+        return currentGroup == null ? 0 : currentGroup.available();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (final PendingGroup pending : pendingGroups) {
+            pending.media.cancel(true);
+        }
+        pendingGroups.clear();
+        currentGroup = null;
+        executor.shutdownNow();
+    }
+
+    /**
+     * Waits for the next group to be fetched and makes it current.
+     *
+     * @return false after the last group.
+     */
+    private boolean nextGroup() throws IOException {
+        if (groups == null) {
+            try {
+                groups = group(listFragments());
+            } catch (final AmazonClientException e) {
+                throw new IOException("Unable to list the fragments", e);
+            }
+        }
+        prefetch();
+        final PendingGroup pending = pendingGroups.poll();
+        if (pending == null) {
+            return false;
+        }
+        final byte[] media;
+        try {
+            media = pending.media.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while fetching fragments");
+        } catch (final ExecutionException e) {
+            throw new IOException("Unable to get the media of the fragments", e.getCause());
+        }
+        bufferedBytes -= pending.sizeInBytes;
+        currentGroup = new ByteArrayInputStream(media);
+        prefetch();
+        return true;
+    }
+
+    /**
+     * Starts fetching groups until the window is full.
+     */
+    private void prefetch() {
+        while (nextGroup < groups.size() && pendingGroups.size() < maxConcurrentRequests) {
+            final List<Fragment> group = groups.get(nextGroup);
+            final long size = sizeInBytes(group);
+            if (!pendingGroups.isEmpty() && bufferedBytes + size > maxBufferedBytes) {
+                return;
+            }
+            pendingGroups.add(new PendingGroup(executor.submit(fetch(group, size)), size));
+            bufferedBytes += size;
+            nextGroup++;
+        }
+    }
+
+    private Callable<byte[]> fetch(final List<Fragment> group, final long sizeInBytes) {
+        final List<String> fragmentNumbers = new ArrayList<String>(group.size());
+        for (final Fragment fragment : group) {
+            fragmentNumbers.add(fragment.getFragmentNumber());
+        }
+        final GetMediaForFragmentListRequest request = new GetMediaForFragmentListRequest()
+                .withStreamName(listFragmentsRequest.getStreamName())
+                .withStreamARN(listFragmentsRequest.getStreamARN())
+                .withFragments(fragmentNumbers);
+        request.setGeneralProgressListener(listFragmentsRequest.getGeneralProgressListener());
+        request.setRequestCredentials(listFragmentsRequest.getRequestCredentials());
+
+        return new Callable<byte[]>() {
+            @Override
+            public byte[] call() throws IOException {
+                final GetMediaForFragmentListResult result = client.getMediaForFragmentList(request);
+                final InputStream payload = result.getPayload();
+                try {
+                    final ByteArrayOutputStream media = new ByteArrayOutputStream(
+                            (int) Math.min(Integer.MAX_VALUE, sizeInBytes));
+                    final byte[] buffer = new byte[16 * 1024];
+                    int read;
+                    while ((read = payload.read(buffer)) != -1) {
+                        media.write(buffer, 0, read);
+                    }
+                    return media.toByteArray();
+                } finally {
+                    payload.close();
+                }
+            }
+        };
+    }
+
+    private List<Fragment> listFragments() {
+        final List<Fragment> fragments = new ArrayList<Fragment>();
+        final ListFragmentsRequest request = new ListFragmentsRequest()
+                .withStreamName(listFragmentsRequest.getStreamName())
+                .withStreamARN(listFragmentsRequest.getStreamARN())
+                .withMaxResults(listFragmentsRequest.getMaxResults())
+                .withFragmentSelector(listFragmentsRequest.getFragmentSelector())
+                .withNextToken(listFragmentsRequest.getNextToken());
+        request.setGeneralProgressListener(listFragmentsRequest.getGeneralProgressListener());
+        request.setRequestCredentials(listFragmentsRequest.getRequestCredentials());
+        do {
+            final ListFragmentsResult result = client.listFragments(request);
+            if (result.getFragments() != null) {
+                fragments.addAll(result.getFragments());
+            }
+            request.setNextToken(result.getNextToken());
+        } while (request.getNextToken() != null);
+
+        final FragmentSelector selector = listFragmentsRequest.getFragmentSelector();
+        final boolean producerTimestamps = selector != null
+                && FragmentSelectorType.PRODUCER_TIMESTAMP.toString()
+                        .equals(selector.getFragmentSelectorType());
+        Collections.sort(fragments, new Comparator<Fragment>() {
+            @Override
+            public int compare(Fragment left, Fragment right) {
+                final int byTimestamp = compareDates(timestamp(left, producerTimestamps),
+                        timestamp(right, producerTimestamps));
+                return byTimestamp != 0 ? byTimestamp
+                        : compareFragmentNumbers(left.getFragmentNumber(),
+                                right.getFragmentNumber());
+            }
+        });
+        return fragments;
+    }
+
+    private List<List<Fragment>> group(List<Fragment> fragments) {
+        final List<List<Fragment>> grouped = new ArrayList<List<Fragment>>();
+        for (int i = 0; i < fragments.size(); i += fragmentsPerRequest) {
+            grouped.add(fragments.subList(i, Math.min(i + fragmentsPerRequest, fragments.size())));
+        }
+        return grouped;
+    }
+
+    private static long sizeInBytes(List<Fragment> group) {
+        long size = 0;
+        for (final Fragment fragment : group) {
+            if (fragment.getFragmentSizeInBytes() != null) {
+                size += fragment.getFragmentSizeInBytes();
+            }
+        }
+        return size;
+    }
+
+    private static Date timestamp(Fragment fragment, boolean producerTimestamps) {
+        return producerTimestamps ? fragment.getProducerTimestamp()
+                : fragment.getServerTimestamp();
+    }
+
+    private static int compareDates(Date left, Date right) {
+        if (left == null || right == null) {
+            return left == null ? (right == null ? 0 : -1) : 1;
+        }
+        return left.compareTo(right);
+    }
+
+    /** Fragment numbers are decimal strings too long for a long */
+    private static int compareFragmentNumbers(String left, String right) {
+        if (left.length() != right.length()) {
+            return left.length() < right.length() ? -1 : 1;
+        }
+        return left.compareTo(right);
+    }
+}
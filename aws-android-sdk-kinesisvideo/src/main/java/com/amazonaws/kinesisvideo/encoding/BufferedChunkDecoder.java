@@ -0,0 +1,399 @@
+/**
+ * Copyright 2017-2018 Amazon.com,
+ * Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Amazon Software License (the "License").
+ * You may not use this file except in compliance with the
+ * License. A copy of the License is located at
+ *
+ *     http://aws.amazon.com/asl/
+ *
+ * or in the "license" file accompanying this file. This file is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, express or implied. See the License
+ * for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.amazonaws.kinesisvideo.encoding;
+
+import com.amazonaws.kinesisvideo.model.ResponseStatus;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Incremental decoder for an HTTP/1.1 response read from a raw stream, such
+ * as the {@code PutMedia} ack stream or a {@code GetMedia} stream.
+ * <p>
+ * The decoder reads the stream in large blocks into a reusable ring buffer
+ * and parses the status line, the headers and then the chunked body from
+ * it. Chunk extensions are ignored and trailers are parsed into
+ * {@link #getTrailers()}. Payload is handed out by {@link #readSlice(int)}
+ * as views of the ring buffer, so no bytes are copied and nothing is
+ * allocated per chunk.
+ * <p>
+ * Not thread safe; use one decoder per response stream.
+ */
+public final class BufferedChunkDecoder {
+    public static final int DEFAULT_CAPACITY = 16 * 1024;
+
+    private static final int HEX_RADIX = 16;
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+
+    private final InputStream mInputStream;
+    private final byte[] mRing;
+    private final ByteBuffer mView;
+    private final StringBuilder mLine = new StringBuilder();
+    private final byte[] mOne = new byte[1];
+
+    /** Total bytes consumed from the ring */
+    private long mReadPosition;
+    /** Total bytes read into the ring */
+    private long mWritePosition;
+    private boolean mEndOfStream;
+
+    /** Payload bytes left in the current chunk */
+    private long mChunkRemaining;
+    /** Whether the CRLF after the current chunk's data is still unread */
+    private boolean mChunkOpen;
+    private boolean mLastChunkRead;
+    private Map<String, String> mTrailers = Collections.emptyMap();
+
+    public BufferedChunkDecoder(final InputStream inputStream) {
+        this(inputStream, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param inputStream the raw response stream.
+     * @param capacity size of the ring buffer in bytes, which also limits
+     *            the length of the status line and of each header line.
+     */
+    public BufferedChunkDecoder(final InputStream inputStream, final int capacity) {
+        if (inputStream == null) {
+            throw new IllegalArgumentException("inputStream must not be null");
+        }
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be greater than 0");
+        }
+        mInputStream = inputStream;
+        mRing = new byte[capacity];
+        mView = ByteBuffer.wrap(mRing).asReadOnlyBuffer();
+    }
+
+    /**
+     * Reads the status line, skipping any empty lines before it.
+     */
+    public ResponseStatus readStatusLine() throws IOException {
+        String line;
+        do {
+            line = readLine();
+            if (line == null) {
+                throw new EOFException("End of stream before the status line");
+            }
+        } while (line.isEmpty());
+
+        final String[] parts = line.split("\\s", 3);
+        if (parts.length < 2) {
+            throw new IOException("Malformed status line: " + line);
+        }
+        try {
+            return ResponseStatus.builder()
+                    .protocol(parts[0])
+                    .statusCode(Integer.parseInt(parts[1]))
+                    .reason(parts.length > 2 ? parts[2] : "")
+                    .build();
+        } catch (final NumberFormatException e) {
+            throw new IOException("Malformed status line: " + line, e);
+        }
+    }
+
+    /**
+     * Reads header lines up to and including the empty line that ends them.
+     */
+    public Map<String, String> readHeaders() throws IOException {
+        final Map<String, String> headers = new HashMap<String, String>();
+        String line;
+        while ((line = readLine()) != null && !line.isEmpty()) {
+            final int colon = line.indexOf(':');
+            if (colon > 0) {
+                headers.put(line.substring(0, colon).trim(), line.substring(colon + 1).trim());
+            }
+        }
+        return headers;
+    }
+
+    /**
+     * @return whether the headers declare a chunked body.
+     */
+    public static boolean isChunked(final Map<String, String> headers) {
+        for (final Map.Entry<String, String> header : headers.entrySet()) {
+            if ("Transfer-Encoding".equalsIgnoreCase(header.getKey())
+                    && header.getValue().toLowerCase(Locale.US).contains("chunked")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Moves to the next chunk of the body, skipping whatever is left of the
+     * current one.
+     *
+     * @return the size of the chunk, 0 for the last chunk, after which the
+     *         trailers have been read, or -1 if the last chunk was already
+     *         read or the stream ended before it.
+     */
+    public long nextChunk() throws IOException {
+        if (mLastChunkRead) {
+            return -1;
+        }
+        while (mChunkRemaining > 0) {
+            final int n = nextRegion(mChunkRemaining);
+            mReadPosition += n;
+            mChunkRemaining -= n;
+        }
+        if (mChunkOpen) {
+            final String end = readLine();
+            if (end == null || !end.isEmpty()) {
+                throw new IOException("Chunk data not followed by CRLF");
+            }
+            mChunkOpen = false;
+        }
+
+        String line;
+        do {
+            // be lenient about blank lines between chunks
+            line = readLine();
+            if (line == null) {
+                // the connection was closed between chunks
+                mLastChunkRead = true;
+                return -1;
+            }
+        } while (line.isEmpty());
+        final int extension = line.indexOf(';');
+        final String size = (extension < 0 ? line : line.substring(0, extension)).trim();
+        final long chunkSize;
+        try {
+            chunkSize = Long.parseLong(size, HEX_RADIX);
+        } catch (final NumberFormatException e) {
+            throw new IOException("Malformed chunk size: " + line, e);
+        }
+        if (chunkSize < 0) {
+            throw new IOException("Malformed chunk size: " + line);
+        }
+        if (chunkSize == 0) {
+            mLastChunkRead = true;
+            mTrailers = readHeaders();
+            return 0;
+        }
+        mChunkRemaining = chunkSize;
+        mChunkOpen = true;
+        return chunkSize;
+    }
+
+    /**
+     * Returns the next bytes of the current chunk as a read-only view of the
+     * ring buffer. The view is reused and is only valid until the next call
+     * to this decoder.
+     *
+     * @param maxLength the maximum number of bytes to return.
+     * @return up to maxLength bytes, or null if the current chunk has no
+     *         bytes left.
+     */
+    public ByteBuffer readSlice(final int maxLength) throws IOException {
+        if (mChunkRemaining == 0 || maxLength <= 0) {
+            return null;
+        }
+        final int n = nextRegion(Math.min(maxLength, mChunkRemaining));
+        final int index = (int) (mReadPosition % mRing.length);
+        mReadPosition += n;
+        mChunkRemaining -= n;
+        mView.clear();
+        mView.position(index);
+        mView.limit(index + n);
+        return mView;
+    }
+
+    /**
+     * @return the payload bytes left in the current chunk.
+     */
+    public long getChunkRemaining() {
+        return mChunkRemaining;
+    }
+
+    /**
+     * @return the trailers after the last chunk, empty until it is read.
+     */
+    public Map<String, String> getTrailers() {
+        return mTrailers;
+    }
+
+    /**
+     * @return a stream of the decoded body. It ends after the last chunk.
+     */
+    public InputStream getPayloadStream() {
+        return new PayloadInputStream();
+    }
+
+    /**
+     * @return a stream of everything after what the decoder has consumed,
+     *         for bodies that are not chunked.
+     */
+    public InputStream getRemainingStream() {
+        return new RemainingInputStream();
+    }
+
+    /**
+     * Makes at least one byte available and returns the number of
+     * contiguous bytes that can be read from the ring, at most max.
+     */
+    private int nextRegion(final long max) throws IOException {
+        if (mWritePosition == mReadPosition && !fill()) {
+            throw new EOFException("End of stream inside a chunk");
+        }
+        final int index = (int) (mReadPosition % mRing.length);
+        final long available = mWritePosition - mReadPosition;
+        return (int) Math.min(max, Math.min(available, mRing.length - index));
+    }
+
+    /**
+     * Reads as many bytes as fit contiguously into the free part of the
+     * ring, with a single read of the underlying stream.
+     *
+     * @return false at the end of the stream.
+     */
+    private boolean fill() throws IOException {
+        if (mEndOfStream) {
+            return false;
+        }
+        final long free = mRing.length - (mWritePosition - mReadPosition);
+        if (free == 0) {
+            throw new IOException("Line longer than the buffer of " + mRing.length + " bytes");
+        }
+        final int index = (int) (mWritePosition % mRing.length);
+        final int length = (int) Math.min(free, mRing.length - index);
+        final int read = mInputStream.read(mRing, index, length);
+        if (read < 0) {
+            mEndOfStream = true;
+            return false;
+        }
+        mWritePosition += read;
+        return true;
+    }
+
+    /**
+     * Reads a line ending in CRLF or LF from the ring.
+     *
+     * @return the line without its terminator, or null at the end of the
+     *         stream.
+     */
+    private String readLine() throws IOException {
+        long scan = mReadPosition;
+        while (true) {
+            while (scan < mWritePosition) {
+                if (mRing[(int) (scan % mRing.length)] == LF) {
+                    return consumeLine(scan);
+                }
+                scan++;
+            }
+            if (!fill()) {
+                if (mWritePosition == mReadPosition) {
+                    return null;
+                }
+                // last line without a terminator
+                return consumeLine(mWritePosition);
+            }
+        }
+    }
+
+    private String consumeLine(final long end) {
+        mLine.setLength(0);
+        long position = mReadPosition;
+        long lineEnd = end;
+        if (lineEnd > position && mRing[(int) ((lineEnd - 1) % mRing.length)] == CR) {
+            lineEnd--;
+        }
+        while (position < lineEnd) {
+            mLine.append((char) (mRing[(int) (position % mRing.length)] & 0xff));
+            position++;
+        }
+        mReadPosition = Math.min(end + 1, mWritePosition);
+        return mLine.toString();
+    }
+
+    private final class PayloadInputStream extends InputStream {
+        @Override
+        public int read() throws IOException {
+            return read(mOne, 0, 1) < 0 ? -1 : mOne[0] & 0xff;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            while (mChunkRemaining == 0) {
+                if (nextChunk() <= 0) {
+                    return -1;
+                }
+            }
+            final ByteBuffer slice = readSlice(len);
+            final int n = slice.remaining();
+            slice.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(mChunkRemaining, mWritePosition - mReadPosition);
+        }
+
+        @Override
+        public void close() throws IOException {
+            mInputStream.close();
+        }
+    }
+
+    private final class RemainingInputStream extends InputStream {
+        @Override
+        public int read() throws IOException {
+            return read(mOne, 0, 1) < 0 ? -1 : mOne[0] & 0xff;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (mWritePosition == mReadPosition) {
+                // drained the ring; read the stream directly
+                return mEndOfStream ? -1 : mInputStream.read(b, off, len);
+            }
+            final int index = (int) (mReadPosition % mRing.length);
+            final int n = (int) Math.min(len,
+                    Math.min(mWritePosition - mReadPosition, mRing.length - index));
+            System.arraycopy(mRing, index, b, off, n);
+            mReadPosition += n;
+            return n;
+        }
+
+        @Override
+        public int available() throws IOException {
+            final long buffered = mWritePosition - mReadPosition;
+            return buffered > 0 ? (int) buffered : mInputStream.available();
+        }
+
+        @Override
+        public void close() throws IOException {
+            mInputStream.close();
+        }
+    }
+}
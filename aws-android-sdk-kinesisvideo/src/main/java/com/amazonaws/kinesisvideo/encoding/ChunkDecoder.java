@@ -26,6 +26,7 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.util.HashMap;
 import java.util.Map;
@@ -134,17 +135,24 @@ public final class ChunkDecoder {
     }
 
     public static int parseChunkSize(final byte[] buffer, final int tail, final int head) {
-        byte[] tmp;
-        if (tail < head) {
-            tmp = new byte[head - tail];
-            System.arraycopy(buffer, tail, tmp, 0, head - tail);
-        } else {
-            final int len = head + buffer.length - tail;
-            tmp = new byte[len];
-            System.arraycopy(buffer, tail, tmp, 0, buffer.length - tail);
-            System.arraycopy(buffer, 0, tmp, buffer.length - tail, head);
+        // Parse the hex digits in place rather than copying them out of the ring
+        int size = 0;
+        boolean digits = false;
+        int index = tail;
+        while (index != head) {
+            final int digit = Character.digit(buffer[index], HEX_RADIX);
+            if (digit >= 0) {
+                size = size * HEX_RADIX + digit;
+                digits = true;
+            } else if (digits || !Character.isWhitespace(buffer[index])) {
+                break;
+            }
+            index = (index == buffer.length - 1) ? 0 : index + 1;
+        }
+        if (!digits) {
+            throw new NumberFormatException("No chunk size between " + tail + " and " + head);
         }
-        return Integer.parseInt(new String(tmp, 0, tmp.length, Charset.forName("UTF-8")).trim(), HEX_RADIX);
+        return size;
     }
 
     public static Response parseStatusLineAndHeaders(final InputStream inputStream) {
@@ -181,42 +189,39 @@ public final class ChunkDecoder {
 
     public static Integer decodeAckInResponseBody(final InputStream inputStream,
                                                   final Consumer<String> ackTimestampConsumer) {
-        final BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, Charset.forName("US-ASCII")));
-        String line;
-        int chunkSize;
-        int numBytesRead, offset, ackCount = 0;
+        final BufferedChunkDecoder decoder = new BufferedChunkDecoder(inputStream);
+        byte[] chunk = new byte[BUFFER_SIZE];
+        int ackCount = 0;
 
         try {
-            skipResponseHeaders(reader);
-            line = skipEmptyLines(reader);
-
-            // Parse chunk data
-            LOG.debug("Chunk size: " + line);
-            do {
-                chunkSize = Integer.parseInt(line.trim(), HEX_RADIX);
-                if (chunkSize == 0) {
-                    break;
+            decoder.readStatusLine();
+            decoder.readHeaders();
+
+            long chunkSize;
+            while ((chunkSize = decoder.nextChunk()) > 0) {
+                LOG.debug("Chunk size: " + chunkSize);
+                if (chunkSize > MAX_BUFFER_BYTES) {
+                    throw new IOException("Ack chunk of " + chunkSize + " bytes is too large");
+                }
+                if (chunk.length < chunkSize) {
+                    chunk = new byte[(int) chunkSize];
                 }
 
-                final char[] buff = new char[MAX_BUFFER_BYTES];
-                offset = 0;
-                do {
-                    numBytesRead = reader.read(buff, offset, chunkSize + 2 - offset);
-                    if (numBytesRead < 0) {
-                        throw new RuntimeException("Unexpected end of stream while reading chunked data");
-                    }
-
-                    offset += numBytesRead;
-                } while (offset < chunkSize + 2);
+                // gather the slices of the chunk into the reused array
+                int offset = 0;
+                ByteBuffer slice;
+                while ((slice = decoder.readSlice(chunk.length - offset)) != null) {
+                    final int length = slice.remaining();
+                    slice.get(chunk, offset, length);
+                    offset += length;
+                }
 
                 // send the ack string to ack consumer with the exact number of bytes
-                final String chunk = new String(buff, 0, chunkSize);
-                LOG.debug("Chunk: " + chunk);
-                ackTimestampConsumer.accept(chunk);
-
-                line = reader.readLine();
-                LOG.debug("Chunk size: " + line);
-            } while (line != null);
+                final String ack = new String(chunk, 0, offset, Charset.forName("US-ASCII"));
+                LOG.debug("Chunk: " + ack);
+                ackTimestampConsumer.accept(ack);
+                ackCount++;
+            }
         } catch (final Throwable e) {
             throw new RuntimeException("Exception while decoding Ack in response ! ", e);
         }
@@ -224,60 +229,4 @@ public final class ChunkDecoder {
         return ackCount;
     }
 
-    private static String skipEmptyLines(final BufferedReader reader) throws Throwable {
-        String line;
-
-        do {
-            line = reader.readLine();
-        }
-        while (line != null && line.isEmpty());
-
-        return line;
-    }
-
-    /**
-     * Read and throw aways all raw bytes for the response headers.
-     * <p>
-     * FIXME we could have a function to read and parse response instead
-     * The caller could just not throw away the return value. This will be
-     * useful for ChunkDecoder::decodeHeaders
-     *
-     * @param reader
-     * @return
-     * @throws Throwable
-     */
-    private static String skipResponseHeaders(final BufferedReader reader) throws Throwable {
-        String line;
-
-        line = skipEmptyLines(reader);
-        LOG.debug("Skip header: " + line);
-        if (isStatusLine(line)) {
-            do {
-                line = reader.readLine();
-                LOG.debug("Skip header: " + line);
-            }
-            while (isNotBlank(line));
-        }
-
-        return line;
-    }
-
-    private static boolean isNotBlank(final CharSequence cs) {
-        final int strLen = cs == null ? 0 : cs.length();
-        if (cs == null || strLen == 0) {
-            return false;
-        }
-        for (int i = 0; i < strLen; i++) {
-            if (!Character.isWhitespace(cs.charAt(i))) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    private static boolean isStatusLine(final String line) {
-        // FIXME
-        return true;
-    }
-
 }
@@ -140,12 +140,12 @@ public class NativeKinesisVideoClient extends AbstractKinesisVideoClient {
     @Override
     public void registerMediaSource(@NonNull final MediaSource mediaSource) throws KinesisVideoException {
         Preconditions.checkNotNull(mediaSource);
-        StreamCallbacks streamCallbacks = mediaSource.getStreamCallbacks();
-        if (streamCallbacks == null) {
-            streamCallbacks = mStreamCallbacks;
+        // The media source's callbacks are added to the client's rather than replacing them.
+        final KinesisVideoProducerStream producerStream = kinesisVideoProducer.createStreamSync(mediaSource.getStreamInfo(), mStreamCallbacks);
+        final StreamCallbacks streamCallbacks = mediaSource.getStreamCallbacks();
+        if (streamCallbacks != null) {
+            producerStream.addStreamCallbacks(streamCallbacks);
         }
-
-        final KinesisVideoProducerStream producerStream = kinesisVideoProducer.createStreamSync(mediaSource.getStreamInfo(), streamCallbacks);
         mediaSource.initialize(new ProducerStreamSink(producerStream));
         mServiceCallbacks.addStream(producerStream);
         mMediaSourceToStreamMap.put(mediaSource, producerStream);
@@ -139,4 +139,14 @@ public interface KinesisVideoProducerStream extends StreamCallbacks {
      * Reset current connection of producer stream
      */
     void resetConnection() throws ProducerException;
+
+    /**
+     * Adds callbacks which receive the stream events along with the callbacks the stream was created with.
+     */
+    void addStreamCallbacks(final @NonNull StreamCallbacks streamCallbacks);
+
+    /**
+     * Removes callbacks added with {@link #addStreamCallbacks(StreamCallbacks)}.
+     */
+    void removeStreamCallbacks(final @NonNull StreamCallbacks streamCallbacks);
 }
\ No newline at end of file
@@ -14,6 +14,7 @@ import com.amazonaws.kinesisvideo.producer.StreamCallbacks;
 import com.amazonaws.kinesisvideo.producer.StreamInfo;
 import com.amazonaws.kinesisvideo.producer.DeviceInfo;
 import com.amazonaws.kinesisvideo.producer.Time;
+import com.amazonaws.kinesisvideo.streaming.CompositeStreamCallbacks;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -187,7 +188,7 @@ public class NativeKinesisVideoProducerStream implements KinesisVideoProducerStr
     private volatile long mStreamHandle;
     private final StreamInfo mStreamInfo;
     private final DeviceInfo mDeviceInfo;
-    private final StreamCallbacks mStreamCallbacks;
+    private final CompositeStreamCallbacks mStreamCallbacks;
     private final CountDownLatch mReadyLatch;
     private final CountDownLatch mStoppedLatch;
     private final Log mLog;
@@ -204,7 +205,7 @@ public class NativeKinesisVideoProducerStream implements KinesisVideoProducerStr
         mStreamInfo = Preconditions.checkNotNull(streamInfo);
         Preconditions.checkState(streamHandle != NativeKinesisVideoProducerJni.INVALID_STREAM_HANDLE_VALUE);
         mStreamHandle = streamHandle;
-        mStreamCallbacks = streamCallbacks;
+        mStreamCallbacks = new CompositeStreamCallbacks(streamCallbacks);
         mReadyLatch = new CountDownLatch(1);
         mStoppedLatch = new CountDownLatch(1);
         mLog = Preconditions.checkNotNull(log);
@@ -383,58 +384,44 @@ public class NativeKinesisVideoProducerStream implements KinesisVideoProducerStr
     @Override
     public void streamUnderflowReport() throws ProducerException
     {
-        if (mStreamCallbacks != null) {
-            mStreamCallbacks.streamUnderflowReport();
-        }
+        mStreamCallbacks.streamUnderflowReport();
     }
 
     @Override
     public void streamLatencyPressure(final long duration) throws ProducerException
     {
-        if (mStreamCallbacks != null) {
-            mStreamCallbacks.streamLatencyPressure(duration);
-        }
+        mStreamCallbacks.streamLatencyPressure(duration);
     }
 
     @Override
     public void streamConnectionStale(final long lastAckDuration) throws ProducerException
     {
-        if (mStreamCallbacks != null) {
-            mStreamCallbacks.streamConnectionStale(lastAckDuration);
-        }
+        mStreamCallbacks.streamConnectionStale(lastAckDuration);
     }
 
     @Override
     public void fragmentAckReceived(final long uploadHandle,
                                     @NonNull final KinesisVideoFragmentAck fragmentAck) throws ProducerException
     {
-        if (mStreamCallbacks != null) {
-            mStreamCallbacks.fragmentAckReceived(uploadHandle, fragmentAck);
-        }
+        mStreamCallbacks.fragmentAckReceived(uploadHandle, fragmentAck);
     }
 
     @Override
     public void droppedFrameReport(final long frameTimecode) throws ProducerException
     {
-        if (mStreamCallbacks != null) {
-            mStreamCallbacks.droppedFrameReport(frameTimecode);
-        }
+        mStreamCallbacks.droppedFrameReport(frameTimecode);
     }
 
     @Override
     public void droppedFragmentReport(final long fragmentTimecode) throws ProducerException
     {
-        if (mStreamCallbacks != null) {
-            mStreamCallbacks.droppedFragmentReport(fragmentTimecode);
-        }
+        mStreamCallbacks.droppedFragmentReport(fragmentTimecode);
     }
 
     @Override
     public void streamErrorReport(final long uploadHandle, final long fragmentTimecode, final long statusCode) throws ProducerException
     {
-        if (mStreamCallbacks != null) {
-            mStreamCallbacks.streamErrorReport(uploadHandle, fragmentTimecode, statusCode);
-        }
+        mStreamCallbacks.streamErrorReport(uploadHandle, fragmentTimecode, statusCode);
     }
 
     @Override
@@ -448,9 +435,7 @@ public class NativeKinesisVideoProducerStream implements KinesisVideoProducerStr
             mLog.warn("Data available notification for non-existing uploadHandle %d", uploadHandle);
         }
 
-        if (mStreamCallbacks != null) {
-            mStreamCallbacks.streamDataAvailable(uploadHandle, duration, availableSize);
-        }
+        mStreamCallbacks.streamDataAvailable(uploadHandle, duration, availableSize);
     }
 
     @Override
@@ -460,9 +445,7 @@ public class NativeKinesisVideoProducerStream implements KinesisVideoProducerStr
         // Release the ready latch
         mReadyLatch.countDown();
 
-        if (mStreamCallbacks != null) {
-            mStreamCallbacks.streamReady();
-        }
+        mStreamCallbacks.streamReady();
     }
 
     @Override
@@ -474,9 +457,7 @@ public class NativeKinesisVideoProducerStream implements KinesisVideoProducerStr
             for (final Map.Entry<Long, NativeDataInputStream> stream : mInputStreamMap.entrySet()) {
                 try {
                     stream.getValue().close();
-                    if (mStreamCallbacks != null) {
-                        mStreamCallbacks.streamClosed(stream.getKey());
-                    }
+                    mStreamCallbacks.streamClosed(stream.getKey());
                 } catch (final IOException e) {
                     mLog.error("stream close failed with exception " + e.getMessage());
                 }
@@ -494,17 +475,23 @@ public class NativeKinesisVideoProducerStream implements KinesisVideoProducerStr
             // Release the stopped latch
             mStoppedLatch.countDown();
 
-            if (mStreamCallbacks != null) {
-                mStreamCallbacks.streamClosed(uploadHandle);
-            }
+            mStreamCallbacks.streamClosed(uploadHandle);
         }
     }
 
+    @Override
+    public void addStreamCallbacks(final @NonNull StreamCallbacks streamCallbacks) {
+        mStreamCallbacks.addStreamCallbacks(Preconditions.checkNotNull(streamCallbacks));
+    }
+
+    @Override
+    public void removeStreamCallbacks(final @NonNull StreamCallbacks streamCallbacks) {
+        mStreamCallbacks.removeStreamCallbacks(streamCallbacks);
+    }
+
     @Override
     public void bufferDurationOverflowPressure(final long remainDuration) throws ProducerException {
-        if (mStreamCallbacks != null) {
-            mStreamCallbacks.bufferDurationOverflowPressure(remainDuration);
-        }
+        mStreamCallbacks.bufferDurationOverflowPressure(remainDuration);
     }
 
     /**
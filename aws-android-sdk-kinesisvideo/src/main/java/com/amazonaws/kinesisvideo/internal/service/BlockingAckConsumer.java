@@ -20,7 +20,7 @@ package com.amazonaws.kinesisvideo.internal.service;
 import com.amazonaws.kinesisvideo.common.exception.KinesisVideoException;
 import com.amazonaws.kinesisvideo.common.function.Consumer;
 import com.amazonaws.kinesisvideo.common.logging.Log;
-import com.amazonaws.kinesisvideo.encoding.ChunkDecoder;
+import com.amazonaws.kinesisvideo.encoding.BufferedChunkDecoder;
 import com.amazonaws.kinesisvideo.model.ResponseStatus;
 import com.amazonaws.kinesisvideo.internal.producer.KinesisVideoProducerStream;
 import com.amazonaws.kinesisvideo.internal.service.exception.AccessDeniedException;
@@ -32,6 +32,7 @@ import androidx.annotation.NonNull;
 import static com.amazonaws.kinesisvideo.common.preconditions.Preconditions.checkNotNull;
 
 import java.io.InputStream;
+import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
@@ -59,14 +60,21 @@ class BlockingAckConsumer implements Consumer<InputStream> {
     public void accept(final @NonNull InputStream inputStream) {
         checkNotNull(inputStream);
 
-        // Await for the header
+        // Await for the header. The decoder reads ahead, so the acks are read
+        // from it as well.
+        final BufferedChunkDecoder decoder = new BufferedChunkDecoder(inputStream);
+        InputStream ackStream = null;
         try {
-            final ResponseStatus responseStatus = ChunkDecoder.readStatusLine(inputStream);
+            final ResponseStatus responseStatus = decoder.readStatusLine();
             final int responseCode = responseStatus.getStatusCode();
             switch (responseCode) {
                 case HTTP_OK:
+                    final Map<String, String> headers = decoder.readHeaders();
                     log.debug(String.format("PutMedia call for stream %s return OK with request id %s",
-                            kinesisVideoProducerStream.getStreamName(), ChunkDecoder.decodeHeaders(inputStream)));
+                            kinesisVideoProducerStream.getStreamName(), headers));
+                    ackStream = BufferedChunkDecoder.isChunked(headers)
+                            ? decoder.getPayloadStream()
+                            : decoder.getRemainingStream();
                     break;
                 case HTTP_BAD_REQUEST:
                     throw new AmazonServiceException("PutMedia call returned bad request: "
@@ -89,7 +97,7 @@ class BlockingAckConsumer implements Consumer<InputStream> {
 
         // Forward to the origin if no exceptions have been thrown
         if (storedException == null) {
-            inputStreamConsumer.accept(inputStream);
+            inputStreamConsumer.accept(ackStream);
         }
     }
 
@@ -13,6 +13,7 @@ import com.amazonaws.kinesisvideo.internal.producer.KinesisVideoProducerStream;
 import com.amazonaws.kinesisvideo.producer.ProducerException;
 import com.amazonaws.kinesisvideo.internal.producer.ServiceCallbacks;
 import com.amazonaws.kinesisvideo.producer.StreamDescription;
+import com.amazonaws.kinesisvideo.producer.StreamStatus;
 import com.amazonaws.kinesisvideo.producer.Tag;
 import com.amazonaws.kinesisvideo.producer.Time;
 import com.amazonaws.kinesisvideo.internal.producer.client.KinesisVideoServiceClient;
@@ -25,7 +26,10 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 import static com.amazonaws.kinesisvideo.util.StreamInfoConstants.ACCESS_DENIED;
@@ -41,6 +45,20 @@ import static com.amazonaws.kinesisvideo.util.StreamInfoConstants.RESOURCE_NOT_F
  * Implementation of {@link ServiceCallbacks}
  */
 public class DefaultServiceCallbacksImpl implements ServiceCallbacks {
+    /**
+     * How long data endpoints and stream descriptions are reused across stream sessions
+     */
+    private static final long DATA_ENDPOINT_TIME_TO_LIVE_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final long DESCRIBE_STREAM_TIME_TO_LIVE_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    private static final String DESCRIBE_STREAM_API_NAME = "DescribeStream";
+
+    /**
+     * Streaming tokens are reused while they stay valid for at least this long, and refreshed
+     * in the background this long before that, so a token rotation does not wait for the credentials.
+     */
+    private static final long STREAMING_TOKEN_MIN_VALIDITY_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    private static final long STREAMING_TOKEN_REFRESH_AHEAD_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
     private class CompletionCallback implements Consumer<Exception> {
         private final KinesisVideoProducerStream stream;
         private final long uploadHandle;
@@ -66,6 +84,8 @@ public class DefaultServiceCallbacksImpl implements ServiceCallbacks {
                     }
                 }
                 if (statusCode != HTTP_OK) {
+                    // The endpoint or the stream may have changed
+                    mServiceCallCache.invalidateStream(stream.getStreamName());
                     try {
                         stream.streamTerminated(uploadHandle, statusCode);
                     } catch (final ProducerException e) {
@@ -135,6 +155,18 @@ public class DefaultServiceCallbacksImpl implements ServiceCallbacks {
      */
     private long uploadHandle;
 
+    /**
+     * Data endpoints and stream descriptions shared by the streams
+     */
+    private final ServiceCallCache mServiceCallCache = new ServiceCallCache();
+
+    /**
+     * Credentials handed out as streaming tokens, guarded by the lock
+     */
+    private final Object mStreamingCredentialsLock = new Object();
+    private KinesisVideoCredentials mStreamingCredentials;
+    private volatile ScheduledFuture<?> mStreamingCredentialsRefresh;
+
     public DefaultServiceCallbacksImpl(
             @NonNull final Log log,
             @NonNull final ScheduledExecutorService executor,
@@ -206,6 +238,7 @@ public class DefaultServiceCallbacksImpl implements ServiceCallbacks {
                             timeoutInMillis,
                             credentialsProvider);
                     statusCode = HTTP_OK;
+                    mServiceCallCache.invalidateStream(streamName);
                 } catch (final KinesisVideoException e) {
                     statusCode = getStatusCodeFromException(e);
                     log.error("Kinesis Video service client returned an error " + e.getMessage() + ". Reporting to Kinesis Video PIC.");
@@ -245,11 +278,24 @@ public class DefaultServiceCallbacksImpl implements ServiceCallbacks {
                 final KinesisVideoCredentialsProvider credentialsProvider = getCredentialsProvider(authData, log);
                 final long timeoutInMillis = timeout / Time.HUNDREDS_OF_NANOS_IN_A_MILLISECOND;
 
+                final String cacheKey = ServiceCallCache.key(streamName, DESCRIBE_STREAM_API_NAME);
                 try {
-                    streamDescription = kinesisVideoServiceClient.describeStream(streamName,
-                            timeoutInMillis,
-                            credentialsProvider);
+                    streamDescription = mServiceCallCache.get(cacheKey,
+                            DESCRIBE_STREAM_TIME_TO_LIVE_MILLIS,
+                            new Callable<StreamDescription>() {
+                                @Override
+                                public StreamDescription call() throws KinesisVideoException {
+                                    return kinesisVideoServiceClient.describeStream(streamName,
+                                            timeoutInMillis,
+                                            credentialsProvider);
+                                }
+                            });
                     statusCode = HTTP_OK;
+                    if (streamDescription == null
+                            || streamDescription.getStreamStatus() != StreamStatus.ACTIVE.intValue()) {
+                        // Only an active stream's description stays valid
+                        mServiceCallCache.invalidate(cacheKey);
+                    }
                 } catch (final KinesisVideoException e) {
                     statusCode = getStatusCodeFromException(e);
                     log.error("Kinesis Video service client returned an error " + e.getMessage() + ". Reporting to Kinesis Video PIC.");
@@ -287,11 +333,22 @@ public class DefaultServiceCallbacksImpl implements ServiceCallbacks {
                 final long timeoutInMillis = timeout / Time.HUNDREDS_OF_NANOS_IN_A_MILLISECOND;
                 int statusCode = HTTP_OK;
                 String endpoint = "";
+                final String cacheKey = ServiceCallCache.key(streamName, apiName);
                 try {
-                    endpoint = kinesisVideoServiceClient.getDataEndpoint(streamName,
-                            apiName,
-                            timeoutInMillis,
-                            credentialsProvider);
+                    endpoint = mServiceCallCache.get(cacheKey,
+                            DATA_ENDPOINT_TIME_TO_LIVE_MILLIS,
+                            new Callable<String>() {
+                                @Override
+                                public String call() throws KinesisVideoException {
+                                    return kinesisVideoServiceClient.getDataEndpoint(streamName,
+                                            apiName,
+                                            timeoutInMillis,
+                                            credentialsProvider);
+                                }
+                            });
+                    if (isBlank(endpoint)) {
+                        mServiceCallCache.invalidate(cacheKey);
+                    }
                 } catch (final KinesisVideoException e) {
                     log.error("Kinesis Video service client returned an error " + e.getMessage() + ". Reporting to Kinesis Video PIC.");
                     statusCode = getStatusCodeFromException(e);
@@ -331,15 +388,13 @@ public class DefaultServiceCallbacksImpl implements ServiceCallbacks {
             public void run() {
                 // Currently, we have no support for getting a streaming token. We will refresh the credentials
                 // and return a credential from the credentials provider we got initially.
-                final KinesisVideoCredentialsProvider credentialsProvider = configuration.getCredentialsProvider();
-
                 // Stores the serialized credentials as a streaming token
                 byte[] serializedCredentials = null;
                 long expiration = 0;
 
                 final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
                 try {
-                    final KinesisVideoCredentials credentials = credentialsProvider.getUpdatedCredentials();
+                    final KinesisVideoCredentials credentials = getStreamingCredentials();
 
                     // Serialize the credentials
                     expiration = credentials.getExpiration().getTime() * Time.HUNDREDS_OF_NANOS_IN_A_MILLISECOND;
@@ -440,6 +495,7 @@ public class DefaultServiceCallbacksImpl implements ServiceCallbacks {
                 } catch (final KinesisVideoException e) {
                     statusCode = getStatusCodeFromException(e);
                     log.error("Kinesis Video service client returned an error " + e.getMessage() + ". Reporting to Kinesis Video PIC.");
+                    mServiceCallCache.invalidateStream(streamName);
                 }
 
                 try {
@@ -561,6 +617,12 @@ public class DefaultServiceCallbacksImpl implements ServiceCallbacks {
         }
 
         mStreams.clear();
+        mServiceCallCache.clear();
+
+        final ScheduledFuture<?> refresh = mStreamingCredentialsRefresh;
+        if (refresh != null) {
+            refresh.cancel(false);
+        }
 
         this.executor.shutdownNow();
     }
@@ -585,6 +647,67 @@ public class DefaultServiceCallbacksImpl implements ServiceCallbacks {
         }
     }
 
+    private synchronized boolean hasStreams() {
+        return !mStreams.isEmpty();
+    }
+
+    /**
+     * Returns the cached streaming credentials while they remain valid for a while, and
+     * otherwise gets updated ones from the credentials provider.
+     */
+    @Nullable
+    private KinesisVideoCredentials getStreamingCredentials() throws KinesisVideoException {
+        synchronized (mStreamingCredentialsLock) {
+            if (mStreamingCredentials == null
+                    || mStreamingCredentials.getExpiration().getTime() - System.currentTimeMillis()
+                            < STREAMING_TOKEN_MIN_VALIDITY_MILLIS) {
+                refreshStreamingCredentials();
+            }
+            return mStreamingCredentials;
+        }
+    }
+
+    private void refreshStreamingCredentials() throws KinesisVideoException {
+        final KinesisVideoCredentials credentials = configuration.getCredentialsProvider().getUpdatedCredentials();
+        mStreamingCredentials = credentials;
+
+        final ScheduledFuture<?> previousRefresh = mStreamingCredentialsRefresh;
+        if (previousRefresh != null) {
+            previousRefresh.cancel(false);
+        }
+        mStreamingCredentialsRefresh = null;
+        if (credentials == null
+                || credentials.getExpiration().equals(KinesisVideoCredentials.CREDENTIALS_NEVER_EXPIRE)) {
+            return;
+        }
+
+        final long delay = credentials.getExpiration().getTime() - System.currentTimeMillis()
+                - STREAMING_TOKEN_MIN_VALIDITY_MILLIS - STREAMING_TOKEN_REFRESH_AHEAD_MILLIS;
+        if (delay <= 0) {
+            return;
+        }
+        try {
+            mStreamingCredentialsRefresh = executor.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    synchronized (mStreamingCredentialsLock) {
+                        if (!hasStreams()) {
+                            // Nothing is streaming; the next token request refreshes them
+                            return;
+                        }
+                        try {
+                            refreshStreamingCredentials();
+                        } catch (final KinesisVideoException e) {
+                            log.exception(e, "Refreshing the streaming credentials threw an exception");
+                        }
+                    }
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (final RejectedExecutionException e) {
+            // The executor has been shut down
+        }
+    }
+
     private long calculateRelativeServiceCallAfter(final long absoluteCallAfter) {
         return Math.max(0, absoluteCallAfter * Time.NANOS_IN_A_TIME_UNIT -
                 System.currentTimeMillis() * Time.NANOS_IN_A_MILLISECOND);
@@ -0,0 +1,117 @@
+/**
+ * Copyright 2017-2018 Amazon.com,
+ * Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Amazon Software License (the "License").
+ * You may not use this file except in compliance with the
+ * License. A copy of the License is located at
+ *
+ *     http://aws.amazon.com/asl/
+ *
+ * or in the "license" file accompanying this file. This file is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, express or implied. See the License
+ * for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.amazonaws.kinesisvideo.internal.service;
+
+import com.amazonaws.kinesisvideo.common.exception.KinesisVideoException;
+
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Results of service calls that rarely change, such as data endpoints and
+ * stream descriptions, kept for a time to live.
+ * <p>
+ * Entries are keyed by stream name and API name, so all streams of a
+ * producer share them. Concurrent lookups of a key that is not cached share
+ * a single service call. Failed calls are not cached.
+ */
+class ServiceCallCache {
+    private static final String KEY_SEPARATOR = "\n";
+
+    private final ConcurrentMap<String, Entry> mEntries = new ConcurrentHashMap<String, Entry>();
+
+    private static final class Entry {
+        private final FutureTask<Object> mTask;
+        /** Set once the call completes; an entry in flight never expires */
+        private volatile long mExpiresAtMillis = Long.MAX_VALUE;
+
+        Entry(final Callable<Object> loader) {
+            mTask = new FutureTask<Object>(loader);
+        }
+    }
+
+    static String key(final String streamName, final String apiName) {
+        return streamName + KEY_SEPARATOR + apiName;
+    }
+
+    /**
+     * Returns the cached result for the key, or calls the loader and caches
+     * its result for the time to live.
+     */
+    @SuppressWarnings("unchecked")
+    <V> V get(final String key, final long timeToLiveMillis, final Callable<V> loader)
+            throws KinesisVideoException {
+        Entry entry = mEntries.get(key);
+        if (entry != null && System.currentTimeMillis() >= entry.mExpiresAtMillis) {
+            mEntries.remove(key, entry);
+            entry = null;
+        }
+        if (entry == null) {
+            final Entry created = new Entry((Callable<Object>) loader);
+            entry = mEntries.putIfAbsent(key, created);
+            if (entry == null) {
+                entry = created;
+                created.mTask.run();
+                created.mExpiresAtMillis = System.currentTimeMillis() + timeToLiveMillis;
+            }
+        }
+
+        try {
+            return (V) entry.mTask.get();
+        } catch (final ExecutionException e) {
+            mEntries.remove(key, entry);
+            final Throwable cause = e.getCause();
+            if (cause instanceof KinesisVideoException) {
+                throw (KinesisVideoException) cause;
+            }
+            throw new KinesisVideoException(cause);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new KinesisVideoException(e);
+        }
+    }
+
+    /**
+     * Drops the cached result for the key, for example after the caller
+     * found it no longer valid.
+     */
+    void invalidate(final String key) {
+        mEntries.remove(key);
+    }
+
+    /**
+     * Drops every cached result for the stream.
+     */
+    void invalidateStream(final String streamName) {
+        final String prefix = streamName + KEY_SEPARATOR;
+        final Iterator<String> keys = mEntries.keySet().iterator();
+        while (keys.hasNext()) {
+            if (keys.next().startsWith(prefix)) {
+                keys.remove();
+            }
+        }
+    }
+
+    void clear() {
+        mEntries.clear();
+    }
+}
@@ -0,0 +1,344 @@
+/**
+ * Copyright 2017-2018 Amazon.com,
+ * Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Amazon Software License (the "License").
+ * You may not use this file except in compliance with the
+ * License. A copy of the License is located at
+ *
+ *     http://aws.amazon.com/asl/
+ *
+ * or in the "license" file accompanying this file. This file is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, express or implied. See the License
+ * for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.amazonaws.kinesisvideo.stream.throttling;
+
+import static com.amazonaws.kinesisvideo.common.preconditions.Preconditions.checkArgument;
+import static com.amazonaws.kinesisvideo.common.preconditions.Preconditions.checkNotNull;
+
+/**
+ * Closed loop bitrate controller for a producer stream.
+ * <p>
+ * Feed it the measured upload throughput, the duration of media buffered in
+ * the stream's content view and the latency of fragment acks, and call
+ * {@link #evaluate(long)} periodically. When the buffer grows or acks slow
+ * down the link is congested, and the bitrate is lowered below the measured
+ * throughput, far enough for the backlog to drain within seconds. When the
+ * buffer and the ack latency have stayed low, and the buffer has not grown,
+ * for a while, the bitrate is raised again one step at a time to probe for
+ * spare capacity.
+ * <p>
+ * Optionally the frame rate follows the bitrate: below a knee bitrate it is
+ * lowered in proportion, so that each frame keeps enough bits to stay sharp
+ * instead of the encoder spreading too few bits over every frame.
+ * <p>
+ * The thresholds for lowering and raising are apart, and every change is
+ * followed by a hold time, so the bitrate does not oscillate around the link
+ * capacity. Between the thresholds nothing changes.
+ * <p>
+ * Not thread safe; call it from one thread.
+ */
+public class AdaptiveBitrateController {
+    private static final long BITS_IN_A_BYTE = 8L;
+    private static final double SMOOTHING = 0.3;
+    private static final double DRAIN_SECONDS = 10;
+    private static final double MIN_THROUGHPUT_FACTOR = 0.5;
+
+    /**
+     * Listener the controller reports changes to, typically the encoder.
+     */
+    public interface Listener {
+        void onBitrateChanged(int bitrate);
+
+        void onFrameRateChanged(int frameRate);
+    }
+
+    private final Listener mListener;
+    private final int mMinBitrate;
+    private final int mMaxBitrate;
+    private final int mMinFrameRate;
+    private final int mMaxFrameRate;
+    private final long mHighBufferMillis;
+    private final long mLowBufferMillis;
+    private final long mHighAckLatencyMillis;
+    private final long mLowAckLatencyMillis;
+    private final long mDecreaseHoldMillis;
+    private final long mIncreaseHoldMillis;
+    private final double mThroughputSafetyFactor;
+    private final double mDecreaseFactor;
+    private final double mIncreaseFactor;
+    private final int mFrameRateKneeBitrate;
+
+    private int mBitrate;
+    private int mFrameRate;
+    private double mThroughputBps = -1;
+    private long mBufferMillis;
+    private double mAckLatencyMillis = -1;
+    private long mLastChangeMillis;
+    private long mHealthySinceMillis = -1;
+    private long mHealthyBufferMillis;
+
+    private AdaptiveBitrateController(final Builder builder) {
+        mListener = checkNotNull(builder.mListener);
+        checkArgument(builder.mMinBitrate > 0 && builder.mMinBitrate <= builder.mMaxBitrate,
+                "Bitrate range must be positive and not empty");
+        checkArgument(builder.mMinFrameRate > 0 && builder.mMinFrameRate <= builder.mMaxFrameRate,
+                "Frame rate range must be positive and not empty");
+        checkArgument(builder.mLowBufferMillis < builder.mHighBufferMillis
+                        && builder.mLowAckLatencyMillis < builder.mHighAckLatencyMillis,
+                "Low thresholds must be below high thresholds");
+        mMinBitrate = builder.mMinBitrate;
+        mMaxBitrate = builder.mMaxBitrate;
+        mMinFrameRate = builder.mMinFrameRate;
+        mMaxFrameRate = builder.mMaxFrameRate;
+        mHighBufferMillis = builder.mHighBufferMillis;
+        mLowBufferMillis = builder.mLowBufferMillis;
+        mHighAckLatencyMillis = builder.mHighAckLatencyMillis;
+        mLowAckLatencyMillis = builder.mLowAckLatencyMillis;
+        mDecreaseHoldMillis = builder.mDecreaseHoldMillis;
+        mIncreaseHoldMillis = builder.mIncreaseHoldMillis;
+        mThroughputSafetyFactor = builder.mThroughputSafetyFactor;
+        mDecreaseFactor = builder.mDecreaseFactor;
+        mIncreaseFactor = builder.mIncreaseFactor;
+        mFrameRateKneeBitrate = builder.mFrameRateKneeBitrate;
+        mBitrate = clamp(builder.mInitialBitrate > 0 ? builder.mInitialBitrate : mMaxBitrate,
+                mMinBitrate, mMaxBitrate);
+        mFrameRate = frameRateFor(mBitrate);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Records a throughput measurement, such as the stream's current transfer
+     * rate or an {@link OpsPerSecondMeasurer} on the upload stream.
+     *
+     * @param bytesPerSecond bytes uploaded per second.
+     */
+    public void onThroughputMeasured(final long bytesPerSecond) {
+        if (bytesPerSecond <= 0) {
+            return;
+        }
+        final double bps = bytesPerSecond * BITS_IN_A_BYTE;
+        mThroughputBps = mThroughputBps < 0 ? bps : SMOOTHING * bps + (1 - SMOOTHING) * mThroughputBps;
+    }
+
+    /**
+     * Records the duration of media waiting to be sent, the current view
+     * duration of the stream metrics.
+     */
+    public void onBufferDuration(final long bufferMillis) {
+        mBufferMillis = bufferMillis;
+    }
+
+    /**
+     * Records the time between a fragment starting and the service
+     * acknowledging it.
+     */
+    public void onAckLatency(final long latencyMillis) {
+        if (latencyMillis < 0) {
+            return;
+        }
+        mAckLatencyMillis = mAckLatencyMillis < 0
+                ? latencyMillis
+                : SMOOTHING * latencyMillis + (1 - SMOOTHING) * mAckLatencyMillis;
+    }
+
+    /**
+     * Compares the latest measurements with the thresholds and changes the
+     * bitrate or the frame rate if needed.
+     *
+     * @param nowMillis the current time.
+     */
+    public void evaluate(final long nowMillis) {
+        final double ackLatency = Math.max(mAckLatencyMillis, 0);
+        final boolean congested = mBufferMillis > mHighBufferMillis || ackLatency > mHighAckLatencyMillis;
+        final boolean healthy = mBufferMillis <= mLowBufferMillis && ackLatency <= mLowAckLatencyMillis;
+
+        if (congested) {
+            mHealthySinceMillis = -1;
+            if (nowMillis - mLastChangeMillis >= mDecreaseHoldMillis) {
+                decrease(nowMillis);
+            }
+        } else if (healthy) {
+            if (mHealthySinceMillis < 0) {
+                startHealthyPeriod(nowMillis);
+            }
+            if (nowMillis - mHealthySinceMillis >= mIncreaseHoldMillis
+                    && nowMillis - mLastChangeMillis >= mIncreaseHoldMillis) {
+                if (mBufferMillis - mHealthyBufferMillis > mLowBufferMillis / 4) {
+                    // The buffer is low but growing, so the link is already saturated
+                    startHealthyPeriod(nowMillis);
+                } else {
+                    increase(nowMillis);
+                }
+            }
+        } else {
+            mHealthySinceMillis = -1;
+        }
+    }
+
+    private void decrease(final long nowMillis) {
+        final double target;
+        if (mThroughputBps > 0) {
+            // While congested the link is saturated, so the throughput is its capacity.
+            // Leave enough of it to send the backlog within a few seconds.
+            final double backlogBits = (double) mBufferMillis * mBitrate / 1000;
+            target = Math.max(mThroughputBps * mThroughputSafetyFactor - backlogBits / DRAIN_SECONDS,
+                    mThroughputBps * MIN_THROUGHPUT_FACTOR);
+            if (mBitrate <= target) {
+                // Already low enough; the backlog is draining
+                return;
+            }
+        } else {
+            target = mBitrate * mDecreaseFactor;
+        }
+        if (mBitrate > mMinBitrate) {
+            setBitrate(nowMillis, clamp((int) target, mMinBitrate, mBitrate - 1));
+        }
+    }
+
+    private void startHealthyPeriod(final long nowMillis) {
+        mHealthySinceMillis = nowMillis;
+        mHealthyBufferMillis = mBufferMillis;
+    }
+
+    private void increase(final long nowMillis) {
+        startHealthyPeriod(nowMillis);
+        if (mBitrate < mMaxBitrate) {
+            setBitrate(nowMillis, clamp((int) (mBitrate * mIncreaseFactor), mBitrate + 1, mMaxBitrate));
+        }
+    }
+
+    private void setBitrate(final long nowMillis, final int bitrate) {
+        mLastChangeMillis = nowMillis;
+        mBitrate = bitrate;
+        mListener.onBitrateChanged(bitrate);
+        final int frameRate = frameRateFor(bitrate);
+        if (frameRate != mFrameRate) {
+            mFrameRate = frameRate;
+            mListener.onFrameRateChanged(frameRate);
+        }
+    }
+
+    private int frameRateFor(final int bitrate) {
+        if (bitrate >= mFrameRateKneeBitrate) {
+            return mMaxFrameRate;
+        }
+        return clamp((int) Math.round((double) mMaxFrameRate * bitrate / mFrameRateKneeBitrate),
+                mMinFrameRate, mMaxFrameRate);
+    }
+
+    private static int clamp(final int value, final int min, final int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    /**
+     * @return the current target bitrate in bits per second.
+     */
+    public int getBitrate() {
+        return mBitrate;
+    }
+
+    /**
+     * @return the current target frame rate.
+     */
+    public int getFrameRate() {
+        return mFrameRate;
+    }
+
+    public static class Builder {
+        private Listener mListener;
+        private int mMinBitrate = 100 * 1024;
+        private int mMaxBitrate = 2 * 1024 * 1024;
+        private int mInitialBitrate;
+        private int mMinFrameRate = 10;
+        private int mMaxFrameRate = 30;
+        private long mHighBufferMillis = 3000;
+        private long mLowBufferMillis = 1000;
+        private long mHighAckLatencyMillis = 2500;
+        private long mLowAckLatencyMillis = 1000;
+        private long mDecreaseHoldMillis = 2000;
+        private long mIncreaseHoldMillis = 10000;
+        private double mThroughputSafetyFactor = 0.85;
+        private double mDecreaseFactor = 0.7;
+        private double mIncreaseFactor = 1.15;
+        private int mFrameRateKneeBitrate;
+
+        Builder() { }
+
+        public Builder listener(final Listener listener) {
+            mListener = listener;
+            return this;
+        }
+
+        /**
+         * Sets the bitrate range in bits per second.
+         */
+        public Builder bitrateRange(final int minBitrate, final int maxBitrate) {
+            mMinBitrate = minBitrate;
+            mMaxBitrate = maxBitrate;
+            return this;
+        }
+
+        /**
+         * Sets the bitrate the encoder starts with, by default the maximum.
+         */
+        public Builder initialBitrate(final int initialBitrate) {
+            mInitialBitrate = initialBitrate;
+            return this;
+        }
+
+        /**
+         * Lets the frame rate follow the bitrate. Below the knee bitrate the
+         * frame rate is lowered in proportion, but not below the minimum. By
+         * default the frame rate does not change.
+         */
+        public Builder frameRate(final int minFrameRate, final int maxFrameRate,
+                                 final int kneeBitrate) {
+            mMinFrameRate = minFrameRate;
+            mMaxFrameRate = maxFrameRate;
+            mFrameRateKneeBitrate = kneeBitrate;
+            return this;
+        }
+
+        /**
+         * Sets the buffer durations above which the link is congested and at
+         * or below which it may have spare capacity.
+         */
+        public Builder bufferThresholds(final long lowBufferMillis, final long highBufferMillis) {
+            mLowBufferMillis = lowBufferMillis;
+            mHighBufferMillis = highBufferMillis;
+            return this;
+        }
+
+        /**
+         * Sets the ack latencies above which the link is congested and at or
+         * below which it may have spare capacity.
+         */
+        public Builder ackLatencyThresholds(final long lowAckLatencyMillis, final long highAckLatencyMillis) {
+            mLowAckLatencyMillis = lowAckLatencyMillis;
+            mHighAckLatencyMillis = highAckLatencyMillis;
+            return this;
+        }
+
+        /**
+         * Sets how long to wait after a change before lowering, and how long
+         * the link must stay healthy before raising.
+         */
+        public Builder holdTimes(final long decreaseHoldMillis, final long increaseHoldMillis) {
+            mDecreaseHoldMillis = decreaseHoldMillis;
+            mIncreaseHoldMillis = increaseHoldMillis;
+            return this;
+        }
+
+        public AdaptiveBitrateController build() {
+            return new AdaptiveBitrateController(this);
+        }
+    }
+}
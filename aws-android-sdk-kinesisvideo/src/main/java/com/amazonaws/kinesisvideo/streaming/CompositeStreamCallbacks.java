@@ -0,0 +1,124 @@
+package com.amazonaws.kinesisvideo.streaming;
+
+import com.amazonaws.kinesisvideo.producer.KinesisVideoFragmentAck;
+import com.amazonaws.kinesisvideo.producer.ProducerException;
+import com.amazonaws.kinesisvideo.producer.StreamCallbacks;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Forwards every stream callback to a list of callbacks, in the order they were added. Callbacks can be
+ * added and removed while the stream is running, so that a media source can listen to its stream after the
+ * stream was created with the client's callbacks.
+ */
+public class CompositeStreamCallbacks implements StreamCallbacks {
+    private final List<StreamCallbacks> mStreamCallbacks = new CopyOnWriteArrayList<StreamCallbacks>();
+
+    public CompositeStreamCallbacks(@Nullable final StreamCallbacks streamCallbacks) {
+        addStreamCallbacks(streamCallbacks);
+    }
+
+    /**
+     * Adds callbacks to forward to.
+     *
+     * @param streamCallbacks the callbacks, ignored if null.
+     */
+    public void addStreamCallbacks(@Nullable final StreamCallbacks streamCallbacks) {
+        if (streamCallbacks != null) {
+            mStreamCallbacks.add(streamCallbacks);
+        }
+    }
+
+    /**
+     * Stops forwarding to callbacks added before.
+     *
+     * @param streamCallbacks the callbacks.
+     */
+    public void removeStreamCallbacks(@Nullable final StreamCallbacks streamCallbacks) {
+        mStreamCallbacks.remove(streamCallbacks);
+    }
+
+    @Override
+    public void streamUnderflowReport() throws ProducerException {
+        for (final StreamCallbacks streamCallbacks : mStreamCallbacks) {
+            streamCallbacks.streamUnderflowReport();
+        }
+    }
+
+    @Override
+    public void streamLatencyPressure(final long duration) throws ProducerException {
+        for (final StreamCallbacks streamCallbacks : mStreamCallbacks) {
+            streamCallbacks.streamLatencyPressure(duration);
+        }
+    }
+
+    @Override
+    public void streamConnectionStale(final long lastAckDuration) throws ProducerException {
+        for (final StreamCallbacks streamCallbacks : mStreamCallbacks) {
+            streamCallbacks.streamConnectionStale(lastAckDuration);
+        }
+    }
+
+    @Override
+    public void fragmentAckReceived(final long uploadHandle, @NonNull final KinesisVideoFragmentAck fragmentAck)
+            throws ProducerException {
+        for (final StreamCallbacks streamCallbacks : mStreamCallbacks) {
+            streamCallbacks.fragmentAckReceived(uploadHandle, fragmentAck);
+        }
+    }
+
+    @Override
+    public void droppedFrameReport(final long frameTimecode) throws ProducerException {
+        for (final StreamCallbacks streamCallbacks : mStreamCallbacks) {
+            streamCallbacks.droppedFrameReport(frameTimecode);
+        }
+    }
+
+    @Override
+    public void droppedFragmentReport(final long fragmentTimecode) throws ProducerException {
+        for (final StreamCallbacks streamCallbacks : mStreamCallbacks) {
+            streamCallbacks.droppedFragmentReport(fragmentTimecode);
+        }
+    }
+
+    @Override
+    public void streamErrorReport(final long uploadHandle, final long fragmentTimecode, final long statusCode)
+            throws ProducerException {
+        for (final StreamCallbacks streamCallbacks : mStreamCallbacks) {
+            streamCallbacks.streamErrorReport(uploadHandle, fragmentTimecode, statusCode);
+        }
+    }
+
+    @Override
+    public void streamDataAvailable(final long uploadHandle, final long duration, final long availableSize)
+            throws ProducerException {
+        for (final StreamCallbacks streamCallbacks : mStreamCallbacks) {
+            streamCallbacks.streamDataAvailable(uploadHandle, duration, availableSize);
+        }
+    }
+
+    @Override
+    public void streamReady() throws ProducerException {
+        for (final StreamCallbacks streamCallbacks : mStreamCallbacks) {
+            streamCallbacks.streamReady();
+        }
+    }
+
+    @Override
+    public void streamClosed(final long uploadHandle) throws ProducerException {
+        for (final StreamCallbacks streamCallbacks : mStreamCallbacks) {
+            streamCallbacks.streamClosed(uploadHandle);
+        }
+    }
+
+    @Override
+    public void bufferDurationOverflowPressure(final long remainDuration) throws ProducerException {
+        for (final StreamCallbacks streamCallbacks : mStreamCallbacks) {
+            streamCallbacks.bufferDurationOverflowPressure(remainDuration);
+        }
+    }
+}
@@ -41,7 +41,7 @@ import com.amazonaws.mobileconnectors.kinesisvideo.mediasource.android.AndroidCa
 public class CameraFramesSource {
     private static final String TAG = CameraFramesSource.class.getSimpleName();
 
-    private EncoderWrapper mEncoderWrapper;
+    private volatile EncoderWrapper mEncoderWrapper;
     private CodecPrivateDataAvailableListener mCodecPrivateDataListener;
     private FrameAvailableListener mFrameAvailableListener;
     private CameraAdapter mCameraAdapter;
@@ -49,6 +49,8 @@ public class CameraFramesSource {
     private final ImageReader mImageReader;
     private final CameraMediaSourceConfiguration mMediaSourceConfiguration;
     private final EncodingCancellationToken mEncodingCancellationToken;
+    private volatile int mEncoderBitrate = 0;
+    private volatile int mEncoderFrameRate = 0;
 
     public CameraFramesSource(final ImageReader imageReader,
                               final CameraMediaSourceConfiguration mediaSourceConfiguration,
@@ -141,6 +143,10 @@ public class CameraFramesSource {
             mEncoderWrapper = new EncoderWrapper(mMediaSourceConfiguration);
             mEncoderWrapper.setCodecPrivateDataAvailableListener(mCodecPrivateDataListener);
             mEncoderWrapper.setEncodedFrameAvailableListener(mFrameAvailableListener);
+            if (mEncoderBitrate > 0) {
+                mEncoderWrapper.setBitrate(mEncoderBitrate);
+            }
+            mEncoderWrapper.setFrameRate(mEncoderFrameRate);
 
             prepareCameraAndPreview(
                     context,
@@ -159,6 +165,28 @@ public class CameraFramesSource {
         mFrameAvailableListener = listener;
     }
 
+    /**
+     * Changes the encoder bitrate, now or once the encoder is created.
+     */
+    public void setEncoderBitrate(final int bitrate) {
+        mEncoderBitrate = bitrate;
+        final EncoderWrapper encoderWrapper = mEncoderWrapper;
+        if (encoderWrapper != null) {
+            encoderWrapper.setBitrate(bitrate);
+        }
+    }
+
+    /**
+     * Changes the encoded frame rate, now or once the encoder is created.
+     */
+    public void setEncoderFrameRate(final int frameRate) {
+        mEncoderFrameRate = frameRate;
+        final EncoderWrapper encoderWrapper = mEncoderWrapper;
+        if (encoderWrapper != null) {
+            encoderWrapper.setFrameRate(frameRate);
+        }
+    }
+
     private void prepareCameraAndPreview(final Context context,
                                          final List<Surface> cameraOutputSurfaces,
                                          final String cameraId) {
@@ -19,6 +19,7 @@ package com.amazonaws.mobileconnectors.kinesisvideo.encoding;
 
 import android.media.Image;
 import android.media.MediaCodec;
+import android.os.Bundle;
 import android.util.Log;
 
 import com.amazonaws.kinesisvideo.client.mediasource.CameraMediaSourceConfiguration;
@@ -46,6 +47,9 @@ public class EncoderWrapper {
     private boolean mIsStopped = false;
     private int mFrameIndex;
     private long mFragmentStart = 0;
+    private volatile int mPendingBitrate = 0;
+    private volatile long mFrameIntervalMs = 0;
+    private long mNextFrameDueMs = 0;
 
     public interface FrameAvailableListener {
 
@@ -85,6 +89,13 @@ public class EncoderWrapper {
             return;
         }
 
+        if (!endOfStream && skipFrame()) {
+            Log.d(TAG, "skipping frame to keep the target frame rate" + threadId());
+            return;
+        }
+
+        applyPendingBitrate();
+
         Log.d(TAG, "encoding frame" + threadId());
 
         mEncoderFrameSubmitter.submitFrameToEncoder(frameImageYUV420, endOfStream);
@@ -97,6 +108,55 @@ public class EncoderWrapper {
     }
 
 
+    /**
+     * Changes the encoder bitrate while encoding. Takes effect with the next
+     * frame.
+     *
+     * @param bitrate bits per second
+     */
+    public void setBitrate(final int bitrate) {
+        mPendingBitrate = bitrate;
+    }
+
+    /**
+     * Lowers the frame rate below the camera's by dropping frames before they
+     * are encoded.
+     *
+     * @param frameRate frames per second; 0, or at least the configured frame
+     *            rate, encodes every frame
+     */
+    public void setFrameRate(final int frameRate) {
+        mFrameIntervalMs = frameRate > 0 && frameRate < mMediaSourceConfiguration.getFrameRate()
+                ? 1000 / frameRate
+                : 0;
+    }
+
+    private boolean skipFrame() {
+        final long frameIntervalMs = mFrameIntervalMs;
+        if (frameIntervalMs == 0) {
+            return false;
+        }
+        final long now = System.currentTimeMillis();
+        if (now < mNextFrameDueMs) {
+            return true;
+        }
+        // Schedule from the due time to keep the average rate, unless far behind
+        mNextFrameDueMs = Math.max(mNextFrameDueMs + frameIntervalMs, now);
+        return false;
+    }
+
+    private void applyPendingBitrate() {
+        final int bitrate = mPendingBitrate;
+        if (bitrate == 0) {
+            return;
+        }
+        mPendingBitrate = 0;
+        Log.i(TAG, "changing encoder bitrate to " + bitrate);
+        final Bundle parameters = new Bundle();
+        parameters.putInt(MediaCodec.PARAMETER_KEY_VIDEO_BITRATE, bitrate);
+        mEncoder.setParameters(parameters);
+    }
+
     private void getDataFromEncoder(final boolean endOfStream) {
         boolean stopReadingFromEncoder = false;
         while(!stopReadingFromEncoder) {
@@ -19,6 +19,10 @@ package com.amazonaws.mobileconnectors.kinesisvideo.mediasource.android;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import android.content.Context;
 import android.graphics.ImageFormat;
@@ -28,22 +32,30 @@ import androidx.annotation.Nullable;
 import android.util.Log;
 import android.view.Surface;
 
+import com.amazonaws.async.SdkExecutors;
+import com.amazonaws.kinesisvideo.producer.FragmentAckType;
+import com.amazonaws.kinesisvideo.producer.KinesisVideoFragmentAck;
+import com.amazonaws.kinesisvideo.producer.ProducerException;
 import com.amazonaws.kinesisvideo.producer.StreamCallbacks;
 import com.amazonaws.kinesisvideo.client.mediasource.CameraMediaSourceConfiguration;
 import com.amazonaws.kinesisvideo.internal.client.mediasource.MediaSource;
 import com.amazonaws.kinesisvideo.internal.client.mediasource.MediaSourceConfiguration;
 import com.amazonaws.kinesisvideo.internal.client.mediasource.MediaSourceSink;
+import com.amazonaws.kinesisvideo.internal.producer.KinesisVideoStreamMetrics;
 import com.amazonaws.kinesisvideo.client.mediasource.MediaSourceState;
 import com.amazonaws.kinesisvideo.common.exception.KinesisVideoException;
 import com.amazonaws.kinesisvideo.producer.KinesisVideoFrame;
 import com.amazonaws.kinesisvideo.producer.StreamInfo;
 import com.amazonaws.kinesisvideo.producer.Tag;
+import com.amazonaws.kinesisvideo.stream.throttling.AdaptiveBitrateController;
+import com.amazonaws.kinesisvideo.streaming.DefaultStreamCallbacks;
 import com.amazonaws.mobileconnectors.kinesisvideo.camera.CameraFramesSource;
 import com.amazonaws.mobileconnectors.kinesisvideo.camera.EncodingCancellationToken;
 import com.amazonaws.mobileconnectors.kinesisvideo.encoding.EncoderWrapper.CodecPrivateDataAvailableListener;
 import com.amazonaws.mobileconnectors.kinesisvideo.encoding.EncoderWrapper.FrameAvailableListener;
 
 import static com.amazonaws.kinesisvideo.producer.Time.HUNDREDS_OF_NANOS_IN_AN_HOUR;
+import static com.amazonaws.kinesisvideo.producer.Time.HUNDREDS_OF_NANOS_IN_A_MILLISECOND;
 import static com.amazonaws.kinesisvideo.producer.Time.NANOS_IN_A_TIME_UNIT;
 import static com.amazonaws.kinesisvideo.util.StreamInfoConstants.DEFAULT_BUFFER_DURATION;
 import static com.amazonaws.kinesisvideo.util.StreamInfoConstants.DEFAULT_GOP_DURATION;
@@ -67,6 +79,8 @@ public class AndroidCameraMediaSource implements MediaSource {
     private static final String TAG = AndroidCameraMediaSource.class.getSimpleName();
 
     private static final int TWO_FRAMES_BUFFER = 2;
+    private static final long ADAPTIVE_BITRATE_INTERVAL_MILLIS = 1000;
+    private static final long MAX_ACK_LATENCY_MILLIS = 5 * 60 * 1000;
 
     private final Context mContext;
     private final String mStreamName;
@@ -79,6 +93,12 @@ public class AndroidCameraMediaSource implements MediaSource {
     private CameraMediaSourceConfiguration mMediaSourceConfiguration;
     private MediaSourceSink mMediaSourceSink;
 
+    private AdaptiveBitrateController.Builder mAdaptiveBitrateBuilder;
+    private volatile AdaptiveBitrateController mAdaptiveBitrateController;
+    private volatile ExecutorService mAdaptiveBitrateExecutor;
+    private ScheduledFuture<?> mAdaptiveBitrateEvaluation;
+    private StreamCallbacks mAdaptiveBitrateCallbacks;
+
     public interface OpenCameraCallback {
         void onOpened();
         void onError(final KinesisVideoException e);
@@ -99,6 +119,21 @@ public class AndroidCameraMediaSource implements MediaSource {
         mPreivewSurfaces = Arrays.asList(surfaces);
     }
 
+    /**
+     * Adapts the encoder bitrate, and optionally the frame rate, to the
+     * upload bandwidth while streaming. The controller starts at the
+     * configured bitrate and is fed the stream's transfer rate, buffer
+     * duration and fragment ack latency every second. Takes effect on the
+     * next {@link #start()}; the builder's listener and initial bitrate are
+     * set by this media source.
+     *
+     * @param builder the controller settings, or null to keep the configured
+     *            bitrate.
+     */
+    public void setAdaptiveBitrate(@Nullable final AdaptiveBitrateController.Builder builder) {
+        mAdaptiveBitrateBuilder = builder;
+    }
+
     private CameraFramesSource createFramesSource(final ImageReader imageReader) {
         mEncodingCancellationToken = new EncodingCancellationToken();
 
@@ -194,10 +229,12 @@ public class AndroidCameraMediaSource implements MediaSource {
     public void start() throws KinesisVideoException {
         mMediaSourceState = MediaSourceState.RUNNING;
         startEncoding();
+        startAdaptiveBitrate();
     }
 
     @Override
     public void stop() throws KinesisVideoException {
+        stopAdaptiveBitrate();
         stopEncoding();
         mMediaSourceState = MediaSourceState.STOPPED;
     }
@@ -218,6 +255,116 @@ public class AndroidCameraMediaSource implements MediaSource {
         return null;
     }
 
+    private void startAdaptiveBitrate() {
+        if (mAdaptiveBitrateBuilder == null) {
+            return;
+        }
+        final AdaptiveBitrateController controller = mAdaptiveBitrateBuilder
+                .listener(updateEncoder())
+                .initialBitrate(mMediaSourceConfiguration.getBitRate())
+                .build();
+        mCameraFramesSource.setEncoderBitrate(controller.getBitrate());
+        mCameraFramesSource.setEncoderFrameRate(controller.getFrameRate());
+
+        // The controller is not thread safe, so acks and metrics are both handled one at a time
+        final ExecutorService executor = SdkExecutors.newClientExecutor(1);
+        final Runnable evaluation = new Runnable() {
+            @Override
+            public void run() {
+                evaluateAdaptiveBitrate(controller);
+            }
+        };
+        mAdaptiveBitrateEvaluation = SdkExecutors.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    executor.execute(evaluation);
+                } catch (final RejectedExecutionException e) {
+                    // stopped meanwhile
+                }
+            }
+        }, ADAPTIVE_BITRATE_INTERVAL_MILLIS, ADAPTIVE_BITRATE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        mAdaptiveBitrateController = controller;
+        mAdaptiveBitrateExecutor = executor;
+
+        // Listen to the stream the client created when this source was registered
+        mAdaptiveBitrateCallbacks = new DefaultStreamCallbacks() {
+            @Override
+            public void fragmentAckReceived(final long uploadHandle,
+                                            @NonNull final KinesisVideoFragmentAck fragmentAck)
+                    throws ProducerException {
+                if (fragmentAck.getAckType().getIntType() == FragmentAckType.FRAGMENT_ACK_TYPE_BUFFERING) {
+                    onFragmentBuffering(fragmentAck.getTimestamp());
+                }
+            }
+        };
+        mMediaSourceSink.getProducerStream().addStreamCallbacks(mAdaptiveBitrateCallbacks);
+    }
+
+    private void stopAdaptiveBitrate() {
+        final ExecutorService executor = mAdaptiveBitrateExecutor;
+        if (executor == null) {
+            return;
+        }
+        mMediaSourceSink.getProducerStream().removeStreamCallbacks(mAdaptiveBitrateCallbacks);
+        mAdaptiveBitrateCallbacks = null;
+        mAdaptiveBitrateEvaluation.cancel(false);
+        mAdaptiveBitrateEvaluation = null;
+        executor.shutdownNow();
+        mAdaptiveBitrateExecutor = null;
+        mAdaptiveBitrateController = null;
+    }
+
+    private void evaluateAdaptiveBitrate(final AdaptiveBitrateController controller) {
+        try {
+            final KinesisVideoStreamMetrics metrics = mMediaSourceSink.getProducerStream().getMetrics();
+            controller.onThroughputMeasured(metrics.getCurrentTransferRate());
+            controller.onBufferDuration(metrics.getCurrentViewDurationInMillis());
+            controller.evaluate(System.currentTimeMillis());
+        } catch (final ProducerException e) {
+            Log.w(TAG, "unable to read stream metrics for adaptive bitrate", e);
+        }
+    }
+
+    private void onFragmentBuffering(final long fragmentTimestamp) {
+        final ExecutorService executor = mAdaptiveBitrateExecutor;
+        final AdaptiveBitrateController controller = mAdaptiveBitrateController;
+        if (executor == null || controller == null) {
+            return;
+        }
+        // Frame timestamps are wall clock time, so the ack timestamp is when the fragment started
+        final long latency = System.currentTimeMillis() - fragmentTimestamp / HUNDREDS_OF_NANOS_IN_A_MILLISECOND;
+        if (latency < 0 || latency >= MAX_ACK_LATENCY_MILLIS) {
+            return;
+        }
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    controller.onAckLatency(latency);
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            // stopped meanwhile
+        }
+    }
+
+    private AdaptiveBitrateController.Listener updateEncoder() {
+        return new AdaptiveBitrateController.Listener() {
+            @Override
+            public void onBitrateChanged(final int bitrate) {
+                Log.i(TAG, "adaptive bitrate " + bitrate);
+                mCameraFramesSource.setEncoderBitrate(bitrate);
+            }
+
+            @Override
+            public void onFrameRateChanged(final int frameRate) {
+                Log.i(TAG, "adaptive frame rate " + frameRate);
+                mCameraFramesSource.setEncoderFrameRate(frameRate);
+            }
+        };
+    }
+
     private void startEncoding() {
         Log.i(TAG, "encoding starting");
 
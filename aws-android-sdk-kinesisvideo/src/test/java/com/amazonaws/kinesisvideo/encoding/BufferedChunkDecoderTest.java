@@ -0,0 +1,180 @@
+package com.amazonaws.kinesisvideo.encoding;
+
+import com.amazonaws.kinesisvideo.common.function.Consumer;
+import com.amazonaws.kinesisvideo.model.ResponseStatus;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class BufferedChunkDecoderTest {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    @Test
+    public void readsStatusLineAndHeaders() throws IOException {
+        final BufferedChunkDecoder decoder = new BufferedChunkDecoder(stream(
+                "\r\nHTTP/1.1 403 Forbidden Access\r\nContent-Length: 0\r\nX-Test:  a:b \r\n\r\n"));
+
+        final ResponseStatus status = decoder.readStatusLine();
+        assertEquals("HTTP/1.1", status.getProtocol());
+        assertEquals(403, status.getStatusCode());
+        assertEquals("Forbidden Access", status.getReason());
+
+        final Map<String, String> headers = decoder.readHeaders();
+        assertEquals("0", headers.get("Content-Length"));
+        assertEquals("a:b", headers.get("X-Test"));
+        assertFalse(BufferedChunkDecoder.isChunked(headers));
+    }
+
+    @Test
+    public void decodesChunksWithExtensionsAndTrailers() throws IOException {
+        final String response = "HTTP/1.1 200 OK\r\n"
+                + "transfer-encoding: Chunked\r\n"
+                + "\r\n"
+                + "5;name=value\r\nhello\r\n"
+                + "7\r\n, world\r\n"
+                + "0\r\n"
+                + "Expires: never\r\n"
+                + "\r\n";
+        final BufferedChunkDecoder decoder = new BufferedChunkDecoder(stream(response));
+        decoder.readStatusLine();
+        assertTrue(BufferedChunkDecoder.isChunked(decoder.readHeaders()));
+
+        assertEquals(5, decoder.nextChunk());
+        assertEquals("hello", string(decoder.readSlice(100)));
+        assertNull(decoder.readSlice(100));
+        assertEquals(7, decoder.nextChunk());
+        assertEquals(", w", string(decoder.readSlice(3)));
+        assertEquals(4, decoder.getChunkRemaining());
+        assertEquals(0, decoder.nextChunk());
+        assertEquals("never", decoder.getTrailers().get("Expires"));
+        assertEquals(-1, decoder.nextChunk());
+    }
+
+    @Test
+    public void payloadStreamSurvivesRingWrapAndSingleByteReads() throws IOException {
+        final byte[] payload = new byte[1000];
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] = (byte) i;
+        }
+        final ByteArrayOutputStream response = new ByteArrayOutputStream();
+        response.write("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n".getBytes(UTF8));
+        for (int offset = 0; offset < payload.length; offset += 37) {
+            final int length = Math.min(37, payload.length - offset);
+            response.write((Integer.toHexString(length) + "\r\n").getBytes(UTF8));
+            response.write(payload, offset, length);
+            response.write("\r\n".getBytes(UTF8));
+        }
+        response.write("0\r\n\r\n".getBytes(UTF8));
+
+        final BufferedChunkDecoder decoder = new BufferedChunkDecoder(
+                new OneByteInputStream(new ByteArrayInputStream(response.toByteArray())), 64);
+        decoder.readStatusLine();
+        decoder.readHeaders();
+        assertArrayEquals(payload, readAll(decoder.getPayloadStream()));
+    }
+
+    @Test
+    public void remainingStreamReturnsBytesReadAhead() throws IOException {
+        final BufferedChunkDecoder decoder = new BufferedChunkDecoder(
+                stream("HTTP/1.1 200 OK\r\nContent-Length: 4\r\n\r\nbody"));
+        decoder.readStatusLine();
+        decoder.readHeaders();
+        assertEquals("body", new String(readAll(decoder.getRemainingStream()), UTF8));
+    }
+
+    @Test
+    public void endOfStreamBetweenChunksEndsPayload() throws IOException {
+        final BufferedChunkDecoder decoder = new BufferedChunkDecoder(
+                stream("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n3\r\nabc\r\n"));
+        decoder.readStatusLine();
+        decoder.readHeaders();
+        assertEquals("abc", new String(readAll(decoder.getPayloadStream()), UTF8));
+    }
+
+    @Test(expected = IOException.class)
+    public void endOfStreamInsideChunkFails() throws IOException {
+        final BufferedChunkDecoder decoder = new BufferedChunkDecoder(
+                stream("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n10\r\nabc"));
+        decoder.readStatusLine();
+        decoder.readHeaders();
+        readAll(decoder.getPayloadStream());
+    }
+
+    @Test
+    public void decodesAcksInResponseBody() {
+        final String first = "{\"EventType\":\"RECEIVED\",\"FragmentTimecode\":1}";
+        final String second = "{\"EventType\":\"PERSISTED\",\"FragmentTimecode\":1}";
+        final String response = "HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n"
+                + Integer.toHexString(first.length()) + "\r\n" + first + "\r\n"
+                + Integer.toHexString(second.length()) + "\r\n" + second + "\r\n"
+                + "0\r\n\r\n";
+        final List<String> acks = new ArrayList<String>();
+
+        final int count = ChunkDecoder.decodeAckInResponseBody(stream(response),
+                new Consumer<String>() {
+                    @Override
+                    public void accept(final String ack) {
+                        acks.add(ack);
+                    }
+                });
+
+        assertEquals(2, count);
+        assertEquals(first, acks.get(0));
+        assertEquals(second, acks.get(1));
+    }
+
+    @Test
+    public void parsesChunkSizeAcrossRingWrap() {
+        final byte[] ring = "f\r\n    1".getBytes(UTF8);
+        assertEquals(0x1f, ChunkDecoder.parseChunkSize(ring, 7, 1));
+        assertEquals(0xf, ChunkDecoder.parseChunkSize(ring, 0, 3));
+    }
+
+    private static InputStream stream(final String data) {
+        return new ByteArrayInputStream(data.getBytes(UTF8));
+    }
+
+    private static String string(final ByteBuffer slice) {
+        final byte[] bytes = new byte[slice.remaining()];
+        slice.get(bytes);
+        return new String(bytes, UTF8);
+    }
+
+    private static byte[] readAll(final InputStream in) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[100];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    /** Returns one byte per read, like a slow socket */
+    private static final class OneByteInputStream extends FilterInputStream {
+        OneByteInputStream(final InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            return super.read(b, off, Math.min(len, 1));
+        }
+    }
+}
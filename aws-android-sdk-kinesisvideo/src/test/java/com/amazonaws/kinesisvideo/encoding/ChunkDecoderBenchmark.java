@@ -0,0 +1,216 @@
+package com.amazonaws.kinesisvideo.encoding;
+
+import com.amazonaws.kinesisvideo.common.function.Consumer;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Random;
+
+/**
+ * Compares reading a PutMedia ack stream and a GetMedia stream the old way,
+ * one byte per read for the response head and a reader per ack, with
+ * {@link BufferedChunkDecoder}.
+ * <p>
+ * The streams have the shape of recorded responses: acks are small JSON
+ * chunks, one BUFFERING, RECEIVED and PERSISTED event per fragment, and
+ * media is MKV data in chunks of a few kilobytes. Run with
+ * {@code java ChunkDecoderBenchmark [iterations]}.
+ */
+public final class ChunkDecoderBenchmark {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final int FRAGMENTS = 2000;
+    private static final int MEDIA_BYTES = 8 * 1024 * 1024;
+
+    private ChunkDecoderBenchmark() {
+    }
+
+    public static void main(final String[] args) throws IOException {
+        final int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        final byte[] acks = ackStream();
+        final byte[] media = mediaStream();
+
+        for (int i = 0; i < 3; i++) {
+            // warm up
+            decodeAcksOld(acks);
+            decodeAcksBuffered(acks);
+            readMediaByteAtATime(media);
+            readMediaBuffered(media);
+        }
+
+        report("acks, reader per ack", acks.length, iterations, new Task() {
+            @Override
+            public void run() {
+                decodeAcksOld(acks);
+            }
+        });
+        report("acks, buffered decoder", acks.length, iterations, new Task() {
+            @Override
+            public void run() throws IOException {
+                decodeAcksBuffered(acks);
+            }
+        });
+        report("media, byte-at-a-time head", media.length, iterations, new Task() {
+            @Override
+            public void run() throws IOException {
+                readMediaByteAtATime(media);
+            }
+        });
+        report("media, buffered decoder", media.length, iterations, new Task() {
+            @Override
+            public void run() throws IOException {
+                readMediaBuffered(media);
+            }
+        });
+    }
+
+    private interface Task {
+        void run() throws IOException;
+    }
+
+    private static void report(final String name, final int bytes, final int iterations,
+                               final Task task) throws IOException {
+        final long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            task.run();
+        }
+        final double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(String.format("%-28s %8.2f ms/op %8.1f MB/s", name,
+                seconds * 1000 / iterations, bytes * (double) iterations / seconds / (1024 * 1024)));
+    }
+
+    /** The previous implementation, kept here as the baseline */
+    private static void decodeAcksOld(final byte[] acks) {
+        final int[] count = new int[1];
+        final Consumer<String> consumer = new Consumer<String>() {
+            @Override
+            public void accept(final String ack) {
+                count[0] += ack.length();
+            }
+        };
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new ByteArrayInputStream(acks), Charset.forName("US-ASCII")));
+        try {
+            String line;
+            do {
+                line = reader.readLine();
+            } while (line != null && !line.isEmpty());
+            line = reader.readLine();
+            while (line != null) {
+                final int chunkSize = Integer.parseInt(line.trim(), 16);
+                if (chunkSize == 0) {
+                    break;
+                }
+                final char[] buff = new char[128 * 128];
+                int offset = 0;
+                do {
+                    offset += reader.read(buff, offset, chunkSize + 2 - offset);
+                } while (offset < chunkSize + 2);
+                consumer.accept(new String(buff, 0, chunkSize));
+                line = reader.readLine();
+            }
+        } catch (final IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void decodeAcksBuffered(final byte[] acks) {
+        final int[] count = new int[1];
+        ChunkDecoder.decodeAckInResponseBody(new ByteArrayInputStream(acks),
+                new Consumer<String>() {
+                    @Override
+                    public void accept(final String ack) {
+                        count[0] += ack.length();
+                    }
+                });
+    }
+
+    private static long readMediaByteAtATime(final byte[] media) throws IOException {
+        final InputStream in = new ByteArrayInputStream(media);
+        ChunkDecoder.readStatusLine(in);
+        ChunkDecoder.decodeHeaders(in);
+        // the old path then copied every chunk through a fresh array
+        long total = 0;
+        final StringBuilder line = new StringBuilder();
+        while (true) {
+            line.setLength(0);
+            int b;
+            while ((b = in.read()) != '\n') {
+                if (b != '\r') {
+                    line.append((char) b);
+                }
+            }
+            final int size = Integer.parseInt(line.toString(), 16);
+            if (size == 0) {
+                return total;
+            }
+            final byte[] tmp = new byte[size];
+            int offset = 0;
+            while (offset < size) {
+                offset += in.read(tmp, offset, size - offset);
+            }
+            total += tmp.length;
+            in.read();
+            in.read();
+        }
+    }
+
+    private static long readMediaBuffered(final byte[] media) throws IOException {
+        final BufferedChunkDecoder decoder = new BufferedChunkDecoder(new ByteArrayInputStream(media));
+        decoder.readStatusLine();
+        decoder.readHeaders();
+        long total = 0;
+        while (decoder.nextChunk() > 0) {
+            ByteBuffer slice;
+            while ((slice = decoder.readSlice(Integer.MAX_VALUE)) != null) {
+                total += slice.remaining();
+            }
+        }
+        return total;
+    }
+
+    private static byte[] ackStream() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(("HTTP/1.1 200 OK\r\n"
+                + "x-amzn-RequestId: 6c3b5fd8-4b4b-4a8c-9e8a-0c1a2b3c4d5e\r\n"
+                + "Content-Type: application/json\r\n"
+                + "Transfer-Encoding: chunked\r\n"
+                + "\r\n").getBytes(UTF8));
+        final String[] events = {"BUFFERING", "RECEIVED", "PERSISTED"};
+        for (int i = 0; i < FRAGMENTS; i++) {
+            for (final String event : events) {
+                final String ack = "{\"EventType\":\"" + event + "\",\"FragmentTimecode\":"
+                        + (1617000000000L + i * 2000L) + ",\"FragmentNumber\":\""
+                        + "9134385233318143239268206260" + (1000000 + i) + "\"}";
+                out.write((Integer.toHexString(ack.length()) + "\r\n" + ack + "\r\n").getBytes(UTF8));
+            }
+        }
+        out.write("0\r\n\r\n".getBytes(UTF8));
+        return out.toByteArray();
+    }
+
+    private static byte[] mediaStream() throws IOException {
+        final Random random = new Random(42);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(("HTTP/1.1 200 OK\r\n"
+                + "Content-Type: video/webm\r\n"
+                + "Transfer-Encoding: chunked\r\n"
+                + "\r\n").getBytes(UTF8));
+        int written = 0;
+        while (written < MEDIA_BYTES) {
+            final byte[] chunk = new byte[1024 + random.nextInt(7 * 1024)];
+            random.nextBytes(chunk);
+            out.write((Integer.toHexString(chunk.length) + "\r\n").getBytes(UTF8));
+            out.write(chunk);
+            out.write("\r\n".getBytes(UTF8));
+            written += chunk.length;
+        }
+        out.write("0\r\n\r\n".getBytes(UTF8));
+        return out.toByteArray();
+    }
+}
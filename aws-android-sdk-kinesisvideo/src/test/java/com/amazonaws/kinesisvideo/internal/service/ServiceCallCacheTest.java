@@ -0,0 +1,138 @@
+package com.amazonaws.kinesisvideo.internal.service;
+
+import com.amazonaws.kinesisvideo.common.exception.KinesisVideoException;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class ServiceCallCacheTest {
+    private static final long TTL = TimeUnit.MINUTES.toMillis(1);
+
+    @Test
+    public void reusesResultWithinTimeToLive() throws Exception {
+        final ServiceCallCache cache = new ServiceCallCache();
+        final AtomicInteger calls = new AtomicInteger();
+        final Callable<String> loader = countingLoader(calls, "https://endpoint");
+
+        assertEquals("https://endpoint", cache.get(ServiceCallCache.key("stream", "PUT_MEDIA"), TTL, loader));
+        assertEquals("https://endpoint", cache.get(ServiceCallCache.key("stream", "PUT_MEDIA"), TTL, loader));
+        assertEquals(1, calls.get());
+
+        cache.get(ServiceCallCache.key("stream", "GET_MEDIA"), TTL, loader);
+        cache.get(ServiceCallCache.key("other", "PUT_MEDIA"), TTL, loader);
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    public void expiredResultIsLoadedAgain() throws Exception {
+        final ServiceCallCache cache = new ServiceCallCache();
+        final AtomicInteger calls = new AtomicInteger();
+        final Callable<String> loader = countingLoader(calls, "https://endpoint");
+
+        cache.get("key", 0, loader);
+        cache.get("key", 0, loader);
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void failuresAreNotCached() throws Exception {
+        final ServiceCallCache cache = new ServiceCallCache();
+        final AtomicInteger calls = new AtomicInteger();
+        final Callable<String> failing = new Callable<String>() {
+            @Override
+            public String call() throws KinesisVideoException {
+                calls.incrementAndGet();
+                throw new KinesisVideoException("ResourceNotFoundException");
+            }
+        };
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                cache.get("key", TTL, failing);
+                fail("expected the loader's exception");
+            } catch (final KinesisVideoException e) {
+                assertEquals("ResourceNotFoundException", e.getMessage());
+            }
+        }
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void invalidateStreamDropsAllItsEntries() throws Exception {
+        final ServiceCallCache cache = new ServiceCallCache();
+        final AtomicInteger calls = new AtomicInteger();
+        final Callable<String> loader = countingLoader(calls, "value");
+        cache.get(ServiceCallCache.key("stream", "PUT_MEDIA"), TTL, loader);
+        cache.get(ServiceCallCache.key("stream", "DescribeStream"), TTL, loader);
+        cache.get(ServiceCallCache.key("stream-2", "PUT_MEDIA"), TTL, loader);
+
+        cache.invalidateStream("stream");
+        cache.get(ServiceCallCache.key("stream", "PUT_MEDIA"), TTL, loader);
+        cache.get(ServiceCallCache.key("stream", "DescribeStream"), TTL, loader);
+        cache.get(ServiceCallCache.key("stream-2", "PUT_MEDIA"), TTL, loader);
+
+        assertEquals(5, calls.get());
+    }
+
+    @Test
+    public void concurrentLookupsShareOneCall() throws Exception {
+        final ServiceCallCache cache = new ServiceCallCache();
+        final AtomicInteger calls = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Callable<String> slowLoader = new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                calls.incrementAndGet();
+                started.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                return "https://endpoint";
+            }
+        };
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<String>> results = new ArrayList<Future<String>>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() throws Exception {
+                        return cache.get("key", TTL, slowLoader);
+                    }
+                }));
+            }
+            started.await(5, TimeUnit.SECONDS);
+            // let the other lookups reach the call in flight
+            Thread.sleep(100);
+            release.countDown();
+            for (final Future<String> result : results) {
+                assertEquals("https://endpoint", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, calls.get());
+    }
+
+    private static Callable<String> countingLoader(final AtomicInteger calls, final String value) {
+        return new Callable<String>() {
+            @Override
+            public String call() {
+                calls.incrementAndGet();
+                return value;
+            }
+        };
+    }
+}
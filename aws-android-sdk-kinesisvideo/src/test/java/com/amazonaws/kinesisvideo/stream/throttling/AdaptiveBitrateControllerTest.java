@@ -0,0 +1,153 @@
+package com.amazonaws.kinesisvideo.stream.throttling;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveBitrateControllerTest {
+    private static final int MIN_BITRATE = 100000;
+    private static final int MAX_BITRATE = 2000000;
+    private static final long BASE_ACK_LATENCY_MILLIS = 200;
+
+    @Test
+    public void lowersBitrateBelowCapacityAndDrainsBuffer() {
+        final Link link = new Link(800000);
+        final AdaptiveBitrateController controller = controller(link.mBitrateChanges, 0);
+
+        link.run(controller, 60);
+
+        assertTrue("bitrate " + controller.getBitrate(), controller.getBitrate() <= 800000);
+        assertTrue("bitrate " + controller.getBitrate(), controller.getBitrate() >= 500000);
+        assertTrue("buffer " + link.bufferMillis(controller), link.bufferMillis(controller) < 1000);
+    }
+
+    @Test
+    public void raisesBitrateAfterCapacityRecovers() {
+        final Link link = new Link(500000);
+        final AdaptiveBitrateController controller = controller(link.mBitrateChanges, 0);
+        link.run(controller, 60);
+        final int congestedBitrate = controller.getBitrate();
+        assertTrue(congestedBitrate <= 500000);
+
+        link.mCapacity = 5000000;
+        link.run(controller, 300);
+
+        assertEquals(MAX_BITRATE, controller.getBitrate());
+    }
+
+    @Test
+    public void probesStayCloseToCapacity() {
+        final Link link = new Link(1200000);
+        final AdaptiveBitrateController controller = controller(link.mBitrateChanges, 0);
+        link.run(controller, 120);
+        final int changes = link.mBitrateChanges.size();
+
+        link.run(controller, 600);
+
+        // each probe goes one step above the capacity before the step back down
+        final List<Integer> later = link.mBitrateChanges.subList(changes, link.mBitrateChanges.size());
+        for (final int bitrate : later) {
+            assertTrue("bitrate " + bitrate, bitrate <= 1200000 * 1.2);
+        }
+        assertTrue("changes " + later, later.size() <= 600 / 10);
+    }
+
+    @Test
+    public void keepsBitrateWhileBetweenThresholds() {
+        final List<Integer> changes = new ArrayList<Integer>();
+        final AdaptiveBitrateController controller = controller(changes, 0);
+        for (long now = 0; now < 600000; now += 1000) {
+            controller.onThroughputMeasured(MAX_BITRATE / 8);
+            controller.onBufferDuration(2000);
+            controller.onAckLatency(1500);
+            controller.evaluate(now);
+        }
+        assertTrue(changes.isEmpty());
+        assertEquals(MAX_BITRATE, controller.getBitrate());
+    }
+
+    @Test
+    public void lowersFrameRateBelowKnee() {
+        final List<Integer> changes = new ArrayList<Integer>();
+        final AdaptiveBitrateController controller = controller(changes, 1000000);
+        assertEquals(30, controller.getFrameRate());
+
+        final Link link = new Link(500000);
+        link.run(controller, 60);
+
+        assertTrue(controller.getBitrate() < 1000000);
+        assertEquals(Math.max(10, Math.round(30f * controller.getBitrate() / 1000000)),
+                controller.getFrameRate());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsOverlappingThresholds() {
+        AdaptiveBitrateController.builder()
+                .listener(new RecordingListener(new ArrayList<Integer>()))
+                .bufferThresholds(3000, 1000)
+                .build();
+    }
+
+    private static AdaptiveBitrateController controller(final List<Integer> changes, final int kneeBitrate) {
+        return AdaptiveBitrateController.builder()
+                .listener(new RecordingListener(changes))
+                .bitrateRange(MIN_BITRATE, MAX_BITRATE)
+                .frameRate(10, 30, kneeBitrate)
+                .build();
+    }
+
+    private static final class RecordingListener implements AdaptiveBitrateController.Listener {
+        private final List<Integer> mBitrates;
+
+        RecordingListener(final List<Integer> bitrates) {
+            mBitrates = bitrates;
+        }
+
+        @Override
+        public void onBitrateChanged(final int bitrate) {
+            mBitrates.add(bitrate);
+        }
+
+        @Override
+        public void onFrameRateChanged(final int frameRate) {
+            // the frame rate is read from the controller
+        }
+    }
+
+    /**
+     * A link with a fixed capacity in bits per second. Media the link can't
+     * carry waits in the buffer, and acks are delayed by the time it waits.
+     */
+    private static final class Link {
+        private final List<Integer> mBitrateChanges = new ArrayList<Integer>();
+        private long mCapacity;
+        private long mBufferedBits;
+        private long mNowMillis;
+
+        Link(final long capacity) {
+            mCapacity = capacity;
+        }
+
+        void run(final AdaptiveBitrateController controller, final int seconds) {
+            for (int i = 0; i < seconds; i++) {
+                final long produced = controller.getBitrate();
+                final long sent = Math.min(mCapacity, mBufferedBits + produced);
+                mBufferedBits += produced - sent;
+                mNowMillis += 1000;
+
+                controller.onThroughputMeasured(sent / 8);
+                controller.onBufferDuration(bufferMillis(controller));
+                controller.onAckLatency(BASE_ACK_LATENCY_MILLIS + bufferMillis(controller));
+                controller.evaluate(mNowMillis);
+            }
+        }
+
+        long bufferMillis(final AdaptiveBitrateController controller) {
+            return mBufferedBits * 1000 / controller.getBitrate();
+        }
+    }
+}
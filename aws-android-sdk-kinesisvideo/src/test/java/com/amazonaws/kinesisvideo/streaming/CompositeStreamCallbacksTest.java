@@ -0,0 +1,50 @@
+package com.amazonaws.kinesisvideo.streaming;
+
+import com.amazonaws.kinesisvideo.producer.ProducerException;
+import com.amazonaws.kinesisvideo.producer.StreamCallbacks;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class CompositeStreamCallbacksTest {
+
+    @Test
+    public void forwardsToEveryCallbacksInOrder() throws ProducerException {
+        final List<String> calls = new ArrayList<String>();
+        final CompositeStreamCallbacks composite = new CompositeStreamCallbacks(recording("client", calls));
+        composite.addStreamCallbacks(recording("source", calls));
+
+        composite.streamLatencyPressure(10);
+
+        assertEquals(Arrays.asList("client 10", "source 10"), calls);
+    }
+
+    @Test
+    public void callbacksAddedLaterCanBeRemoved() throws ProducerException {
+        final List<String> calls = new ArrayList<String>();
+        final CompositeStreamCallbacks composite = new CompositeStreamCallbacks(null);
+        final StreamCallbacks source = recording("source", calls);
+
+        composite.streamLatencyPressure(1);
+        composite.addStreamCallbacks(source);
+        composite.streamLatencyPressure(2);
+        composite.removeStreamCallbacks(source);
+        composite.streamLatencyPressure(3);
+
+        assertEquals(Arrays.asList("source 2"), calls);
+    }
+
+    private static StreamCallbacks recording(final String name, final List<String> calls) {
+        return new DefaultStreamCallbacks() {
+            @Override
+            public void streamLatencyPressure(final long duration) {
+                calls.add(name + " " + duration);
+            }
+        };
+    }
+}
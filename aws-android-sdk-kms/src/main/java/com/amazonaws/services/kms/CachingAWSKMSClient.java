@@ -0,0 +1,130 @@
+/*
+ * Copyright 2010-2022 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.services.kms;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.auth.AWSCredentialsProvider;
+import com.amazonaws.services.kms.model.DecryptRequest;
+import com.amazonaws.services.kms.model.DecryptResult;
+import com.amazonaws.services.kms.model.GenerateDataKeyRequest;
+import com.amazonaws.services.kms.model.GenerateDataKeyResult;
+
+/**
+ * An {@link AWSKMSClient} whose {@code generateDataKey} and {@code decrypt}
+ * calls go through a {@link KMSDataKeyCache}. All other operations call the
+ * service as usual.
+ * <p>
+ * Pass it to the {@code AmazonS3EncryptionClient} constructor that takes a KMS
+ * client to cache the data keys of KMS encrypted objects; the encryption
+ * client then also reports each object's size so that the cache's byte limit
+ * applies.
+ */
+public class CachingAWSKMSClient extends AWSKMSClient {
+
+    private final KMSDataKeyCache cache;
+
+    /** Calls the service, bypassing this client's cached methods */
+    private final KMSDataKeyCache.KeySource service = new KMSDataKeyCache.KeySource() {
+        @Override
+        public GenerateDataKeyResult generateDataKey(GenerateDataKeyRequest request) {
+            return CachingAWSKMSClient.super.generateDataKey(request);
+        }
+
+        @Override
+        public DecryptResult decrypt(DecryptRequest request) {
+            return CachingAWSKMSClient.super.decrypt(request);
+        }
+    };
+
+    /**
+     * Constructs a new caching client using the specified AWS account
+     * credentials provider.
+     *
+     * @param awsCredentialsProvider The AWS credentials provider which will
+     *            provide credentials to authenticate requests with AWS
+     *            services.
+     * @param cache the data key cache, which may be shared between clients.
+     */
+    public CachingAWSKMSClient(AWSCredentialsProvider awsCredentialsProvider,
+            KMSDataKeyCache cache) {
+        this(awsCredentialsProvider, new ClientConfiguration(), cache);
+    }
+
+    /**
+     * Constructs a new caching client using the specified AWS account
+     * credentials provider and client configuration options.
+     *
+     * @param awsCredentialsProvider The AWS credentials provider which will
+     *            provide credentials to authenticate requests with AWS
+     *            services.
+     * @param clientConfiguration The client configuration options controlling
+     *            how this client connects to AWSKMS (ex: proxy settings, retry
+     *            counts, etc.).
+     * @param cache the data key cache, which may be shared between clients.
+     */
+    public CachingAWSKMSClient(AWSCredentialsProvider awsCredentialsProvider,
+            ClientConfiguration clientConfiguration, KMSDataKeyCache cache) {
+        super(awsCredentialsProvider, clientConfiguration);
+        if (cache == null) {
+            throw new IllegalArgumentException("cache must not be null");
+        }
+        this.cache = cache;
+    }
+
+    /**
+     * @return the data key cache used by this client.
+     */
+    public KMSDataKeyCache getDataKeyCache() {
+        return cache;
+    }
+
+    /**
+     * Returns a data key from the cache, counting one message of unknown
+     * length against it. If the cache has a byte limit the key is always
+     * generated by the service; use
+     * {@link #generateDataKey(GenerateDataKeyRequest, long)} instead.
+     */
+    @Override
+    public GenerateDataKeyResult generateDataKey(GenerateDataKeyRequest generateDataKeyRequest)
+            throws AmazonServiceException, AmazonClientException {
+        return generateDataKey(generateDataKeyRequest, -1);
+    }
+
+    /**
+     * Returns a data key from the cache for encrypting a message of the given
+     * length.
+     *
+     * @param generateDataKeyRequest the request.
+     * @param plaintextLength the number of bytes that will be encrypted with
+     *            the key, or -1 if unknown.
+     * @return a result holding copies of the key.
+     */
+    public GenerateDataKeyResult generateDataKey(GenerateDataKeyRequest generateDataKeyRequest,
+            long plaintextLength) throws AmazonServiceException, AmazonClientException {
+        return cache.generateDataKey(service, generateDataKeyRequest, plaintextLength);
+    }
+
+    /**
+     * Returns the plaintext of an encrypted data key from the cache.
+     */
+    @Override
+    public DecryptResult decrypt(DecryptRequest decryptRequest)
+            throws AmazonServiceException, AmazonClientException {
+        return cache.decrypt(service, decryptRequest);
+    }
+}
@@ -0,0 +1,494 @@
+/*
+ * Copyright 2010-2022 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.services.kms;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.kms.model.DecryptRequest;
+import com.amazonaws.services.kms.model.DecryptResult;
+import com.amazonaws.services.kms.model.GenerateDataKeyRequest;
+import com.amazonaws.services.kms.model.GenerateDataKeyResult;
+import com.amazonaws.util.BinaryUtils;
+import com.amazonaws.util.StringUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * A cache of AWS KMS data keys for envelope encryption, so that encrypting or
+ * decrypting many small records does not cost a KMS round trip each.
+ * <p>
+ * {@link #generateDataKey(AWSKMS, GenerateDataKeyRequest, long)} returns the
+ * same data key for requests with the same key ID, key spec and encryption
+ * context until the key reaches one of its limits: its age, the number of
+ * messages encrypted with it, or the number of plaintext bytes encrypted with
+ * it. Reusing a data key trades some of the security of a fresh key per
+ * message for fewer KMS calls; choose limits accordingly.
+ * {@link #decrypt(AWSKMS, DecryptRequest)} caches the plaintext for an
+ * encrypted data key and encryption context, subject to the age limit only.
+ * Keys generated through the cache are also cached for decryption.
+ * <p>
+ * Concurrent misses for the same entry share one KMS request. Plaintext keys
+ * are held in arrays owned by the cache and are overwritten with zeros when
+ * an entry is evicted, expires, uses up its limits, or the cache is cleared.
+ * Callers receive their own copies.
+ * <p>
+ * The cache can be used with any {@link AWSKMS} client directly, or through
+ * a {@link CachingAWSKMSClient}, which is how the Amazon S3 encryption client
+ * picks it up. This class is thread safe.
+ */
+public class KMSDataKeyCache {
+
+    /** Default maximum number of cached keys */
+    public static final int DEFAULT_CAPACITY = 100;
+
+    /** Default maximum age of a cached key, in milliseconds */
+    public static final long DEFAULT_MAX_AGE_MILLIS = 5 * 60 * 1000L;
+
+    /** Default maximum number of messages encrypted with one data key */
+    public static final long DEFAULT_MAX_MESSAGES_PER_KEY = 1L << 32;
+
+    /** No limit on the number of bytes encrypted with one data key */
+    public static final long NO_BYTE_LIMIT = Long.MAX_VALUE;
+
+    private static final byte GENERATE = 'G';
+    private static final byte DECRYPT = 'D';
+
+    private final int capacity;
+    private final long maxAgeMillis;
+    private final long maxMessagesPerKey;
+    private final long maxBytesPerKey;
+
+    /** Access ordered for LRU eviction. Guarded by itself. */
+    private final LinkedHashMap<String, Entry> entries =
+            new LinkedHashMap<String, Entry>(16, 0.75f, true);
+
+    private final ConcurrentMap<String, FutureTask<Entry>> inFlight =
+            new ConcurrentHashMap<String, FutureTask<Entry>>();
+
+    /**
+     * Creates a cache with the default capacity, age and message limits, and
+     * no byte limit.
+     */
+    public KMSDataKeyCache() {
+        this(DEFAULT_CAPACITY, DEFAULT_MAX_AGE_MILLIS, DEFAULT_MAX_MESSAGES_PER_KEY, NO_BYTE_LIMIT);
+    }
+
+    /**
+     * Creates a cache.
+     *
+     * @param capacity the maximum number of cached keys, counting generated
+     *            and decrypted keys together.
+     * @param maxAgeMillis how long a key may be used after it was obtained
+     *            from KMS.
+     * @param maxMessagesPerKey how many times a generated key may be handed
+     *            out for encryption.
+     * @param maxBytesPerKey how many plaintext bytes may be encrypted with a
+     *            generated key, or {@link #NO_BYTE_LIMIT}.
+     */
+    public KMSDataKeyCache(int capacity, long maxAgeMillis, long maxMessagesPerKey,
+            long maxBytesPerKey) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        if (maxAgeMillis <= 0 || maxMessagesPerKey <= 0 || maxBytesPerKey <= 0) {
+            throw new IllegalArgumentException("Key limits must be positive");
+        }
+        this.capacity = capacity;
+        this.maxAgeMillis = maxAgeMillis;
+        this.maxMessagesPerKey = maxMessagesPerKey;
+        this.maxBytesPerKey = maxBytesPerKey;
+    }
+
+    /**
+     * Returns a data key for encrypting a message, reusing a cached key if
+     * one for the same request is within its limits.
+     *
+     * @param kms the client used on a miss.
+     * @param request the request; grant tokens and request listeners are
+     *            only used on a miss.
+     * @param plaintextLength the number of bytes that will be encrypted with
+     *            the key, or -1 if unknown. When a byte limit is set, a
+     *            message of unknown length always gets a fresh key.
+     * @return a result holding copies of the key.
+     */
+    public GenerateDataKeyResult generateDataKey(AWSKMS kms, GenerateDataKeyRequest request,
+            long plaintextLength) {
+        return generateDataKey(new ClientKeySource(kms), request, plaintextLength);
+    }
+
+    /**
+     * Returns the plaintext of an encrypted data key, from the cache if it
+     * was decrypted or generated recently.
+     *
+     * @param kms the client used on a miss.
+     * @param request the request; grant tokens and request listeners are
+     *            only used on a miss.
+     * @return a result holding a copy of the plaintext key.
+     */
+    public DecryptResult decrypt(AWSKMS kms, DecryptRequest request) {
+        return decrypt(new ClientKeySource(kms), request);
+    }
+
+    /**
+     * Removes every key from the cache and zeroes its plaintext.
+     */
+    public void clear() {
+        synchronized (entries) {
+            for (final Entry entry : entries.values()) {
+                entry.destroy();
+            }
+            entries.clear();
+        }
+    }
+
+    /**
+     * @return the number of cached keys, including expired keys not yet
+     *         removed.
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    GenerateDataKeyResult generateDataKey(final KeySource source,
+            final GenerateDataKeyRequest request, long plaintextLength) {
+        final boolean unknownLength = plaintextLength < 0;
+        final long length = unknownLength ? 0 : plaintextLength;
+        if ((unknownLength && maxBytesPerKey != NO_BYTE_LIMIT) || length > maxBytesPerKey) {
+            return source.generateDataKey(request);
+        }
+        final String key = generateKey(request);
+        Entry entry = get(key);
+        if (entry != null) {
+            final GenerateDataKeyResult result = entry.useForEncryption(length);
+            if (result != null) {
+                return result;
+            }
+            remove(key, entry);
+        }
+        entry = load(key, new Callable<Entry>() {
+            @Override
+            public Entry call() {
+                final GenerateDataKeyResult result = source.generateDataKey(request);
+                final Entry generated = new Entry(copy(result.getPlaintext()),
+                        copy(result.getCiphertextBlob()), result.getKeyId(), null);
+                // the new key can be decrypted from the cache too. The seed
+                // goes in first so that, being least recently used, it is
+                // the one evicted when the cache has room for only one.
+                put(decryptKey(generated.ciphertext, request.getEncryptionContext(), null, null),
+                        new Entry(generated.plaintext.clone(), generated.ciphertext,
+                                generated.keyId, null));
+                put(key, generated);
+                return generated;
+            }
+        });
+        final GenerateDataKeyResult result = entry.useForEncryption(length);
+        if (result != null) {
+            return result;
+        }
+        // Concurrent callers used up the new key already.
+        return source.generateDataKey(request);
+    }
+
+    DecryptResult decrypt(final KeySource source, final DecryptRequest request) {
+        final byte[] ciphertext = copy(request.getCiphertextBlob());
+        final String key = decryptKey(ciphertext, request.getEncryptionContext(),
+                request.getKeyId(), request.getEncryptionAlgorithm());
+        Entry entry = get(key);
+        if (entry != null) {
+            final DecryptResult result = entry.toDecryptResult();
+            if (result != null) {
+                return result;
+            }
+            remove(key, entry);
+        }
+        entry = load(key, new Callable<Entry>() {
+            @Override
+            public Entry call() {
+                final DecryptResult result = source.decrypt(request);
+                final Entry decrypted = new Entry(copy(result.getPlaintext()), ciphertext,
+                        result.getKeyId(), result.getEncryptionAlgorithm());
+                put(key, decrypted);
+                return decrypted;
+            }
+        });
+        final DecryptResult result = entry.toDecryptResult();
+        if (result != null) {
+            return result;
+        }
+        return source.decrypt(request);
+    }
+
+    /** Returns the entry unless it has expired, in which case it is evicted */
+    private Entry get(String key) {
+        synchronized (entries) {
+            final Entry entry = entries.get(key);
+            if (entry != null && isExpired(entry, System.currentTimeMillis())) {
+                entries.remove(key);
+                entry.destroy();
+                return null;
+            }
+            return entry;
+        }
+    }
+
+    private void put(String key, Entry entry) {
+        final long now = System.currentTimeMillis();
+        synchronized (entries) {
+            final Entry previous = entries.put(key, entry);
+            if (previous != null && previous != entry) {
+                previous.destroy();
+            }
+            final Iterator<Entry> it = entries.values().iterator();
+            while (it.hasNext()) {
+                final Entry e = it.next();
+                if (isExpired(e, now) || entries.size() > capacity) {
+                    it.remove();
+                    e.destroy();
+                }
+            }
+        }
+    }
+
+    private void remove(String key, Entry entry) {
+        synchronized (entries) {
+            if (entries.get(key) == entry) {
+                entries.remove(key);
+            }
+        }
+        entry.destroy();
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return now - entry.createdMillis >= maxAgeMillis;
+    }
+
+    /** Runs the loader once for concurrent misses of the same key */
+    private Entry load(String key, Callable<Entry> loader) {
+        final FutureTask<Entry> task = new FutureTask<Entry>(loader);
+        final FutureTask<Entry> existing = inFlight.putIfAbsent(key, task);
+        final FutureTask<Entry> shared = existing == null ? task : existing;
+        if (existing == null) {
+            try {
+                task.run();
+            } finally {
+                inFlight.remove(key, task);
+            }
+        }
+        try {
+            return shared.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmazonClientException("Interrupted while waiting for a data key", e);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof AmazonClientException) {
+                throw (AmazonClientException) cause;
+            }
+            throw new AmazonClientException("Unable to obtain a data key: "
+                    + cause.getMessage(), cause);
+        }
+    }
+
+    private static String generateKey(GenerateDataKeyRequest request) {
+        final KeyBuilder builder = new KeyBuilder(GENERATE);
+        builder.add(request.getKeyId());
+        builder.add(request.getKeySpec());
+        builder.add(request.getNumberOfBytes() == null
+                ? null : request.getNumberOfBytes().toString());
+        builder.add(request.getEncryptionContext());
+        return builder.build();
+    }
+
+    private static String decryptKey(byte[] ciphertext, Map<String, String> context,
+            String keyId, String algorithm) {
+        final KeyBuilder builder = new KeyBuilder(DECRYPT);
+        builder.add(ciphertext);
+        builder.add(context);
+        builder.add(keyId);
+        builder.add(algorithm);
+        return builder.build();
+    }
+
+    private static byte[] copy(ByteBuffer buffer) {
+        if (buffer == null) {
+            return null;
+        }
+        final ByteBuffer b = buffer.duplicate();
+        final byte[] bytes = new byte[b.remaining()];
+        b.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Where keys come from on a miss. {@link CachingAWSKMSClient} calls the
+     * service directly rather than through its own cached methods.
+     */
+    interface KeySource {
+        GenerateDataKeyResult generateDataKey(GenerateDataKeyRequest request);
+
+        DecryptResult decrypt(DecryptRequest request);
+    }
+
+    private static final class ClientKeySource implements KeySource {
+        private final AWSKMS kms;
+
+        ClientKeySource(AWSKMS kms) {
+            if (kms == null) {
+                throw new IllegalArgumentException("kms must not be null");
+            }
+            this.kms = kms;
+        }
+
+        @Override
+        public GenerateDataKeyResult generateDataKey(GenerateDataKeyRequest request) {
+            return kms.generateDataKey(request);
+        }
+
+        @Override
+        public DecryptResult decrypt(DecryptRequest request) {
+            return kms.decrypt(request);
+        }
+    }
+
+    /**
+     * A hex SHA-256 over length prefixed fields, so that no two requests
+     * share an encoding. Encryption contexts are sorted by key.
+     */
+    private static final class KeyBuilder {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(bytes);
+
+        KeyBuilder(byte type) {
+            bytes.write(type);
+        }
+
+        void add(String value) {
+            add(value == null ? null : value.getBytes(StringUtils.UTF8));
+        }
+
+        void add(byte[] value) {
+            try {
+                if (value == null) {
+                    out.writeInt(-1);
+                } else {
+                    out.writeInt(value.length);
+                    out.write(value);
+                }
+            } catch (final IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        void add(Map<String, String> context) {
+            if (context == null) {
+                add((byte[]) null);
+                return;
+            }
+            final Map<String, String> sorted = new TreeMap<String, String>(context);
+            add(String.valueOf(sorted.size()));
+            for (final Map.Entry<String, String> e : sorted.entrySet()) {
+                add(e.getKey());
+                add(e.getValue());
+            }
+        }
+
+        String build() {
+            try {
+                final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                return BinaryUtils.toHex(digest.digest(bytes.toByteArray()));
+            } catch (final NoSuchAlgorithmException e) {
+                throw new AmazonClientException("SHA-256 is not available", e);
+            }
+        }
+    }
+
+    /**
+     * A cached key. The plaintext is only read or zeroed while holding the
+     * entry's lock, so a caller never copies a key that is being destroyed.
+     */
+    private final class Entry {
+        final byte[] plaintext;
+        final byte[] ciphertext;
+        final String keyId;
+        final String encryptionAlgorithm;
+        final long createdMillis = System.currentTimeMillis();
+        private long messages;
+        private long bytes;
+        private boolean destroyed;
+
+        Entry(byte[] plaintext, byte[] ciphertext, String keyId, String encryptionAlgorithm) {
+            this.plaintext = plaintext;
+            this.ciphertext = ciphertext;
+            this.keyId = keyId;
+            this.encryptionAlgorithm = encryptionAlgorithm;
+        }
+
+        /**
+         * Counts one message of the given length against the limits.
+         *
+         * @return the key, or null if it is used up or destroyed.
+         */
+        synchronized GenerateDataKeyResult useForEncryption(long length) {
+            if (destroyed || messages >= maxMessagesPerKey
+                    || bytes + length > maxBytesPerKey
+                    || isExpired(this, System.currentTimeMillis())) {
+                return null;
+            }
+            messages++;
+            bytes += length;
+            return new GenerateDataKeyResult()
+                    .withKeyId(keyId)
+                    .withPlaintext(ByteBuffer.wrap(plaintext.clone()))
+                    .withCiphertextBlob(ByteBuffer.wrap(ciphertext.clone()));
+        }
+
+        /**
+         * @return the key, or null if it is destroyed.
+         */
+        synchronized DecryptResult toDecryptResult() {
+            if (destroyed || isExpired(this, System.currentTimeMillis())) {
+                return null;
+            }
+            return new DecryptResult()
+                    .withKeyId(keyId)
+                    .withPlaintext(ByteBuffer.wrap(plaintext.clone()))
+                    .withEncryptionAlgorithm(encryptionAlgorithm);
+        }
+
+        synchronized void destroy() {
+            destroyed = true;
+            if (plaintext != null) {
+                Arrays.fill(plaintext, (byte) 0);
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.lambdainvoker;
+
+/**
+ * Receives the result of a Lambda function invoked through an interface
+ * method whose last parameter is a callback. The method returns at once, and
+ * the callback is called on a background thread of the invoker's executor,
+ * so an app that updates its UI from it has to post to the main thread.
+ *
+ * <pre>
+ * <code>
+ * public interface MyEchoFunction {
+ *   {@literal @}LambdaFunction(functionName = "echo")
+ *   void echo(String str, LambdaCallback&lt;String&gt; callback);
+ * }
+ * </code>
+ * </pre>
+ *
+ * @param <T> the return type of the function
+ */
+public interface LambdaCallback<T> {
+
+    /**
+     * Called with the result of the function.
+     *
+     * @param result the deserialized result, null for an empty result
+     */
+    void onResult(T result);
+
+    /**
+     * Called if the invocation or the function fails, for example with a
+     * {@link LambdaFunctionException}.
+     *
+     * @param exception the failure
+     */
+    void onError(Exception exception);
+}
@@ -29,6 +29,13 @@ import java.lang.annotation.Target;
  * public interface MyEchoFunction {
  *   {@literal @}LambdaFunction(functionName = "echo", invocationType = "RequestResponse")
  *   String echo(String str);
+ *
+ *   // returns at once, the invocation runs on a background thread
+ *   {@literal @}LambdaFunction(functionName = "echo")
+ *   Future&lt;String&gt; echoAsync(String str);
+ *
+ *   {@literal @}LambdaFunction(functionName = "echo")
+ *   void echoAsync(String str, LambdaCallback&lt;String&gt; callback);
  * }
  * </code>
  * </pre>
@@ -70,4 +77,14 @@ public @interface LambdaFunction {
      * of the $LATEST version.
      */
     String qualifier() default "";
+
+    /**
+     * Whether to invoke the function once for each element of the argument,
+     * which must then be a {@link java.util.Collection}. The invocations run
+     * concurrently on the invoker's executor, and the method returns a
+     * {@link java.util.List} of their results in the order of the elements.
+     * If any invocation fails, the method fails with the first failure in
+     * that order.
+     */
+    boolean fanOut() default false;
 }
@@ -1,6 +1,7 @@
 
 package com.amazonaws.mobileconnectors.lambdainvoker;
 
+import com.amazonaws.async.SdkExecutors;
 import com.amazonaws.mobileconnectors.util.ClientContext;
 import com.amazonaws.services.lambda.AWSLambda;
 import com.amazonaws.services.lambda.model.InvocationType;
@@ -13,14 +14,32 @@ import com.amazonaws.util.StringUtils;
 import com.amazonaws.logging.Log;
 import com.amazonaws.logging.LogFactory;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
 import java.net.HttpURLConnection;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Invocation handler for Lambda.
+ * <p>
+ * A method that returns a {@link Future}, or takes a {@link LambdaCallback}
+ * as its last parameter, returns at once and invokes the function on the
+ * executor. A {@link LambdaFunction#fanOut()} method invokes the function
+ * for each element of its argument concurrently on the executor.
  */
 class LambdaInvocationHandler implements InvocationHandler {
 
@@ -32,6 +51,7 @@ class LambdaInvocationHandler implements InvocationHandler {
     private final AWSLambda lambda;
     private final LambdaDataBinder binder;
     private final ClientContext clientContext;
+    private final ExecutorService executor;
 
     // -------------------------------------------------------------
     // Constructors
@@ -43,26 +63,75 @@ class LambdaInvocationHandler implements InvocationHandler {
      */
     public LambdaInvocationHandler(AWSLambda lambda, LambdaDataBinder binder,
             ClientContext clientContext) {
+        this(lambda, binder, clientContext, null);
+    }
+
+    /**
+     * @param lambda lambda client
+     * @param binder data binder
+     * @param clientContext client context, null if unavailable
+     * @param executor executor of asynchronous and fan-out invocations, null
+     *            for the executor shared by all invokers
+     */
+    public LambdaInvocationHandler(AWSLambda lambda, LambdaDataBinder binder,
+            ClientContext clientContext, ExecutorService executor) {
         this.lambda = lambda;
         this.binder = binder;
         this.clientContext = clientContext;
+        this.executor = executor == null ? SharedExecutor.INSTANCE : executor;
     }
 
     // -------------------------------------------------------------
     // Implementation - InvocationHandler
     // -------------------------------------------------------------
     @Override
-    public Object invoke(Object proxy, Method method, Object[] args)
+    public Object invoke(Object proxy, final Method method, Object[] args)
             throws Throwable {
         validateInterfaceMethod(method, args);
 
         // With Android version before Lollipop (API level 22), args can be an
         // empty array when the method takes no arguments.
-        final Object buildArg = (args == null || args.length == 0) ? null : args[0];
-        final InvokeRequest invokeRequest = buildInvokeRequest(method, buildArg);
-        final InvokeResult invokeResult = lambda.invoke(invokeRequest);
+        final boolean hasCallback = hasCallback(method);
+        final int inputs = (args == null ? 0 : args.length) - (hasCallback ? 1 : 0);
+        final Object buildArg = inputs == 0 ? null : args[0];
+        final Type resultType = resultType(method);
 
-        return processInvokeResult(method, invokeResult);
+        if (hasCallback) {
+            @SuppressWarnings("unchecked")
+            final LambdaCallback<Object> callback =
+                    (LambdaCallback<Object>) args[args.length - 1];
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    final Object result;
+                    try {
+                        result = call(method, buildArg, resultType);
+                    } catch (final Exception e) {
+                        if (callback == null) {
+                            LOGGER.warn(method.getName() + " failed", e);
+                        } else {
+                            callback.onError(e);
+                        }
+                        return;
+                    }
+                    if (callback != null) {
+                        callback.onResult(result);
+                    }
+                }
+            });
+            return null;
+        }
+
+        if (Future.class.equals(method.getReturnType())) {
+            return executor.submit(new Callable<Object>() {
+                @Override
+                public Object call() throws Exception {
+                    return LambdaInvocationHandler.this.call(method, buildArg, resultType);
+                }
+            });
+        }
+
+        return call(method, buildArg, resultType);
     }
 
     // -------------------------------------------------------------
@@ -74,10 +143,140 @@ class LambdaInvocationHandler implements InvocationHandler {
                     + method.getName());
         }
 
-        if (args != null && args.length > 1) {
+        final boolean hasCallback = hasCallback(method);
+        final int inputs = (args == null ? 0 : args.length) - (hasCallback ? 1 : 0);
+        if (inputs > 1) {
             throw new UnsupportedOperationException(
                     "LambdaFunctions take either 0 or 1 arguments.");
         }
+
+        if (hasCallback && !void.class.equals(method.getReturnType())) {
+            throw new UnsupportedOperationException("LambdaFunction " + method.getName()
+                    + " takes a LambdaCallback and must return void.");
+        }
+
+        if (method.getAnnotation(LambdaFunction.class).fanOut()) {
+            final Class<?> resultClass = rawType(resultType(method));
+            if (!void.class.equals(resultClass) && !Void.class.equals(resultClass)
+                    && !resultClass.isAssignableFrom(ArrayList.class)) {
+                throw new UnsupportedOperationException("LambdaFunction " + method.getName()
+                        + " fans out and must return a List.");
+            }
+        }
+    }
+
+    /**
+     * Invokes the function, once for each element of the input if the method
+     * fans out.
+     */
+    Object call(Method method, Object input, Type resultType) throws Exception {
+        if (!method.getAnnotation(LambdaFunction.class).fanOut()) {
+            return invokeFunction(method, input, resultType);
+        }
+        if (!(input instanceof Collection)) {
+            throw new IllegalArgumentException("LambdaFunction " + method.getName()
+                    + " fans out and takes a Collection.");
+        }
+        final List<Object> results = fanOut(method, (Collection<?>) input,
+                elementType(resultType));
+        return void.class.equals(resultType) || Void.class.equals(resultType) ? null : results;
+    }
+
+    private Object invokeFunction(Method method, Object input, Type resultType)
+            throws IOException {
+        final InvokeRequest invokeRequest = buildInvokeRequest(method, input);
+        final InvokeResult invokeResult = lambda.invoke(invokeRequest);
+        return processInvokeResult(method, invokeResult, resultType);
+    }
+
+    private List<Object> fanOut(final Method method, Collection<?> inputs,
+            final Type elementType) throws Exception {
+        final List<FutureTask<Object>> tasks = new ArrayList<FutureTask<Object>>(inputs.size());
+        for (final Object input : inputs) {
+            final FutureTask<Object> task = new FutureTask<Object>(new Callable<Object>() {
+                @Override
+                public Object call() throws Exception {
+                    return invokeFunction(method, input, elementType);
+                }
+            });
+            tasks.add(task);
+            try {
+                executor.execute(task);
+            } catch (final RejectedExecutionException e) {
+                // runs on this thread below
+                LOGGER.debug("Executor rejected a fan-out invocation of " + method.getName());
+            }
+        }
+
+        // Runs the invocations the executor has not started yet on this
+        // thread, so that a fan-out from an executor thread never waits on
+        // work queued behind it.
+        final List<Object> results = new ArrayList<Object>(tasks.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            final FutureTask<Object> task = tasks.get(i);
+            task.run();
+            try {
+                results.add(task.get());
+            } catch (final ExecutionException e) {
+                for (final FutureTask<Object> pending : tasks.subList(i + 1, tasks.size())) {
+                    pending.cancel(false);
+                }
+                final Throwable cause = e.getCause();
+                if (cause instanceof Exception) {
+                    throw (Exception) cause;
+                }
+                throw (Error) cause;
+            }
+        }
+        return results;
+    }
+
+    static boolean hasCallback(Method method) {
+        final Class<?>[] parameterTypes = method.getParameterTypes();
+        return parameterTypes.length > 0
+                && LambdaCallback.class.equals(parameterTypes[parameterTypes.length - 1]);
+    }
+
+    /**
+     * The type the function result is deserialized into: the type argument
+     * of a {@link LambdaCallback} or a {@link Future}, or the return type.
+     */
+    static Type resultType(Method method) {
+        if (hasCallback(method)) {
+            final Type[] parameterTypes = method.getGenericParameterTypes();
+            return typeArgument(parameterTypes[parameterTypes.length - 1]);
+        }
+        if (Future.class.equals(method.getReturnType())) {
+            return typeArgument(method.getGenericReturnType());
+        }
+        return method.getGenericReturnType();
+    }
+
+    private static Type elementType(Type resultType) {
+        if (void.class.equals(resultType) || Void.class.equals(resultType)) {
+            return resultType;
+        }
+        return typeArgument(resultType);
+    }
+
+    private static Type typeArgument(Type type) {
+        if (type instanceof ParameterizedType) {
+            final Type argument = ((ParameterizedType) type).getActualTypeArguments()[0];
+            if (argument instanceof Class || argument instanceof ParameterizedType) {
+                return argument;
+            }
+        }
+        return Object.class;
+    }
+
+    private static Class<?> rawType(Type type) {
+        if (type instanceof Class) {
+            return (Class<?>) type;
+        }
+        if (type instanceof ParameterizedType) {
+            return (Class<?>) ((ParameterizedType) type).getRawType();
+        }
+        return Object.class;
     }
 
     InvokeRequest buildInvokeRequest(Method method, Object object) throws IOException {
@@ -109,13 +308,27 @@ class LambdaInvocationHandler implements InvocationHandler {
             invokeRequest.setClientContext(clientContext.toBase64String());
         }
 
-        invokeRequest.setPayload(ByteBuffer.wrap(binder.serialize(object)));
+        invokeRequest.setPayload(serialize(object));
 
         return invokeRequest;
     }
 
+    private ByteBuffer serialize(Object object) throws IOException {
+        if (binder instanceof LambdaStreamingDataBinder) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ((LambdaStreamingDataBinder) binder).serialize(object, out);
+            return ByteBuffer.wrap(out.toByteArray());
+        }
+        return ByteBuffer.wrap(binder.serialize(object));
+    }
+
     Object processInvokeResult(Method method, InvokeResult invokeResult)
             throws IOException {
+        return processInvokeResult(method, invokeResult, method.getGenericReturnType());
+    }
+
+    Object processInvokeResult(Method method, InvokeResult invokeResult, Type resultType)
+            throws IOException {
         if (invokeResult.getLogResult() != null) {
             LOGGER.debug(method.getName() + " log: "
                     + new String(Base64.decode(invokeResult.getLogResult()), StringUtils.UTF8));
@@ -128,11 +341,61 @@ class LambdaInvocationHandler implements InvocationHandler {
 
         // deserialize payload
         if (invokeResult.getStatusCode() == HttpURLConnection.HTTP_NO_CONTENT
-                || void.class.equals(method.getReturnType())) {
+                || void.class.equals(resultType) || Void.class.equals(resultType)) {
             return null;
         }
 
-        return binder.deserialize(invokeResult.getPayload().array(),
-                method.getReturnType());
+        if (binder instanceof LambdaStreamingDataBinder) {
+            final ByteBuffer payload = invokeResult.getPayload();
+            if (payload == null) {
+                return null;
+            }
+            return ((LambdaStreamingDataBinder) binder).deserialize(
+                    new ByteBufferInputStream(payload.duplicate()), resultType);
+        }
+        return binder.deserialize(invokeResult.getPayload().array(), rawType(resultType));
+    }
+
+    /** Reads a payload without copying it */
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            final int count = Math.min(len, buffer.remaining());
+            buffer.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+
+    /**
+     * The executor shared by all invokers that are not given one, created on
+     * first use. It bounds the number of concurrent invocations, and further
+     * invocations, such as a stream of events, queue behind them.
+     */
+    private static final class SharedExecutor {
+        private static final int MAX_CONCURRENCY = 4;
+
+        static final ExecutorService INSTANCE = SdkExecutors.newClientExecutor(MAX_CONCURRENCY);
     }
 }
@@ -29,6 +29,7 @@ import com.amazonaws.services.lambda.AWSLambdaClient;
 import org.json.JSONObject;
 
 import java.lang.reflect.Proxy;
+import java.util.concurrent.ExecutorService;
 
 /**
  * A factory class that creates a dynamic proxy object backed by Lambda service.
@@ -42,6 +43,7 @@ public class LambdaInvokerFactory {
 
     private final AWSLambda lambda;
     private final ClientContext clientContext;
+    private final ExecutorService executor;
     
     /**
      * Builder class for LambdaInvokerFactory
@@ -54,6 +56,7 @@ public class LambdaInvokerFactory {
         private AWSConfiguration awsConfig;
         private AWSLambda lambda;
         private ClientContext clientContext;
+        private ExecutorService executor;
         
         protected Builder() { }
         
@@ -130,6 +133,21 @@ public class LambdaInvokerFactory {
             return this;
         }
 
+        /**
+         * Sets the executor that runs the invocations of methods returning a
+         * {@link java.util.concurrent.Future} or taking a
+         * {@link LambdaCallback}, and the invocations of a
+         * {@link LambdaFunction#fanOut()} method. If not set, an executor
+         * with a few threads shared by all factories is used.
+         *
+         * @param executor The executor of asynchronous invocations
+         * @return builder
+         */
+        public Builder executorService(ExecutorService executor) {
+            this.executor = executor;
+            return this;
+        }
+
         /**
          * This region will be overridden by {@link #region(Regions)}, if specified.
          * 
@@ -203,7 +221,7 @@ public class LambdaInvokerFactory {
                 this.lambda.setRegion(Region.getRegion(this.region));
             }
             
-            return new LambdaInvokerFactory(this.lambda, this.clientContext);
+            return new LambdaInvokerFactory(this.lambda, this.clientContext, this.executor);
         }
     }
     
@@ -287,6 +305,7 @@ public class LambdaInvokerFactory {
         lambda = new AWSLambdaClient(provider, clientConfiguration);
         lambda.setRegion(Region.getRegion(region));
         clientContext = new ClientContext(context);
+        executor = null;
     }
 
     /**
@@ -300,8 +319,22 @@ public class LambdaInvokerFactory {
      *                                            .build();
      */
     LambdaInvokerFactory(AWSLambda lambda, ClientContext clientContext) {
+        this(lambda, clientContext, null);
+    }
+
+    /**
+     * Constructs a Lambda invoker factory object.
+     *
+     * @param lambda a lambda client
+     * @param clientContext client context object
+     * @param executor executor of asynchronous invocations, null for the
+     *            shared one
+     */
+    LambdaInvokerFactory(AWSLambda lambda, ClientContext clientContext,
+            ExecutorService executor) {
         this.lambda = lambda;
         this.clientContext = clientContext;
+        this.executor = executor;
     }
 
     /**
@@ -329,7 +362,7 @@ public class LambdaInvokerFactory {
                 new Class<?>[] {
                     interfaceClass
                 },
-                new LambdaInvocationHandler(lambda, binder, clientContext));
+                new LambdaInvocationHandler(lambda, binder, clientContext, executor));
         return interfaceClass.cast(proxy);
     }
 
@@ -23,13 +23,19 @@ import com.google.gson.Gson;
 
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
 
 /**
  * A Json data binder backed by Gson.
  */
-public class LambdaJsonBinder implements LambdaDataBinder {
+public class LambdaJsonBinder implements LambdaStreamingDataBinder {
 
     @NonNull
     private final Gson gson;
@@ -60,4 +66,21 @@ public class LambdaJsonBinder implements LambdaDataBinder {
     public byte[] serialize(@Nullable final Object object) {
         return gson.toJson(object).getBytes(StringUtils.UTF8);
     }
+
+    @Nullable
+    @Override
+    public Object deserialize(@NonNull final InputStream content, @NonNull final Type type)
+            throws IOException {
+        final Reader reader = new BufferedReader(new InputStreamReader(content,
+                StringUtils.UTF8));
+        return gson.fromJson(reader, type);
+    }
+
+    @Override
+    public void serialize(@Nullable final Object object, @NonNull final OutputStream out)
+            throws IOException {
+        final Writer writer = new OutputStreamWriter(out, StringUtils.UTF8);
+        gson.toJson(object, writer);
+        writer.flush();
+    }
 }
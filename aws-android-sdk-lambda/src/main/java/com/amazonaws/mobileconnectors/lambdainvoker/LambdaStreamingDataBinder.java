@@ -0,0 +1,52 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.lambdainvoker;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+
+/**
+ * A data binder that reads and writes streams, so that a payload is encoded
+ * straight into the bytes of the request rather than through an
+ * intermediate string, and so that generic types such as
+ * {@code List<NameInfo>} can be deserialized.
+ */
+public interface LambdaStreamingDataBinder extends LambdaDataBinder {
+
+    /**
+     * Reads a POJO from an encoded stream.
+     *
+     * @param content the encoded content
+     * @param type type to be deserialized into
+     * @return a POJO, or null for an empty content
+     * @throws IOException if the content can't be read
+     */
+    Object deserialize(@NonNull InputStream content, @NonNull Type type) throws IOException;
+
+    /**
+     * Writes an object to a stream in its encoded form.
+     *
+     * @param object object to be serialized
+     * @param out the stream to write to, which is not closed
+     * @throws IOException if the object can't be written
+     */
+    void serialize(@Nullable Object object, @NonNull OutputStream out) throws IOException;
+}
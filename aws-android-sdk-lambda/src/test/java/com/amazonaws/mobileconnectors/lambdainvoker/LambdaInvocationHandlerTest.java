@@ -18,6 +18,7 @@ package com.amazonaws.mobileconnectors.lambdainvoker;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import com.amazonaws.ClientConfiguration;
 import com.amazonaws.services.lambda.AWSLambda;
@@ -36,11 +37,19 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Matchers;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.robolectric.RobolectricTestRunner;
 
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 @RunWith(RobolectricTestRunner.class)
 public class LambdaInvocationHandlerTest {
@@ -83,6 +92,18 @@ public class LambdaInvocationHandlerTest {
 
         @LambdaFunction
         String echoNoArgument();
+
+        @LambdaFunction(functionName = "echo")
+        Future<String> echoFuture(String a);
+
+        @LambdaFunction(functionName = "echo")
+        void echoCallback(String a, LambdaCallback<String> callback);
+
+        @LambdaFunction(functionName = "echo", fanOut = true)
+        List<String> echoEach(List<String> a);
+
+        @LambdaFunction(fanOut = true)
+        String fanOutToString(List<String> a);
     }
     
     @Test(expected=java.lang.IllegalArgumentException.class)
@@ -296,6 +317,94 @@ public class LambdaInvocationHandlerTest {
         }
     }
 
+    @Test
+    public void testCallbackArgument() throws Exception {
+        Method echoCallback = getMethod("echoCallback", String.class, LambdaCallback.class);
+        handler.validateInterfaceMethod(echoCallback, new Object[] {
+                "a", null
+        });
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testFanOutReturnType() throws Exception {
+        Method fanOutToString = getMethod("fanOutToString", List.class);
+        handler.validateInterfaceMethod(fanOutToString, new Object[] {
+                Arrays.asList("a")
+        });
+    }
+
+    @Test
+    public void testInvokeFuture() throws Exception {
+        String input = "Hello world!";
+        InvokeResult invokeResult = createInvokeResult(200, null, "\"" + input + "\"");
+        Mockito.when(lambda.invoke(Matchers.any(InvokeRequest.class))).thenReturn(invokeResult);
+        Future<String> result = invoker.echoFuture(input);
+        assertEquals("echoFuture", input, result.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testInvokeCallback() throws Exception {
+        String input = "Hello world!";
+        InvokeResult invokeResult = createInvokeResult(200, null, "\"" + input + "\"");
+        Mockito.when(lambda.invoke(Matchers.any(InvokeRequest.class))).thenReturn(invokeResult);
+        final AtomicReference<String> result = new AtomicReference<String>();
+        final CountDownLatch done = new CountDownLatch(1);
+        invoker.echoCallback(input, new LambdaCallback<String>() {
+            @Override
+            public void onResult(String r) {
+                result.set(r);
+                done.countDown();
+            }
+
+            @Override
+            public void onError(Exception exception) {
+                done.countDown();
+            }
+        });
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals("echoCallback", input, result.get());
+    }
+
+    @Test
+    public void testInvokeCallbackException() throws Exception {
+        InvokeResult invokeResult = createInvokeResult(200, "Panic!", "Bulls eye");
+        Mockito.when(lambda.invoke(Matchers.any(InvokeRequest.class))).thenReturn(invokeResult);
+        final AtomicReference<Exception> error = new AtomicReference<Exception>();
+        final CountDownLatch done = new CountDownLatch(1);
+        invoker.echoCallback("Hello world!", new LambdaCallback<String>() {
+            @Override
+            public void onResult(String r) {
+                done.countDown();
+            }
+
+            @Override
+            public void onError(Exception exception) {
+                error.set(exception);
+                done.countDown();
+            }
+        });
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertTrue(error.get() instanceof LambdaFunctionException);
+    }
+
+    @Test
+    public void testInvokeFanOut() {
+        Mockito.when(lambda.invoke(Matchers.any(InvokeRequest.class))).thenAnswer(
+                new Answer<InvokeResult>() {
+                    @Override
+                    public InvokeResult answer(InvocationOnMock invocation) {
+                        InvokeRequest request = (InvokeRequest) invocation.getArguments()[0];
+                        String payload = new String(request.getPayload().array(),
+                                StringUtils.UTF8);
+                        return createInvokeResult(200, null, payload);
+                    }
+                });
+        List<String> input = Arrays.asList("a", "b", "c", "d", "e", "f", "g", "h");
+        assertEquals("echoEach", input, invoker.echoEach(input));
+        Mockito.verify(lambda, Mockito.times(input.size()))
+                .invoke(Matchers.any(InvokeRequest.class));
+    }
+
     private Method getMethod(String name, Class<?>... classes)
             throws NoSuchMethodException, SecurityException {
         return MockInterface.class.getMethod(name, classes);
@@ -15,9 +15,11 @@
 
 package com.amazonaws.mobileconnectors.lex.interactionkit;
 
+import android.annotation.TargetApi;
 import android.content.Context;
 import android.media.AudioManager;
 import android.media.MediaPlayer;
+import android.os.Build;
 import android.os.Handler;
 import android.util.Log;
 
@@ -40,6 +42,7 @@ import com.amazonaws.mobileconnectors.lex.interactionkit.internal.audio.AudioRec
 import com.amazonaws.mobileconnectors.lex.interactionkit.internal.audio.AudioTimeouts;
 import com.amazonaws.mobileconnectors.lex.interactionkit.internal.audio.LexAudioRecorder;
 import com.amazonaws.mobileconnectors.lex.interactionkit.internal.audio.LexAudioRecorderBuilder;
+import com.amazonaws.mobileconnectors.lex.interactionkit.internal.audio.StreamingAudioDataSource;
 import com.amazonaws.mobileconnectors.lex.interactionkit.internal.audio.encoder.AudioEncoder;
 import com.amazonaws.mobileconnectors.lex.interactionkit.internal.audio.encoder.BufferedAudioEncoder;
 import com.amazonaws.mobileconnectors.lex.interactionkit.internal.audio.encoder.L16PcmEncoder;
@@ -64,6 +67,7 @@ import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.Locale;
 import java.util.Map;
@@ -350,6 +354,8 @@ public class InteractionClient {
                                     audioTimeouts(audioTimeouts).
                                     dnnVADConfig(vadConfig).
                                     build();
+                    // The recording listener ignores PCM buffers, so don't copy them.
+                    lexAudioRecorder.setBufferCallbacksEnabled(false);
 
                     // Calculate the maximum buffer size for pipes.
                     final int maxTotalAudioLengthInMills = audioTimeouts.getNoSpeechTimeout()
@@ -491,9 +497,6 @@ public class InteractionClient {
             this.lMediaPlayer.setAudioStreamType(AudioManager.STREAM_MUSIC);
             try {
                 setAudioPlaybackState(BUSY);
-                File tempAudioFile = File.createTempFile("lex_temp_response", "mp3",
-                        context.getFilesDir());
-                tempAudioFile.deleteOnExit();
                 // Media player listeners.
                 lMediaPlayer.setOnErrorListener(new MediaPlayer.OnErrorListener() {
                     @Override
@@ -559,19 +562,24 @@ public class InteractionClient {
                 });
 
                 final InputStream audioStream = result.getAudioStream();
-                tempAudioFile = File.createTempFile("lex_temp_response", "dat",
-                        context.getFilesDir());
-                tempAudioFile.deleteOnExit();
-                final FileOutputStream audioOut = new FileOutputStream(tempAudioFile);
-                final byte buffer[] = new byte[16384];
-                int length;
-                while ((length = audioStream.read(buffer)) != -1) {
-                    audioOut.write(buffer, 0, length);
+                if (interactionConfig.isEnableStreamingAudioPlayback()
+                        && Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+                    prepareStreamingPlayback(audioStream);
+                } else {
+                    final File tempAudioFile = File.createTempFile("lex_temp_response", "dat",
+                            context.getFilesDir());
+                    tempAudioFile.deleteOnExit();
+                    final FileOutputStream audioOut = new FileOutputStream(tempAudioFile);
+                    final byte buffer[] = new byte[16384];
+                    int length;
+                    while ((length = audioStream.read(buffer)) != -1) {
+                        audioOut.write(buffer, 0, length);
+                    }
+                    audioOut.close();
+                    final FileInputStream audioIn = new FileInputStream(tempAudioFile);
+                    lMediaPlayer.setDataSource(audioIn.getFD());
+                    lMediaPlayer.prepare();
                 }
-                audioOut.close();
-                final FileInputStream audioIn = new FileInputStream(tempAudioFile);
-                lMediaPlayer.setDataSource(audioIn.getFD());
-                lMediaPlayer.prepare();
                 processResponse(handler, result, client, responseMode, requestType);
             } catch (final Exception e) {
                 // Playback failed.
@@ -604,6 +612,33 @@ public class InteractionClient {
         }
     }
 
+    /**
+     * Starts playing the audio response while it is being received. A
+     * separate thread copies the response into an in-memory buffer which the
+     * media player reads from, and playback starts from the prepared
+     * listener as soon as the player has enough audio.
+     *
+     * @param audioStream the audio stream of the response.
+     * @throws IOException if the player does not accept the data source.
+     */
+    @TargetApi(Build.VERSION_CODES.M)
+    private void prepareStreamingPlayback(final InputStream audioStream) throws IOException {
+        final StreamingAudioDataSource dataSource = new StreamingAudioDataSource();
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                dataSource.readFrom(audioStream);
+            }
+        }).start();
+        try {
+            lMediaPlayer.setDataSource(dataSource);
+            lMediaPlayer.prepareAsync();
+        } catch (final RuntimeException e) {
+            dataSource.close();
+            throw e;
+        }
+    }
+
     /**
      * Analyzes response from Amazon Lex service. Returns a {@link Runnable}
      * with the next step, which is usually a callback method in the
@@ -734,9 +769,9 @@ public class InteractionClient {
                     public void onBufferReceived(byte[] buffer) {
                         // No operation required. This callback is invoked by AudioRecorder. The bytes received
                         // in this callback are PCM encoded. LexAudioRecorder extends AudioRecorder to
-                        // allow other audio encoders, and pipe the encoded bytes through a PipedInputStream.
-                        // The PipedInputStream used in the request to the
-                        // Amazon Lex service.
+                        // allow other audio encoders, and pipe the encoded bytes through an AudioRingBuffer
+                        // whose input stream is used in the request to the
+                        // Amazon Lex service. Buffer callbacks are disabled on the recorder.
                     }
 
                     @Override
@@ -59,6 +59,13 @@ public class InteractionConfig {
      */
     private boolean enableAudioPlayback;
 
+    /**
+     * Indicates if the audio response should be played while it is still
+     * being received, instead of after it has been written to a file.
+     * Default is "false".
+     */
+    private boolean enableStreamingAudioPlayback;
+
     /**
      * Current audio encoding codec.
      */
@@ -238,6 +245,41 @@ public class InteractionConfig {
         return this;
     }
 
+    /**
+     * Returns whether audio responses are played while they are received.
+     *
+     * @return true if streaming audio playback has been enabled.
+     */
+    public boolean isEnableStreamingAudioPlayback() {
+        return enableStreamingAudioPlayback;
+    }
+
+    /**
+     * Set this to true to start playing the audio response from Amazon Lex
+     * as soon as its first bytes arrive. The response is buffered in memory
+     * and never written to a file. Requires API level 23; older devices
+     * always download the response before playing it. Only used when audio
+     * playback is enabled.
+     *
+     * @param enableStreamingAudioPlayback {@link boolean}
+     */
+    public void setEnableStreamingAudioPlayback(boolean enableStreamingAudioPlayback) {
+        this.enableStreamingAudioPlayback = enableStreamingAudioPlayback;
+    }
+
+    /**
+     * Set this to true to start playing the audio response from Amazon Lex
+     * as soon as its first bytes arrive.
+     *
+     * @param enableStreamingAudioPlayback {@link boolean}
+     * @return {@link InteractionConfig}
+     */
+    public InteractionConfig withEnableStreamingAudioPlayback(
+            boolean enableStreamingAudioPlayback) {
+        this.enableStreamingAudioPlayback = enableStreamingAudioPlayback;
+        return this;
+    }
+
     /**
      * Set no speech time out interval.
      *
@@ -51,6 +51,12 @@ public class AudioRecorder implements AudioSource {
      */
     private final AtomicBoolean mIsCancelled;
 
+    /**
+     * Whether each recorded buffer is copied and passed to
+     * {@link AudioSourceListener#onBufferReceived(byte[])}.
+     */
+    private volatile boolean mBufferCallbacksEnabled = true;
+
     /**
      * Default value for how often the recorder position notification goes out.
      */
@@ -210,6 +216,17 @@ public class AudioRecorder implements AudioSource {
         return mListener;
     }
 
+    /**
+     * Enable or disable {@link AudioSourceListener#onBufferReceived(byte[])}
+     * callbacks. Each callback needs its own copy of the recorded samples, so
+     * listeners that ignore the buffers should disable them to keep the
+     * record loop from allocating. Enabled by default.
+     * @param enabled whether recorded buffers are passed to the listener.
+     */
+    public void setBufferCallbacksEnabled(final boolean enabled) {
+        mBufferCallbacksEnabled = enabled;
+    }
+
     /**
      * Cancel an audio source.
      */
@@ -275,9 +292,11 @@ public class AudioRecorder implements AudioSource {
                 if (invalidOperation != numSamplesRead) {
                     setPostRecordingFields();
                     if (numSamplesRead > 0) {
-                        // Prepare samples for the callback.
-                        final byte[] callbackBuffer = pcmEncoder.encode(buffer, numSamplesRead);
-                        listener.onBufferReceived(callbackBuffer);
+                        if (mBufferCallbacksEnabled) {
+                            // Prepare samples for the callback.
+                            final byte[] callbackBuffer = pcmEncoder.encode(buffer, numSamplesRead);
+                            listener.onBufferReceived(callbackBuffer);
+                        }
 
                         updateSumSamplesForRMSCalculations(numSamplesRead, buffer);
                     }
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.lex.interactionkit.internal.audio;
+
+import com.google.common.base.Preconditions;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+
+/**
+ * A fixed size byte ring buffer connecting the recording thread, which writes
+ * encoded audio, to the thread uploading it. It replaces a
+ * PipedInputStream/PipedOutputStream pair: the storage is allocated once,
+ * bulk reads and writes copy with {@link System#arraycopy}, and neither side
+ * polls.
+ * <p>
+ * The writer blocks while the buffer is full and the reader blocks while it
+ * is empty. Once the writer is closed the reader drains the remaining bytes
+ * and then sees the end of the stream. Once the reader is closed, writes
+ * fail.
+ */
+public class AudioRingBuffer {
+
+    private final byte[] mBuffer;
+    private final Object mLock = new Object();
+    private final InputStream mInputStream = new RingInputStream();
+    private final OutputStream mOutputStream = new RingOutputStream();
+
+    /**
+     * Index of the next byte to read.
+     */
+    private int mReadPosition;
+
+    /**
+     * Number of bytes available to read.
+     */
+    private int mCount;
+
+    private boolean mWriterClosed;
+    private boolean mReaderClosed;
+
+    /**
+     * Create a ring buffer.
+     *
+     * @param capacity the number of bytes the buffer holds.
+     */
+    public AudioRingBuffer(final int capacity) {
+        Preconditions.checkArgument(capacity > 0, "Capacity must be greater than 0");
+        mBuffer = new byte[capacity];
+    }
+
+    /**
+     * Get the stream that reads from the buffer.
+     *
+     * @return the input stream.
+     */
+    public InputStream getInputStream() {
+        return mInputStream;
+    }
+
+    /**
+     * Get the stream that writes to the buffer.
+     *
+     * @return the output stream.
+     */
+    public OutputStream getOutputStream() {
+        return mOutputStream;
+    }
+
+    /**
+     * Get the capacity of the buffer in bytes.
+     *
+     * @return the capacity.
+     */
+    public int getCapacity() {
+        return mBuffer.length;
+    }
+
+    private void write(final byte[] b, int off, int len) throws IOException {
+        synchronized (mLock) {
+            while (len > 0) {
+                if (mWriterClosed) {
+                    throw new IOException("Write end closed");
+                }
+                if (mReaderClosed) {
+                    throw new IOException("Read end closed");
+                }
+                if (mCount == mBuffer.length) {
+                    awaitChange();
+                    continue;
+                }
+                final int writePosition = (mReadPosition + mCount) % mBuffer.length;
+                final int n = Math.min(len, Math.min(mBuffer.length - mCount,
+                        mBuffer.length - writePosition));
+                System.arraycopy(b, off, mBuffer, writePosition, n);
+                mCount += n;
+                off += n;
+                len -= n;
+                mLock.notifyAll();
+            }
+        }
+    }
+
+    private int read(final byte[] b, final int off, final int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        synchronized (mLock) {
+            while (mCount == 0) {
+                if (mReaderClosed) {
+                    throw new IOException("Read end closed");
+                }
+                if (mWriterClosed) {
+                    return -1;
+                }
+                awaitChange();
+            }
+            final int n = Math.min(len, Math.min(mCount, mBuffer.length - mReadPosition));
+            System.arraycopy(mBuffer, mReadPosition, b, off, n);
+            mReadPosition = (mReadPosition + n) % mBuffer.length;
+            mCount -= n;
+            mLock.notifyAll();
+            return n;
+        }
+    }
+
+    private void awaitChange() throws InterruptedIOException {
+        try {
+            mLock.wait();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for audio");
+        }
+    }
+
+    private final class RingInputStream extends InputStream {
+        private final byte[] mSingleByte = new byte[1];
+
+        @Override
+        public int read() throws IOException {
+            synchronized (mSingleByte) {
+                final int n = AudioRingBuffer.this.read(mSingleByte, 0, 1);
+                return n == -1 ? -1 : mSingleByte[0] & 0xff;
+            }
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            return AudioRingBuffer.this.read(b, off, len);
+        }
+
+        @Override
+        public int available() {
+            synchronized (mLock) {
+                return mCount;
+            }
+        }
+
+        @Override
+        public void close() {
+            synchronized (mLock) {
+                mReaderClosed = true;
+                mLock.notifyAll();
+            }
+        }
+    }
+
+    private final class RingOutputStream extends OutputStream {
+        private final byte[] mSingleByte = new byte[1];
+
+        @Override
+        public void write(final int b) throws IOException {
+            synchronized (mSingleByte) {
+                mSingleByte[0] = (byte) b;
+                AudioRingBuffer.this.write(mSingleByte, 0, 1);
+            }
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            AudioRingBuffer.this.write(b, off, len);
+        }
+
+        @Override
+        public void close() {
+            synchronized (mLock) {
+                mWriterClosed = true;
+                mLock.notifyAll();
+            }
+        }
+    }
+}
@@ -22,14 +22,14 @@ import android.util.Log;
 
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.mobileconnectors.lex.interactionkit.internal.audio.encoder.AudioEncoder;
+import com.amazonaws.mobileconnectors.lex.interactionkit.internal.audio.encoder.BufferedAudioEncoder;
 import com.amazonaws.mobileconnectors.lex.interactionkit.internal.vad.VoiceActivityDetector;
 import com.amazonaws.mobileconnectors.lex.interactionkit.internal.vad.VoiceActivityDetector.VADState;
 import com.google.common.base.Preconditions;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.PipedInputStream;
-import java.io.PipedOutputStream;
+import java.io.OutputStream;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -59,15 +59,20 @@ public class LexAudioRecorder extends AudioRecorder implements ChunkedAudioSourc
      */
     private long mRecordStartTime;
 
+    /**
+     * Buffer holding encoded audio until it is uploaded.
+     */
+    private AudioRingBuffer mAudioBuffer;
+
     /**
      * Stream to be read by wake word service.
      */
-    private PipedInputStream mConsumerStream;
+    private InputStream mConsumerStream;
 
     /**
      * Stream used to output recorded audio.
      */
-    private PipedOutputStream mProducerStream;
+    private OutputStream mProducerStream;
 
     /**
      * The state of the audio recorder before recording the next sample.
@@ -196,12 +201,13 @@ public class LexAudioRecorder extends AudioRecorder implements ChunkedAudioSourc
                 * (SAMPLE_SIZE / Byte.SIZE);
 
         // Set up the audio stream pipe.
-        mProducerStream = new PipedOutputStream();
         try {
-            mConsumerStream = new PipedInputStream(mProducerStream, pipeSize);
-        } catch (final IOException e) {
+            mAudioBuffer = new AudioRingBuffer(pipeSize);
+        } catch (final IllegalArgumentException e) {
             throw new AudioSourceException("Error openning consumer stream", e);
         }
+        mProducerStream = mAudioBuffer.getOutputStream();
+        mConsumerStream = mAudioBuffer.getInputStream();
     }
 
     /**
@@ -257,12 +263,16 @@ public class LexAudioRecorder extends AudioRecorder implements ChunkedAudioSourc
             // Process the samples through the VAD and get current VAD state.
             currentState = mVAD.processSamples(buffer, numSamplesRead);
 
-            // Encode audio for sending to service.
-            final byte[] compressedBuffer = mAudioEncoder.encode(buffer, numSamplesRead);
-
+            // Encode audio for sending to service. A buffered encoder writes
+            // straight into the ring buffer without allocating.
             try {
-                mProducerStream.write(compressedBuffer, 0, compressedBuffer.length);
-                mProducerStream.flush();
+                if (mAudioEncoder instanceof BufferedAudioEncoder) {
+                    ((BufferedAudioEncoder) mAudioEncoder).encode(buffer, numSamplesRead,
+                            mProducerStream);
+                } else {
+                    final byte[] compressedBuffer = mAudioEncoder.encode(buffer, numSamplesRead);
+                    mProducerStream.write(compressedBuffer, 0, compressedBuffer.length);
+                }
             } catch (final IOException e) {
                 throw new AudioSourceException(
                         "Error writing to audio upload output stream", e);
@@ -326,7 +336,7 @@ public class LexAudioRecorder extends AudioRecorder implements ChunkedAudioSourc
      *
      * @return the producer stream.
      */
-    PipedOutputStream getProducerStream() {
+    OutputStream getProducerStream() {
         return mProducerStream;
     }
 
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.lex.interactionkit.internal.audio;
+
+import android.annotation.TargetApi;
+import android.media.MediaDataSource;
+import android.os.Build;
+
+import com.google.common.base.Preconditions;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+
+/**
+ * A {@link MediaDataSource} that lets a MediaPlayer start playing an audio
+ * response while it is still being received. One thread copies the response
+ * into an in-memory ring buffer with {@link #readFrom(InputStream)}; the
+ * player reads from the buffer, blocking until the bytes it asks for have
+ * arrived.
+ * <p>
+ * The ring keeps every byte from the player's most recent read position
+ * onwards, so the player may re-read within the data it has not moved past.
+ * When the ring is full, the receiving thread waits for the player to move
+ * forward. The size reported to the player is unknown until the whole
+ * response has been received.
+ */
+@TargetApi(Build.VERSION_CODES.M)
+public class StreamingAudioDataSource extends MediaDataSource {
+
+    /**
+     * Default ring capacity, large enough to hold a typical bot prompt whole.
+     */
+    public static final int DEFAULT_CAPACITY = 1024 * 1024;
+
+    private static final int READ_BUFFER_SIZE = 16 * 1024;
+
+    private final byte[] mRing;
+
+    /**
+     * Total number of bytes received.
+     */
+    private long mWritten;
+
+    /**
+     * Position of the player's most recent read; bytes from here on are
+     * never overwritten.
+     */
+    private long mReadPosition;
+
+    private boolean mFinished;
+    private boolean mClosed;
+    private IOException mFailure;
+
+    /**
+     * Create a data source with the default capacity.
+     */
+    public StreamingAudioDataSource() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create a data source.
+     *
+     * @param capacity the size of the ring buffer in bytes.
+     */
+    public StreamingAudioDataSource(final int capacity) {
+        Preconditions.checkArgument(capacity > 0, "Capacity must be greater than 0");
+        mRing = new byte[capacity];
+    }
+
+    /**
+     * Copy the response into the buffer until the stream ends, the data
+     * source is closed, or reading fails. Blocks; call it from a thread other
+     * than the one preparing the player.
+     *
+     * @param in the audio response stream, which is closed when done.
+     */
+    public void readFrom(final InputStream in) {
+        final byte[] buffer = new byte[READ_BUFFER_SIZE];
+        try {
+            int length;
+            while ((length = in.read(buffer)) != -1) {
+                if (!write(buffer, length)) {
+                    return;
+                }
+            }
+            synchronized (this) {
+                mFinished = true;
+                notifyAll();
+            }
+        } catch (final IOException e) {
+            synchronized (this) {
+                mFailure = e;
+                notifyAll();
+            }
+        } finally {
+            try {
+                in.close();
+            } catch (final IOException e) {
+                // Nothing left to read.
+            }
+        }
+    }
+
+    /**
+     * @return false if the data source was closed.
+     */
+    private synchronized boolean write(final byte[] b, final int length)
+            throws InterruptedIOException {
+        int offset = 0;
+        while (offset < length) {
+            if (mClosed) {
+                return false;
+            }
+            final long space = mReadPosition + mRing.length - mWritten;
+            if (space <= 0) {
+                await();
+                continue;
+            }
+            final int index = (int) (mWritten % mRing.length);
+            final int n = (int) Math.min(length - offset,
+                    Math.min(space, mRing.length - index));
+            System.arraycopy(b, offset, mRing, index, n);
+            mWritten += n;
+            offset += n;
+            notifyAll();
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized int readAt(final long position, final byte[] buffer, final int offset,
+            final int size) throws IOException {
+        if (size == 0) {
+            return 0;
+        }
+        if (position < mWritten - mRing.length) {
+            throw new IOException("Position " + position
+                    + " is no longer buffered; the player read too far behind");
+        }
+        mReadPosition = position;
+        notifyAll();
+        while (position >= mWritten) {
+            if (mClosed || mFinished) {
+                return -1;
+            }
+            if (mFailure != null) {
+                throw mFailure;
+            }
+            await();
+        }
+        final int n = (int) Math.min(size, mWritten - position);
+        final int index = (int) (position % mRing.length);
+        final int first = Math.min(n, mRing.length - index);
+        System.arraycopy(mRing, index, buffer, offset, first);
+        if (first < n) {
+            System.arraycopy(mRing, 0, buffer, offset + first, n - first);
+        }
+        return n;
+    }
+
+    @Override
+    public synchronized long getSize() {
+        return mFinished ? mWritten : -1;
+    }
+
+    @Override
+    public synchronized void close() {
+        mClosed = true;
+        notifyAll();
+    }
+
+    private void await() throws InterruptedIOException {
+        try {
+            wait();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while streaming audio");
+        }
+    }
+}
@@ -18,6 +18,8 @@ package com.amazonaws.mobileconnectors.lex.interactionkit.internal.audio.encoder
 import com.google.common.base.Preconditions;
 import com.google.common.net.MediaType;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.ShortBuffer;
 import java.util.ArrayList;
 import java.util.List;
@@ -28,9 +30,17 @@ import java.util.List;
  */
 public class BufferedAudioEncoder implements AudioEncoder {
 
+    private static final byte[] EMPTY = new byte[0];
+
     private final AudioEncoder mEncoder;
     private final ShortBuffer mSamplesBuffer;
 
+    /**
+     * Scratch space for one encoded frame, used when the underlying encoder
+     * can encode into a caller supplied buffer. Null otherwise.
+     */
+    private final byte[] mFrameBuffer;
+
     /**
      * Create a BufferedAudioEncoder that wraps an underlying AudioEncoder.
      *
@@ -40,6 +50,9 @@ public class BufferedAudioEncoder implements AudioEncoder {
         Preconditions.checkNotNull(encoder, "AudioEncoder cannot be null");
         mEncoder = encoder;
         mSamplesBuffer = ShortBuffer.wrap(new short[mEncoder.getFrameSize()]);
+        mFrameBuffer = encoder instanceof L16PcmEncoder
+                ? new byte[mEncoder.getPacketSize()]
+                : null;
     }
 
     @Override
@@ -49,29 +62,89 @@ public class BufferedAudioEncoder implements AudioEncoder {
                 "Number of samples cannot exceed buffer size");
 
         int samplesProcessed = 0;
-        int toWrite = 0;
-
-        final List<byte[]> encodedBytesList = new ArrayList<byte[]>();
-        final short[] buffer = new short[mSamplesBuffer.capacity()];
+        byte[] firstFrame = null;
+        List<byte[]> encodedBytesList = null;
 
         // Loop while there are enough samples to fill the buffer.
         while (mSamplesBuffer.remaining() <= numSamples - samplesProcessed) {
-            // Copy samples into buffer.
-            toWrite = mSamplesBuffer.remaining();
-            System.arraycopy(samples, samplesProcessed, buffer, 0, toWrite);
-
-            mSamplesBuffer.put(buffer, 0, toWrite);
-            samplesProcessed += toWrite;
+            samplesProcessed += fillFrame(samples, samplesProcessed);
 
             // Process samples.
-            encodedBytesList
-                    .add(mEncoder.encode(mSamplesBuffer.array(), mSamplesBuffer.capacity()));
+            final byte[] encoded = mEncoder.encode(mSamplesBuffer.array(),
+                    mSamplesBuffer.capacity());
             mSamplesBuffer.clear();
+            if (firstFrame == null) {
+                firstFrame = encoded;
+            } else {
+                if (encodedBytesList == null) {
+                    encodedBytesList = new ArrayList<byte[]>();
+                    encodedBytesList.add(firstFrame);
+                }
+                encodedBytesList.add(encoded);
+            }
         }
 
         // If any samples remain, copy into buffer.
         mSamplesBuffer.put(samples, samplesProcessed, numSamples - samplesProcessed);
-        return concatenateBytes(encodedBytesList);
+        if (encodedBytesList != null) {
+            return concatenateBytes(encodedBytesList);
+        }
+        return firstFrame == null ? EMPTY : firstFrame;
+    }
+
+    /**
+     * Encode PCM samples and write the encoded frames to a stream. For L16
+     * PCM no memory is allocated: samples are buffered in a fixed frame
+     * buffer and encoded into a fixed packet buffer. Other encoders write the
+     * frame returned by the underlying encoder.
+     *
+     * @param samples the samples to encode.
+     * @param numSamples the number of samples in the buffer to encode.
+     * @param out the stream receiving the encoded frames.
+     * @return the number of bytes written.
+     * @throws AudioEncoderException when there's an error encoding the audio.
+     * @throws IOException when there's an error writing to the stream.
+     */
+    public int encode(final short[] samples, final int numSamples, final OutputStream out)
+            throws AudioEncoderException, IOException {
+        Preconditions.checkArgument(samples.length >= numSamples,
+                "Number of samples cannot exceed buffer size");
+
+        int samplesProcessed = 0;
+        int bytesWritten = 0;
+
+        // Loop while there are enough samples to fill the buffer.
+        while (mSamplesBuffer.remaining() <= numSamples - samplesProcessed) {
+            samplesProcessed += fillFrame(samples, samplesProcessed);
+
+            if (mFrameBuffer != null) {
+                final int length = ((L16PcmEncoder) mEncoder).encode(mSamplesBuffer.array(), 0,
+                        mSamplesBuffer.capacity(), mFrameBuffer, 0);
+                out.write(mFrameBuffer, 0, length);
+                bytesWritten += length;
+            } else {
+                final byte[] encoded = mEncoder.encode(mSamplesBuffer.array(),
+                        mSamplesBuffer.capacity());
+                out.write(encoded, 0, encoded.length);
+                bytesWritten += encoded.length;
+            }
+            mSamplesBuffer.clear();
+        }
+
+        // If any samples remain, copy into buffer.
+        mSamplesBuffer.put(samples, samplesProcessed, numSamples - samplesProcessed);
+        return bytesWritten;
+    }
+
+    /**
+     * Copy samples into the frame buffer until it is full.
+     *
+     * @return the number of samples copied.
+     */
+    private int fillFrame(final short[] samples, final int offset) {
+        final int toWrite = mSamplesBuffer.remaining();
+        mSamplesBuffer.put(samples, offset, toWrite);
+        return toWrite;
     }
 
     /**
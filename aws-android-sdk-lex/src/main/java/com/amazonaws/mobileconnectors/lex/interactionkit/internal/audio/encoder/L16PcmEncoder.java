@@ -36,23 +36,51 @@ public class L16PcmEncoder implements AudioEncoder {
      */
     private static final MediaType MEDIA_TYPE = MediaType.parse("audio/x-l16");
 
+    /**
+     * The byte order of the platform, which the encoded samples follow.
+     */
+    private static final ByteOrder NATIVE_ORDER = ByteOrder.nativeOrder();
+
     @Override
     public byte[] encode(final short[] samples, final int numSamples)
             throws AudioEncoderException {
         Preconditions.checkArgument(samples.length >= numSamples,
                 "Sample buffer length must be at least as long as numSamples");
         final byte[] buffer = new byte[numSamples * 2];
-        for (int i = 0; i < numSamples; i++) {
-            // One sample is two bytes.
-            if (ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN) {
-                buffer[i * 2] = (byte) (samples[i] & 0xff);
-                buffer[i * 2 + 1] = (byte) ((samples[i] >> Byte.SIZE) & 0xff);
-            } else {
-                buffer[i * 2] = (byte) ((samples[i] >> Byte.SIZE) & 0xff);
-                buffer[i * 2 + 1] = (byte) (samples[i] & 0xff);
+        encode(samples, 0, numSamples, buffer, 0);
+        return buffer;
+    }
+
+    /**
+     * Encode PCM samples into a caller supplied buffer, without allocating.
+     *
+     * @param samples the samples to encode.
+     * @param offset the index of the first sample to encode.
+     * @param numSamples the number of samples to encode.
+     * @param out the buffer receiving the encoded bytes.
+     * @param outOffset the index in the buffer of the first encoded byte.
+     * @return the number of bytes written, two per sample.
+     */
+    public int encode(final short[] samples, final int offset, final int numSamples,
+            final byte[] out, final int outOffset) {
+        Preconditions.checkArgument(offset >= 0 && samples.length - offset >= numSamples,
+                "Sample buffer length must be at least as long as numSamples");
+        Preconditions.checkArgument(out.length - outOffset >= numSamples * 2,
+                "Output buffer is too small");
+        int position = outOffset;
+        // One sample is two bytes.
+        if (NATIVE_ORDER == ByteOrder.LITTLE_ENDIAN) {
+            for (int i = offset; i < offset + numSamples; i++) {
+                out[position++] = (byte) (samples[i] & 0xff);
+                out[position++] = (byte) ((samples[i] >> Byte.SIZE) & 0xff);
+            }
+        } else {
+            for (int i = offset; i < offset + numSamples; i++) {
+                out[position++] = (byte) ((samples[i] >> Byte.SIZE) & 0xff);
+                out[position++] = (byte) (samples[i] & 0xff);
             }
         }
-        return buffer;
+        return numSamples * 2;
     }
 
     @Override
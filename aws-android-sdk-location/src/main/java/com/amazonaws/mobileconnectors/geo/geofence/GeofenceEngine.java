@@ -0,0 +1,193 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.geo.geofence;
+
+import android.location.Location;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.geo.AmazonLocationClient;
+import com.amazonaws.services.geo.model.ListGeofenceResponseEntry;
+import com.amazonaws.services.geo.model.ListGeofencesRequest;
+import com.amazonaws.services.geo.model.ListGeofencesResult;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Evaluates device locations against the geofences of a collection on the
+ * device, without a service call per location.
+ * <p>
+ * {@link #sync()} downloads the collection with {@code ListGeofences} and
+ * indexes its polygons and circles in an R-tree, so that finding the
+ * geofences containing a point takes microseconds even with thousands of
+ * geofences. {@link #evaluate(Location)} compares the geofences containing
+ * each location with those containing the previous one and reports only the
+ * ENTER and EXIT transitions. Pass the engine to
+ * {@code TrackingOptions.Builder#geofenceEngine} to evaluate every location the
+ * tracker receives.
+ * <p>
+ * Geofences are treated as planar in longitude and latitude, and must not
+ * cross the antimeridian.
+ */
+public class GeofenceEngine {
+    private static final String TAG = GeofenceEngine.class.getSimpleName();
+    private static final String ACTIVE = "ACTIVE";
+
+    private final AmazonLocationClient locationClient;
+    private final String collectionName;
+    private final GeofenceListener listener;
+    private volatile GeofenceIndex index = GeofenceIndex.EMPTY;
+
+    /** Geofences containing the last evaluated location. Guarded by this. */
+    private Set<String> inside = new HashSet<String>();
+
+    /**
+     * Create an engine for a geofence collection.
+     * @param locationClient client used to download the collection.
+     * @param collectionName The name of your geofence collection resource.
+     * @param listener Receives the detected transitions.
+     */
+    public GeofenceEngine(
+            @NonNull AmazonLocationClient locationClient,
+            @NonNull String collectionName,
+            @NonNull GeofenceListener listener) {
+        this.locationClient = locationClient;
+        this.collectionName = collectionName;
+        this.listener = listener;
+    }
+
+    /**
+     * Downloads the active geofences of the collection and replaces the
+     * indexed ones with them. Makes service calls; do not call it on the main
+     * thread.
+     * @return the number of indexed geofences.
+     * @throws AmazonClientException if the collection could not be listed;
+     *         the previous geofences stay in use.
+     */
+    public int sync() {
+        List<ListGeofenceResponseEntry> entries = new ArrayList<ListGeofenceResponseEntry>();
+        String nextToken = null;
+        do {
+            ListGeofencesResult result = locationClient.listGeofences(new ListGeofencesRequest()
+                    .withCollectionName(collectionName)
+                    .withNextToken(nextToken));
+            if (result.getEntries() != null) {
+                entries.addAll(result.getEntries());
+            }
+            nextToken = result.getNextToken();
+        } while (nextToken != null);
+        return setGeofences(entries);
+    }
+
+    /**
+     * Replaces the indexed geofences, for example with ones stored on the
+     * device. Only active geofences are indexed. Geofences that are no longer
+     * indexed are forgotten without reporting an EXIT.
+     * @param entries the geofences, as returned by {@code ListGeofences}.
+     * @return the number of indexed geofences.
+     */
+    public int setGeofences(@NonNull Collection<ListGeofenceResponseEntry> entries) {
+        List<GeofenceShape> shapes = new ArrayList<GeofenceShape>(entries.size());
+        Set<String> ids = new HashSet<String>();
+        for (ListGeofenceResponseEntry entry : entries) {
+            if (entry.getStatus() != null && !ACTIVE.equals(entry.getStatus())) {
+                continue;
+            }
+            GeofenceShape shape = GeofenceShape.of(entry.getGeofenceId(), entry.getGeometry());
+            if (shape == null) {
+                Log.w(TAG, "Skipping geofence with unsupported geometry: " + entry.getGeofenceId());
+                continue;
+            }
+            shapes.add(shape);
+            ids.add(entry.getGeofenceId());
+        }
+        GeofenceIndex newIndex = GeofenceIndex.build(shapes);
+        synchronized (this) {
+            index = newIndex;
+            inside.retainAll(ids);
+        }
+        Log.d(TAG, "Indexed " + shapes.size() + " geofences of " + collectionName);
+        return shapes.size();
+    }
+
+    /**
+     * Returns the number of indexed geofences.
+     * @return the number of indexed geofences.
+     */
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Returns the IDs of the geofences containing a point.
+     * @param longitude longitude of the point in degrees.
+     * @param latitude latitude of the point in degrees.
+     * @return the IDs of the geofences containing the point.
+     */
+    public Set<String> query(double longitude, double latitude) {
+        List<GeofenceShape> shapes = new ArrayList<GeofenceShape>();
+        index.query(longitude, latitude, shapes);
+        Set<String> ids = new LinkedHashSet<String>(shapes.size() * 2);
+        for (GeofenceShape shape : shapes) {
+            ids.add(shape.getGeofenceId());
+        }
+        return ids;
+    }
+
+    /**
+     * Evaluates a new device location, notifying the listener of each
+     * geofence the device entered or left since the previous location.
+     * @param location The device location.
+     * @return the transitions, which are empty if the device did not cross a
+     *         geofence boundary.
+     */
+    public List<GeofenceTransition> evaluate(@NonNull Location location) {
+        List<GeofenceTransition> transitions = new ArrayList<GeofenceTransition>();
+        synchronized (this) {
+            Set<String> current = query(location.getLongitude(), location.getLatitude());
+            for (String id : inside) {
+                if (!current.contains(id)) {
+                    transitions.add(new GeofenceTransition(GeofenceTransition.Type.EXIT, id, location));
+                }
+            }
+            for (String id : current) {
+                if (!inside.contains(id)) {
+                    transitions.add(new GeofenceTransition(GeofenceTransition.Type.ENTER, id, location));
+                }
+            }
+            inside = current;
+        }
+        for (GeofenceTransition transition : transitions) {
+            listener.onTransition(transition);
+        }
+        return transitions;
+    }
+
+    /**
+     * Forgets which geofences the device was in, so that the next location
+     * reports an ENTER for every geofence containing it.
+     */
+    public synchronized void reset() {
+        inside = new HashSet<String>();
+    }
+}
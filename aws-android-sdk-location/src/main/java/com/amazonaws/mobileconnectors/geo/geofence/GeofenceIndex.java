@@ -0,0 +1,163 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.geo.geofence;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * An immutable R-tree of geofence shapes, bulk loaded with the
+ * Sort-Tile-Recursive algorithm: the shapes are sorted into vertical slices by
+ * longitude, each slice is sorted by latitude and packed into full nodes, and
+ * the nodes are packed the same way level by level up to a single root. A
+ * point query only descends into nodes whose bounding box holds the point.
+ */
+final class GeofenceIndex {
+    /** Maximum number of children of a node. */
+    static final int NODE_CAPACITY = 16;
+
+    static final GeofenceIndex EMPTY = new GeofenceIndex(null, 0);
+
+    private final Node root;
+    private final int size;
+
+    private GeofenceIndex(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Builds an index of the shapes.
+     * @param shapes the shapes to index.
+     * @return the index.
+     */
+    static GeofenceIndex build(List<? extends GeofenceShape> shapes) {
+        if (shapes.isEmpty()) {
+            return EMPTY;
+        }
+        List<? extends Box> level = shapes;
+        do {
+            level = pack(level);
+        } while (level.size() > 1);
+        return new GeofenceIndex((Node) level.get(0), shapes.size());
+    }
+
+    /**
+     * Returns the number of indexed shapes.
+     * @return the number of indexed shapes.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Adds the shapes containing the point to {@code result}.
+     * @param longitude longitude of the point in degrees.
+     * @param latitude latitude of the point in degrees.
+     * @param result receives the shapes containing the point.
+     */
+    void query(double longitude, double latitude, List<GeofenceShape> result) {
+        if (root != null && root.inBounds(longitude, latitude)) {
+            query(root, longitude, latitude, result);
+        }
+    }
+
+    private static void query(Node node, double longitude, double latitude,
+            List<GeofenceShape> result) {
+        for (Box child : node.children) {
+            if (!child.inBounds(longitude, latitude)) {
+                continue;
+            }
+            if (child instanceof Node) {
+                query((Node) child, longitude, latitude, result);
+            } else {
+                GeofenceShape shape = (GeofenceShape) child;
+                if (shape.contains(longitude, latitude)) {
+                    result.add(shape);
+                }
+            }
+        }
+    }
+
+    private static List<Node> pack(List<? extends Box> items) {
+        List<Box> sorted = new ArrayList<Box>(items);
+        int nodeCount = (sorted.size() + NODE_CAPACITY - 1) / NODE_CAPACITY;
+        int sliceCount = (int) Math.ceil(Math.sqrt(nodeCount));
+        int sliceSize = sliceCount * NODE_CAPACITY;
+
+        Collections.sort(sorted, BY_CENTER_X);
+        List<Node> nodes = new ArrayList<Node>(nodeCount);
+        for (int sliceStart = 0; sliceStart < sorted.size(); sliceStart += sliceSize) {
+            List<Box> slice = sorted.subList(sliceStart,
+                    Math.min(sliceStart + sliceSize, sorted.size()));
+            Collections.sort(slice, BY_CENTER_Y);
+            for (int start = 0; start < slice.size(); start += NODE_CAPACITY) {
+                List<Box> children = slice.subList(start,
+                        Math.min(start + NODE_CAPACITY, slice.size()));
+                nodes.add(new Node(children.toArray(new Box[children.size()])));
+            }
+        }
+        return nodes;
+    }
+
+    private static final Comparator<Box> BY_CENTER_X = new Comparator<Box>() {
+        @Override
+        public int compare(Box a, Box b) {
+            return Double.compare(a.minX + a.maxX, b.minX + b.maxX);
+        }
+    };
+
+    private static final Comparator<Box> BY_CENTER_Y = new Comparator<Box>() {
+        @Override
+        public int compare(Box a, Box b) {
+            return Double.compare(a.minY + a.maxY, b.minY + b.maxY);
+        }
+    };
+
+    /**
+     * A bounding box in degrees of longitude (x) and latitude (y).
+     */
+    abstract static class Box {
+        double minX;
+        double minY;
+        double maxX;
+        double maxY;
+
+        final boolean inBounds(double x, double y) {
+            return x >= minX && x <= maxX && y >= minY && y <= maxY;
+        }
+    }
+
+    private static final class Node extends Box {
+        private final Box[] children;
+
+        Node(Box[] children) {
+            this.children = children;
+            minX = Double.POSITIVE_INFINITY;
+            minY = Double.POSITIVE_INFINITY;
+            maxX = Double.NEGATIVE_INFINITY;
+            maxY = Double.NEGATIVE_INFINITY;
+            for (Box child : children) {
+                minX = Math.min(minX, child.minX);
+                minY = Math.min(minY, child.minY);
+                maxX = Math.max(maxX, child.maxX);
+                maxY = Math.max(maxY, child.maxY);
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.geo.geofence;
+
+/**
+ * Receives the geofence transitions detected by a {@link GeofenceEngine}.
+ */
+public interface GeofenceListener {
+    /**
+     * Triggered when the device enters or leaves a geofence. Called on the
+     * thread that evaluated the location.
+     * @param transition The geofence and the kind of transition.
+     */
+    void onTransition(GeofenceTransition transition);
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.geo.geofence;
+
+import com.amazonaws.services.geo.model.Circle;
+import com.amazonaws.services.geo.model.GeofenceGeometry;
+
+import java.util.List;
+
+/**
+ * A geofence prepared for fast point-in-fence tests, with its bounding box in
+ * degrees of longitude (x) and latitude (y).
+ */
+abstract class GeofenceShape extends GeofenceIndex.Box {
+    /** Mean earth radius in meters. */
+    static final double EARTH_RADIUS_METERS = 6371008.8;
+
+    private final String geofenceId;
+
+    GeofenceShape(String geofenceId) {
+        this.geofenceId = geofenceId;
+    }
+
+    String getGeofenceId() {
+        return geofenceId;
+    }
+
+    /**
+     * Returns true if the point lies inside the geofence.
+     * @param longitude longitude of the point in degrees.
+     * @param latitude latitude of the point in degrees.
+     * @return true if the point lies inside the geofence.
+     */
+    abstract boolean contains(double longitude, double latitude);
+
+    /**
+     * Creates the shape of a geofence returned by the service.
+     * @param geofenceId ID of the geofence.
+     * @param geometry its geometry.
+     * @return the shape, or null if the geometry is missing or malformed.
+     */
+    static GeofenceShape of(String geofenceId, GeofenceGeometry geometry) {
+        if (geometry == null) {
+            return null;
+        }
+        if (geometry.getPolygon() != null && !geometry.getPolygon().isEmpty()) {
+            return PolygonShape.of(geofenceId, geometry.getPolygon());
+        }
+        Circle circle = geometry.getCircle();
+        if (circle != null && circle.getCenter() != null && circle.getCenter().size() >= 2
+                && circle.getRadius() != null) {
+            return new CircleShape(geofenceId, circle.getCenter().get(0),
+                    circle.getCenter().get(1), circle.getRadius());
+        }
+        return null;
+    }
+
+    /**
+     * A polygon made of linear rings: the exterior ring followed by any
+     * interior rings (holes). A point is inside if a ray from it crosses the
+     * rings an odd number of times.
+     */
+    static final class PolygonShape extends GeofenceShape {
+        private final double[][] xs;
+        private final double[][] ys;
+
+        private PolygonShape(String geofenceId, double[][] xs, double[][] ys) {
+            super(geofenceId);
+            this.xs = xs;
+            this.ys = ys;
+            minX = Double.POSITIVE_INFINITY;
+            minY = Double.POSITIVE_INFINITY;
+            maxX = Double.NEGATIVE_INFINITY;
+            maxY = Double.NEGATIVE_INFINITY;
+            // holes lie within the exterior ring, so it alone bounds the polygon.
+            for (int i = 0; i < xs[0].length; i++) {
+                minX = Math.min(minX, xs[0][i]);
+                maxX = Math.max(maxX, xs[0][i]);
+                minY = Math.min(minY, ys[0][i]);
+                maxY = Math.max(maxY, ys[0][i]);
+            }
+        }
+
+        static PolygonShape of(String geofenceId, List<List<List<Double>>> rings) {
+            double[][] xs = new double[rings.size()][];
+            double[][] ys = new double[rings.size()][];
+            for (int r = 0; r < rings.size(); r++) {
+                List<List<Double>> ring = rings.get(r);
+                if (ring == null || ring.size() < 3) {
+                    return null;
+                }
+                xs[r] = new double[ring.size()];
+                ys[r] = new double[ring.size()];
+                for (int i = 0; i < ring.size(); i++) {
+                    List<Double> vertex = ring.get(i);
+                    if (vertex == null || vertex.size() < 2
+                            || vertex.get(0) == null || vertex.get(1) == null) {
+                        return null;
+                    }
+                    xs[r][i] = vertex.get(0);
+                    ys[r][i] = vertex.get(1);
+                }
+            }
+            return new PolygonShape(geofenceId, xs, ys);
+        }
+
+        @Override
+        boolean contains(double longitude, double latitude) {
+            boolean inside = false;
+            for (int r = 0; r < xs.length; r++) {
+                double[] x = xs[r];
+                double[] y = ys[r];
+                for (int i = 0, j = x.length - 1; i < x.length; j = i++) {
+                    if ((y[i] > latitude) != (y[j] > latitude)
+                            && longitude < (x[j] - x[i]) * (latitude - y[i]) / (y[j] - y[i]) + x[i]) {
+                        inside = !inside;
+                    }
+                }
+            }
+            return inside;
+        }
+    }
+
+    /**
+     * A circle given by its center and radius in meters. Distances are great
+     * circle distances on a spherical earth.
+     */
+    static final class CircleShape extends GeofenceShape {
+        private final double centerLongitude;
+        private final double centerLatitude;
+        private final double radiusMeters;
+
+        CircleShape(String geofenceId, double centerLongitude, double centerLatitude,
+                double radiusMeters) {
+            super(geofenceId);
+            this.centerLongitude = centerLongitude;
+            this.centerLatitude = centerLatitude;
+            this.radiusMeters = radiusMeters;
+            double deltaLatitude = Math.toDegrees(radiusMeters / EARTH_RADIUS_METERS);
+            minY = centerLatitude - deltaLatitude;
+            maxY = centerLatitude + deltaLatitude;
+            double cos = Math.cos(Math.toRadians(centerLatitude));
+            if (minY <= -90 || maxY >= 90 || cos <= 1e-9) {
+                // the circle covers a pole; every longitude is in range.
+                minX = -180;
+                maxX = 180;
+            } else {
+                double deltaLongitude = Math.toDegrees(Math.asin(Math.min(1,
+                        Math.sin(radiusMeters / EARTH_RADIUS_METERS) / cos)));
+                minX = centerLongitude - deltaLongitude;
+                maxX = centerLongitude + deltaLongitude;
+            }
+        }
+
+        @Override
+        boolean contains(double longitude, double latitude) {
+            double lat1 = Math.toRadians(centerLatitude);
+            double lat2 = Math.toRadians(latitude);
+            double sinLat = Math.sin((lat2 - lat1) / 2);
+            double sinLon = Math.sin(Math.toRadians(longitude - centerLongitude) / 2);
+            double a = sinLat * sinLat + Math.cos(lat1) * Math.cos(lat2) * sinLon * sinLon;
+            double distance = 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(a)));
+            return distance <= radiusMeters;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.geo.geofence;
+
+import android.location.Location;
+
+/**
+ * A device entering or leaving a geofence, detected on the device by a
+ * {@link GeofenceEngine}.
+ */
+public class GeofenceTransition {
+    private final Type type;
+    private final String geofenceId;
+    private final Location location;
+
+    GeofenceTransition(Type type, String geofenceId, Location location) {
+        this.type = type;
+        this.geofenceId = geofenceId;
+        this.location = location;
+    }
+
+    /**
+     * Returns whether the device entered or left the geofence.
+     * @return whether the device entered or left the geofence.
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Returns the ID of the geofence.
+     * @return the ID of the geofence.
+     */
+    public String getGeofenceId() {
+        return geofenceId;
+    }
+
+    /**
+     * Returns the location at which the transition was detected.
+     * @return the location at which the transition was detected.
+     */
+    public Location getLocation() {
+        return location;
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + geofenceId;
+    }
+
+    public enum Type {
+        /**
+         * The device moved into the geofence.
+         */
+        ENTER,
+
+        /**
+         * The device moved out of the geofence.
+         */
+        EXIT
+    }
+}
@@ -0,0 +1,485 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.geo.map;
+
+import android.util.Log;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.internal.DiskLruStore;
+import com.amazonaws.services.geo.AmazonLocation;
+import com.amazonaws.services.geo.model.GetMapGlyphsRequest;
+import com.amazonaws.services.geo.model.GetMapGlyphsResult;
+import com.amazonaws.services.geo.model.GetMapSpritesRequest;
+import com.amazonaws.services.geo.model.GetMapSpritesResult;
+import com.amazonaws.services.geo.model.GetMapTileRequest;
+import com.amazonaws.services.geo.model.GetMapTileResult;
+import com.amazonaws.util.BinaryUtils;
+import com.amazonaws.util.StringUtils;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * A cache of map tiles, glyphs and sprites in front of
+ * {@link AmazonLocation}, so that panning back over a map does not download
+ * the same resources again.
+ * <p>
+ * Resources are keyed by map name and tile coordinates, font stack and
+ * unicode range, or sprite file name. Recently used resources are kept in a
+ * memory LRU bounded by bytes. When a directory is given, every resource is
+ * also stored there, and the least recently used files are deleted once the
+ * directory exceeds its byte limit. Concurrent requests for the same
+ * resource share one service call.
+ * <p>
+ * Entries honor the {@code Cache-Control} header of the response: a
+ * {@code no-store} resource is never cached, a {@code no-cache} resource is
+ * fetched again on every request, and a {@code max-age} sets how long an
+ * entry is used before it is fetched again. Responses without a max-age are
+ * kept for {@link #DEFAULT_MAX_AGE_MILLIS}.
+ * <p>
+ * Every hit wraps the same cached bytes, which must not be modified. This
+ * class is thread safe.
+ */
+public class MapResourceCache {
+    private static final String TAG = MapResourceCache.class.getSimpleName();
+
+    /** Default size of the memory cache */
+    public static final long DEFAULT_MAX_MEMORY_BYTES = 8L * 1024 * 1024;
+
+    /** Default size of the disk cache */
+    public static final long DEFAULT_MAX_DISK_BYTES = 100L * 1024 * 1024;
+
+    /** How long a response without a max-age is used */
+    public static final long DEFAULT_MAX_AGE_MILLIS = 24L * 60 * 60 * 1000;
+
+    private static final int FILE_VERSION = 1;
+    private static final String ENTRY_SUFFIX = ".map";
+
+    private final AmazonLocation location;
+    /** Null to cache in memory only */
+    private final DiskLruStore disk;
+    private final long maxMemoryBytes;
+    private final long defaultMaxAgeMillis;
+
+    /** Guarded by itself */
+    private final LinkedHashMap<String, Entry> memory =
+            new LinkedHashMap<String, Entry>(16, 0.75f, true);
+    private long memoryBytes;
+
+    private final ConcurrentMap<String, FutureTask<Entry>> inFlight =
+            new ConcurrentHashMap<String, FutureTask<Entry>>();
+
+    /**
+     * Creates a cache with the default limits.
+     *
+     * @param location the client used on a cache miss.
+     * @param directory the directory for the disk cache, or null to cache in
+     *            memory only.
+     */
+    public MapResourceCache(AmazonLocation location, File directory) {
+        this(location, directory, DEFAULT_MAX_MEMORY_BYTES, DEFAULT_MAX_DISK_BYTES,
+                DEFAULT_MAX_AGE_MILLIS);
+    }
+
+    /**
+     * Creates a cache.
+     *
+     * @param location the client used on a cache miss.
+     * @param directory the directory for the disk cache, or null to cache in
+     *            memory only.
+     * @param maxMemoryBytes the maximum number of resource bytes kept in
+     *            memory.
+     * @param maxDiskBytes the maximum number of resource bytes kept on disk.
+     * @param defaultMaxAgeMillis how long a response without a
+     *            {@code Cache-Control} max-age is used.
+     */
+    public MapResourceCache(AmazonLocation location, File directory, long maxMemoryBytes,
+            long maxDiskBytes, long defaultMaxAgeMillis) {
+        if (location == null) {
+            throw new IllegalArgumentException("location must not be null");
+        }
+        if (maxMemoryBytes < 0 || maxDiskBytes < 0 || defaultMaxAgeMillis < 0) {
+            throw new IllegalArgumentException("Cache limits must not be negative");
+        }
+        this.location = location;
+        this.disk = directory == null ? null
+                : new DiskLruStore(directory, ENTRY_SUFFIX, maxDiskBytes);
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.defaultMaxAgeMillis = defaultMaxAgeMillis;
+    }
+
+    /**
+     * Returns a map tile from the cache, or fetches and caches it on a miss.
+     *
+     * @param request the tile request.
+     * @return the result, whose blob reads from memory.
+     * @throws AmazonClientException if the tile is not cached and the service
+     *             call fails.
+     */
+    public GetMapTileResult getMapTile(final GetMapTileRequest request) {
+        final Entry entry = get(keyOf(request), new Callable<Entry>() {
+            @Override
+            public Entry call() {
+                final GetMapTileResult result = location.getMapTile(request);
+                return entryOf(result.getBlob(), result.getContentType(),
+                        result.getCacheControl());
+            }
+        });
+        return new GetMapTileResult()
+                .withBlob(ByteBuffer.wrap(entry.blob))
+                .withContentType(entry.contentType)
+                .withCacheControl(entry.cacheControl);
+    }
+
+    /**
+     * Returns map glyphs from the cache, or fetches and caches them on a
+     * miss.
+     *
+     * @param request the glyphs request.
+     * @return the result, whose blob reads from memory.
+     * @throws AmazonClientException if the glyphs are not cached and the
+     *             service call fails.
+     */
+    public GetMapGlyphsResult getMapGlyphs(final GetMapGlyphsRequest request) {
+        final Entry entry = get(keyOf(request), new Callable<Entry>() {
+            @Override
+            public Entry call() {
+                final GetMapGlyphsResult result = location.getMapGlyphs(request);
+                return entryOf(result.getBlob(), result.getContentType(),
+                        result.getCacheControl());
+            }
+        });
+        return new GetMapGlyphsResult()
+                .withBlob(ByteBuffer.wrap(entry.blob))
+                .withContentType(entry.contentType)
+                .withCacheControl(entry.cacheControl);
+    }
+
+    /**
+     * Returns a sprite file from the cache, or fetches and caches it on a
+     * miss.
+     *
+     * @param request the sprites request.
+     * @return the result, whose blob reads from memory.
+     * @throws AmazonClientException if the sprites are not cached and the
+     *             service call fails.
+     */
+    public GetMapSpritesResult getMapSprites(final GetMapSpritesRequest request) {
+        final Entry entry = get(keyOf(request), new Callable<Entry>() {
+            @Override
+            public Entry call() {
+                final GetMapSpritesResult result = location.getMapSprites(request);
+                return entryOf(result.getBlob(), result.getContentType(),
+                        result.getCacheControl());
+            }
+        });
+        return new GetMapSpritesResult()
+                .withBlob(ByteBuffer.wrap(entry.blob))
+                .withContentType(entry.contentType)
+                .withCacheControl(entry.cacheControl);
+    }
+
+    /**
+     * Removes everything from the cache.
+     */
+    public void clear() {
+        synchronized (memory) {
+            memory.clear();
+            memoryBytes = 0;
+        }
+        if (disk != null) {
+            disk.clear();
+        }
+    }
+
+    /**
+     * Returns the fresh cached entry for the key, or loads it, sharing the
+     * service call with any concurrent load of the same key.
+     */
+    private Entry get(String key, Callable<Entry> fetch) {
+        final Entry cached = lookup(key);
+        if (cached != null) {
+            return cached;
+        }
+        final FutureTask<Entry> task = new FutureTask<Entry>(new Load(key, fetch));
+        final FutureTask<Entry> existing = inFlight.putIfAbsent(key, task);
+        final FutureTask<Entry> shared = existing == null ? task : existing;
+        if (existing == null) {
+            try {
+                task.run();
+            } finally {
+                inFlight.remove(key, task);
+            }
+        }
+        try {
+            return shared.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmazonClientException("Interrupted while waiting for a map resource", e);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof AmazonClientException) {
+                throw (AmazonClientException) cause;
+            }
+            throw new AmazonClientException("Unable to get map resource: "
+                    + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Returns the memory or disk entry for the key if it has not expired,
+     * promoting a disk entry into memory.
+     */
+    private Entry lookup(String key) {
+        final long now = System.currentTimeMillis();
+        synchronized (memory) {
+            final Entry entry = memory.get(key);
+            if (entry != null) {
+                if (entry.expiresAt > now) {
+                    return entry;
+                }
+                memory.remove(key);
+                memoryBytes -= entry.blob.length;
+            }
+        }
+        final File file = disk == null ? null : disk.get(key);
+        if (file == null) {
+            return null;
+        }
+        final Entry entry;
+        try {
+            entry = read(file);
+        } catch (final IOException e) {
+            // deleted while reading
+            return null;
+        }
+        if (entry.expiresAt <= now) {
+            return null;
+        }
+        remember(key, entry);
+        return entry;
+    }
+
+    private final class Load implements Callable<Entry> {
+        private final String key;
+        private final Callable<Entry> fetch;
+
+        Load(String key, Callable<Entry> fetch) {
+            this.key = key;
+            this.fetch = fetch;
+        }
+
+        @Override
+        public Entry call() throws Exception {
+            final Entry entry = fetch.call();
+            if (entry.expiresAt <= System.currentTimeMillis()) {
+                // no-store, no-cache or max-age=0
+                return entry;
+            }
+            remember(key, entry);
+            if (disk != null) {
+                store(key, entry);
+            }
+            return entry;
+        }
+    }
+
+    private Entry entryOf(ByteBuffer buffer, String contentType, String cacheControl) {
+        final byte[] blob;
+        if (buffer == null) {
+            blob = new byte[0];
+        } else {
+            blob = new byte[buffer.remaining()];
+            buffer.duplicate().get(blob);
+        }
+        return new Entry(blob, contentType, cacheControl,
+                expiresAt(cacheControl, System.currentTimeMillis(), defaultMaxAgeMillis));
+    }
+
+    /**
+     * The time until which a response may be used without fetching it
+     * again: {@link Long#MIN_VALUE} for {@code no-store}, now for
+     * {@code no-cache}, now plus {@code max-age} when given, and now plus
+     * the default otherwise.
+     */
+    static long expiresAt(String cacheControl, long now, long defaultMaxAgeMillis) {
+        long maxAgeMillis = defaultMaxAgeMillis;
+        final String[] directives = cacheControl == null ? new String[0] : cacheControl.split(",");
+        for (final String part : directives) {
+            final String directive = part.trim().toLowerCase(Locale.US);
+            if ("no-store".equals(directive)) {
+                return Long.MIN_VALUE;
+            } else if ("no-cache".equals(directive)) {
+                maxAgeMillis = 0;
+            } else if (directive.startsWith("max-age=") && maxAgeMillis != 0) {
+                try {
+                    final long seconds = Long.parseLong(
+                            directive.substring("max-age=".length()).replace("\"", "").trim());
+                    // clamped, as a huge max-age would overflow to the past
+                    maxAgeMillis = Math.min(Math.max(0, seconds), Long.MAX_VALUE / 1000) * 1000L;
+                } catch (final NumberFormatException e) {
+                    Log.d(TAG, "Ignoring malformed Cache-Control directive: " + directive);
+                }
+            }
+        }
+        return maxAgeMillis > Long.MAX_VALUE - now ? Long.MAX_VALUE : now + maxAgeMillis;
+    }
+
+    private void remember(String key, Entry entry) {
+        if (entry.blob.length > maxMemoryBytes) {
+            return;
+        }
+        synchronized (memory) {
+            final Entry previous = memory.put(key, entry);
+            if (previous != null) {
+                memoryBytes -= previous.blob.length;
+            }
+            memoryBytes += entry.blob.length;
+            final Iterator<Entry> eldest = memory.values().iterator();
+            while (memoryBytes > maxMemoryBytes && eldest.hasNext()) {
+                memoryBytes -= eldest.next().blob.length;
+                eldest.remove();
+            }
+        }
+    }
+
+    private void store(String key, final Entry entry) {
+        try {
+            disk.put(key, new DiskLruStore.EntryWriter() {
+                @Override
+                public void write(OutputStream stream) throws IOException {
+                    final DataOutputStream out = new DataOutputStream(stream);
+                    out.writeInt(FILE_VERSION);
+                    out.writeLong(entry.expiresAt);
+                    writeField(out, entry.contentType);
+                    writeField(out, entry.cacheControl);
+                    out.writeInt(entry.blob.length);
+                    out.write(entry.blob);
+                    out.flush();
+                }
+            });
+        } catch (final IOException e) {
+            Log.w(TAG, "Unable to store map resource in the disk cache", e);
+        }
+    }
+
+    private static Entry read(File file) throws IOException {
+        final DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)));
+        try {
+            if (in.readInt() != FILE_VERSION) {
+                throw new IOException("Unknown cache file version in " + file);
+            }
+            final long expiresAt = in.readLong();
+            final String contentType = readField(in);
+            final String cacheControl = readField(in);
+            final byte[] blob = new byte[in.readInt()];
+            in.readFully(blob);
+            return new Entry(blob, contentType, cacheControl, expiresAt);
+        } finally {
+            in.close();
+        }
+    }
+
+    private static void writeField(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        final byte[] bytes = value.getBytes(StringUtils.UTF8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readField(DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StringUtils.UTF8);
+    }
+
+    static String keyOf(GetMapTileRequest request) {
+        return hash("tile", request.getMapName(), request.getZ(), request.getX(),
+                request.getY());
+    }
+
+    static String keyOf(GetMapGlyphsRequest request) {
+        return hash("glyphs", request.getMapName(), request.getFontStack(),
+                request.getFontUnicodeRange());
+    }
+
+    static String keyOf(GetMapSpritesRequest request) {
+        return hash("sprites", request.getMapName(), request.getFileName());
+    }
+
+    /**
+     * The cache key: a hex SHA-256 over the fields, each length prefixed so
+     * that no two requests share an encoding. Also used as the file name.
+     */
+    private static String hash(String... fields) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (final String field : fields) {
+                if (field == null) {
+                    digest.update(new byte[] {
+                            -1, -1, -1, -1
+                    });
+                    continue;
+                }
+                final byte[] bytes = field.getBytes(StringUtils.UTF8);
+                digest.update(ByteBuffer.allocate(4).putInt(bytes.length).array());
+                digest.update(bytes);
+            }
+            return BinaryUtils.toHex(digest.digest());
+        } catch (final NoSuchAlgorithmException e) {
+            throw new AmazonClientException("SHA-256 is not available", e);
+        }
+    }
+
+    /** A resource held by the cache, shared read-only by every hit */
+    private static final class Entry {
+        final byte[] blob;
+        final String contentType;
+        final String cacheControl;
+        final long expiresAt;
+
+        Entry(byte[] blob, String contentType, String cacheControl, long expiresAt) {
+            this.blob = blob;
+            this.contentType = contentType;
+            this.cacheControl = cacheControl;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
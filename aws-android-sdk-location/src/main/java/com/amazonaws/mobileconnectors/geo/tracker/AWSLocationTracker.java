@@ -15,12 +15,17 @@
 
 package com.amazonaws.mobileconnectors.geo.tracker;
 
+import android.content.BroadcastReceiver;
 import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
+import android.content.IntentFilter;
 import android.content.ServiceConnection;
 import android.content.SharedPreferences;
 import android.location.Location;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+import android.os.Build;
 import android.os.IBinder;
 import android.util.Log;
 
@@ -30,7 +35,9 @@ import com.amazonaws.ClientConfiguration;
 import com.amazonaws.auth.AWSCredentialsProvider;
 import com.amazonaws.services.geo.AmazonLocationClient;
 
+import java.io.File;
 import java.util.UUID;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -42,16 +49,25 @@ public class AWSLocationTracker {
     public static final Long DEFAULT_RETRIEVE_LOCATION_FREQUENCY = TimeUnit.SECONDS.toMillis(30);
     public static final Long DEFAULT_EMIT_LOCATION_FREQUENCY = TimeUnit.MINUTES.toMillis(5);
     private static final String DEFAULT_DEVICE_ID_KEY = "AWSLocationTrackerDeviceId";
+    private static final String SPOOL_FILE_PREFIX = "AWSLocationTracker-";
     private AtomicBoolean isTracking;
     private String deviceId;
     private TrackingListener listener;
     private TrackingOptions options;
     private TrackingService trackingService;
     private TrackingPublisher trackingPublisher;
+    private Context receiverContext;
     private final String trackerName;
     private final AWSCredentialsProvider credentialsProvider;
     private final AmazonLocationClient locationClient;
 
+    private final BroadcastReceiver connectivityReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            updateNetworkState(context);
+        }
+    };
+
     private final ServiceConnection serviceConnection = new ServiceConnection() {
         @Override
         public void onServiceConnected(ComponentName name, IBinder service) {
@@ -65,6 +81,9 @@ public class AWSLocationTracker {
                     new TrackingServiceListener() {
                         @Override
                         public void onLocationReceived(Location location) {
+                            if (options.getGeofenceEngine() != null) {
+                                options.getGeofenceEngine().evaluate(location);
+                            }
                             trackingPublisher.enqueue(location);
                         }
 
@@ -145,12 +164,20 @@ public class AWSLocationTracker {
                 locationClient,
                 deviceId,
                 trackerName,
-                5,
+                Executors.newScheduledThreadPool(5),
                 options.getEmitLocationFrequency() == null ?
                         DEFAULT_EMIT_LOCATION_FREQUENCY :
                         options.getEmitLocationFrequency(),
                 10,
-                listener);
+                listener,
+                new PositionSpool(new File(context.getFilesDir(), SPOOL_FILE_PREFIX + trackerName)),
+                options.getMinUpdateDistance() == null ? 0 : options.getMinUpdateDistance(),
+                options.getMinUpdateInterval() == null ? 0 : options.getMinUpdateInterval());
+
+        // The receiver is called right away with the current network state.
+        receiverContext = context.getApplicationContext();
+        receiverContext.registerReceiver(connectivityReceiver,
+                new IntentFilter(ConnectivityManager.CONNECTIVITY_ACTION));
 
         context.bindService(new Intent(context, TrackingService.class), serviceConnection,
                 Context.BIND_AUTO_CREATE);
@@ -179,6 +206,7 @@ public class AWSLocationTracker {
     private void stopTracking() {
         if (trackingService != null && trackingPublisher != null) {
             trackingService.stopLocationUpdates();
+            unregisterConnectivityReceiver();
             trackingPublisher.shutdown();
             trackingPublisher = null;
             trackingService = null;
@@ -187,6 +215,34 @@ public class AWSLocationTracker {
         }
     }
 
+    private void updateNetworkState(Context context) {
+        TrackingPublisher publisher = trackingPublisher;
+        if (publisher == null) {
+            return;
+        }
+        try {
+            ConnectivityManager connectivityManager =
+                    (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+            NetworkInfo networkInfo = connectivityManager.getActiveNetworkInfo();
+            boolean metered = Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN ||
+                    connectivityManager.isActiveNetworkMetered();
+            publisher.setNetworkState(networkInfo != null && networkInfo.isConnected(), metered);
+        } catch (SecurityException exception) {
+            Log.w(TAG, "Unable to read the network state.", exception);
+        }
+    }
+
+    private void unregisterConnectivityReceiver() {
+        if (receiverContext != null) {
+            try {
+                receiverContext.unregisterReceiver(connectivityReceiver);
+            } catch (IllegalArgumentException notRegistered) {
+                // Already unregistered.
+            }
+            receiverContext = null;
+        }
+    }
+
     private String getDefaultDeviceId(Context context) {
         SharedPreferences sharedPreferences = context.getSharedPreferences(DEFAULT_DEVICE_ID_KEY, Context.MODE_PRIVATE);
         String uniqueID = sharedPreferences != null ?
@@ -0,0 +1,339 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.geo.tracker;
+
+import android.util.Log;
+
+import com.amazonaws.services.geo.model.DevicePositionUpdate;
+import com.amazonaws.util.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The position updates which have not been published yet, oldest first.
+ * <p>
+ * A spool created with a file keeps a copy of its positions in that file, so
+ * that positions recorded before the process died are published after a
+ * restart. New positions are appended to the file, and removing positions
+ * only records the offset of the oldest remaining one in a small file next to
+ * it, so neither costs more than a few bytes of I/O. The file is compacted
+ * once most of it has been removed. If the file cannot be written the spool
+ * keeps working in memory.
+ */
+public class PositionSpool {
+    private static final String TAG = PositionSpool.class.getSimpleName();
+
+    /** Default maximum number of positions kept; the oldest are dropped beyond it. */
+    public static final int DEFAULT_CAPACITY = 10000;
+
+    /** Removed bytes at the head of the file which don't make compacting it worthwhile yet. */
+    private static final long MIN_COMPACT_BYTES = 64 * 1024;
+
+    private final File file;
+    private final File offsetFile;
+    private final int capacity;
+    private final ArrayDeque<DevicePositionUpdate> positions = new ArrayDeque<DevicePositionUpdate>();
+
+    /** Bytes at the start of the file holding positions which have been removed. */
+    private long head;
+    /** Length of the file. */
+    private long length;
+    /** Set when a write failed, so that the file no longer matches the positions. */
+    private boolean dirty;
+
+    /**
+     * Creates a spool which keeps its positions in memory only.
+     */
+    public PositionSpool() {
+        this(null, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a spool backed by a file, loading the positions already in it.
+     * @param file The spool file, which is created if it doesn't exist.
+     */
+    public PositionSpool(File file) {
+        this(file, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a spool, loading the positions already in its file.
+     * @param file The spool file, or null to keep positions in memory only.
+     * @param capacity The maximum number of positions kept.
+     */
+    public PositionSpool(File file, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be greater than 0");
+        }
+        this.file = file;
+        this.offsetFile = file == null ? null : new File(file.getPath() + ".offset");
+        this.capacity = capacity;
+        if (file != null && file.exists()) {
+            load();
+            // Start from a compact file whose lines are exactly the positions.
+            rewrite();
+        } else if (offsetFile != null) {
+            offsetFile.delete();
+        }
+    }
+
+    /**
+     * Adds a position after the others.
+     * @param update the position.
+     */
+    public synchronized void add(DevicePositionUpdate update) {
+        positions.addLast(update);
+        append(update);
+        if (positions.size() > capacity) {
+            head += byteLength(positions.removeFirst());
+            Log.w(TAG, "Position spool is full, dropped the oldest position.");
+            commitHead();
+        }
+    }
+
+    /**
+     * Returns up to {@code count} positions, starting {@code offset} positions
+     * from the oldest, without removing them.
+     * @param offset number of oldest positions to skip.
+     * @param count maximum number of positions to return.
+     * @return the positions, oldest first.
+     */
+    public synchronized List<DevicePositionUpdate> peek(int offset, int count) {
+        List<DevicePositionUpdate> result = new ArrayList<DevicePositionUpdate>(
+                Math.max(0, Math.min(count, positions.size() - offset)));
+        Iterator<DevicePositionUpdate> iterator = positions.iterator();
+        for (int i = 0; iterator.hasNext() && result.size() < count; i++) {
+            DevicePositionUpdate update = iterator.next();
+            if (i >= offset) {
+                result.add(update);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Removes the oldest positions, once they have been published.
+     * @param count number of positions to remove.
+     */
+    public synchronized void remove(int count) {
+        for (int i = 0; i < count && !positions.isEmpty(); i++) {
+            head += byteLength(positions.removeFirst());
+        }
+        commitHead();
+    }
+
+    /**
+     * Returns the number of positions in the spool.
+     * @return the number of positions in the spool.
+     */
+    public synchronized int size() {
+        return positions.size();
+    }
+
+    private void load() {
+        BufferedReader reader = null;
+        try {
+            FileInputStream in = new FileInputStream(file);
+            reader = new BufferedReader(new InputStreamReader(in, StringUtils.UTF8));
+            long offset = readOffset();
+            if (offset > 0 && offset <= file.length()) {
+                in.skip(offset - 1);
+                if (in.read() != '\n') {
+                    // The offset doesn't end a line, so skip the rest of that line.
+                    reader.readLine();
+                }
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                DevicePositionUpdate update = parse(line);
+                if (update != null) {
+                    positions.addLast(update);
+                }
+            }
+            while (positions.size() > capacity) {
+                positions.removeFirst();
+            }
+            Log.d(TAG, "Loaded " + positions.size() + " unpublished positions.");
+        } catch (IOException exception) {
+            Log.w(TAG, "Unable to read position spool " + file, exception);
+        } finally {
+            closeQuietly(reader);
+        }
+    }
+
+    /**
+     * Returns the offset recorded by the last removal, or 0 if there is none. A
+     * write cut short by the process dying leaves a smaller number, which at
+     * worst publishes some positions twice.
+     */
+    private long readOffset() {
+        if (!offsetFile.exists()) {
+            return 0;
+        }
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(offsetFile), StringUtils.UTF8));
+            String line = reader.readLine();
+            return line == null ? 0 : Long.parseLong(line.trim());
+        } catch (IOException exception) {
+            Log.w(TAG, "Unable to read position spool offset " + offsetFile, exception);
+            return 0;
+        } catch (NumberFormatException exception) {
+            return 0;
+        } finally {
+            closeQuietly(reader);
+        }
+    }
+
+    private void append(DevicePositionUpdate update) {
+        if (file == null) {
+            return;
+        }
+        if (dirty) {
+            rewrite();
+            return;
+        }
+        Writer writer = null;
+        try {
+            String line = format(update);
+            writer = new OutputStreamWriter(new FileOutputStream(file, true), StringUtils.UTF8);
+            writer.write(line);
+            writer.close();
+            writer = null;
+            length += line.getBytes(StringUtils.UTF8).length;
+        } catch (IOException exception) {
+            Log.w(TAG, "Unable to write position spool " + file, exception);
+            dirty = true;
+        } finally {
+            closeQuietly(writer);
+        }
+    }
+
+    /**
+     * Records the removed positions in the file: empties it when nothing is
+     * left, compacts it when most of it has been removed, and otherwise only
+     * writes the new offset.
+     */
+    private void commitHead() {
+        if (file == null) {
+            return;
+        }
+        if (dirty || positions.isEmpty() || (head >= MIN_COMPACT_BYTES && head * 2 >= length)) {
+            rewrite();
+            return;
+        }
+        Writer writer = null;
+        try {
+            writer = new OutputStreamWriter(new FileOutputStream(offsetFile), StringUtils.UTF8);
+            writer.write(Long.toString(head));
+        } catch (IOException exception) {
+            Log.w(TAG, "Unable to write position spool offset " + offsetFile, exception);
+            dirty = true;
+        } finally {
+            closeQuietly(writer);
+        }
+    }
+
+    private void rewrite() {
+        if (file == null) {
+            return;
+        }
+        File temp = new File(file.getPath() + ".tmp");
+        Writer writer = null;
+        try {
+            long written = 0;
+            writer = new OutputStreamWriter(new FileOutputStream(temp), StringUtils.UTF8);
+            for (DevicePositionUpdate update : positions) {
+                String line = format(update);
+                writer.write(line);
+                written += line.getBytes(StringUtils.UTF8).length;
+            }
+            writer.close();
+            writer = null;
+            // The old offset doesn't apply to the new file; without one it is read from the start.
+            if (offsetFile.exists() && !offsetFile.delete()) {
+                throw new IOException("Unable to delete " + offsetFile);
+            }
+            if (!temp.renameTo(file)) {
+                throw new IOException("Unable to rename " + temp + " to " + file);
+            }
+            head = 0;
+            length = written;
+            dirty = false;
+        } catch (IOException exception) {
+            Log.w(TAG, "Unable to write position spool " + file, exception);
+            dirty = true;
+        } finally {
+            closeQuietly(writer);
+        }
+    }
+
+    private static int byteLength(DevicePositionUpdate update) {
+        return format(update).getBytes(StringUtils.UTF8).length;
+    }
+
+    /**
+     * One position per line: device ID, longitude, latitude and sample time in
+     * milliseconds, separated by tabs. Device IDs cannot contain tabs.
+     */
+    private static String format(DevicePositionUpdate update) {
+        return update.getDeviceId() + '\t'
+                + update.getPosition().get(0) + '\t'
+                + update.getPosition().get(1) + '\t'
+                + update.getSampleTime().getTime() + '\n';
+    }
+
+    private static DevicePositionUpdate parse(String line) {
+        String[] fields = line.split("\t");
+        if (fields.length != 4) {
+            return null;
+        }
+        try {
+            DevicePositionUpdate update = new DevicePositionUpdate();
+            update.setDeviceId(fields[0]);
+            update.setPosition(Arrays.asList(Double.valueOf(fields[1]), Double.valueOf(fields[2])));
+            update.setSampleTime(new Date(Long.parseLong(fields[3])));
+            return update;
+        } catch (NumberFormatException exception) {
+            // A line cut short when the process died.
+            return null;
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException exception) {
+                // Nothing more to write or read.
+            }
+        }
+    }
+}
@@ -17,6 +17,8 @@ package com.amazonaws.mobileconnectors.geo.tracker;
 
 import androidx.annotation.NonNull;
 
+import com.amazonaws.mobileconnectors.geo.geofence.GeofenceEngine;
+
 /**
  * Configuration options for tracking.
  */
@@ -24,15 +26,32 @@ public class TrackingOptions {
     private String customDeviceId;
     private Long retrieveLocationFrequency;
     private Long emitLocationFrequency;
+    private GeofenceEngine geofenceEngine;
+    private Double minUpdateDistance;
+    private Long minUpdateInterval;
 
     protected TrackingOptions(
             String customDeviceId,
             Long retrieveLocationFrequency,
             Long emitLocationFrequency
+    ) {
+        this(customDeviceId, retrieveLocationFrequency, emitLocationFrequency, null, null, null);
+    }
+
+    protected TrackingOptions(
+            String customDeviceId,
+            Long retrieveLocationFrequency,
+            Long emitLocationFrequency,
+            GeofenceEngine geofenceEngine,
+            Double minUpdateDistance,
+            Long minUpdateInterval
     ) {
         this.customDeviceId = customDeviceId;
         this.retrieveLocationFrequency = retrieveLocationFrequency;
         this.emitLocationFrequency = emitLocationFrequency;
+        this.geofenceEngine = geofenceEngine;
+        this.minUpdateDistance = minUpdateDistance;
+        this.minUpdateInterval = minUpdateInterval;
     }
 
 
@@ -60,6 +79,32 @@ public class TrackingOptions {
         return emitLocationFrequency;
     }
 
+    /**
+     * Returns the engine which evaluates each tracked location against geofences on the device, if any.
+     * @return the engine which evaluates each tracked location against geofences on the device, or null.
+     */
+    public GeofenceEngine getGeofenceEngine() {
+        return geofenceEngine;
+    }
+
+    /**
+     * Returns the distance in meters a location must move from the last one kept to not be a near duplicate.
+     * @return the distance in meters a location must move from the last one kept to not be a near duplicate.
+     */
+    public Double getMinUpdateDistance() {
+        return minUpdateDistance;
+    }
+
+    /**
+     * Returns the time in milliseconds after the last location kept from which a location is never a near
+     * duplicate.
+     * @return the time in milliseconds after the last location kept from which a location is never a near
+     * duplicate.
+     */
+    public Long getMinUpdateInterval() {
+        return minUpdateInterval;
+    }
+
     public static Builder builder() {
         return new Builder();
     }
@@ -68,6 +113,9 @@ public class TrackingOptions {
         private String customDeviceId;
         private Long retrieveLocationFrequency;
         private Long emitLocationFrequency;
+        private GeofenceEngine geofenceEngine;
+        private Double minUpdateDistance;
+        private Long minUpdateInterval;
 
         /**
          * Sets the custom ID chosen to identify this device on the chosen tracker resource.
@@ -102,13 +150,50 @@ public class TrackingOptions {
             return this;
         }
 
+        /**
+         * Sets an engine to evaluate each tracked location against geofences on the device. Its listener
+         * receives the ENTER and EXIT transitions.
+         * @param geofenceEngine the engine, which should already have been synced.
+         * @return An instance of the builder object.
+         */
+        @NonNull
+        public Builder geofenceEngine(@NonNull GeofenceEngine geofenceEngine) {
+            this.geofenceEngine = geofenceEngine;
+            return this;
+        }
+
+        /**
+         * Sets the distance in meters a location must move from the last one kept to be published. Locations
+         * which are closer and sampled within the minimum update interval are dropped as near duplicates.
+         * @param minUpdateDistance the distance in meters.
+         * @return An instance of the builder object.
+         */
+        @NonNull
+        public Builder minUpdateDistance(@NonNull Double minUpdateDistance) {
+            this.minUpdateDistance = minUpdateDistance;
+            return this;
+        }
+
+        /**
+         * Sets the time in milliseconds after the last location kept from which locations are always
+         * published, even if the device hasn't moved the minimum update distance.
+         * @param minUpdateInterval the time in milliseconds.
+         * @return An instance of the builder object.
+         */
+        @NonNull
+        public Builder minUpdateInterval(@NonNull Long minUpdateInterval) {
+            this.minUpdateInterval = minUpdateInterval;
+            return this;
+        }
+
         /**
          * Builds a new instance of TrackingOptions.
          * @return a new instance of TrackingOptions.
          */
         @NonNull
         public TrackingOptions build() {
-            return new TrackingOptions(customDeviceId, retrieveLocationFrequency, emitLocationFrequency);
+            return new TrackingOptions(customDeviceId, retrieveLocationFrequency, emitLocationFrequency,
+                    geofenceEngine, minUpdateDistance, minUpdateInterval);
         }
     }
 }
@@ -19,21 +19,37 @@ import android.location.Location;
 import android.util.Log;
 
 import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.retry.RetryUtils;
 import com.amazonaws.services.geo.AmazonLocationClient;
 import com.amazonaws.services.geo.model.BatchUpdateDevicePositionRequest;
 import com.amazonaws.services.geo.model.BatchUpdateDevicePositionResult;
 import com.amazonaws.services.geo.model.DevicePositionUpdate;
 
 import java.util.ArrayList;
-import java.util.concurrent.BlockingQueue;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
- *
+ * Collects the device's positions in a {@link PositionSpool} and publishes them to Amazon Location Service
+ * in batches.
+ * <p>
+ * Batches are sent by the scheduled executor only, never on the thread calling {@link #enqueue(Location)}.
+ * Each scheduled run sends every full batch; on an unmetered network it also sends the remaining positions
+ * as a smaller batch. Runs are skipped while the network is unavailable, and after a batch failed to reach
+ * the service, or the service throttled it or failed with a server error, the following runs back off
+ * exponentially. Positions leave the spool only once the service has accepted them or rejected them as
+ * invalid.
+ * <p>
+ * A position is dropped as a near duplicate if it is both closer than the minimum distance to and sampled
+ * within the minimum interval of the last position kept.
  */
 public class TrackingPublisher {
     private static final String TAG = TrackingPublisher.class.getSimpleName();
@@ -42,14 +58,51 @@ public class TrackingPublisher {
     private static final long FINAL_FLUSH_WAIT_TIME_MS = TimeUnit.SECONDS.toMillis(5L);;
     private static final int DEFAULT_BATCH_SIZE = 10;
     private static final long TERMINATION_TIMEOUT_MS = 10;
+    private static final int MAX_BACKOFF_EXPONENT = 5;
+
+    /**
+     * The most position updates a BatchUpdateDevicePosition request accepts.
+     */
+    public static final int MAX_BATCH_SIZE = 10;
 
+    private final AmazonLocationClient locationClient;
     private final String deviceId;
     private final String trackerName;
-    private final LinkedBlockingQueue<DevicePositionUpdate> positionUpdateQueue;
-    private final LinkedBlockingQueue<BatchUpdateDevicePositionRequest> batchRequestQueue;
+    private final int batchSize;
+    private final PositionSpool spool;
+    private final double minUpdateDistanceMeters;
+    private final long minUpdateIntervalMillis;
+    private final TrackingListener listener;
     private final ScheduledFuture<?> scheduledFuture;
     private final ScheduledExecutorService scheduledExecutorService;
-    private final BatchPublisher batchPublisher;
+
+    /**
+     * Serializes publishing, so that a batch is never sent twice.
+     */
+    private final Object publishLock = new Object();
+
+    // The fields below are guarded by this.
+    private int inFlight;
+    private boolean hasLastPosition;
+    private double lastLongitude;
+    private double lastLatitude;
+    private long lastTime;
+    private boolean networkAvailable = true;
+    private boolean networkMetered = true;
+    private int consecutiveFailures;
+    private int skippedRuns;
+
+    private final Runnable scheduledPublish = new Runnable() {
+        @Override
+        public void run() {
+            try {
+                publish(false);
+            } catch (RuntimeException exception) {
+                // Keep the periodic task alive.
+                Log.e(TAG, "Unexpected exception publishing device locations.", exception);
+            }
+        }
+    };
 
     public TrackingPublisher(AmazonLocationClient locationClient,
                              String deviceId,
@@ -86,32 +139,110 @@ public class TrackingPublisher {
                              long publishIntervalMillis,
                              int batchSize,
                              TrackingListener listener) {
+        this(locationClient,
+             deviceId,
+             trackerName,
+             scheduledExecutorService,
+             publishIntervalMillis,
+             batchSize,
+             listener,
+             new PositionSpool(),
+             0,
+             0);
+    }
+
+    /**
+     * Creates a publisher.
+     * @param locationClient The client used to publish positions.
+     * @param deviceId The ID of this device on the tracker resource.
+     * @param trackerName The name of the tracker resource.
+     * @param scheduledExecutorService Runs the scheduled publishing.
+     * @param publishIntervalMillis The time between scheduled publishing runs.
+     * @param batchSize The number of positions in a full batch, at most {@link #MAX_BATCH_SIZE}.
+     * @param listener Notified of published batches.
+     * @param spool Holds the positions until they are published; may already contain positions.
+     * @param minUpdateDistanceMeters Positions closer than this to the last kept position are near duplicates.
+     * @param minUpdateIntervalMillis Positions sampled sooner than this after the last kept position are near
+     *                                duplicates.
+     */
+    public TrackingPublisher(AmazonLocationClient locationClient,
+                             String deviceId,
+                             String trackerName,
+                             ScheduledExecutorService scheduledExecutorService,
+                             long publishIntervalMillis,
+                             int batchSize,
+                             TrackingListener listener,
+                             PositionSpool spool,
+                             double minUpdateDistanceMeters,
+                             long minUpdateIntervalMillis) {
+        this.locationClient = locationClient;
         this.deviceId = deviceId;
         this.trackerName = trackerName;
-        positionUpdateQueue = new LinkedBlockingQueue<>(batchSize);
-        batchRequestQueue = new LinkedBlockingQueue<>();
-        batchPublisher = new BatchPublisher(locationClient, batchRequestQueue, listener);
+        this.batchSize = Math.max(1, Math.min(batchSize, MAX_BATCH_SIZE));
+        this.listener = listener;
+        this.spool = spool;
+        this.minUpdateDistanceMeters = minUpdateDistanceMeters;
+        this.minUpdateIntervalMillis = minUpdateIntervalMillis;
         this.scheduledExecutorService = scheduledExecutorService;
-        scheduledFuture = scheduledExecutorService.scheduleAtFixedRate(batchPublisher,
+        scheduledFuture = scheduledExecutorService.scheduleAtFixedRate(scheduledPublish,
                                                                        publishIntervalMillis,
                                                                        publishIntervalMillis,
                                                                        TimeUnit.MILLISECONDS);
     }
 
     /**
-     * Adds a location to the location queue. If the location causes the batch size
-     * to be exceeded, this will trigger the locations to be flushed from the location
-     * queue into a batch request which will eventually be sent to the location service.
+     * Adds a location to the spool, unless it is a near duplicate of the last location added. Never
+     * publishes on the calling thread.
      * @param location - Location reported by the Android OS.
      */
     public synchronized void enqueue(Location location) {
+        if (isNearDuplicate(location)) {
+            Log.d(TAG, "Dropping near-duplicate location.");
+            return;
+        }
         Log.d(TAG, "Enqueuing location.");
-        DevicePositionUpdate positionUpdate = TrackingModelFactory.createDevicePositionUpdate(deviceId, location);
-        try {
-            positionUpdateQueue.add(positionUpdate);
-        } catch (IllegalStateException exception) {
-            flush(false);
-            positionUpdateQueue.add(positionUpdate);
+        hasLastPosition = true;
+        lastLongitude = location.getLongitude();
+        lastLatitude = location.getLatitude();
+        lastTime = location.getTime();
+        spool.add(TrackingModelFactory.createDevicePositionUpdate(deviceId, location));
+    }
+
+    private boolean isNearDuplicate(Location location) {
+        if (!hasLastPosition || location.getTime() - lastTime >= minUpdateIntervalMillis) {
+            return false;
+        }
+        float[] distance = new float[1];
+        Location.distanceBetween(lastLatitude, lastLongitude,
+                location.getLatitude(), location.getLongitude(), distance);
+        return distance[0] < minUpdateDistanceMeters;
+    }
+
+    /**
+     * Tells the publisher whether the device has network access. No batches are sent while it doesn't;
+     * when it comes back the spooled positions are published right away. On a metered network only full
+     * batches are sent.
+     * @param available true if the device has network access.
+     * @param metered true if the network is metered, like most cellular networks.
+     */
+    public void setNetworkState(boolean available, boolean metered) {
+        boolean reconnected;
+        synchronized (this) {
+            reconnected = available && !networkAvailable;
+            networkAvailable = available;
+            networkMetered = metered;
+            if (reconnected) {
+                consecutiveFailures = 0;
+                skippedRuns = 0;
+            }
+        }
+        if (reconnected) {
+            Log.d(TAG, "Network available, publishing spooled locations.");
+            try {
+                scheduledExecutorService.execute(scheduledPublish);
+            } catch (RejectedExecutionException exception) {
+                Log.d(TAG, "Tracking publisher is shut down.");
+            }
         }
     }
 
@@ -120,6 +251,7 @@ public class TrackingPublisher {
      */
     public void shutdown() {
         Log.i(TAG, "Shutting down tracking publisher.");
+        forceFlush();
         this.scheduledExecutorService.shutdown();
         try {
             this.scheduledExecutorService.awaitTermination(TERMINATION_TIMEOUT_MS, TimeUnit.MILLISECONDS);
@@ -127,65 +259,148 @@ public class TrackingPublisher {
         } catch (InterruptedException exception) {
             Log.w(TAG, "Service terminated during shutdown.", exception);
         }
-        forceFlush();
     }
 
     /**
      * Checks the number of position updates waiting to be batched.
-     * @return Number of position updates in the position queue.
+     * @return Number of position updates which don't fill a batch.
      */
-    public int pendingPositionUpdates() {
-        return positionUpdateQueue.size();
+    public synchronized int pendingPositionUpdates() {
+        return (spool.size() - inFlight) % batchSize;
     }
 
     /**
      * Checks the number of batches waiting to be sent to the location service.
-     * @return Number of pending batches.
+     * @return Number of pending full batches, not counting one being sent.
      */
-    public int pendingBatches() {
-        return batchRequestQueue.size();
+    public synchronized int pendingBatches() {
+        return (spool.size() - inFlight) / batchSize;
     }
 
 
     /**
-     * Force pending locations in the location queue to be batched and
-     * sent to the location service. This method should only be invoked
-     * in the event that a final flush of locations needs to be performed
-     * (During a shutdown for example)
+     * Force pending locations in the spool to be sent to the location service,
+     * including a final batch which isn't full, and wait for them to be sent.
+     * This method should only be invoked in the event that a final flush of
+     * locations needs to be performed (During a shutdown for example)
      */
     public void forceFlush() {
         Log.i(TAG, "Checking for remaining location updates.");
-        flush(true);
+        if (spool.size() == 0) {
+            return;
+        }
+        try {
+            Log.i(TAG, "Flushing remaining location updates.");
+            Future<?> flush = scheduledExecutorService.submit(new Runnable() {
+                @Override
+                public void run() {
+                    publish(true);
+                }
+            });
+            flush.get(FINAL_FLUSH_WAIT_TIME_MS, TimeUnit.MILLISECONDS);
+            Log.i(TAG, "Locations flushed.");
+        } catch (RejectedExecutionException exception) {
+            Log.w(TAG, "Tracking publisher is shut down; locations remain in the spool.");
+        } catch (InterruptedException exception) {
+            Log.w(TAG, "Tracking publisher was interrupted while flushing the location queue.");
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException exception) {
+            Log.w(TAG, "Exception flushing the location queue.", exception.getCause());
+        } catch (TimeoutException exception) {
+            Log.w(TAG, "Timed out flushing the location queue; locations remain in the spool.");
+        }
     }
 
     /**
-     * Creates a batch request from the current positions in the location queue
-     * and adds it to the request queue.
-     *
-     * @param force If true, it will attempt to stop the regularly scheduled execution
-     *              of the batch publisher and if successful, it will schedule the batch
-     *              publisher to run immediately.
+     * Sends the spooled positions in batches. Unless forced, skipped while the network is unavailable or
+     * backing off, and sends a final batch which isn't full only on an unmetered network.
+     * @param force If true, sends all positions regardless of the network state.
      */
-    private void flush(boolean force) {
-        if (positionUpdateQueue.size() > 0) {
-            Log.i(TAG, "Flushing position update queue. Forced = " + force);
-            BatchUpdateDevicePositionRequest newBatch = createNewBatch();
-            positionUpdateQueue.drainTo(newBatch.getUpdates());
-            batchRequestQueue.add(newBatch);
-            if (force) {
+    private void publish(boolean force) {
+        synchronized (publishLock) {
+            if (!force && !isPublishDue()) {
+                return;
+            }
+            while (true) {
+                List<DevicePositionUpdate> updates;
+                synchronized (this) {
+                    int available = spool.size();
+                    if (available == 0 || (available < batchSize && !force && networkMetered)) {
+                        return;
+                    }
+                    updates = spool.peek(0, batchSize);
+                    inFlight = updates.size();
+                }
+                Log.i(TAG, "Publishing device location update batch.");
+                BatchUpdateDevicePositionRequest request = createNewBatch();
+                request.getUpdates().addAll(updates);
+                BatchUpdateDevicePositionResult result = null;
                 try {
-                    Log.i(TAG, "Flushing remaining location updates.");
-                    Thread forceFlushThread = new Thread(batchPublisher);
-                    forceFlushThread.start();
-                    forceFlushThread.join(FINAL_FLUSH_WAIT_TIME_MS);
-                    Log.i(TAG, "Locations flushed.");
-                } catch (InterruptedException exception) {
-                    Log.w(TAG, "Tracking publisher was interrupted while flushing the location queue.");
+                    result = locationClient.batchUpdateDevicePosition(request);
+                } catch (AmazonClientException exception) {
+                    Log.e(TAG, "Exception invoking batchUpdateDevicePosition.", exception);
+                    if (isRejected(exception)) {
+                        // Sending the batch again would not help.
+                        Log.w(TAG, "Dropping " + updates.size() + " locations rejected by the service.");
+                        synchronized (this) {
+                            spool.remove(updates.size());
+                            inFlight = 0;
+                            consecutiveFailures = 0;
+                        }
+                        continue;
+                    }
+                    synchronized (this) {
+                        inFlight = 0;
+                        consecutiveFailures++;
+                        skippedRuns = 0;
+                    }
+                    return;
+                }
+                synchronized (this) {
+                    spool.remove(updates.size());
+                    inFlight = 0;
+                    consecutiveFailures = 0;
+                }
+                if (result != null) {
+                    Log.d(TAG, "Invoking onDataPublished callback.");
+                    listener.onDataPublished(new TrackingPublishedEvent(request, result));
                 }
             }
         }
     }
 
+    /**
+     * Returns true if the service rejected the batch itself, as opposed to throttling it or failing
+     * with a server error.
+     */
+    private static boolean isRejected(AmazonClientException exception) {
+        if (!(exception instanceof AmazonServiceException)) {
+            return false;
+        }
+        AmazonServiceException serviceException = (AmazonServiceException) exception;
+        int statusCode = serviceException.getStatusCode();
+        return statusCode >= 400 && statusCode < 500
+                && !RetryUtils.isThrottlingException(serviceException)
+                && statusCode != 429;
+    }
+
+    /**
+     * After {@code n} consecutive failures only every {@code 2^n}th run publishes, up to a limit.
+     */
+    private synchronized boolean isPublishDue() {
+        if (!networkAvailable) {
+            return false;
+        }
+        if (consecutiveFailures == 0) {
+            return true;
+        }
+        if (++skippedRuns >= 1 << Math.min(consecutiveFailures, MAX_BACKOFF_EXPONENT)) {
+            skippedRuns = 0;
+            return true;
+        }
+        return false;
+    }
+
     /**
      * Utility method to create a {@link BatchUpdateDevicePositionRequest} object.
      * @return An instance of {@link BatchUpdateDevicePositionRequest}
@@ -196,42 +411,4 @@ public class TrackingPublisher {
         batch.setUpdates(new ArrayList<DevicePositionUpdate>());
         return batch;
     }
-
-    /**
-     * Runnable that pulls all pending batch requests from a request queue
-     * and sends them to the location service by invoking {@link AmazonLocationClient#batchUpdateDevicePosition}
-     */
-    static final class BatchPublisher implements Runnable {
-        private final BlockingQueue<BatchUpdateDevicePositionRequest> requestQueue;
-        private final AmazonLocationClient locationClient;
-        private final TrackingListener listener;
-
-        public BatchPublisher(AmazonLocationClient locationClient,
-                              BlockingQueue<BatchUpdateDevicePositionRequest> requestQueue,
-                              TrackingListener listener) {
-            this.requestQueue = requestQueue;
-            this.locationClient = locationClient;
-            this.listener = listener;
-        }
-
-        @Override
-        public void run() {
-            Log.d(TAG, "Device location batches ready:" + requestQueue.size());
-            while (!requestQueue.isEmpty()) {
-                Log.i(TAG, "Publishing device location update batches.");
-                try {
-                    BatchUpdateDevicePositionRequest request = requestQueue.take();
-                    BatchUpdateDevicePositionResult result = locationClient.batchUpdateDevicePosition(request);
-                    Log.d(TAG, "Invoking onDataPublished callback.");
-                    listener.onDataPublished(new TrackingPublishedEvent(request, result));
-                } catch (InterruptedException exception) {
-                    Log.e(TAG, "BatchPublisher interrupted.", exception);
-                    listener.onDataPublicationError(TrackingError.serviceError(exception));
-                    Thread.currentThread().interrupt();
-                } catch (AmazonClientException exception) {
-                    Log.e(TAG, "Exception invoking batchUpdateDevicePosition.", exception);
-                }
-            }
-        }
-    }
 }
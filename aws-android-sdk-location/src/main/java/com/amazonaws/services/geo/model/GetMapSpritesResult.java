@@ -34,6 +34,13 @@ public class GetMapSpritesResult implements Serializable {
      */
     private String contentType;
 
+    /**
+     * <p>
+     * The HTTP Cache-Control directive for the value.
+     * </p>
+     */
+    private String cacheControl;
+
     /**
      * <p>
      * Contains the body of the sprite sheet or JSON offset ﬁle.
@@ -138,6 +145,51 @@ public class GetMapSpritesResult implements Serializable {
         return this;
     }
 
+    /**
+     * <p>
+     * The HTTP Cache-Control directive for the value.
+     * </p>
+     *
+     * @return <p>
+     *         The HTTP Cache-Control directive for the value.
+     *         </p>
+     */
+    public String getCacheControl() {
+        return cacheControl;
+    }
+
+    /**
+     * <p>
+     * The HTTP Cache-Control directive for the value.
+     * </p>
+     *
+     * @param cacheControl <p>
+     *            The HTTP Cache-Control directive for the value.
+     *            </p>
+     */
+    public void setCacheControl(String cacheControl) {
+        this.cacheControl = cacheControl;
+    }
+
+    /**
+     * <p>
+     * The HTTP Cache-Control directive for the value.
+     * </p>
+     * <p>
+     * Returns a reference to this object so that method calls can be chained
+     * together.
+     *
+     * @param cacheControl <p>
+     *            The HTTP Cache-Control directive for the value.
+     *            </p>
+     * @return A reference to this updated object so that method calls can be
+     *         chained together.
+     */
+    public GetMapSpritesResult withCacheControl(String cacheControl) {
+        this.cacheControl = cacheControl;
+        return this;
+    }
+
     /**
      * Returns a string representation of this object; useful for testing and
      * debugging.
@@ -152,7 +204,9 @@ public class GetMapSpritesResult implements Serializable {
         if (getBlob() != null)
             sb.append("Blob: " + getBlob() + ",");
         if (getContentType() != null)
-            sb.append("ContentType: " + getContentType());
+            sb.append("ContentType: " + getContentType() + ",");
+        if (getCacheControl() != null)
+            sb.append("CacheControl: " + getCacheControl());
         sb.append("}");
         return sb.toString();
     }
@@ -165,6 +219,8 @@ public class GetMapSpritesResult implements Serializable {
         hashCode = prime * hashCode + ((getBlob() == null) ? 0 : getBlob().hashCode());
         hashCode = prime * hashCode
                 + ((getContentType() == null) ? 0 : getContentType().hashCode());
+        hashCode = prime * hashCode
+                + ((getCacheControl() == null) ? 0 : getCacheControl().hashCode());
         return hashCode;
     }
 
@@ -188,6 +244,11 @@ public class GetMapSpritesResult implements Serializable {
         if (other.getContentType() != null
                 && other.getContentType().equals(this.getContentType()) == false)
             return false;
+        if (other.getCacheControl() == null ^ this.getCacheControl() == null)
+            return false;
+        if (other.getCacheControl() != null
+                && other.getCacheControl().equals(this.getCacheControl()) == false)
+            return false;
         return true;
     }
 }
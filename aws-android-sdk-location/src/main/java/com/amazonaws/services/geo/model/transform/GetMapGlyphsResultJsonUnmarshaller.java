@@ -36,6 +36,8 @@ public class GetMapGlyphsResultJsonUnmarshaller implements
         }
         if (context.getHeader("Content-Type") != null)
             getMapGlyphsResult.setContentType(context.getHeader("Content-Type"));
+        if (context.getHeader("Cache-Control") != null)
+            getMapGlyphsResult.setCacheControl(context.getHeader("Cache-Control"));
         return getMapGlyphsResult;
     }
 
@@ -36,6 +36,8 @@ public class GetMapSpritesResultJsonUnmarshaller implements
         }
         if (context.getHeader("Content-Type") != null)
             getMapSpritesResult.setContentType(context.getHeader("Content-Type"));
+        if (context.getHeader("Cache-Control") != null)
+            getMapSpritesResult.setCacheControl(context.getHeader("Cache-Control"));
         return getMapSpritesResult;
     }
 
@@ -36,6 +36,8 @@ public class GetMapTileResultJsonUnmarshaller implements
         }
         if (context.getHeader("Content-Type") != null)
             getMapTileResult.setContentType(context.getHeader("Content-Type"));
+        if (context.getHeader("Cache-Control") != null)
+            getMapTileResult.setCacheControl(context.getHeader("Cache-Control"));
         return getMapTileResult;
     }
 
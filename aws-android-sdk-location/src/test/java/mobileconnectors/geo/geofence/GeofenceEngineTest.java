@@ -0,0 +1,182 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package mobileconnectors.geo.geofence;
+
+import android.location.Location;
+
+import com.amazonaws.mobileconnectors.geo.geofence.GeofenceEngine;
+import com.amazonaws.mobileconnectors.geo.geofence.GeofenceListener;
+import com.amazonaws.mobileconnectors.geo.geofence.GeofenceTransition;
+import com.amazonaws.services.geo.AmazonLocationClient;
+import com.amazonaws.services.geo.model.Circle;
+import com.amazonaws.services.geo.model.GeofenceGeometry;
+import com.amazonaws.services.geo.model.ListGeofenceResponseEntry;
+import com.amazonaws.services.geo.model.ListGeofencesRequest;
+import com.amazonaws.services.geo.model.ListGeofencesResult;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(RobolectricTestRunner.class)
+public class GeofenceEngineTest {
+    private static final String COLLECTION_NAME = "COLLECTION_NAME";
+
+    private AmazonLocationClient mockLocationClient;
+    private List<GeofenceTransition> transitions;
+    private GeofenceEngine engine;
+
+    @Before
+    public void setup() {
+        mockLocationClient = mock(AmazonLocationClient.class);
+        transitions = new ArrayList<GeofenceTransition>();
+        engine = new GeofenceEngine(mockLocationClient, COLLECTION_NAME, new GeofenceListener() {
+            @Override
+            public void onTransition(GeofenceTransition transition) {
+                transitions.add(transition);
+            }
+        });
+    }
+
+    /**
+     * Sync lists every page of the collection and indexes only active geofences.
+     */
+    @Test
+    public void syncListsAllPagesTest() {
+        ListGeofenceResponseEntry deleting = square("deleting", 0, 0, 1).withStatus("DELETING");
+        when(mockLocationClient.listGeofences(any(ListGeofencesRequest.class)))
+                .thenReturn(new ListGeofencesResult()
+                        .withEntries(square("a", 0, 0, 1), deleting)
+                        .withNextToken("page2"))
+                .thenReturn(new ListGeofencesResult()
+                        .withEntries(circle("b", 10, 10, 1000)));
+
+        assertEquals(2, engine.sync());
+        assertEquals(Collections.singleton("a"), engine.query(0.5, 0.5));
+        assertEquals(Collections.singleton("b"), engine.query(10.001, 10.001));
+    }
+
+    /**
+     * Points in a polygon's hole are outside the polygon.
+     */
+    @Test
+    public void polygonWithHoleTest() {
+        List<List<List<Double>>> rings = Arrays.asList(
+                ring(0, 0, 10), ring(4, 4, 2));
+        engine.setGeofences(Collections.singletonList(new ListGeofenceResponseEntry()
+                .withGeofenceId("donut")
+                .withGeometry(new GeofenceGeometry().withPolygon(rings))));
+
+        assertEquals(Collections.singleton("donut"), engine.query(1, 1));
+        assertTrue(engine.query(5, 5).isEmpty());
+        assertTrue(engine.query(11, 5).isEmpty());
+    }
+
+    /**
+     * Circles contain the points within their radius in meters.
+     */
+    @Test
+    public void circleTest() {
+        engine.setGeofences(Collections.singletonList(circle("circle", -122.3, 47.6, 500)));
+
+        // 0.004 degrees of latitude is about 445 meters.
+        assertEquals(Collections.singleton("circle"), engine.query(-122.3, 47.604));
+        assertTrue(engine.query(-122.3, 47.6046).isEmpty());
+    }
+
+    /**
+     * Only changes of the containing geofences are reported.
+     */
+    @Test
+    public void transitionsTest() {
+        engine.setGeofences(Arrays.asList(square("west", 0, 0, 2), square("east", 1, 0, 2)));
+
+        engine.evaluate(location(0.5, 1));
+        engine.evaluate(location(0.6, 1));
+        engine.evaluate(location(1.5, 1));
+        engine.evaluate(location(5, 1));
+
+        assertEquals("[ENTER west, ENTER east, EXIT west, EXIT east]", transitions.toString());
+    }
+
+    /**
+     * Each point of a grid of thousands of geofences is found in exactly its own cell.
+     */
+    @Test
+    public void manyGeofencesTest() {
+        List<ListGeofenceResponseEntry> entries = new ArrayList<ListGeofenceResponseEntry>();
+        for (int x = 0; x < 100; x++) {
+            for (int y = 0; y < 50; y++) {
+                entries.add(square(x + "," + y, x, y, 1));
+            }
+        }
+        assertEquals(5000, engine.setGeofences(entries));
+
+        for (int x = 0; x < 100; x++) {
+            for (int y = 0; y < 50; y++) {
+                assertEquals(new HashSet<String>(Collections.singleton(x + "," + y)),
+                        engine.query(x + 0.5, y + 0.5));
+            }
+        }
+        assertTrue(engine.query(150, 25).isEmpty());
+    }
+
+    private static Location location(double longitude, double latitude) {
+        Location location = mock(Location.class);
+        when(location.getLongitude()).thenReturn(longitude);
+        when(location.getLatitude()).thenReturn(latitude);
+        return location;
+    }
+
+    private static ListGeofenceResponseEntry square(String id, double x, double y, double size) {
+        return new ListGeofenceResponseEntry()
+                .withGeofenceId(id)
+                .withStatus("ACTIVE")
+                .withGeometry(new GeofenceGeometry().withPolygon(
+                        Collections.singletonList(ring(x, y, size))));
+    }
+
+    private static ListGeofenceResponseEntry circle(String id, double longitude, double latitude,
+                                                    double radius) {
+        return new ListGeofenceResponseEntry()
+                .withGeofenceId(id)
+                .withStatus("ACTIVE")
+                .withGeometry(new GeofenceGeometry().withCircle(new Circle()
+                        .withCenter(longitude, latitude)
+                        .withRadius(radius)));
+    }
+
+    private static List<List<Double>> ring(double x, double y, double size) {
+        return Arrays.asList(
+                Arrays.asList(x, y),
+                Arrays.asList(x + size, y),
+                Arrays.asList(x + size, y + size),
+                Arrays.asList(x, y + size),
+                Arrays.asList(x, y));
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package mobileconnectors.geo.map;
+
+import com.amazonaws.mobileconnectors.geo.map.MapResourceCache;
+import com.amazonaws.services.geo.AmazonLocationClient;
+import com.amazonaws.services.geo.model.GetMapGlyphsRequest;
+import com.amazonaws.services.geo.model.GetMapGlyphsResult;
+import com.amazonaws.services.geo.model.GetMapTileRequest;
+import com.amazonaws.services.geo.model.GetMapTileResult;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(RobolectricTestRunner.class)
+public class MapResourceCacheTest {
+    private static final String MAP_NAME = "MAP_NAME";
+    private static final byte[] TILE = new byte[] {1, 2, 3, 4};
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private AmazonLocationClient mockLocationClient;
+
+    @Before
+    public void setup() {
+        mockLocationClient = mock(AmazonLocationClient.class);
+    }
+
+    @Test
+    public void testTileIsFetchedOnce() throws Exception {
+        when(mockLocationClient.getMapTile(any(GetMapTileRequest.class)))
+                .thenReturn(tileResult("max-age=3600"));
+        final MapResourceCache cache = new MapResourceCache(mockLocationClient,
+                folder.newFolder());
+
+        assertArrayEquals(TILE, bytesOf(cache.getMapTile(tileRequest("1")).getBlob()));
+        final GetMapTileResult hit = cache.getMapTile(tileRequest("1"));
+        assertArrayEquals(TILE, bytesOf(hit.getBlob()));
+        assertEquals("application/vnd.mapbox-vector-tile", hit.getContentType());
+        verify(mockLocationClient, times(1)).getMapTile(any(GetMapTileRequest.class));
+
+        cache.getMapTile(tileRequest("2"));
+        verify(mockLocationClient, times(2)).getMapTile(any(GetMapTileRequest.class));
+    }
+
+    @Test
+    public void testDiskCacheSurvivesRestart() throws Exception {
+        when(mockLocationClient.getMapTile(any(GetMapTileRequest.class)))
+                .thenReturn(tileResult(null));
+        final File directory = folder.newFolder();
+        new MapResourceCache(mockLocationClient, directory).getMapTile(tileRequest("1"));
+
+        final MapResourceCache restarted = new MapResourceCache(mockLocationClient, directory);
+        final GetMapTileResult hit = restarted.getMapTile(tileRequest("1"));
+        assertArrayEquals(TILE, bytesOf(hit.getBlob()));
+        assertEquals("application/vnd.mapbox-vector-tile", hit.getContentType());
+        verify(mockLocationClient, times(1)).getMapTile(any(GetMapTileRequest.class));
+    }
+
+    @Test
+    public void testNoStoreAndNoCacheAreFetchedEveryTime() throws Exception {
+        when(mockLocationClient.getMapTile(any(GetMapTileRequest.class)))
+                .thenReturn(tileResult("no-store"))
+                .thenReturn(tileResult("no-store"))
+                .thenReturn(tileResult("no-cache, max-age=3600"))
+                .thenReturn(tileResult("max-age=0"));
+        final File directory = folder.newFolder();
+        final MapResourceCache cache = new MapResourceCache(mockLocationClient, directory);
+
+        for (int i = 0; i < 4; i++) {
+            cache.getMapTile(tileRequest("1"));
+        }
+        verify(mockLocationClient, times(4)).getMapTile(any(GetMapTileRequest.class));
+        assertEquals(0, directory.list().length);
+    }
+
+    @Test
+    public void testHugeMaxAgeDoesNotExpireAtOnce() throws Exception {
+        when(mockLocationClient.getMapTile(any(GetMapTileRequest.class)))
+                .thenReturn(tileResult("max-age=9223372036854775807"));
+        final MapResourceCache cache = new MapResourceCache(mockLocationClient, null);
+
+        cache.getMapTile(tileRequest("1"));
+        cache.getMapTile(tileRequest("1"));
+        verify(mockLocationClient, times(1)).getMapTile(any(GetMapTileRequest.class));
+    }
+
+    @Test
+    public void testGlyphsAreKeyedByFontStackAndRange() throws Exception {
+        when(mockLocationClient.getMapGlyphs(any(GetMapGlyphsRequest.class)))
+                .thenReturn(new GetMapGlyphsResult().withBlob(ByteBuffer.wrap(TILE)));
+        final MapResourceCache cache = new MapResourceCache(mockLocationClient, null);
+
+        cache.getMapGlyphs(glyphsRequest("Noto Sans Regular", "0-255"));
+        cache.getMapGlyphs(glyphsRequest("Noto Sans Regular", "0-255"));
+        cache.getMapGlyphs(glyphsRequest("Noto Sans Regular", "256-511"));
+        cache.getMapGlyphs(glyphsRequest("Noto Sans Bold", "0-255"));
+        verify(mockLocationClient, times(3)).getMapGlyphs(any(GetMapGlyphsRequest.class));
+    }
+
+    @Test
+    public void testConcurrentRequestsShareOneCall() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        when(mockLocationClient.getMapTile(any(GetMapTileRequest.class)))
+                .thenAnswer(new Answer<GetMapTileResult>() {
+                    @Override
+                    public GetMapTileResult answer(InvocationOnMock invocation) throws Throwable {
+                        started.countDown();
+                        release.await(5, TimeUnit.SECONDS);
+                        return tileResult(null);
+                    }
+                });
+        final MapResourceCache cache = new MapResourceCache(mockLocationClient, null);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<GetMapTileResult>> results =
+                    new ArrayList<Future<GetMapTileResult>>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(new Callable<GetMapTileResult>() {
+                    @Override
+                    public GetMapTileResult call() {
+                        return cache.getMapTile(tileRequest("1"));
+                    }
+                }));
+            }
+            started.await(5, TimeUnit.SECONDS);
+            // let the other requests reach the in-flight call
+            Thread.sleep(100);
+            release.countDown();
+            for (final Future<GetMapTileResult> result : results) {
+                assertArrayEquals(TILE, bytesOf(result.get(5, TimeUnit.SECONDS).getBlob()));
+            }
+        } finally {
+            executor.shutdown();
+        }
+        verify(mockLocationClient, times(1)).getMapTile(any(GetMapTileRequest.class));
+    }
+
+    private static GetMapTileRequest tileRequest(String x) {
+        return new GetMapTileRequest().withMapName(MAP_NAME).withZ("3").withX(x).withY("5");
+    }
+
+    private static GetMapGlyphsRequest glyphsRequest(String fontStack, String range) {
+        return new GetMapGlyphsRequest().withMapName(MAP_NAME).withFontStack(fontStack)
+                .withFontUnicodeRange(range);
+    }
+
+    private static GetMapTileResult tileResult(String cacheControl) {
+        return new GetMapTileResult()
+                .withBlob(ByteBuffer.wrap(TILE))
+                .withContentType("application/vnd.mapbox-vector-tile")
+                .withCacheControl(cacheControl);
+    }
+
+    private static byte[] bytesOf(ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+}
@@ -16,29 +16,40 @@ package mobileconnectors.geo.tracker;
 
 import android.location.Location;
 
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
 import com.amazonaws.mobileconnectors.geo.tracker.EmptyTrackingListener;
+import com.amazonaws.mobileconnectors.geo.tracker.PositionSpool;
+import com.amazonaws.mobileconnectors.geo.tracker.TrackingModelFactory;
 import com.amazonaws.mobileconnectors.geo.tracker.TrackingPublisher;
 import com.amazonaws.services.geo.AmazonLocationClient;
 import com.amazonaws.services.geo.model.BatchUpdateDevicePositionRequest;
+import com.amazonaws.services.geo.model.BatchUpdateDevicePositionResult;
 
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.shadows.ShadowLog;
 
+import java.io.File;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 import static mobileconnectors.geo.tracker.MockLocationFactory.DEFAULT_ALTITUDE;
 import static mobileconnectors.geo.tracker.MockLocationFactory.DEFAULT_LATITUDE;
 import static mobileconnectors.geo.tracker.MockLocationFactory.DEFAULT_LONGITUDE;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @RunWith(RobolectricTestRunner.class)
 public class TrackingPublisherTest {
@@ -51,6 +62,9 @@ public class TrackingPublisherTest {
     private TrackingPublisher trackingPublisher;
     private AmazonLocationClient mockLocationClient;
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     @Before
     public void setup() {
         ShadowLog.stream = System.out;
@@ -176,4 +190,145 @@ public class TrackingPublisherTest {
         // No pending batches should be left.
         assertEquals(0, trackingPublisher.pendingBatches());
     }
+
+    /**
+     * Locations both close to and soon after the last kept location are dropped.
+     */
+    @Test
+    public void nearDuplicateLocationsDroppedTest() {
+        trackingPublisher = createPublisher(new PositionSpool(), 50, TimeUnit.MINUTES.toMillis(1));
+
+        trackingPublisher.enqueue(createTimedLocation(0, 0, 0));
+        // About 11 meters away.
+        trackingPublisher.enqueue(createTimedLocation(0.0001, 0, TimeUnit.SECONDS.toMillis(10)));
+        // About 1.1 kilometers away.
+        trackingPublisher.enqueue(createTimedLocation(0.01, 0, TimeUnit.SECONDS.toMillis(20)));
+        // Same place, but more than a minute later.
+        trackingPublisher.enqueue(createTimedLocation(0.01, 0, TimeUnit.SECONDS.toMillis(90)));
+
+        assertEquals(3, trackingPublisher.pendingPositionUpdates());
+    }
+
+    /**
+     * Unpublished locations are loaded again from the spool file, and removed from it once published.
+     */
+    @Test
+    public void spoolSurvivesRestartTest() throws Exception {
+        File spoolFile = new File(temporaryFolder.getRoot(), "spool");
+        trackingPublisher = createPublisher(new PositionSpool(spoolFile), 0, 0);
+        for (int i = 0; i < 3; i++) {
+            trackingPublisher.enqueue(createTimedLocation(i, i, i));
+        }
+
+        PositionSpool restarted = new PositionSpool(spoolFile);
+        assertEquals(3, restarted.size());
+        assertEquals(Double.valueOf(2), restarted.peek(2, 1).get(0).getPosition().get(0));
+
+        MockLocationClientBehavior.latchedBatchUpdates(mockLocationClient, new CountDownLatch(1));
+        trackingPublisher.forceFlush();
+        assertEquals(0, new PositionSpool(spoolFile).size());
+    }
+
+    /**
+     * A batch which could not be sent stays in the spool and is sent by a later flush.
+     */
+    @Test
+    public void failedBatchStaysSpooledTest() {
+        when(mockLocationClient.batchUpdateDevicePosition(any(BatchUpdateDevicePositionRequest.class)))
+                .thenThrow(new AmazonClientException("Unable to connect"))
+                .thenReturn(new BatchUpdateDevicePositionResult());
+        for (int i = 0; i < 5; i++) {
+            trackingPublisher.enqueue(MockLocationFactory.createAndroidLocation());
+        }
+
+        trackingPublisher.forceFlush();
+        assertEquals(5, trackingPublisher.pendingPositionUpdates());
+
+        trackingPublisher.forceFlush();
+        assertEquals(0, trackingPublisher.pendingPositionUpdates());
+    }
+
+    /**
+     * A throttled batch stays in the spool; a batch the service rejects as invalid is dropped.
+     */
+    @Test
+    public void throttledBatchStaysSpooledRejectedBatchDroppedTest() {
+        AmazonServiceException throttled = new AmazonServiceException("Rate exceeded");
+        throttled.setErrorCode("ThrottlingException");
+        throttled.setStatusCode(400);
+        AmazonServiceException rejected = new AmazonServiceException("Invalid position");
+        rejected.setErrorCode("ValidationException");
+        rejected.setStatusCode(400);
+        when(mockLocationClient.batchUpdateDevicePosition(any(BatchUpdateDevicePositionRequest.class)))
+                .thenThrow(throttled)
+                .thenThrow(rejected);
+        for (int i = 0; i < 5; i++) {
+            trackingPublisher.enqueue(MockLocationFactory.createAndroidLocation());
+        }
+
+        trackingPublisher.forceFlush();
+        assertEquals(5, trackingPublisher.pendingPositionUpdates());
+
+        trackingPublisher.forceFlush();
+        assertEquals(0, trackingPublisher.pendingPositionUpdates());
+    }
+
+    /**
+     * Positions removed from a spool file stay removed after a restart, without the file being rewritten.
+     */
+    @Test
+    public void spoolRemovalSurvivesRestartTest() throws Exception {
+        File spoolFile = new File(temporaryFolder.getRoot(), "spool");
+        PositionSpool spool = new PositionSpool(spoolFile);
+        for (int i = 0; i < 5; i++) {
+            spool.add(TrackingModelFactory.createDevicePositionUpdate("device", createTimedLocation(i, i, i)));
+        }
+        long length = spoolFile.length();
+        spool.remove(2);
+        assertEquals(length, spoolFile.length());
+
+        PositionSpool restarted = new PositionSpool(spoolFile);
+        assertEquals(3, restarted.size());
+        assertEquals(Double.valueOf(2), restarted.peek(0, 1).get(0).getPosition().get(0));
+    }
+
+    /**
+     * On an unmetered network scheduled runs also publish batches which aren't full.
+     */
+    @Test
+    public void unmeteredNetworkPublishesPartialBatchTest() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        MockLocationClientBehavior.latchedBatchUpdates(mockLocationClient, latch);
+        trackingPublisher.setNetworkState(true, false);
+        for (int i = 0; i < 3; i++) {
+            trackingPublisher.enqueue(MockLocationFactory.createAndroidLocation());
+        }
+
+        assertTrue(latch.await(LATCH_WAIT_BASE_TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        ArgumentCaptor<BatchUpdateDevicePositionRequest> requestArgumentCaptor =
+                ArgumentCaptor.forClass(BatchUpdateDevicePositionRequest.class);
+        verify(mockLocationClient).batchUpdateDevicePosition(requestArgumentCaptor.capture());
+        assertEquals(3, requestArgumentCaptor.getValue().getUpdates().size());
+    }
+
+    private TrackingPublisher createPublisher(PositionSpool spool,
+                                              double minUpdateDistanceMeters,
+                                              long minUpdateIntervalMillis) {
+        return new TrackingPublisher(mockLocationClient,
+                                     "UNIT_TEST_DEVICE_ID",
+                                     TRACKER_NAME,
+                                     Executors.newScheduledThreadPool(WORKER_POOL_SIZE),
+                                     PUBLISH_INTERVAL_MS,
+                                     BATCH_SIZE,
+                                     new EmptyTrackingListener(),
+                                     spool,
+                                     minUpdateDistanceMeters,
+                                     minUpdateIntervalMillis);
+    }
+
+    private static Location createTimedLocation(double longitude, double latitude, long time) {
+        Location location = MockLocationFactory.createAndroidLocation(longitude, latitude, DEFAULT_ALTITUDE);
+        when(location.getTime()).thenReturn(time);
+        return location;
+    }
 }
@@ -60,6 +60,7 @@ import com.amazonaws.mobile.auth.ui.SignInUI;
 import com.amazonaws.mobile.auth.userpools.CognitoUserPoolsSignInProvider;
 import com.amazonaws.mobile.client.internal.InternalCallback;
 import com.amazonaws.mobile.client.internal.ReturningRunnable;
+import com.amazonaws.mobile.client.internal.SingleFlight;
 import com.amazonaws.mobile.client.internal.oauth2.AuthorizeResponse;
 import com.amazonaws.mobile.client.internal.oauth2.OAuth2Client;
 import com.amazonaws.mobile.client.internal.oauth2.OAuth2Tokens;
@@ -98,6 +99,7 @@ import com.amazonaws.mobileconnectors.cognitoidentityprovider.handlers.GetDetail
 import com.amazonaws.mobileconnectors.cognitoidentityprovider.handlers.SignUpHandler;
 import com.amazonaws.mobileconnectors.cognitoidentityprovider.handlers.UpdateAttributesHandler;
 import com.amazonaws.mobileconnectors.cognitoidentityprovider.handlers.VerificationHandler;
+import com.amazonaws.mobileconnectors.cognitoidentityprovider.util.CognitoIdentityProviderClientConfig;
 import com.amazonaws.mobileconnectors.cognitoidentityprovider.util.CognitoJWTParser;
 import com.amazonaws.mobileconnectors.cognitoidentityprovider.util.CognitoPinpointSharedContext;
 import com.amazonaws.mobileconnectors.cognitoidentityprovider.util.CognitoServiceConstants;
@@ -119,6 +121,7 @@ import org.json.JSONObject;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -128,6 +131,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -205,6 +212,10 @@ public final class AWSMobileClient implements AWSCredentialsProvider {
      * Singleton instance for AWSMobileClient.
      */
     private static volatile AWSMobileClient singleton = null;
+    /**
+     * Idle time after which the user state listener thread is released.
+     */
+    private static final long LISTENER_THREAD_KEEP_ALIVE_SECONDS = 30;
     /**
      * Map of SDK Client Class and object.
      */
@@ -267,6 +278,23 @@ public final class AWSMobileClient implements AWSCredentialsProvider {
      */
     private boolean mIsLegacyMode;
     List<UserStateListener> listeners;
+    /**
+     * Serial executor that delivers user state changes to the listeners in order.
+     */
+    private final ExecutorService listenerExecutor;
+    /**
+     * Shares one in-flight refresh of the Cognito User Pools tokens among concurrent callers.
+     */
+    private final SingleFlight<Tokens> tokensFlight;
+    /**
+     * As {@link #tokensFlight}, for callers that wait for sign-in, so that a caller which
+     * does not wait never joins a refresh that is blocked until sign-in.
+     */
+    private final SingleFlight<Tokens> waitForSignInTokensFlight;
+    /**
+     * Shares one in-flight refresh of the Cognito Identity credentials among concurrent callers.
+     */
+    private final SingleFlight<AWSCredentials> credentialsFlight;
     private Object showSignInLockObject;
     private volatile CountDownLatch showSignInWaitLatch;
     private Object federateWithCognitoIdentityLockObject;
@@ -333,6 +361,34 @@ public final class AWSMobileClient implements AWSCredentialsProvider {
         mWaitForSignInLock = new ReentrantLock();
         mFederatedLoginsMap = new HashMap<String, String>();
         listeners = new ArrayList<UserStateListener>();
+        final ThreadPoolExecutor listenerThreadPool = new ThreadPoolExecutor(1, 1,
+                LISTENER_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+        listenerThreadPool.allowCoreThreadTimeOut(true);
+        listenerExecutor = listenerThreadPool;
+        final SingleFlight.Expiry<Tokens> tokensExpiry = new SingleFlight.Expiry<Tokens>() {
+            @Override
+            public long getExpirationMillis(final Tokens tokens) {
+                try {
+                    return tokens.getAccessToken().getExpiration().getTime()
+                            - CognitoIdentityProviderClientConfig.getRefreshThreshold();
+                } catch (final Exception e) {
+                    // Tokens without a readable expiration are never served from the cache.
+                    return 0L;
+                }
+            }
+        };
+        tokensFlight = new SingleFlight<Tokens>(tokensExpiry);
+        waitForSignInTokensFlight = new SingleFlight<Tokens>(tokensExpiry);
+        credentialsFlight = new SingleFlight<AWSCredentials>(new SingleFlight.Expiry<AWSCredentials>() {
+            @Override
+            public long getExpirationMillis(final AWSCredentials credentials) {
+                final Date expiration = cognitoIdentity.getSessionCredentialsExpiration();
+                if (expiration == null) {
+                    return 0L;
+                }
+                return expiration.getTime() - cognitoIdentity.getRefreshThreshold() * 1000L;
+            }
+        });
         showSignInLockObject = new Object();
         federateWithCognitoIdentityLockObject = new Object();
         showSignInWaitLatch = new CountDownLatch(1);
@@ -345,11 +401,18 @@ public final class AWSMobileClient implements AWSCredentialsProvider {
      *
      * @return singleton instance
      */
-    public static synchronized AWSMobileClient getInstance() {
-        if (singleton == null) {
-            singleton = new AWSMobileClient();
+    public static AWSMobileClient getInstance() {
+        AWSMobileClient instance = singleton;
+        if (instance == null) {
+            synchronized (AWSMobileClient.class) {
+                instance = singleton;
+                if (instance == null) {
+                    instance = new AWSMobileClient();
+                    singleton = instance;
+                }
+            }
         }
-        return singleton;
+        return instance;
     }
 
     /**
@@ -392,13 +455,18 @@ public final class AWSMobileClient implements AWSCredentialsProvider {
         }
 
         try {
-            if (waitForSignIn()) {
-                Log.d(TAG, "getCredentials: Validated user is signed-in");
-            }
+            return credentialsFlight.get(new ReturningRunnable<AWSCredentials>() {
+                @Override
+                public AWSCredentials run() {
+                    if (waitForSignIn()) {
+                        Log.d(TAG, "getCredentials: Validated user is signed-in");
+                    }
 
-            AWSSessionCredentials credentials = cognitoIdentity.getCredentials();
-            mStore.set(IDENTITY_ID_KEY, cognitoIdentity.getIdentityId());
-            return credentials;
+                    AWSSessionCredentials credentials = cognitoIdentity.getCredentials();
+                    mStore.set(IDENTITY_ID_KEY, cognitoIdentity.getIdentityId());
+                    return credentials;
+                }
+            });
         } catch (NotAuthorizedException e) {
             Log.w(TAG, "getCredentials: Failed to getCredentials from Cognito Identity", e);
             throw new AmazonClientException("Failed to get credentials from Cognito Identity", e);
@@ -418,6 +486,7 @@ public final class AWSMobileClient implements AWSCredentialsProvider {
             throw new AmazonClientException("Cognito Identity not configured");
         }
 
+        credentialsFlight.invalidate();
         cognitoIdentity.refresh();
         mStore.set(IDENTITY_ID_KEY, cognitoIdentity.getIdentityId());
     }
@@ -778,15 +847,25 @@ public final class AWSMobileClient implements AWSCredentialsProvider {
         this.userStateDetails = details;
 
         if (hasChanged) {
+            tokensFlight.invalidate();
+            waitForSignInTokensFlight.invalidate();
+            credentialsFlight.invalidate();
+
+            final List<UserStateListener> listenersSnapshot;
             synchronized (listeners) {
-                for (final UserStateListener listener : listeners) {
-                    new Thread(new Runnable() {
-                        @Override
-                        public void run() {
+                listenersSnapshot = new ArrayList<UserStateListener>(listeners);
+            }
+            for (final UserStateListener listener : listenersSnapshot) {
+                listenerExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
                             listener.onUserStateChanged(details);
+                        } catch (final Exception e) {
+                            Log.e(TAG, "UserStateListener threw while handling a user state change", e);
                         }
-                    }).start();
-                }
+                    }
+                });
             }
         }
     }
@@ -1603,6 +1682,9 @@ public final class AWSMobileClient implements AWSCredentialsProvider {
     @AnyThread
     public void signOut() {
         mCognitoUserSession = null;
+        tokensFlight.invalidate();
+        waitForSignInTokensFlight.invalidate();
+        credentialsFlight.invalidate();
         if (userpool != null) {
             userpool.getCurrentUser().signOut();
             userpool.getUser().signOut();
@@ -1904,6 +1986,7 @@ public final class AWSMobileClient implements AWSCredentialsProvider {
                     }
 
                     if (!token.equals(mFederatedLoginsMap.get(providerKey))) {
+                        credentialsFlight.invalidate();
                         cognitoIdentity.clear();
                         cognitoIdentity.setLogins(loginsMap);
                     }
@@ -1953,6 +2036,7 @@ public final class AWSMobileClient implements AWSCredentialsProvider {
 
                 HashMap<String, String> logins = new HashMap<String, String>();
                 logins.put(providerKey, token);
+                credentialsFlight.invalidate();
                 cognitoIdentity.setLogins(logins);
                 cognitoIdentity.refresh();
                 // Ensure cognitoIdentityId and credentials can be retrieved.
@@ -1971,8 +2055,7 @@ public final class AWSMobileClient implements AWSCredentialsProvider {
      */
     @WorkerThread
     public Tokens getTokens() throws Exception {
-        final InternalCallback<Tokens> internalCallback = new InternalCallback<Tokens>();
-        return internalCallback.await(_getTokens(internalCallback, false));
+        return getTokens(false);
     }
 
     /**
@@ -1984,13 +2067,27 @@ public final class AWSMobileClient implements AWSCredentialsProvider {
      */
     @AnyThread
     public void getTokens(final Callback<Tokens> callback) {
-        final InternalCallback<Tokens> internalCallback = new InternalCallback<Tokens>(callback);
-        internalCallback.async(_getTokens(internalCallback, false));
+        new ReturningRunnable<Tokens>() {
+            @Override
+            public Tokens run() throws Exception {
+                return getTokens(false);
+            }
+        }.async(callback);
     }
 
-    protected Tokens getTokens(boolean waitForSignIn) throws Exception {
-        final InternalCallback<Tokens> internalCallback = new InternalCallback<Tokens>();
-        return internalCallback.await(_getTokens(internalCallback, waitForSignIn));
+    /**
+     * Returns the cached tokens while they are valid for longer than the refresh threshold.
+     * Otherwise refreshes them, sharing a single refresh among concurrent callers.
+     */
+    protected Tokens getTokens(final boolean waitForSignIn) throws Exception {
+        final SingleFlight<Tokens> flight = waitForSignIn ? waitForSignInTokensFlight : tokensFlight;
+        return flight.get(new ReturningRunnable<Tokens>() {
+            @Override
+            public Tokens run() throws Exception {
+                final InternalCallback<Tokens> internalCallback = new InternalCallback<Tokens>();
+                return internalCallback.await(_getTokens(internalCallback, waitForSignIn));
+            }
+        });
     }
 
     private Runnable _getTokens(final Callback<Tokens> callback, final boolean waitForSignIn) {
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates.
+ * All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.amazonaws.mobile.client.internal;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Internal use. Refrain from using. Subject to breaking API changes at any time.
+ *
+ * Coordinates the refresh of a cached value so that concurrent callers share
+ * a single in-flight load. While the cached value has not expired it is read
+ * without taking any lock; once it expires, the first caller performs the
+ * load and every other caller waits for that same result.
+ *
+ * @param <R> type of the cached value
+ */
+public class SingleFlight<R> {
+
+    /**
+     * Computes the time after which a freshly loaded value must no longer be
+     * served from the cache.
+     *
+     * @param <R> type of the cached value
+     */
+    public interface Expiry<R> {
+        /**
+         * @param value the value that was just loaded
+         * @return epoch time in milliseconds at which the value expires
+         */
+        long getExpirationMillis(R value);
+    }
+
+    private final Expiry<R> expiry;
+    private final AtomicReference<Flight<R>> inFlight;
+    private final AtomicInteger generation;
+    private volatile Entry<R> cached;
+
+    public SingleFlight(final Expiry<R> expiry) {
+        this.expiry = expiry;
+        this.inFlight = new AtomicReference<Flight<R>>();
+        this.generation = new AtomicInteger();
+    }
+
+    /**
+     * Returns the cached value if it has not expired, otherwise loads it with
+     * the given loader. If another caller is already loading, waits for that
+     * load instead of starting another one. A load that re-enters this
+     * method from its own thread runs the loader directly.
+     *
+     * @param loader loads a fresh value when the cache is empty or expired
+     * @return the cached or freshly loaded value
+     * @throws Exception error from the loader
+     */
+    public R get(final ReturningRunnable<R> loader) throws Exception {
+        final Entry<R> entry = cached;
+        if (entry != null && !entry.isExpired()) {
+            return entry.value;
+        }
+
+        final Flight<R> flight = new Flight<R>();
+        while (!inFlight.compareAndSet(null, flight)) {
+            final Flight<R> current = inFlight.get();
+            if (current != null) {
+                if (current.owner == Thread.currentThread()) {
+                    return loader.run();
+                }
+                return current.await();
+            }
+        }
+
+        try {
+            // Another flight may have completed between the cache read and winning the race.
+            final Entry<R> latest = cached;
+            if (latest != null && !latest.isExpired()) {
+                flight.complete(latest.value, null);
+                return latest.value;
+            }
+
+            final int startGeneration = generation.get();
+            final R value = loader.run();
+            if (value != null && startGeneration == generation.get()) {
+                cached = new Entry<R>(value, expiry.getExpirationMillis(value));
+            }
+            flight.complete(value, null);
+            return value;
+        } catch (final Throwable t) {
+            // waiters are released by errors too, or they would block forever
+            flight.complete(null, t);
+            throw t;
+        } finally {
+            inFlight.compareAndSet(flight, null);
+        }
+    }
+
+    /**
+     * Discards the cached value. A load that is in flight while this is
+     * called still completes for its waiters but its result is not cached.
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        cached = null;
+    }
+
+    private static final class Entry<R> {
+        private final R value;
+        private final long expirationMillis;
+
+        private Entry(final R value, final long expirationMillis) {
+            this.value = value;
+            this.expirationMillis = expirationMillis;
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() >= expirationMillis;
+        }
+    }
+
+    private static final class Flight<R> {
+        private final Thread owner = Thread.currentThread();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile R result;
+        private volatile Throwable error;
+
+        private void complete(final R result, final Throwable error) {
+            this.result = result;
+            this.error = error;
+            done.countDown();
+        }
+
+        private R await() throws Exception {
+            done.await();
+            if (error instanceof Error) {
+                throw (Error) error;
+            }
+            if (error != null) {
+                throw (Exception) error;
+            }
+            return result;
+        }
+    }
+}
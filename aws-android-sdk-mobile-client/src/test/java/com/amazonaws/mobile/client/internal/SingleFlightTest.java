@@ -0,0 +1,207 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates.
+ * All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.amazonaws.mobile.client.internal;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SingleFlightTest {
+
+    private static final SingleFlight.Expiry<String> NEVER_EXPIRES = new SingleFlight.Expiry<String>() {
+        @Override
+        public long getExpirationMillis(String value) {
+            return Long.MAX_VALUE;
+        }
+    };
+
+    private static final SingleFlight.Expiry<String> ALWAYS_EXPIRED = new SingleFlight.Expiry<String>() {
+        @Override
+        public long getExpirationMillis(String value) {
+            return 0L;
+        }
+    };
+
+    @Test
+    public void testConcurrentCallersShareOneLoad() throws Exception {
+        final SingleFlight<String> flight = new SingleFlight<String>(NEVER_EXPIRES);
+        final AtomicInteger loads = new AtomicInteger();
+        final CountDownLatch loadStarted = new CountDownLatch(1);
+        final CountDownLatch releaseLoad = new CountDownLatch(1);
+        final ReturningRunnable<String> loader = new ReturningRunnable<String>() {
+            @Override
+            public String run() throws Exception {
+                loads.incrementAndGet();
+                loadStarted.countDown();
+                releaseLoad.await();
+                return "tokens";
+            }
+        };
+
+        final int callers = 8;
+        final ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            final List<Future<String>> results = new ArrayList<Future<String>>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() throws Exception {
+                        return flight.get(loader);
+                    }
+                }));
+            }
+            loadStarted.await(5, TimeUnit.SECONDS);
+            // Give the remaining callers a chance to join the flight before releasing it.
+            Thread.sleep(100);
+            releaseLoad.countDown();
+            for (final Future<String> result : results) {
+                assertEquals("tokens", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testCachedValueIsReturnedUntilInvalidated() throws Exception {
+        final SingleFlight<String> flight = new SingleFlight<String>(NEVER_EXPIRES);
+        final AtomicInteger loads = new AtomicInteger();
+        final ReturningRunnable<String> loader = new ReturningRunnable<String>() {
+            @Override
+            public String run() {
+                return "value" + loads.incrementAndGet();
+            }
+        };
+
+        assertEquals("value1", flight.get(loader));
+        assertEquals("value1", flight.get(loader));
+        flight.invalidate();
+        assertEquals("value2", flight.get(loader));
+    }
+
+    @Test
+    public void testExpiredValueIsReloaded() throws Exception {
+        final SingleFlight<String> flight = new SingleFlight<String>(ALWAYS_EXPIRED);
+        final AtomicInteger loads = new AtomicInteger();
+        final ReturningRunnable<String> loader = new ReturningRunnable<String>() {
+            @Override
+            public String run() {
+                return "value" + loads.incrementAndGet();
+            }
+        };
+
+        assertEquals("value1", flight.get(loader));
+        assertEquals("value2", flight.get(loader));
+    }
+
+    @Test
+    public void testErrorIsNotCached() throws Exception {
+        final SingleFlight<String> flight = new SingleFlight<String>(NEVER_EXPIRES);
+        final Exception failure = new Exception("refresh failed");
+        try {
+            flight.get(new ReturningRunnable<String>() {
+                @Override
+                public String run() throws Exception {
+                    throw failure;
+                }
+            });
+            fail("Expected the loader error to be rethrown");
+        } catch (Exception e) {
+            assertSame(failure, e);
+        }
+
+        assertEquals("recovered", flight.get(new ReturningRunnable<String>() {
+            @Override
+            public String run() {
+                return "recovered";
+            }
+        }));
+    }
+
+    @Test
+    public void testWaitersAreReleasedWhenLoaderThrowsError() throws Exception {
+        final SingleFlight<String> flight = new SingleFlight<String>(NEVER_EXPIRES);
+        final CountDownLatch loadStarted = new CountDownLatch(1);
+        final CountDownLatch releaseLoad = new CountDownLatch(1);
+        final Error failure = new OutOfMemoryError("load failed");
+        final ReturningRunnable<String> loader = new ReturningRunnable<String>() {
+            @Override
+            public String run() throws Exception {
+                loadStarted.countDown();
+                releaseLoad.await(5, TimeUnit.SECONDS);
+                throw failure;
+            }
+        };
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final Callable<Throwable> caller = new Callable<Throwable>() {
+                @Override
+                public Throwable call() {
+                    try {
+                        flight.get(loader);
+                        return null;
+                    } catch (Throwable t) {
+                        return t;
+                    }
+                }
+            };
+            final Future<Throwable> leader = executor.submit(caller);
+            assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+            final Future<Throwable> waiter = executor.submit(caller);
+            // let the waiter join the flight
+            Thread.sleep(100);
+            releaseLoad.countDown();
+
+            assertSame(failure, leader.get(5, TimeUnit.SECONDS));
+            assertSame(failure, waiter.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testReentrantLoadDoesNotDeadlock() throws Exception {
+        final SingleFlight<String> flight = new SingleFlight<String>(NEVER_EXPIRES);
+        final String value = flight.get(new ReturningRunnable<String>() {
+            @Override
+            public String run() throws Exception {
+                return "outer-" + flight.get(new ReturningRunnable<String>() {
+                    @Override
+                    public String run() {
+                        return "inner";
+                    }
+                });
+            }
+        });
+        assertEquals("outer-inner", value);
+    }
+}
@@ -0,0 +1,544 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.services.polly;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.async.SdkExecutors;
+import com.amazonaws.internal.DiskLruStore;
+import com.amazonaws.logging.Log;
+import com.amazonaws.logging.LogFactory;
+import com.amazonaws.services.polly.model.SynthesizeSpeechPresignRequest;
+import com.amazonaws.services.polly.model.SynthesizeSpeechRequest;
+import com.amazonaws.services.polly.model.SynthesizeSpeechResult;
+import com.amazonaws.util.BinaryUtils;
+import com.amazonaws.util.IOUtils;
+import com.amazonaws.util.StringUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * A cache of synthesized speech in front of {@link AmazonPolly}, for apps
+ * that speak the same prompts over and over.
+ * <p>
+ * Entries are keyed by a SHA-256 hash of every request field that affects
+ * the audio: text, text type, voice, engine, language, output format, sample
+ * rate, lexicons and speech mark types. Recently used audio is kept in a
+ * memory LRU bounded by bytes. When a directory is given, every synthesized
+ * clip is also stored there as a plain audio file, and the least recently
+ * used files are deleted once the directory exceeds its byte limit.
+ * Concurrent requests for the same speech share one service call.
+ * <p>
+ * A hit returns a stream over the cached audio without a network round trip.
+ * Hits report zero request characters, as nothing was synthesized for them.
+ * {@link #prefetch(Collection)} synthesizes expected prompts in the
+ * background so that they are cached before they are needed.
+ * <p>
+ * This class is thread safe.
+ */
+public class AmazonPollySynthesisCache {
+
+    private static final Log log = LogFactory.getLog(AmazonPollySynthesisCache.class);
+
+    /** Default size of the memory cache */
+    public static final long DEFAULT_MAX_MEMORY_BYTES = 4L * 1024 * 1024;
+
+    /** Default size of the disk cache */
+    public static final long DEFAULT_MAX_DISK_BYTES = 50L * 1024 * 1024;
+
+    private static final int DEFAULT_PREFETCH_CONCURRENCY = 2;
+    private static final String AUDIO_SUFFIX = ".audio";
+
+    private final AmazonPolly polly;
+    /** Null to cache in memory only */
+    private final DiskLruStore disk;
+    private final long maxMemoryBytes;
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+
+    /** Guarded by itself */
+    private final LinkedHashMap<String, CachedSpeech> memory =
+            new LinkedHashMap<String, CachedSpeech>(16, 0.75f, true);
+    private long memoryBytes;
+
+    private final ConcurrentMap<String, FutureTask<CachedSpeech>> inFlight =
+            new ConcurrentHashMap<String, FutureTask<CachedSpeech>>();
+
+    /**
+     * Creates a cache with the default limits.
+     *
+     * @param polly the client used on a cache miss. If it is an
+     *            {@link AmazonPollyPresigningClient}, uncached presigned URLs
+     *            are generated with it.
+     * @param directory the directory for the disk cache, or null to cache in
+     *            memory only.
+     */
+    public AmazonPollySynthesisCache(AmazonPolly polly, File directory) {
+        this(polly, directory, DEFAULT_MAX_MEMORY_BYTES, DEFAULT_MAX_DISK_BYTES, null);
+    }
+
+    /**
+     * Creates a cache.
+     *
+     * @param polly the client used on a cache miss.
+     * @param directory the directory for the disk cache, or null to cache in
+     *            memory only.
+     * @param maxMemoryBytes the maximum number of audio bytes kept in memory.
+     * @param maxDiskBytes the maximum number of audio bytes kept on disk.
+     * @param executor the executor for prefetching, or null to prefetch on
+     *            the SDK's shared threads until {@link #shutdown()}.
+     */
+    public AmazonPollySynthesisCache(AmazonPolly polly, File directory, long maxMemoryBytes,
+            long maxDiskBytes, ExecutorService executor) {
+        if (polly == null) {
+            throw new IllegalArgumentException("polly must not be null");
+        }
+        if (maxMemoryBytes < 0 || maxDiskBytes < 0) {
+            throw new IllegalArgumentException("Cache limits must not be negative");
+        }
+        this.polly = polly;
+        this.disk = directory == null ? null
+                : new DiskLruStore(directory, AUDIO_SUFFIX, maxDiskBytes);
+        this.maxMemoryBytes = maxMemoryBytes;
+        if (executor == null) {
+            this.executor = SdkExecutors.newClientExecutor(DEFAULT_PREFETCH_CONCURRENCY);
+            this.ownsExecutor = true;
+        } else {
+            this.executor = executor;
+            this.ownsExecutor = false;
+        }
+    }
+
+    /**
+     * Returns the synthesized speech from the cache, or synthesizes and
+     * caches it on a miss.
+     *
+     * @param request the synthesis request.
+     * @return the result, whose audio stream reads from memory.
+     * @throws AmazonClientException if the speech is not cached and the
+     *             service call fails.
+     */
+    public SynthesizeSpeechResult synthesizeSpeech(SynthesizeSpeechRequest request) {
+        final String key = keyOf(request);
+        CachedSpeech speech = lookup(key, request);
+        final boolean hit = speech != null;
+        if (!hit) {
+            speech = load(key, request);
+        }
+        final SynthesizeSpeechResult result = new SynthesizeSpeechResult();
+        result.setAudioStream(new ByteArrayInputStream(speech.audio));
+        result.setContentType(speech.contentType);
+        result.setRequestCharacters(hit ? Integer.valueOf(0) : speech.requestCharacters);
+        return result;
+    }
+
+    /**
+     * Returns the synthesized speech for the parameters of a presign
+     * request, from the cache when possible.
+     *
+     * @param request the presign request.
+     * @return the result, whose audio stream reads from memory.
+     */
+    public SynthesizeSpeechResult synthesizeSpeech(SynthesizeSpeechPresignRequest request) {
+        return synthesizeSpeech(toSynthesizeSpeechRequest(request));
+    }
+
+    /**
+     * Returns a URL to play the speech from. If the speech is in the disk
+     * cache this is a file URL, so no request is made. Otherwise it is a
+     * presigned URL from the {@link AmazonPollyPresigningClient}, and the
+     * speech is fetched into the cache in the background for next time.
+     *
+     * @param request the presign request.
+     * @return a file URL or a presigned URL.
+     * @throws IllegalStateException if the speech is not on disk and the
+     *             cache was not created with a presigning client.
+     */
+    public URL getPresignedSynthesizeSpeechUrl(SynthesizeSpeechPresignRequest request) {
+        final SynthesizeSpeechRequest synthesizeRequest = toSynthesizeSpeechRequest(request);
+        final File file = disk == null ? null : disk.get(keyOf(synthesizeRequest));
+        if (file != null) {
+            try {
+                return file.toURI().toURL();
+            } catch (final MalformedURLException e) {
+                throw new AmazonClientException("Unable to create a URL for " + file, e);
+            }
+        }
+        if (!(polly instanceof AmazonPollyPresigningClient)) {
+            throw new IllegalStateException(
+                    "Uncached speech needs an AmazonPollyPresigningClient to presign a URL");
+        }
+        if (disk != null) {
+            prefetch(synthesizeRequest);
+        }
+        return ((AmazonPollyPresigningClient) polly).getPresignedSynthesizeSpeechUrl(request);
+    }
+
+    /**
+     * Synthesizes the speech in the background unless it is already cached.
+     *
+     * @param request the synthesis request.
+     * @return a future which completes once the speech is cached.
+     */
+    public Future<?> prefetch(final SynthesizeSpeechRequest request) {
+        final String key = keyOf(request);
+        return executor.submit(new Callable<Void>() {
+            @Override
+            public Void call() {
+                if (lookup(key, request) == null) {
+                    load(key, request);
+                }
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Synthesizes every uncached request in the background. Failures are
+     * logged and otherwise ignored; a later request simply misses.
+     *
+     * @param requests the synthesis requests.
+     */
+    public void prefetch(Collection<SynthesizeSpeechRequest> requests) {
+        for (final SynthesizeSpeechRequest request : requests) {
+            final String key = keyOf(request);
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        if (lookup(key, request) == null) {
+                            load(key, request);
+                        }
+                    } catch (final AmazonClientException e) {
+                        log.warn("Unable to prefetch speech", e);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Returns whether the speech is cached in memory or on disk.
+     *
+     * @param request the synthesis request.
+     * @return true if a synthesis would not call the service.
+     */
+    public boolean isCached(SynthesizeSpeechRequest request) {
+        final String key = keyOf(request);
+        synchronized (memory) {
+            if (memory.containsKey(key)) {
+                return true;
+            }
+        }
+        return disk != null && disk.contains(key);
+    }
+
+    /**
+     * Removes the speech from the cache.
+     *
+     * @param request the synthesis request.
+     */
+    public void invalidate(SynthesizeSpeechRequest request) {
+        final String key = keyOf(request);
+        synchronized (memory) {
+            final CachedSpeech removed = memory.remove(key);
+            if (removed != null) {
+                memoryBytes -= removed.audio.length;
+            }
+        }
+        if (disk != null) {
+            disk.remove(key);
+        }
+    }
+
+    /**
+     * Removes everything from the cache.
+     */
+    public void clear() {
+        synchronized (memory) {
+            memory.clear();
+            memoryBytes = 0;
+        }
+        if (disk != null) {
+            disk.clear();
+        }
+    }
+
+    /**
+     * Stops the internal prefetch executor. Has no effect on an executor
+     * passed to the constructor.
+     */
+    public void shutdown() {
+        if (ownsExecutor) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Returns the memory or disk entry for the key, promoting a disk entry
+     * into memory.
+     */
+    private CachedSpeech lookup(String key, SynthesizeSpeechRequest request) {
+        synchronized (memory) {
+            final CachedSpeech speech = memory.get(key);
+            if (speech != null) {
+                return speech;
+            }
+        }
+        final File file = disk == null ? null : disk.get(key);
+        if (file == null) {
+            return null;
+        }
+        final byte[] audio;
+        try {
+            final InputStream in = new FileInputStream(file);
+            try {
+                audio = IOUtils.toByteArray(in);
+            } finally {
+                in.close();
+            }
+        } catch (final IOException e) {
+            // deleted while reading
+            return null;
+        }
+        final CachedSpeech speech = new CachedSpeech(audio,
+                contentTypeOf(request.getOutputFormat()), null);
+        remember(key, speech);
+        return speech;
+    }
+
+    /**
+     * Synthesizes the speech, sharing the service call with any concurrent
+     * load of the same key.
+     */
+    private CachedSpeech load(final String key, final SynthesizeSpeechRequest request) {
+        final FutureTask<CachedSpeech> task = new FutureTask<CachedSpeech>(
+                new Callable<CachedSpeech>() {
+                    @Override
+                    public CachedSpeech call() throws IOException {
+                        return synthesize(key, request);
+                    }
+                });
+        final FutureTask<CachedSpeech> existing = inFlight.putIfAbsent(key, task);
+        final FutureTask<CachedSpeech> shared = existing == null ? task : existing;
+        if (existing == null) {
+            try {
+                task.run();
+            } finally {
+                inFlight.remove(key, task);
+            }
+        }
+        try {
+            return shared.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmazonClientException("Interrupted while waiting for speech", e);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof AmazonClientException) {
+                throw (AmazonClientException) cause;
+            }
+            throw new AmazonClientException("Unable to synthesize speech: "
+                    + cause.getMessage(), cause);
+        }
+    }
+
+    private CachedSpeech synthesize(String key, SynthesizeSpeechRequest request)
+            throws IOException {
+        final SynthesizeSpeechResult result = polly.synthesizeSpeech(request);
+        final InputStream in = result.getAudioStream();
+        final byte[] audio;
+        try {
+            audio = IOUtils.toByteArray(in);
+        } finally {
+            in.close();
+        }
+        final CachedSpeech speech = new CachedSpeech(audio, result.getContentType(),
+                result.getRequestCharacters());
+        remember(key, speech);
+        if (disk != null) {
+            store(key, audio);
+        }
+        return speech;
+    }
+
+    private void remember(String key, CachedSpeech speech) {
+        if (speech.audio.length > maxMemoryBytes) {
+            return;
+        }
+        synchronized (memory) {
+            final CachedSpeech previous = memory.put(key, speech);
+            if (previous != null) {
+                memoryBytes -= previous.audio.length;
+            }
+            memoryBytes += speech.audio.length;
+            final Iterator<CachedSpeech> eldest = memory.values().iterator();
+            while (memoryBytes > maxMemoryBytes && eldest.hasNext()) {
+                memoryBytes -= eldest.next().audio.length;
+                eldest.remove();
+            }
+        }
+    }
+
+    private void store(String key, final byte[] audio) {
+        try {
+            disk.put(key, new DiskLruStore.EntryWriter() {
+                @Override
+                public void write(OutputStream out) throws IOException {
+                    out.write(audio);
+                }
+            });
+        } catch (final IOException e) {
+            log.warn("Unable to store speech in the disk cache", e);
+        }
+    }
+
+    /**
+     * The content type Amazon Polly returns for an output format, used for
+     * entries read back from disk.
+     */
+    static String contentTypeOf(String outputFormat) {
+        if (outputFormat == null) {
+            return null;
+        }
+        final String format = outputFormat.toLowerCase(Locale.US);
+        if ("mp3".equals(format)) {
+            return "audio/mpeg";
+        } else if ("ogg_vorbis".equals(format)) {
+            return "audio/ogg";
+        } else if ("pcm".equals(format)) {
+            return "audio/pcm";
+        } else if ("json".equals(format)) {
+            return "application/x-json-stream";
+        }
+        return null;
+    }
+
+    /**
+     * The cache key: a hex SHA-256 over every field that affects the audio,
+     * each length prefixed so that no two requests share an encoding.
+     * Speech mark types are a set and are sorted; lexicons are applied in
+     * order and are not.
+     */
+    static String keyOf(SynthesizeSpeechRequest request) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            writeField(out, request.getText());
+            writeField(out, request.getTextType());
+            writeField(out, request.getVoiceId());
+            writeField(out, request.getEngine());
+            writeField(out, request.getLanguageCode());
+            writeField(out, request.getOutputFormat());
+            writeField(out, request.getSampleRate());
+            writeList(out, request.getLexiconNames(), false);
+            writeList(out, request.getSpeechMarkTypes(), true);
+            out.flush();
+        } catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return BinaryUtils.toHex(digest.digest(bytes.toByteArray()));
+        } catch (final NoSuchAlgorithmException e) {
+            throw new AmazonClientException("SHA-256 is not available", e);
+        }
+    }
+
+    private static void writeList(DataOutputStream out, List<String> values, boolean sort)
+            throws IOException {
+        if (values == null) {
+            out.writeInt(-1);
+            return;
+        }
+        final List<String> ordered = new ArrayList<String>(values);
+        if (sort) {
+            Collections.sort(ordered);
+        }
+        out.writeInt(ordered.size());
+        for (final String value : ordered) {
+            writeField(out, value);
+        }
+    }
+
+    private static void writeField(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        final byte[] bytes = value.getBytes(StringUtils.UTF8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static SynthesizeSpeechRequest toSynthesizeSpeechRequest(
+            SynthesizeSpeechPresignRequest presign) {
+        final SynthesizeSpeechRequest request = new SynthesizeSpeechRequest()
+                .withText(presign.getText())
+                .withTextType(presign.getTextType())
+                .withVoiceId(presign.getVoiceId())
+                .withLanguageCode(presign.getLanguageCode())
+                .withOutputFormat(presign.getOutputFormat())
+                .withSampleRate(presign.getSampleRate());
+        if (presign.getEngine() != null) {
+            request.setEngine(presign.getEngine().toString());
+        }
+        if (presign.getLexiconNames() != null) {
+            request.setLexiconNames(presign.getLexiconNames());
+        }
+        if (presign.getSpeechMarkTypes() != null) {
+            request.setSpeechMarkTypes(presign.getSpeechMarkTypes());
+        }
+        return request;
+    }
+
+    /** Audio held by the cache, shared read-only by every hit */
+    private static final class CachedSpeech {
+        final byte[] audio;
+        final String contentType;
+        final Integer requestCharacters;
+
+        CachedSpeech(byte[] audio, String contentType, Integer requestCharacters) {
+            this.audio = audio;
+            this.contentType = contentType;
+            this.requestCharacters = requestCharacters;
+        }
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.services.polly;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.internal.StaticCredentialsProvider;
+import com.amazonaws.services.polly.model.OutputFormat;
+import com.amazonaws.services.polly.model.SynthesizeSpeechPresignRequest;
+import com.amazonaws.services.polly.model.SynthesizeSpeechRequest;
+import com.amazonaws.services.polly.model.SynthesizeSpeechResult;
+import com.amazonaws.services.polly.model.VoiceId;
+import com.amazonaws.util.IOUtils;
+import com.amazonaws.util.StringUtils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AmazonPollySynthesisCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private FakePolly polly;
+    private AmazonPollySynthesisCache cache;
+
+    @Before
+    public void setup() {
+        polly = new FakePolly();
+    }
+
+    @After
+    public void teardown() {
+        if (cache != null) {
+            cache.shutdown();
+        }
+    }
+
+    @Test
+    public void testMemoryHitDoesNotCallService() throws Exception {
+        cache = new AmazonPollySynthesisCache(polly, null);
+        final SynthesizeSpeechResult first = cache.synthesizeSpeech(request("hello", VoiceId.Joanna));
+        final SynthesizeSpeechResult second = cache.synthesizeSpeech(request("hello", VoiceId.Joanna));
+
+        assertEquals(1, polly.calls.get());
+        assertEquals("hello|Joanna", read(first));
+        assertEquals("hello|Joanna", read(second));
+        assertEquals(Integer.valueOf(5), first.getRequestCharacters());
+        assertEquals(Integer.valueOf(0), second.getRequestCharacters());
+        assertEquals("audio/mpeg", second.getContentType());
+    }
+
+    @Test
+    public void testKeyCoversVoiceAndFormat() {
+        final String key = AmazonPollySynthesisCache.keyOf(request("hello", VoiceId.Joanna));
+        assertEquals(key, AmazonPollySynthesisCache.keyOf(request("hello", VoiceId.Joanna)));
+        assertNotEquals(key, AmazonPollySynthesisCache.keyOf(request("hello", VoiceId.Matthew)));
+        assertNotEquals(key, AmazonPollySynthesisCache.keyOf(
+                request("hello", VoiceId.Joanna).withOutputFormat(OutputFormat.Ogg_vorbis)));
+        assertNotEquals(key, AmazonPollySynthesisCache.keyOf(
+                request("hello", VoiceId.Joanna).withSampleRate("8000")));
+        assertNotEquals(key, AmazonPollySynthesisCache.keyOf(
+                request("hello", VoiceId.Joanna).withLexiconNames("lexicon")));
+        // fields are length prefixed, so moving characters between them changes the key
+        assertNotEquals(
+                AmazonPollySynthesisCache.keyOf(request("hello", VoiceId.Joanna).withLexiconNames("ab", "c")),
+                AmazonPollySynthesisCache.keyOf(request("hello", VoiceId.Joanna).withLexiconNames("a", "bc")));
+    }
+
+    @Test
+    public void testContentTypeOfOutputFormat() {
+        assertEquals("audio/mpeg", AmazonPollySynthesisCache.contentTypeOf("mp3"));
+        assertEquals("audio/ogg", AmazonPollySynthesisCache.contentTypeOf("ogg_vorbis"));
+        assertEquals("audio/pcm", AmazonPollySynthesisCache.contentTypeOf("pcm"));
+        assertEquals("application/x-json-stream", AmazonPollySynthesisCache.contentTypeOf("json"));
+    }
+
+    @Test
+    public void testDiskHitSurvivesNewInstance() throws Exception {
+        final File dir = folder.newFolder();
+        cache = new AmazonPollySynthesisCache(polly, dir);
+        cache.synthesizeSpeech(request("hello", VoiceId.Joanna));
+        cache.shutdown();
+
+        cache = new AmazonPollySynthesisCache(polly, dir);
+        final SynthesizeSpeechResult result = cache.synthesizeSpeech(request("hello", VoiceId.Joanna));
+        assertEquals(1, polly.calls.get());
+        assertEquals("hello|Joanna", read(result));
+        assertEquals("audio/mpeg", result.getContentType());
+    }
+
+    @Test
+    public void testMemoryEvictsLeastRecentlyUsed() throws Exception {
+        // each clip is 12 bytes, so two fit
+        cache = new AmazonPollySynthesisCache(polly, null, 24, 0, null);
+        cache.synthesizeSpeech(request("aaaaa", VoiceId.Joanna));
+        cache.synthesizeSpeech(request("bbbbb", VoiceId.Joanna));
+        cache.synthesizeSpeech(request("aaaaa", VoiceId.Joanna));
+        cache.synthesizeSpeech(request("ccccc", VoiceId.Joanna));
+
+        assertTrue(cache.isCached(request("aaaaa", VoiceId.Joanna)));
+        assertFalse(cache.isCached(request("bbbbb", VoiceId.Joanna)));
+        assertTrue(cache.isCached(request("ccccc", VoiceId.Joanna)));
+        assertEquals(3, polly.calls.get());
+    }
+
+    @Test
+    public void testDiskEvictsOldestFiles() throws Exception {
+        final File dir = folder.newFolder();
+        cache = new AmazonPollySynthesisCache(polly, dir, 0, 24, null);
+        cache.synthesizeSpeech(request("aaaaa", VoiceId.Joanna));
+        final File[] files = dir.listFiles();
+        assertEquals(1, files.length);
+        files[0].setLastModified(System.currentTimeMillis() - 60000);
+        cache.synthesizeSpeech(request("bbbbb", VoiceId.Joanna));
+        cache.synthesizeSpeech(request("ccccc", VoiceId.Joanna));
+
+        assertEquals(2, dir.listFiles().length);
+        assertFalse(cache.isCached(request("aaaaa", VoiceId.Joanna)));
+        assertTrue(cache.isCached(request("ccccc", VoiceId.Joanna)));
+    }
+
+    @Test
+    public void testPrefetch() throws Exception {
+        cache = new AmazonPollySynthesisCache(polly, null);
+        final Future<?> future = cache.prefetch(request("hello", VoiceId.Joanna));
+        future.get(5, TimeUnit.SECONDS);
+        assertTrue(cache.isCached(request("hello", VoiceId.Joanna)));
+
+        cache.synthesizeSpeech(request("hello", VoiceId.Joanna));
+        assertEquals(1, polly.calls.get());
+    }
+
+    @Test
+    public void testConcurrentMissesShareOneCall() throws Exception {
+        polly.gate = new CountDownLatch(1);
+        cache = new AmazonPollySynthesisCache(polly, null);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<SynthesizeSpeechResult>> results =
+                    new ArrayList<Future<SynthesizeSpeechResult>>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(new java.util.concurrent.Callable<SynthesizeSpeechResult>() {
+                    @Override
+                    public SynthesizeSpeechResult call() {
+                        return cache.synthesizeSpeech(request("hello", VoiceId.Joanna));
+                    }
+                }));
+            }
+            Thread.sleep(100);
+            polly.gate.countDown();
+            for (final Future<SynthesizeSpeechResult> result : results) {
+                assertEquals("hello|Joanna", read(result.get(5, TimeUnit.SECONDS)));
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, polly.calls.get());
+    }
+
+    @Test
+    public void testInvalidate() throws Exception {
+        final File dir = folder.newFolder();
+        cache = new AmazonPollySynthesisCache(polly, dir);
+        cache.synthesizeSpeech(request("hello", VoiceId.Joanna));
+        cache.invalidate(request("hello", VoiceId.Joanna));
+        assertFalse(cache.isCached(request("hello", VoiceId.Joanna)));
+        assertEquals(0, dir.listFiles().length);
+    }
+
+    @Test
+    public void testPresignedUrlOfDiskEntryIsFile() throws Exception {
+        final File dir = folder.newFolder();
+        cache = new AmazonPollySynthesisCache(polly, dir);
+        final SynthesizeSpeechPresignRequest presign = new SynthesizeSpeechPresignRequest()
+                .withText("hello")
+                .withVoiceId(VoiceId.Joanna)
+                .withOutputFormat(OutputFormat.Mp3);
+        cache.synthesizeSpeech(presign);
+
+        final URL url = cache.getPresignedSynthesizeSpeechUrl(presign);
+        assertEquals("file", url.getProtocol());
+        assertArrayEquals("hello|Joanna".getBytes(StringUtils.UTF8),
+                IOUtils.toByteArray(url.openStream()));
+    }
+
+    private static SynthesizeSpeechRequest request(String text, VoiceId voice) {
+        return new SynthesizeSpeechRequest()
+                .withText(text)
+                .withVoiceId(voice)
+                .withOutputFormat(OutputFormat.Mp3);
+    }
+
+    private static String read(SynthesizeSpeechResult result) throws Exception {
+        return new String(IOUtils.toByteArray(result.getAudioStream()), StringUtils.UTF8);
+    }
+
+    /** Returns "text|voice" as the audio and counts calls */
+    private static class FakePolly extends AmazonPollyPresigningClient {
+        final AtomicInteger calls = new AtomicInteger();
+        volatile CountDownLatch gate;
+
+        FakePolly() {
+            super(new StaticCredentialsProvider(new BasicAWSCredentials("access", "secret")));
+        }
+
+        @Override
+        public SynthesizeSpeechResult synthesizeSpeech(SynthesizeSpeechRequest request) {
+            calls.incrementAndGet();
+            if (gate != null) {
+                try {
+                    gate.await(5, TimeUnit.SECONDS);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            final SynthesizeSpeechResult result = new SynthesizeSpeechResult();
+            result.setAudioStream(new ByteArrayInputStream(
+                    (request.getText() + "|" + request.getVoiceId()).getBytes(StringUtils.UTF8)));
+            result.setContentType("audio/mpeg");
+            result.setRequestCharacters(request.getText().length());
+            return result;
+        }
+    }
+}
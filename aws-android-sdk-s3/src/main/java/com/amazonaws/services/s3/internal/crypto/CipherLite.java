@@ -298,6 +298,15 @@ class CipherLite {
         return secreteKey.getAlgorithm();
     }
 
+    /**
+     * Returns the secret key of the underlying cipher, so that other ciphers
+     * can be created over the same content, such as the CTR ciphers of a
+     * parallel GCM download.
+     */
+    final SecretKey getSecretKey() {
+        return secreteKey;
+    }
+
     /**
      * This method is provided only for testing purposes. The {@link CipherLite}
      * is intended to be used in lieu of the underlying Cipher.
@@ -0,0 +1,255 @@
+/*
+ * Copyright 2013-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.services.s3.internal.crypto;
+
+/**
+ * The GHASH function of AES/GCM over a contiguous run of cipher text blocks.
+ * See <a href=
+ * "http://csrc.nist.gov/publications/nistpubs/800-38D/SP-800-38D.pdf"> NIST
+ * Special Publication 800-38D.</a>
+ * <p>
+ * Each instance hashes its blocks starting from a zero state so that the
+ * cipher text of an object can be hashed in independent segments. The partial
+ * hashes are combined with {@link #combine(byte[], byte[], byte[], long)}, which
+ * relies on GHASH being linear: a segment followed by {@code n} more blocks
+ * contributes its partial hash multiplied by {@code H^n}.
+ * <p>
+ * Multiplication by the fixed hash subkey uses 4-bit tables; the generic
+ * multiplication is only needed for combining segments.
+ * <p>
+ * This class is not thread safe.
+ */
+final class GHash {
+
+    static final int BLOCK_SIZE = 16;
+
+    /** The reduction polynomial x^128 + x^7 + x^2 + x + 1, bit reflected */
+    private static final long R = 0xE100000000000000L;
+
+    private static final long[] LAST4 = {
+            0x0000L, 0x1c20L, 0x3840L, 0x2460L, 0x7080L, 0x6ca0L, 0x48c0L, 0x54e0L,
+            0xe100L, 0xfd20L, 0xd940L, 0xc560L, 0x9180L, 0x8da0L, 0xa9c0L, 0xb5e0L
+    };
+
+    private final long[] hh = new long[16];
+    private final long[] hl = new long[16];
+    private final byte[] pending = new byte[BLOCK_SIZE];
+    private int pendingLength;
+    private long zh;
+    private long zl;
+    private long blockCount;
+
+    /**
+     * @param h the hash subkey, E(K, 0^128)
+     */
+    GHash(byte[] h) {
+        long vh = toLong(h, 0);
+        long vl = toLong(h, 8);
+        hh[8] = vh;
+        hl[8] = vl;
+        for (int i = 4; i > 0; i >>= 1) {
+            final long t = (vl & 1) == 0 ? 0 : R;
+            vl = (vh << 63) | (vl >>> 1);
+            vh = (vh >>> 1) ^ t;
+            hh[i] = vh;
+            hl[i] = vl;
+        }
+        for (int i = 2; i <= 8; i <<= 1) {
+            vh = hh[i];
+            vl = hl[i];
+            for (int j = 1; j < i; j++) {
+                hh[i + j] = vh ^ hh[j];
+                hl[i + j] = vl ^ hl[j];
+            }
+        }
+    }
+
+    /**
+     * Hashes the next bytes of the segment. Bytes that do not fill a block
+     * are kept until the next call, or until {@link #digest()} pads them.
+     */
+    void update(byte[] b, int off, int len) {
+        if (pendingLength > 0) {
+            final int n = Math.min(len, BLOCK_SIZE - pendingLength);
+            System.arraycopy(b, off, pending, pendingLength, n);
+            pendingLength += n;
+            off += n;
+            len -= n;
+            if (pendingLength < BLOCK_SIZE) {
+                return;
+            }
+            block(pending, 0);
+            pendingLength = 0;
+        }
+        while (len >= BLOCK_SIZE) {
+            block(b, off);
+            off += BLOCK_SIZE;
+            len -= BLOCK_SIZE;
+        }
+        if (len > 0) {
+            System.arraycopy(b, off, pending, 0, len);
+            pendingLength = len;
+        }
+    }
+
+    /**
+     * Zero pads the last partial block, if any, and returns the partial hash
+     * of the segment.
+     */
+    byte[] digest() {
+        if (pendingLength > 0) {
+            for (int i = pendingLength; i < BLOCK_SIZE; i++) {
+                pending[i] = 0;
+            }
+            block(pending, 0);
+            pendingLength = 0;
+        }
+        final byte[] out = new byte[BLOCK_SIZE];
+        toBytes(zh, out, 0);
+        toBytes(zl, out, 8);
+        return out;
+    }
+
+    /**
+     * Returns the number of blocks hashed so far, counting a pending partial
+     * block as a whole one.
+     */
+    long getBlockCount() {
+        return blockCount + (pendingLength > 0 ? 1 : 0);
+    }
+
+    /**
+     * Returns {@code acc ^ (partial * h^n)}, which is how a segment's partial
+     * hash contributes to the hash of the whole when {@code n} blocks follow
+     * the segment.
+     */
+    static byte[] combine(byte[] acc, byte[] partial, byte[] h, long n) {
+        final byte[] product = multiply(partial, power(h, n));
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            product[i] ^= acc[i];
+        }
+        return product;
+    }
+
+    /**
+     * The GCM length block: the bit lengths of the additional authenticated
+     * data and of the cipher text, each as a 64-bit big endian integer.
+     */
+    static byte[] lengthBlock(long aadLength, long cipherTextLength) {
+        final byte[] block = new byte[BLOCK_SIZE];
+        toBytes(aadLength * 8, block, 0);
+        toBytes(cipherTextLength * 8, block, 8);
+        return block;
+    }
+
+    /**
+     * Returns {@code h^n} in GF(2^128), with {@code h^0} being the
+     * multiplicative identity.
+     */
+    static byte[] power(byte[] h, long n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("negative exponent: " + n);
+        }
+        byte[] result = new byte[BLOCK_SIZE];
+        result[0] = (byte) 0x80;
+        byte[] base = h.clone();
+        while (n > 0) {
+            if ((n & 1) != 0) {
+                result = multiply(result, base);
+            }
+            n >>>= 1;
+            if (n > 0) {
+                base = multiply(base, base);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Bitwise multiplication in GF(2^128), algorithm 1 of SP 800-38D.
+     */
+    static byte[] multiply(byte[] x, byte[] y) {
+        long zHigh = 0;
+        long zLow = 0;
+        long vHigh = toLong(y, 0);
+        long vLow = toLong(y, 8);
+        for (int i = 0; i < 128; i++) {
+            final int bit = (x[i >>> 3] >>> (7 - (i & 7))) & 1;
+            if (bit != 0) {
+                zHigh ^= vHigh;
+                zLow ^= vLow;
+            }
+            final boolean lsb = (vLow & 1) != 0;
+            vLow = (vLow >>> 1) | (vHigh << 63);
+            vHigh >>>= 1;
+            if (lsb) {
+                vHigh ^= R;
+            }
+        }
+        final byte[] out = new byte[BLOCK_SIZE];
+        toBytes(zHigh, out, 0);
+        toBytes(zLow, out, 8);
+        return out;
+    }
+
+    /**
+     * Y = (Y ^ X) * H, using the 4-bit tables.
+     */
+    private void block(byte[] b, int off) {
+        final long xh = zh ^ toLong(b, off);
+        final long xl = zl ^ toLong(b, off + 8);
+        long h = 0;
+        long l = 0;
+        for (int i = 15; i >= 0; i--) {
+            final int x = (int) ((i < 8 ? xh >>> (56 - 8 * i) : xl >>> (56 - 8 * (i - 8))) & 0xff);
+            final int lo = x & 0x0f;
+            final int hi = x >>> 4;
+            if (i != 15) {
+                final int rem = (int) (l & 0x0f);
+                l = (h << 60) | (l >>> 4);
+                h = (h >>> 4) ^ (LAST4[rem] << 48);
+                h ^= hh[lo];
+                l ^= hl[lo];
+            } else {
+                h = hh[lo];
+                l = hl[lo];
+            }
+            final int rem = (int) (l & 0x0f);
+            l = (h << 60) | (l >>> 4);
+            h = (h >>> 4) ^ (LAST4[rem] << 48);
+            h ^= hh[hi];
+            l ^= hl[hi];
+        }
+        zh = h;
+        zl = l;
+        blockCount++;
+    }
+
+    private static long toLong(byte[] b, int off) {
+        long v = 0;
+        for (int i = 0; i < 8; i++) {
+            v = (v << 8) | (b[off + i] & 0xff);
+        }
+        return v;
+    }
+
+    private static void toBytes(long v, byte[] out, int off) {
+        for (int i = 7; i >= 0; i--) {
+            out[off + i] = (byte) v;
+            v >>>= 8;
+        }
+    }
+}
@@ -0,0 +1,370 @@
+/*
+ * Copyright 2013-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.services.s3.internal.crypto;
+
+import static com.amazonaws.services.s3.AmazonS3EncryptionClient.USER_AGENT;
+import static com.amazonaws.util.IOUtils.closeQuietly;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.async.SdkExecutors;
+import com.amazonaws.logging.Log;
+import com.amazonaws.logging.LogFactory;
+import com.amazonaws.services.s3.internal.S3Direct;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.Provider;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+
+/**
+ * Downloads an object encrypted with AES/GCM to a file using concurrent
+ * ranged GETs.
+ * <p>
+ * GCM encrypts with AES/CTR, so each range of cipher text is decrypted on its
+ * own with a CTR cipher whose counter is advanced to the start of the range,
+ * the same way range gets are decrypted. Authentication is not given up: each
+ * range also computes a partial GHASH of its cipher text, and the partial
+ * hashes are combined into the tag of the whole object, which must match the
+ * tag stored at the end of the object. If it does not, the destination file is
+ * deleted and a {@link SecurityException} is thrown.
+ * <p>
+ * The object is split into parts of the same size as the first ranged GET, so
+ * the response of that GET, which the caller has already used to resolve the
+ * content crypto material, is decrypted as the first part. Each part streams
+ * its plaintext to its own region of the file, so memory use is bounded by the
+ * number of threads regardless of the object size. The other parts are only
+ * fetched if the object still has the ETag returned by the first GET.
+ *
+ * @deprecated See {@link com.amazonaws.services.s3.AmazonS3EncryptionClient}
+ *             for further details.
+ */
+@Deprecated
+final class ParallelGcmDownload {
+
+    private static final Log log = LogFactory.getLog(ParallelGcmDownload.class);
+    private static final int BUFFER_SIZE = 1024 * 16;
+    private static final int TAG_LENGTH_IN_BYTES =
+            ContentCryptoScheme.AES_GCM.getTagLengthInBits() / 8;
+    private static final int SUPPORTED_IV_LENGTH = 12;
+
+    private final S3Direct s3;
+    private final GetObjectRequest template;
+    private final SecretKey cek;
+    private final byte[] iv;
+    private final Provider securityProvider;
+    private final int threadCount;
+    private final long partSize;
+
+    /**
+     * @param s3 used to fetch the parts after the first one
+     * @param template the request of the caller; it is not modified
+     * @param cipherLite the AES/GCM cipher of the object, created without any
+     *            range adjustment
+     * @param securityProvider optional security provider, as configured in
+     *            the crypto configuration
+     * @param threadCount the max number of parts downloaded at the same time
+     * @param partSize size of each part; must be a multiple of the AES block
+     *            size and match the range of the first GET
+     */
+    ParallelGcmDownload(S3Direct s3, GetObjectRequest template,
+            CipherLite cipherLite, Provider securityProvider, int threadCount,
+            long partSize) {
+        if (partSize <= 0 || partSize % GHash.BLOCK_SIZE != 0) {
+            throw new IllegalArgumentException(
+                    "Expecting partSize to be a positive multiple of 16, but got " + partSize);
+        }
+        this.s3 = s3;
+        this.template = template;
+        this.cek = cipherLite.getSecretKey();
+        this.iv = cipherLite.getIV();
+        this.securityProvider = securityProvider;
+        this.threadCount = threadCount;
+        this.partSize = partSize;
+    }
+
+    /**
+     * Returns true if the object encrypted with the given cipher can be
+     * downloaded in parallel, which requires AES/GCM with a 96-bit IV.
+     */
+    static boolean isSupported(CipherLite cipherLite) {
+        final byte[] iv = cipherLite.getIV();
+        return ContentCryptoScheme.AES_GCM.equals(cipherLite.getContentCryptoScheme())
+                && iv != null && iv.length == SUPPORTED_IV_LENGTH
+                && cipherLite.getSecretKey() != null;
+    }
+
+    /**
+     * Returns a copy of the given request for the specified range of bytes,
+     * inclusive. Only the properties that affect which bytes are returned are
+     * copied.
+     */
+    static GetObjectRequest rangedCopyOf(GetObjectRequest req, long start, long end) {
+        final GetObjectRequest copy = new GetObjectRequest(req.getS3ObjectId())
+                .withRange(start, end)
+                .withRequesterPays(req.isRequesterPays());
+        copy.setSSECustomerKey(req.getSSECustomerKey());
+        copy.setResponseHeaders(req.getResponseHeaders());
+        copy.setMatchingETagConstraints(req.getMatchingETagConstraints());
+        copy.setNonmatchingETagConstraints(req.getNonmatchingETagConstraints());
+        copy.setModifiedSinceConstraint(req.getModifiedSinceConstraint());
+        copy.setUnmodifiedSinceConstraint(req.getUnmodifiedSinceConstraint());
+        copy.setGeneralProgressListener(req.getGeneralProgressListener());
+        copy.setRequestMetricCollector(req.getRequestMetricCollector());
+        copy.getRequestClientOptions().appendUserAgent(USER_AGENT);
+        return copy;
+    }
+
+    /**
+     * Downloads and decrypts the whole object into the destination file.
+     *
+     * @param first the response to the ranged GET of the first part, which
+     *            is always closed by this method
+     * @param destination the file to write the plaintext to
+     * @throws SecurityException if the object fails authentication
+     */
+    void download(final S3Object first, File destination) {
+        final long instanceLength = first.getObjectMetadata().getInstanceLength();
+        final long cipherTextLength = instanceLength - TAG_LENGTH_IN_BYTES;
+        if (cipherTextLength < 0) {
+            abortQuietly(first);
+            throw new SecurityException("Object " + first.getKey()
+                    + " is too short to contain an AES/GCM tag");
+        }
+        final String eTag = first.getObjectMetadata().getETag();
+        final byte[] tag = new byte[TAG_LENGTH_IN_BYTES];
+        final int partCount = (int) ((instanceLength + partSize - 1) / partSize);
+
+        RandomAccessFile file = null;
+        ExecutorService executor = null;
+        boolean succeeded = false;
+        try {
+            file = new RandomAccessFile(destination, "rw");
+            file.setLength(cipherTextLength);
+            final FileChannel channel = file.getChannel();
+            executor = SdkExecutors.newClientExecutor(
+                    Math.max(1, Math.min(threadCount, partCount)));
+            final List<Future<byte[]>> partials = new ArrayList<Future<byte[]>>(partCount);
+            for (int i = 0; i < partCount; i++) {
+                final long start = i * partSize;
+                final long end = Math.min(start + partSize, instanceLength);
+                final boolean isFirst = i == 0;
+                partials.add(executor.submit(new Callable<byte[]>() {
+                    @Override
+                    public byte[] call() throws Exception {
+                        final S3Object part = isFirst ? first : fetch(start, end, eTag);
+                        return decryptPart(part, start, end, cipherTextLength, channel, tag);
+                    }
+                }));
+            }
+            executor.shutdown();
+
+            final byte[] h = encryptBlock(new byte[GHash.BLOCK_SIZE]);
+            final long dataBlocks = blocks(cipherTextLength);
+            byte[] ghash = new byte[GHash.BLOCK_SIZE];
+            for (int i = 0; i < partCount; i++) {
+                final byte[] partial = await(partials.get(i));
+                final long start = i * partSize;
+                if (start >= cipherTextLength) {
+                    continue;
+                }
+                final long lastBlock = blocks(Math.min(start + partSize, cipherTextLength));
+                ghash = GHash.combine(ghash, partial, h, dataBlocks - lastBlock + 1);
+            }
+            ghash = GHash.combine(ghash, GHash.lengthBlock(0, cipherTextLength), h, 1);
+
+            final byte[] j0 = new byte[GHash.BLOCK_SIZE];
+            System.arraycopy(iv, 0, j0, 0, iv.length);
+            j0[GHash.BLOCK_SIZE - 1] = 0x01;
+            final byte[] expected = encryptBlock(j0);
+            for (int i = 0; i < expected.length; i++) {
+                expected[i] ^= ghash[i];
+            }
+            if (!MessageDigest.isEqual(expected, tag)) {
+                throw new SecurityException("AES/GCM tag mismatch for object "
+                        + first.getKey() + "; the downloaded content has been discarded");
+            }
+            channel.force(false);
+            succeeded = true;
+        } catch (final IOException e) {
+            throw new AmazonClientException(
+                    "Unable to store object contents to disk: " + e.getMessage(), e);
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+            // the first response is normally consumed by its part; make sure
+            // it is released if that part never ran
+            closeQuietly(first.getObjectContent(), log);
+            closeQuietly(file, log);
+            if (!succeeded && !destination.delete() && destination.exists()) {
+                log.warn("Unable to delete partially downloaded file " + destination);
+            }
+        }
+    }
+
+    private S3Object fetch(long start, long end, String eTag) {
+        final GetObjectRequest req = rangedCopyOf(template, start, end - 1);
+        if (eTag != null) {
+            req.setMatchingETagConstraints(Collections.singletonList(eTag));
+        }
+        req.setModifiedSinceConstraint(null);
+        req.setUnmodifiedSinceConstraint(null);
+        req.setNonmatchingETagConstraints(null);
+        final S3Object part = s3.getObject(req);
+        if (part == null) {
+            throw new AmazonClientException("Object " + template.getKey()
+                    + " was modified during the parallel download");
+        }
+        return part;
+    }
+
+    /**
+     * Decrypts the bytes [start, end) of the object into the file, collecting
+     * any bytes of the tag on the way, and returns the partial GHASH of the
+     * cipher text in the part.
+     */
+    private byte[] decryptPart(S3Object part, long start, long end,
+            long cipherTextLength, FileChannel channel, byte[] tag) throws Exception {
+        final S3ObjectInputStream in = part.getObjectContent();
+        boolean completed = false;
+        try {
+            final GHash ghash = new GHash(encryptBlock(new byte[GHash.BLOCK_SIZE]));
+            final CipherLite ctr = start < cipherTextLength
+                    ? ContentCryptoScheme.AES_CTR.createCipherLite(cek,
+                            ContentCryptoScheme.AES_CTR.adjustIV(iv, start),
+                            Cipher.DECRYPT_MODE, securityProvider)
+                    : null;
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            long position = start;
+            long written = start;
+            int read;
+            while (position < end && (read = in.read(buffer, 0,
+                    (int) Math.min(buffer.length, end - position))) != -1) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                final int cipherTextBytes = (int) Math.max(0,
+                        Math.min(read, cipherTextLength - position));
+                if (cipherTextBytes > 0) {
+                    ghash.update(buffer, 0, cipherTextBytes);
+                    written += write(channel, ctr.update(buffer, 0, cipherTextBytes), written);
+                }
+                if (cipherTextBytes < read) {
+                    // the remaining bytes are part of the tag
+                    System.arraycopy(buffer, cipherTextBytes, tag,
+                            (int) (position + cipherTextBytes - cipherTextLength),
+                            read - cipherTextBytes);
+                }
+                position += read;
+            }
+            if (position != end) {
+                throw new AmazonClientException("Unexpected end of stream for range ["
+                        + start + ", " + end + ") of object " + part.getKey()
+                        + ", got " + (position - start) + " bytes");
+            }
+            if (ctr != null) {
+                written += write(channel, ctr.doFinal(), written);
+            }
+            completed = true;
+            return ghash.digest();
+        } finally {
+            if (completed) {
+                closeQuietly(in, log);
+            } else {
+                abortQuietly(part);
+            }
+        }
+    }
+
+    /**
+     * Encrypts a single block with AES/ECB, as used by GCM to derive the hash
+     * subkey and to mask the tag.
+     */
+    private byte[] encryptBlock(byte[] block) {
+        try {
+            final Cipher cipher = securityProvider == null
+                    ? Cipher.getInstance("AES/ECB/NoPadding")
+                    : Cipher.getInstance("AES/ECB/NoPadding", securityProvider);
+            cipher.init(Cipher.ENCRYPT_MODE, cek);
+            return cipher.doFinal(block);
+        } catch (final Exception e) {
+            throw new AmazonClientException("Unable to build cipher: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Writes the bytes at the given position of the file and returns the
+     * number of bytes written.
+     */
+    private static int write(FileChannel channel, byte[] bytes, long position)
+            throws IOException {
+        if (bytes == null || bytes.length == 0) {
+            return 0;
+        }
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            offset += channel.write(buffer, offset);
+        }
+        return bytes.length;
+    }
+
+    private static long blocks(long bytes) {
+        return (bytes + GHash.BLOCK_SIZE - 1) / GHash.BLOCK_SIZE;
+    }
+
+    private static byte[] await(Future<byte[]> future) {
+        try {
+            return future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmazonClientException("Parallel download interrupted", e);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new AmazonClientException("Unable to download part: " + cause.getMessage(), cause);
+        }
+    }
+
+    private static void abortQuietly(S3Object object) {
+        try {
+            object.getObjectContent().abort();
+        } catch (final RuntimeException e) {
+            log.debug("Unable to abort the download of " + object.getKey(), e);
+        }
+    }
+}
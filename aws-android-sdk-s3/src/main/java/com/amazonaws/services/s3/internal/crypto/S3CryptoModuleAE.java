@@ -342,6 +342,39 @@ class S3CryptoModuleAE extends S3CryptoModuleBase<MultipartUploadCryptoContext>
         assertParameterNotNull(destinationFile,
                 "The destination file parameter must be specified when downloading an object directly to a file");
 
+        if (cryptoConfig.getParallelDownloadThreadCount() > 1
+                && getObjectRequest.getRange() == null
+                && getObjectRequest.getPartNumber() == null) {
+            final int blockSize = ContentCryptoScheme.AES_GCM.getBlockSizeInBytes();
+            final long partSize = cryptoConfig.getParallelDownloadPartSize() / blockSize * blockSize;
+            final S3Object first = s3.getObject(
+                    ParallelGcmDownload.rangedCopyOf(getObjectRequest, 0, partSize - 1));
+            // getObject can return null if constraints were specified but not met
+            if (first == null) {
+                return null;
+            }
+            final CipherLite cipherLite;
+            try {
+                cipherLite = parallelDownloadCipherLiteOf(getObjectRequest, first);
+            } catch (final RuntimeException ex) {
+                closeQuietly(first, log);
+                throw ex;
+            }
+            if (cipherLite != null) {
+                new ParallelGcmDownload(s3, getObjectRequest, cipherLite,
+                        cryptoConfig.getCryptoProvider(),
+                        cryptoConfig.getParallelDownloadThreadCount(), partSize)
+                        .download(first, destinationFile);
+                final ObjectMetadata metadata = first.getObjectMetadata();
+                metadata.setContentLength(metadata.getInstanceLength());
+                return metadata;
+            }
+            // Not encrypted with AES/GCM, so the object has to be downloaded
+            // and authenticated with a single GET.
+            first.getObjectContent().abort();
+            closeQuietly(first, log);
+        }
+
         final S3Object s3Object = getObjectSecurely(getObjectRequest);
         // getObject can return null if constraints were specified but not met
         if (s3Object == null) {
@@ -373,6 +406,68 @@ class S3CryptoModuleAE extends S3CryptoModuleBase<MultipartUploadCryptoContext>
         return s3Object.getObjectMetadata();
     }
 
+    /**
+     * Resolves the content crypto material of an object from the response to
+     * the first ranged GET of a parallel download. Returns the AES/GCM cipher
+     * lite of the object, created without any range adjustment; or null if the
+     * object cannot be downloaded in parallel, in which case the regular
+     * download path decides how to handle it.
+     */
+    private CipherLite parallelDownloadCipherLiteOf(GetObjectRequest req,
+            S3Object first) {
+        ExtraMaterialsDescription extraMatDesc = NONE;
+        boolean keyWrapExpected = isStrict();
+        String suffix = null;
+        if (req instanceof EncryptedGetObjectRequest) {
+            final EncryptedGetObjectRequest ereq = (EncryptedGetObjectRequest) req;
+            extraMatDesc = ereq.getExtraMaterialDescription();
+            if (!keyWrapExpected) {
+                keyWrapExpected = ereq.isKeyWrapExpected();
+            }
+            suffix = ereq.getInstructionFileSuffix();
+        }
+        final boolean hasSuffix = suffix != null && !suffix.trim().isEmpty();
+        final S3ObjectWrapper wrapped = new S3ObjectWrapper(first, req.getS3ObjectId());
+        final ContentCryptoMaterial cekMaterial;
+        if (!hasSuffix && wrapped.hasEncryptionInfo()) {
+            cekMaterial = ContentCryptoMaterial.fromObjectMetadata(
+                    first.getObjectMetadata(),
+                    kekMaterialsProvider,
+                    cryptoConfig.getCryptoProvider(),
+                    null,
+                    extraMatDesc,
+                    keyWrapExpected,
+                    kms);
+        } else {
+            final S3ObjectWrapper ifile = fetchInstructionFile(req.getS3ObjectId(),
+                    hasSuffix ? suffix : null);
+            if (ifile == null) {
+                return null;
+            }
+            try {
+                if (!ifile.isInstructionFile()) {
+                    return null;
+                }
+                @SuppressWarnings("unchecked")
+                final Map<String, String> matdesc =
+                        Collections.unmodifiableMap(JsonUtils.jsonToMap(ifile.toJsonString()));
+                cekMaterial = ContentCryptoMaterial.fromInstructionFile(
+                        matdesc,
+                        kekMaterialsProvider,
+                        cryptoConfig.getCryptoProvider(),
+                        null,
+                        extraMatDesc,
+                        keyWrapExpected,
+                        kms);
+            } finally {
+                closeQuietly(ifile, log);
+            }
+        }
+        securityCheck(cekMaterial, wrapped);
+        final CipherLite cipherLite = cekMaterial.getCipherLite();
+        return ParallelGcmDownload.isSupported(cipherLite) ? cipherLite : null;
+    }
+
     @Override
     final MultipartUploadCryptoContext newUploadContext(
             InitiateMultipartUploadRequest req, ContentCryptoMaterial cekMaterial) {
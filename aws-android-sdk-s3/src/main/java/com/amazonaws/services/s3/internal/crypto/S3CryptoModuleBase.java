@@ -34,6 +34,7 @@ import com.amazonaws.internal.ReleasableInputStream;
 import com.amazonaws.internal.ResettableInputStream;
 import com.amazonaws.internal.SdkFilterInputStream;
 import com.amazonaws.services.kms.AWSKMSClient;
+import com.amazonaws.services.kms.CachingAWSKMSClient;
 import com.amazonaws.services.kms.model.GenerateDataKeyRequest;
 import com.amazonaws.services.kms.model.GenerateDataKeyResult;
 import com.amazonaws.services.s3.Headers;
@@ -548,7 +549,9 @@ public abstract class S3CryptoModuleBase<T extends MultipartUploadCryptoContext>
             keyGenReq
                 .withGeneralProgressListener(req.getGeneralProgressListener())
                 .withRequestMetricCollector(req.getRequestMetricCollector());
-            final GenerateDataKeyResult keyGenRes = kms.generateDataKey(keyGenReq);
+            final GenerateDataKeyResult keyGenRes = kms instanceof CachingAWSKMSClient
+                    ? ((CachingAWSKMSClient) kms).generateDataKey(keyGenReq, plaintextLength(req))
+                    : kms.generateDataKey(keyGenReq);
             final SecretKey cek =
                 new SecretKeySpec(copyAllBytesFrom(keyGenRes.getPlaintext()),
                         contentCryptoScheme.getKeyGeneratorAlgorithm());
@@ -564,6 +567,24 @@ public abstract class S3CryptoModuleBase<T extends MultipartUploadCryptoContext>
         }
     }
 
+    /**
+     * Returns the number of bytes of content that will be encrypted for the
+     * request, or -1 if it is not known up front, as for multipart uploads.
+     */
+    private static long plaintextLength(AmazonWebServiceRequest req) {
+        if (!(req instanceof PutObjectRequest)) {
+            return -1;
+        }
+        final PutObjectRequest putObjectRequest = (PutObjectRequest) req;
+        if (putObjectRequest.getFile() != null) {
+            return putObjectRequest.getFile().length();
+        }
+        final ObjectMetadata metadata = putObjectRequest.getMetadata();
+        final Object contentLength = metadata == null
+                ? null : metadata.getRawMetadataValue(Headers.CONTENT_LENGTH);
+        return contentLength instanceof Long ? (Long) contentLength : -1;
+    }
+
     /**
      * @param kekMaterials non-null encryption materials
      */
@@ -36,6 +36,12 @@ public class CryptoConfiguration implements Cloneable, Serializable {
 
     private static final long serialVersionUID = -8646831898339939580L;
 
+    /** Default size of each ranged GET of a parallel download, 8 MB */
+    public static final long DEFAULT_PARALLEL_DOWNLOAD_PART_SIZE = 8L * 1024 * 1024;
+
+    /** Smallest size accepted for each ranged GET of a parallel download, 64 KB */
+    public static final long MIN_PARALLEL_DOWNLOAD_PART_SIZE = 64L * 1024;
+
     private CryptoMode cryptoMode;
     private CryptoStorageMode storageMode;
     private Provider cryptoProvider;
@@ -52,6 +58,17 @@ public class CryptoConfiguration implements Cloneable, Serializable {
      * null if no explicit KMS region is specified.
      */
     private transient com.amazonaws.regions.Region awskmsRegion;
+    /**
+     * Number of ranged GETs used to download an AES/GCM encrypted object
+     * directly to a file. Default is 1, which downloads the object with a
+     * single GET.
+     */
+    private int parallelDownloadThreadCount = 1;
+    /**
+     * Size in bytes of each ranged GET when an object is downloaded to a file
+     * in parallel. Rounded down to a whole number of cipher blocks.
+     */
+    private long parallelDownloadPartSize = DEFAULT_PARALLEL_DOWNLOAD_PART_SIZE;
 
     /**
      * Creates a new CryptoConfiguration object with default storage mode and
@@ -216,6 +233,73 @@ public class CryptoConfiguration implements Cloneable, Serializable {
         return this;
     }
 
+    /**
+     * Returns the number of ranged GETs that are run concurrently when an
+     * object encrypted with AES/GCM is downloaded directly to a file. Each
+     * range is decrypted independently and the GCM tag is still verified over
+     * the whole object before the download returns. Default is 1, which
+     * disables parallel downloads.
+     */
+    public int getParallelDownloadThreadCount() {
+        return parallelDownloadThreadCount;
+    }
+
+    /**
+     * @param parallelDownloadThreadCount
+     *            the number of ranged GETs that are run concurrently when an
+     *            object encrypted with AES/GCM is downloaded directly to a
+     *            file; 1 to download with a single GET.
+     */
+    public void setParallelDownloadThreadCount(int parallelDownloadThreadCount) {
+        if (parallelDownloadThreadCount < 1) {
+            throw new IllegalArgumentException(
+                    "The parallel download thread count must be at least 1");
+        }
+        this.parallelDownloadThreadCount = parallelDownloadThreadCount;
+    }
+
+    /**
+     * Fluent API to set the number of ranged GETs that are run concurrently
+     * when an object encrypted with AES/GCM is downloaded directly to a file.
+     */
+    public CryptoConfiguration withParallelDownloadThreadCount(
+            int parallelDownloadThreadCount) {
+        setParallelDownloadThreadCount(parallelDownloadThreadCount);
+        return this;
+    }
+
+    /**
+     * Returns the size in bytes of each ranged GET of a parallel download.
+     * Default is {@link #DEFAULT_PARALLEL_DOWNLOAD_PART_SIZE}.
+     */
+    public long getParallelDownloadPartSize() {
+        return parallelDownloadPartSize;
+    }
+
+    /**
+     * @param parallelDownloadPartSize
+     *            the size in bytes of each ranged GET of a parallel download;
+     *            must be at least {@link #MIN_PARALLEL_DOWNLOAD_PART_SIZE}.
+     */
+    public void setParallelDownloadPartSize(long parallelDownloadPartSize) {
+        if (parallelDownloadPartSize < MIN_PARALLEL_DOWNLOAD_PART_SIZE) {
+            throw new IllegalArgumentException(
+                    "The parallel download part size must be at least "
+                            + MIN_PARALLEL_DOWNLOAD_PART_SIZE + " bytes");
+        }
+        this.parallelDownloadPartSize = parallelDownloadPartSize;
+    }
+
+    /**
+     * Fluent API to set the size in bytes of each ranged GET of a parallel
+     * download.
+     */
+    public CryptoConfiguration withParallelDownloadPartSize(
+            long parallelDownloadPartSize) {
+        setParallelDownloadPartSize(parallelDownloadPartSize);
+        return this;
+    }
+
     /**
      * Checks if the crypto mode is supported by the runtime.
      *
@@ -276,6 +360,22 @@ public class CryptoConfiguration implements Cloneable, Serializable {
                 boolean ignoreMissingInstructionFile) {
             throw new UnsupportedOperationException();
         }
+        @Override public void setParallelDownloadThreadCount(
+                int parallelDownloadThreadCount) {
+            throw new UnsupportedOperationException();
+        }
+        @Override public CryptoConfiguration withParallelDownloadThreadCount(
+                int parallelDownloadThreadCount) {
+            throw new UnsupportedOperationException();
+        }
+        @Override public void setParallelDownloadPartSize(
+                long parallelDownloadPartSize) {
+            throw new UnsupportedOperationException();
+        }
+        @Override public CryptoConfiguration withParallelDownloadPartSize(
+                long parallelDownloadPartSize) {
+            throw new UnsupportedOperationException();
+        }
         @Override public void setKmsRegion(Regions kmsRegion) {
             throw new UnsupportedOperationException();
         }
@@ -305,6 +405,8 @@ public class CryptoConfiguration implements Cloneable, Serializable {
         that.cryptoProvider = this.cryptoProvider;
         that.ignoreMissingInstructionFile = this.ignoreMissingInstructionFile;
         that.awskmsRegion = this.awskmsRegion;
+        that.parallelDownloadThreadCount = this.parallelDownloadThreadCount;
+        that.parallelDownloadPartSize = this.parallelDownloadPartSize;
         return that;
     }
 
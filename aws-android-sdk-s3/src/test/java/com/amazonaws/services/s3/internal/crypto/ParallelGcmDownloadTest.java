@@ -0,0 +1,283 @@
+package com.amazonaws.services.s3.internal.crypto;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.Headers;
+import com.amazonaws.services.s3.internal.S3Direct;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
+import com.amazonaws.services.s3.model.CopyPartRequest;
+import com.amazonaws.services.s3.model.CopyPartResult;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.PutObjectResult;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+public class ParallelGcmDownloadTest {
+
+    private static final long PART_SIZE = 1024;
+    private static final String ETAG = "etag";
+
+    private final Random random = new Random(42);
+    private SecretKey key;
+    private byte[] iv;
+    private File destination;
+
+    @Before
+    public void setup() throws IOException {
+        final byte[] keyBytes = new byte[32];
+        random.nextBytes(keyBytes);
+        key = new SecretKeySpec(keyBytes, "AES");
+        iv = new byte[12];
+        random.nextBytes(iv);
+        destination = File.createTempFile("parallel-gcm", ".bin");
+    }
+
+    @After
+    public void teardown() {
+        destination.delete();
+    }
+
+    @Test
+    public void testGHashMatchesJceTag() throws Exception {
+        final byte[] plaintext = randomBytes(1000);
+        final byte[] encrypted = encrypt(plaintext);
+        final int cipherTextLength = plaintext.length;
+        final byte[] h = ecb(new byte[16]);
+
+        // hash the cipher text as three segments of 320, 320 and 360 bytes
+        byte[] ghash = new byte[16];
+        final long dataBlocks = (cipherTextLength + 15) / 16;
+        for (int start = 0; start < cipherTextLength; start += 320) {
+            final int end = Math.min(start + 320, cipherTextLength);
+            final GHash segment = new GHash(h);
+            // feed the segment in uneven slices to exercise the pending block
+            for (int off = start; off < end; off += 7) {
+                segment.update(encrypted, off, Math.min(7, end - off));
+            }
+            final byte[] partial = segment.digest();
+            ghash = GHash.combine(ghash, partial, h, dataBlocks - (end + 15) / 16 + 1);
+        }
+        ghash = GHash.combine(ghash, GHash.lengthBlock(0, cipherTextLength), h, 1);
+
+        final byte[] j0 = new byte[16];
+        System.arraycopy(iv, 0, j0, 0, 12);
+        j0[15] = 1;
+        final byte[] tag = ecb(j0);
+        for (int i = 0; i < 16; i++) {
+            tag[i] ^= ghash[i];
+        }
+        assertArrayEquals(Arrays.copyOfRange(encrypted, cipherTextLength, encrypted.length), tag);
+    }
+
+    @Test
+    public void testPowerAndMultiply() {
+        final byte[] h = randomBytes(16);
+        final byte[] one = new byte[16];
+        one[0] = (byte) 0x80;
+        assertArrayEquals(one, GHash.power(h, 0));
+        assertArrayEquals(h, GHash.power(h, 1));
+        assertArrayEquals(GHash.multiply(GHash.multiply(h, h), h), GHash.power(h, 3));
+        assertArrayEquals(GHash.multiply(GHash.power(h, 5), GHash.power(h, 7)), GHash.power(h, 12));
+    }
+
+    @Test
+    public void testDownloadDecryptsAllParts() throws Exception {
+        for (final int length : new int[] {
+                0, 1, 15, 16, 1000, 1008, 1009, 1024, 3000, 4096, 5000}) {
+            final byte[] plaintext = randomBytes(length);
+            final FakeS3 s3 = new FakeS3(encrypt(plaintext));
+            download(s3, 4);
+            assertArrayEquals("length " + length, plaintext, readFile());
+        }
+    }
+
+    @Test
+    public void testTamperedObjectIsRejected() throws Exception {
+        final byte[] plaintext = randomBytes(5000);
+        final byte[] encrypted = encrypt(plaintext);
+        encrypted[2500] ^= 1;
+        try {
+            download(new FakeS3(encrypted), 3);
+            fail("Expected the tag check to fail");
+        } catch (final SecurityException expected) {
+            // expected
+        }
+        assertFalse(destination.exists());
+    }
+
+    @Test
+    public void testModifiedObjectIsRejected() throws Exception {
+        final FakeS3 s3 = new FakeS3(encrypt(randomBytes(5000)));
+        s3.eTag = "changed";
+        try {
+            download(s3, 2);
+            fail("Expected the ETag constraint to fail");
+        } catch (final AmazonClientException expected) {
+            // expected
+        }
+        assertFalse(destination.exists());
+    }
+
+    @Test
+    public void testRangedCopyKeepsObjectIdAndConstraints() {
+        final GetObjectRequest req = new GetObjectRequest("bucket", "key", "version")
+                .withMatchingETagConstraint("abc");
+        final GetObjectRequest copy = ParallelGcmDownload.rangedCopyOf(req, 0, 1023);
+        assertEquals("bucket", copy.getBucketName());
+        assertEquals("key", copy.getKey());
+        assertEquals("version", copy.getVersionId());
+        assertArrayEquals(new long[] {0, 1023}, copy.getRange());
+        assertEquals(req.getMatchingETagConstraints(), copy.getMatchingETagConstraints());
+    }
+
+    private void download(FakeS3 s3, int threads) throws Exception {
+        final GetObjectRequest req = new GetObjectRequest("bucket", "key");
+        final Cipher gcm = Cipher.getInstance("AES/GCM/NoPadding");
+        gcm.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(128, iv));
+        final CipherLite cipherLite = new CipherLite(gcm, ContentCryptoScheme.AES_GCM, key,
+                Cipher.DECRYPT_MODE);
+        final S3Object first = s3.getObject(ParallelGcmDownload.rangedCopyOf(req, 0, PART_SIZE - 1));
+        new ParallelGcmDownload(s3, req, cipherLite, null, threads, PART_SIZE)
+                .download(first, destination);
+    }
+
+    private byte[] encrypt(byte[] plaintext) throws Exception {
+        final Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(128, iv));
+        return cipher.doFinal(plaintext);
+    }
+
+    private byte[] ecb(byte[] block) throws Exception {
+        final Cipher cipher = Cipher.getInstance("AES/ECB/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, key);
+        return cipher.doFinal(block);
+    }
+
+    private byte[] randomBytes(int length) {
+        final byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    private byte[] readFile() throws IOException {
+        final byte[] bytes = new byte[(int) destination.length()];
+        final InputStream in = new FileInputStream(destination);
+        try {
+            int off = 0;
+            int read;
+            while (off < bytes.length && (read = in.read(bytes, off, bytes.length - off)) != -1) {
+                off += read;
+            }
+        } finally {
+            in.close();
+        }
+        return bytes;
+    }
+
+    /**
+     * Serves ranged GETs of a single object and honors the matching ETag
+     * constraint the way S3 does, by returning null.
+     */
+    private static final class FakeS3 extends S3Direct {
+        private final byte[] object;
+        private final AtomicInteger gets = new AtomicInteger();
+        private volatile String eTag = ETAG;
+
+        private FakeS3(byte[] object) {
+            this.object = object;
+        }
+
+        @Override
+        public S3Object getObject(GetObjectRequest req) {
+            final List<String> matching = req.getMatchingETagConstraints();
+            final String current = gets.getAndIncrement() == 0 ? ETAG : eTag;
+            if (matching != null && !matching.isEmpty() && !matching.contains(current)) {
+                return null;
+            }
+            final long[] range = req.getRange();
+            final int start = (int) range[0];
+            final int end = (int) Math.min(range[1], object.length - 1);
+            final byte[] content = start > end
+                    ? new byte[0]
+                    : Arrays.copyOfRange(object, start, end + 1);
+            final ObjectMetadata metadata = new ObjectMetadata();
+            metadata.setContentLength(content.length);
+            metadata.setHeader(Headers.ETAG, ETAG);
+            metadata.setHeader(Headers.CONTENT_RANGE,
+                    "bytes " + start + "-" + end + "/" + object.length);
+            final S3Object s3Object = new S3Object();
+            s3Object.setBucketName(req.getBucketName());
+            s3Object.setKey(req.getKey());
+            s3Object.setObjectMetadata(metadata);
+            s3Object.setObjectContent(new ByteArrayInputStream(content));
+            return s3Object;
+        }
+
+        @Override
+        public PutObjectResult putObject(PutObjectRequest req) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ObjectMetadata getObject(GetObjectRequest req, File dest) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompleteMultipartUploadResult completeMultipartUpload(
+                CompleteMultipartUploadRequest req) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public InitiateMultipartUploadResult initiateMultipartUpload(
+                InitiateMultipartUploadRequest req) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public UploadPartResult uploadPart(UploadPartRequest req) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CopyPartResult copyPart(CopyPartRequest req) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void abortMultipartUpload(AbortMultipartUploadRequest req) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
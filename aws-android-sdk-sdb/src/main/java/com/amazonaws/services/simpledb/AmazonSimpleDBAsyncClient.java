@@ -16,11 +16,11 @@ package com.amazonaws.services.simpledb;
 
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.AmazonServiceException;
+import com.amazonaws.async.SdkExecutors;
 import com.amazonaws.handlers.AsyncHandler;
 import com.amazonaws.ClientConfiguration;
 import com.amazonaws.auth.AWSCredentials;
@@ -111,14 +111,14 @@ public class AmazonSimpleDBAsyncClient extends AmazonSimpleDBClient
      */
     @Deprecated
     public AmazonSimpleDBAsyncClient(ClientConfiguration clientConfiguration) {
-        this(new DefaultAWSCredentialsProviderChain(), clientConfiguration, Executors.newFixedThreadPool(clientConfiguration.getMaxConnections()));
+        this(new DefaultAWSCredentialsProviderChain(), clientConfiguration, SdkExecutors.newClientExecutor(clientConfiguration.getMaxConnections()));
     }
 
     /**
      * Constructs a new asynchronous client to invoke service methods on
      * AmazonSimpleDB using the specified AWS account credentials.
-     * Default client settings will be used, and a fixed size thread pool will be
-     * created for executing the asynchronous tasks.
+     * Default client settings will be used, and a shared SDK thread pool will be
+     * used for executing the asynchronous tasks.
      *
      * <p>
      * All calls made using this new client object are non-blocking, and will immediately
@@ -129,7 +129,7 @@ public class AmazonSimpleDBAsyncClient extends AmazonSimpleDBClient
      *                       when authenticating with AWS services.
      */
     public AmazonSimpleDBAsyncClient(AWSCredentials awsCredentials) {
-        this(awsCredentials, Executors.newFixedThreadPool(DEFAULT_THREAD_POOL_SIZE));
+        this(awsCredentials, SdkExecutors.newClientExecutor(DEFAULT_THREAD_POOL_SIZE));
     }
 
     /**
@@ -183,8 +183,8 @@ public class AmazonSimpleDBAsyncClient extends AmazonSimpleDBClient
     /**
      * Constructs a new asynchronous client to invoke service methods on
      * AmazonSimpleDB using the specified AWS account credentials provider.
-     * Default client settings will be used, and a fixed size thread pool will be
-     * created for executing the asynchronous tasks.
+     * Default client settings will be used, and a shared SDK thread pool will be
+     * used for executing the asynchronous tasks.
      *
      * <p>
      * All calls made using this new client object are non-blocking, and will immediately
@@ -196,7 +196,7 @@ public class AmazonSimpleDBAsyncClient extends AmazonSimpleDBClient
      *            to authenticate requests with AWS services.
      */
     public AmazonSimpleDBAsyncClient(AWSCredentialsProvider awsCredentialsProvider) {
-        this(awsCredentialsProvider, Executors.newFixedThreadPool(DEFAULT_THREAD_POOL_SIZE));
+        this(awsCredentialsProvider, SdkExecutors.newClientExecutor(DEFAULT_THREAD_POOL_SIZE));
     }
 
     /**
@@ -239,7 +239,7 @@ public class AmazonSimpleDBAsyncClient extends AmazonSimpleDBClient
      */
     public AmazonSimpleDBAsyncClient(AWSCredentialsProvider awsCredentialsProvider,
                 ClientConfiguration clientConfiguration) {
-        this(awsCredentialsProvider, clientConfiguration, Executors.newFixedThreadPool(clientConfiguration.getMaxConnections()));
+        this(awsCredentialsProvider, clientConfiguration, SdkExecutors.newClientExecutor(clientConfiguration.getMaxConnections()));
     }
 
     /**
@@ -0,0 +1,442 @@
+/*
+ * Copyright 2010-2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.services.simpleemail;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.async.SdkExecutors;
+import com.amazonaws.logging.Log;
+import com.amazonaws.logging.LogFactory;
+import com.amazonaws.services.simpleemail.model.BulkEmailDestination;
+import com.amazonaws.services.simpleemail.model.BulkEmailDestinationStatus;
+import com.amazonaws.services.simpleemail.model.BulkEmailStatus;
+import com.amazonaws.services.simpleemail.model.Destination;
+import com.amazonaws.services.simpleemail.model.GetSendQuotaRequest;
+import com.amazonaws.services.simpleemail.model.GetSendQuotaResult;
+import com.amazonaws.services.simpleemail.model.SendBulkTemplatedEmailRequest;
+import com.amazonaws.services.simpleemail.model.SendBulkTemplatedEmailResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends templated email to many destinations as fast as the account's
+ * sending quota allows.
+ * <p>
+ * Destinations are packed into {@code SendBulkTemplatedEmail} calls of up to
+ * {@link #MAX_DESTINATIONS_PER_CALL}, which run concurrently. Every recipient
+ * of a destination (To, Cc and Bcc) takes one token from a token bucket
+ * filled at the account's {@code MaxSendRate}. The quota is read with
+ * {@code GetSendQuota} before the first send and refreshed periodically, and
+ * also after the service reports throttling. Destinations that would exceed
+ * the remaining 24 hour quota are not sent and are reported with status
+ * {@link BulkEmailStatus#AccountDailyQuotaExceeded}.
+ * <p>
+ * Destinations reported as throttled or as transient failures, and calls
+ * that fail with a throttling error, are retried with backoff a limited
+ * number of times. The final status of every destination is reported to a
+ * {@link Callback}, from the sending threads.
+ * <p>
+ * This class is thread safe.
+ */
+public class AmazonSimpleEmailServiceBulkSender {
+
+    private static final Log log = LogFactory.getLog(AmazonSimpleEmailServiceBulkSender.class);
+
+    /** Maximum number of destinations in one SendBulkTemplatedEmail call */
+    public static final int MAX_DESTINATIONS_PER_CALL = 50;
+
+    /** Default number of concurrent calls */
+    public static final int DEFAULT_MAX_CONCURRENCY = 4;
+
+    /** Default interval between send quota refreshes */
+    public static final long DEFAULT_QUOTA_REFRESH_MILLIS = 60 * 1000L;
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long BASE_BACKOFF_MILLIS = 500;
+    private static final String THROTTLING_ERROR_CODE = "Throttling";
+
+    /**
+     * Receives the outcome of each destination.
+     */
+    public interface Callback {
+        /**
+         * Called once per destination with the status reported by SES, or
+         * with a locally created status if the destination was not sent.
+         *
+         * @param destination the destination.
+         * @param status its status.
+         */
+        void onStatus(BulkEmailDestination destination, BulkEmailDestinationStatus status);
+
+        /**
+         * Called once per destination of a call that failed outright.
+         *
+         * @param destination the destination.
+         * @param exception the failure.
+         */
+        void onFailure(BulkEmailDestination destination, AmazonClientException exception);
+    }
+
+    private final AmazonSimpleEmailService ses;
+    private final ExecutorService executor;
+    private final long quotaRefreshMillis;
+    private final SendRateLimiter limiter = new SendRateLimiter();
+
+    /** Guarded by this */
+    private long quotaReadMillis = -1;
+    /** Recipients that may still be sent in the current 24 hours, or -1 if unlimited. Guarded by this. */
+    private double remainingDailyQuota = -1;
+    /**
+     * Recipients taken off the daily quota whose destinations have no final
+     * status yet. Guarded by this.
+     */
+    private long reservedRecipients;
+
+    /**
+     * Creates a bulk sender with the default concurrency and quota refresh
+     * interval.
+     *
+     * @param ses the client to send with.
+     */
+    public AmazonSimpleEmailServiceBulkSender(AmazonSimpleEmailService ses) {
+        this(ses, DEFAULT_MAX_CONCURRENCY, DEFAULT_QUOTA_REFRESH_MILLIS);
+    }
+
+    /**
+     * Creates a bulk sender.
+     *
+     * @param ses the client to send with.
+     * @param maxConcurrency the maximum number of calls in flight.
+     * @param quotaRefreshMillis how often to re-read the send quota.
+     */
+    public AmazonSimpleEmailServiceBulkSender(AmazonSimpleEmailService ses, int maxConcurrency,
+            long quotaRefreshMillis) {
+        if (ses == null) {
+            throw new IllegalArgumentException("ses must not be null");
+        }
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency must be positive");
+        }
+        this.ses = ses;
+        this.quotaRefreshMillis = quotaRefreshMillis;
+        this.executor = SdkExecutors.newClientExecutor(maxConcurrency);
+    }
+
+    /**
+     * Sends the template to every destination and waits until all have a
+     * final status.
+     *
+     * @param template the request to send; its template, source and other
+     *            settings are used for every call, and its destinations are
+     *            ignored.
+     * @param destinations the destinations, in any number.
+     * @param callback receives the outcome of each destination.
+     * @return the number of destinations sent successfully.
+     * @throws AmazonClientException if the send quota cannot be read.
+     */
+    public int send(SendBulkTemplatedEmailRequest template,
+            List<BulkEmailDestination> destinations, Callback callback) {
+        if (callback == null) {
+            throw new IllegalArgumentException("callback must not be null");
+        }
+        refreshQuotaIfStale(true);
+        final AtomicInteger succeeded = new AtomicInteger();
+        final List<Future<?>> futures = new ArrayList<Future<?>>();
+        for (int i = 0; i < destinations.size(); i += MAX_DESTINATIONS_PER_CALL) {
+            final List<BulkEmailDestination> batch = new ArrayList<BulkEmailDestination>(
+                    destinations.subList(i, Math.min(destinations.size(),
+                            i + MAX_DESTINATIONS_PER_CALL)));
+            futures.add(executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    succeeded.addAndGet(sendBatch(template, batch, callback));
+                }
+            }));
+        }
+        for (final Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AmazonClientException("Interrupted while sending email", e);
+            } catch (final ExecutionException e) {
+                // sendBatch reports its own failures; anything else is a bug in the callback
+                throw new AmazonClientException("Bulk send failed: " + e.getCause().getMessage(),
+                        e.getCause());
+            }
+        }
+        return succeeded.get();
+    }
+
+    /**
+     * Stops the sending threads. Sends in progress complete.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Sends one batch, retrying throttled destinations.
+     *
+     * @return the number of destinations sent successfully.
+     */
+    private int sendBatch(SendBulkTemplatedEmailRequest template,
+            List<BulkEmailDestination> batch, Callback callback) {
+        int succeeded = 0;
+        List<BulkEmailDestination> pending = reserveDailyQuota(batch, callback);
+        for (int attempt = 1; !pending.isEmpty(); attempt++) {
+            final boolean lastAttempt = attempt == MAX_ATTEMPTS;
+            final SendBulkTemplatedEmailResult result;
+            try {
+                if (attempt > 1) {
+                    backoff(attempt);
+                }
+                refreshQuotaIfStale(false);
+                limiter.acquire(recipientCount(pending));
+                result = ses.sendBulkTemplatedEmail(copyOf(template).withDestinations(pending));
+            } catch (final AmazonServiceException e) {
+                if (THROTTLING_ERROR_CODE.equals(e.getErrorCode()) && !lastAttempt) {
+                    forceQuotaRefresh();
+                    continue;
+                }
+                reportFailure(pending, e, callback);
+                return succeeded;
+            } catch (final AmazonClientException e) {
+                reportFailure(pending, e, callback);
+                return succeeded;
+            }
+
+            final List<BulkEmailDestinationStatus> statuses = result.getStatus();
+            final List<BulkEmailDestination> retry = new ArrayList<BulkEmailDestination>();
+            for (int i = 0; i < pending.size(); i++) {
+                final BulkEmailDestination destination = pending.get(i);
+                final BulkEmailDestinationStatus status = statuses != null && i < statuses.size()
+                        ? statuses.get(i)
+                        : new BulkEmailDestinationStatus()
+                                .withStatus(BulkEmailStatus.Failed)
+                                .withError("No status returned for destination");
+                if (isRetryable(status) && !lastAttempt) {
+                    retry.add(destination);
+                    continue;
+                }
+                final boolean sent = BulkEmailStatus.Success.toString().equals(status.getStatus());
+                if (sent) {
+                    succeeded++;
+                }
+                releaseDailyQuota(destination, sent);
+                callback.onStatus(destination, status);
+            }
+            if (!retry.isEmpty()) {
+                forceQuotaRefresh();
+            }
+            pending = retry;
+        }
+        return succeeded;
+    }
+
+    /**
+     * Takes the batch's recipients off the remaining daily quota. Returns the
+     * destinations that fit and reports the rest as over quota.
+     */
+    private List<BulkEmailDestination> reserveDailyQuota(List<BulkEmailDestination> batch,
+            Callback callback) {
+        final List<BulkEmailDestination> allowed = new ArrayList<BulkEmailDestination>();
+        final List<BulkEmailDestination> rejected = new ArrayList<BulkEmailDestination>();
+        synchronized (this) {
+            for (final BulkEmailDestination destination : batch) {
+                final int recipients = recipientCount(destination);
+                if (remainingDailyQuota < 0) {
+                    allowed.add(destination);
+                } else if (remainingDailyQuota >= recipients) {
+                    remainingDailyQuota -= recipients;
+                    reservedRecipients += recipients;
+                    allowed.add(destination);
+                } else {
+                    rejected.add(destination);
+                }
+            }
+        }
+        for (final BulkEmailDestination destination : rejected) {
+            callback.onStatus(destination, new BulkEmailDestinationStatus()
+                    .withStatus(BulkEmailStatus.AccountDailyQuotaExceeded)
+                    .withError("Not sent; the 24 hour sending quota would be exceeded"));
+        }
+        return allowed;
+    }
+
+    /**
+     * Ends the reservation of a destination that has its final status. The
+     * recipients of a destination that was not sent go back to the remaining
+     * daily quota; those of a sent one are counted by SES from now on.
+     */
+    private synchronized void releaseDailyQuota(BulkEmailDestination destination, boolean sent) {
+        // a destination sent while the quota was unlimited reserved nothing
+        final long released = Math.min(reservedRecipients, recipientCount(destination));
+        reservedRecipients -= released;
+        if (!sent && remainingDailyQuota >= 0) {
+            remainingDailyQuota += released;
+        }
+    }
+
+    private void refreshQuotaIfStale(boolean failOnError) {
+        synchronized (this) {
+            final long now = System.currentTimeMillis();
+            if (quotaReadMillis >= 0 && now - quotaReadMillis < quotaRefreshMillis) {
+                return;
+            }
+            try {
+                final GetSendQuotaResult quota = ses.getSendQuota(new GetSendQuotaRequest());
+                quotaReadMillis = now;
+                final Double maxSendRate = quota.getMaxSendRate();
+                if (maxSendRate != null && maxSendRate > 0) {
+                    limiter.setRate(maxSendRate);
+                }
+                final Double max24HourSend = quota.getMax24HourSend();
+                final Double sentLast24Hours = quota.getSentLast24Hours();
+                if (max24HourSend == null || max24HourSend < 0) {
+                    // -1 means unlimited
+                    remainingDailyQuota = -1;
+                } else {
+                    // SES does not count the sends still in flight yet, so
+                    // keep them reserved against the fresh quota
+                    remainingDailyQuota = Math.max(0, max24HourSend
+                            - (sentLast24Hours == null ? 0 : sentLast24Hours)
+                            - reservedRecipients);
+                }
+            } catch (final AmazonClientException e) {
+                if (failOnError && quotaReadMillis < 0) {
+                    throw e;
+                }
+                // keep the last known quota and try again on the next batch
+                log.warn("Unable to refresh the SES send quota", e);
+            }
+        }
+    }
+
+    private synchronized void forceQuotaRefresh() {
+        quotaReadMillis = Math.min(quotaReadMillis, System.currentTimeMillis() - quotaRefreshMillis);
+    }
+
+    private static boolean isRetryable(BulkEmailDestinationStatus status) {
+        final String s = status.getStatus();
+        return BulkEmailStatus.AccountThrottled.toString().equals(s)
+                || BulkEmailStatus.TransientFailure.toString().equals(s);
+    }
+
+    private void reportFailure(List<BulkEmailDestination> destinations,
+            AmazonClientException e, Callback callback) {
+        for (final BulkEmailDestination destination : destinations) {
+            releaseDailyQuota(destination, false);
+            callback.onFailure(destination, e);
+        }
+    }
+
+    private static void backoff(int attempt) {
+        final long delay = BASE_BACKOFF_MILLIS << (attempt - 2);
+        try {
+            Thread.sleep(delay / 2 + (long) (Math.random() * delay / 2));
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmazonClientException("Interrupted while sending email", e);
+        }
+    }
+
+    private static int recipientCount(List<BulkEmailDestination> destinations) {
+        int count = 0;
+        for (final BulkEmailDestination destination : destinations) {
+            count += recipientCount(destination);
+        }
+        return count;
+    }
+
+    private static int recipientCount(BulkEmailDestination destination) {
+        final Destination d = destination.getDestination();
+        if (d == null) {
+            return 1;
+        }
+        int count = 0;
+        count += d.getToAddresses() == null ? 0 : d.getToAddresses().size();
+        count += d.getCcAddresses() == null ? 0 : d.getCcAddresses().size();
+        count += d.getBccAddresses() == null ? 0 : d.getBccAddresses().size();
+        return Math.max(1, count);
+    }
+
+    /** Copies everything but the destinations */
+    private static SendBulkTemplatedEmailRequest copyOf(SendBulkTemplatedEmailRequest template) {
+        final SendBulkTemplatedEmailRequest request = new SendBulkTemplatedEmailRequest()
+                .withSource(template.getSource())
+                .withSourceArn(template.getSourceArn())
+                .withReplyToAddresses(template.getReplyToAddresses())
+                .withReturnPath(template.getReturnPath())
+                .withReturnPathArn(template.getReturnPathArn())
+                .withConfigurationSetName(template.getConfigurationSetName())
+                .withDefaultTags(template.getDefaultTags())
+                .withTemplate(template.getTemplate())
+                .withTemplateArn(template.getTemplateArn())
+                .withDefaultTemplateData(template.getDefaultTemplateData());
+        request.setGeneralProgressListener(template.getGeneralProgressListener());
+        request.setRequestMetricCollector(template.getRequestMetricCollector());
+        return request;
+    }
+
+    /**
+     * A token bucket holding up to one second of sends. A caller may take
+     * more tokens than are available; it then waits until the debt is paid
+     * back, so large batches are paced rather than rejected.
+     */
+    static final class SendRateLimiter {
+        private double ratePerSecond = 1;
+        private double tokens = 1;
+        private long lastRefillNanos = System.nanoTime();
+
+        synchronized void setRate(double ratePerSecond) {
+            refill();
+            this.ratePerSecond = ratePerSecond;
+            tokens = Math.min(tokens, ratePerSecond);
+        }
+
+        void acquire(int permits) {
+            final long waitNanos;
+            synchronized (this) {
+                refill();
+                tokens -= permits;
+                waitNanos = tokens >= 0 ? 0
+                        : (long) (-tokens / ratePerSecond * TimeUnit.SECONDS.toNanos(1));
+            }
+            if (waitNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(waitNanos);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new AmazonClientException("Interrupted while waiting to send", e);
+                }
+            }
+        }
+
+        private void refill() {
+            final long now = System.nanoTime();
+            tokens = Math.min(ratePerSecond,
+                    tokens + (now - lastRefillNanos) * ratePerSecond / TimeUnit.SECONDS.toNanos(1));
+            lastRefillNanos = now;
+        }
+    }
+}
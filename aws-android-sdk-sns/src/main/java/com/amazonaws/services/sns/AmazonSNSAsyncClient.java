@@ -17,11 +17,11 @@ package com.amazonaws.services.sns;
 
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.AmazonServiceException;
+import com.amazonaws.async.SdkExecutors;
 import com.amazonaws.handlers.AsyncHandler;
 import com.amazonaws.ClientConfiguration;
 import com.amazonaws.auth.AWSCredentials;
@@ -110,15 +110,15 @@ public class AmazonSNSAsyncClient extends AmazonSNSClient implements AmazonSNSAs
      */
     @Deprecated
     public AmazonSNSAsyncClient(ClientConfiguration clientConfiguration) {
-        this(new DefaultAWSCredentialsProviderChain(), clientConfiguration, Executors
-                .newFixedThreadPool(clientConfiguration.getMaxConnections()));
+        this(new DefaultAWSCredentialsProviderChain(), clientConfiguration, SdkExecutors
+                .newClientExecutor(clientConfiguration.getMaxConnections()));
     }
 
     /**
      * Constructs a new asynchronous client to invoke service methods on Amazon
      * Simple Notification Service using the specified AWS account credentials.
-     * Default client settings will be used, and a fixed size thread pool will
-     * be created for executing the asynchronous tasks.
+     * Default client settings will be used, and a shared SDK thread pool will
+     * be used for executing the asynchronous tasks.
      * <p>
      * All calls made using this new client object are non-blocking, and will
      * immediately return a Java Future object that the caller can later check
@@ -128,7 +128,7 @@ public class AmazonSNSAsyncClient extends AmazonSNSClient implements AmazonSNSAs
      *            to use when authenticating with AWS services.
      */
     public AmazonSNSAsyncClient(AWSCredentials awsCredentials) {
-        this(awsCredentials, Executors.newFixedThreadPool(DEFAULT_THREAD_POOL_SIZE));
+        this(awsCredentials, SdkExecutors.newClientExecutor(DEFAULT_THREAD_POOL_SIZE));
     }
 
     /**
@@ -175,8 +175,8 @@ public class AmazonSNSAsyncClient extends AmazonSNSClient implements AmazonSNSAs
     /**
      * Constructs a new asynchronous client to invoke service methods on Amazon
      * Simple Notification Service using the specified AWS account credentials
-     * provider. Default client settings will be used, and a fixed size thread
-     * pool will be created for executing the asynchronous tasks.
+     * provider. Default client settings will be used, and a shared SDK
+     * thread pool will be used for executing the asynchronous tasks.
      * <p>
      * All calls made using this new client object are non-blocking, and will
      * immediately return a Java Future object that the caller can later check
@@ -187,7 +187,7 @@ public class AmazonSNSAsyncClient extends AmazonSNSClient implements AmazonSNSAs
      *            services.
      */
     public AmazonSNSAsyncClient(AWSCredentialsProvider awsCredentialsProvider) {
-        this(awsCredentialsProvider, Executors.newFixedThreadPool(DEFAULT_THREAD_POOL_SIZE));
+        this(awsCredentialsProvider, SdkExecutors.newClientExecutor(DEFAULT_THREAD_POOL_SIZE));
     }
 
     /**
@@ -227,8 +227,8 @@ public class AmazonSNSAsyncClient extends AmazonSNSClient implements AmazonSNSAs
      */
     public AmazonSNSAsyncClient(AWSCredentialsProvider awsCredentialsProvider,
             ClientConfiguration clientConfiguration) {
-        this(awsCredentialsProvider, clientConfiguration, Executors
-                .newFixedThreadPool(clientConfiguration.getMaxConnections()));
+        this(awsCredentialsProvider, clientConfiguration, SdkExecutors
+                .newClientExecutor(clientConfiguration.getMaxConnections()));
     }
 
     /**
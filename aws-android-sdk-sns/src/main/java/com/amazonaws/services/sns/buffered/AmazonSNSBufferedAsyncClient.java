@@ -0,0 +1,1199 @@
+/*
+ * Copyright 2010-2022 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.services.sns.buffered;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.ResponseMetadata;
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.regions.Region;
+import com.amazonaws.services.sns.AmazonSNSAsync;
+import com.amazonaws.services.sns.model.*;
+import com.amazonaws.util.VersionInfoUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+/**
+ * AmazonSNSBufferedAsyncClient provides client-side batching of publish calls.
+ * <br>
+ * Rather than publishing a message right away, this client waits for a
+ * configurable period of time (default=200ms) for other messages to the same
+ * topic; these are added to the same batch. When the batch becomes full (10
+ * messages or 256 KB by default) or the timeout period expires, the whole batch
+ * is sent with a single PublishBatch call and each caller's future is completed
+ * from its entry of the batch result. Several batches per topic can be in
+ * flight at once. This reduces the number of calls made and increases
+ * throughput, at the cost of latency for individual calls. <br>
+ * Only publish calls to a topic are batched; calls with a target ARN or phone
+ * number, and all other operations, go straight to the wrapped client. Entries
+ * the service fails through no fault of the sender are retried individually.
+ * <br>
+ * AmazonSNSBufferedAsyncClient is thread-safe.<br>
+ */
+public class AmazonSNSBufferedAsyncClient implements AmazonSNSAsync {
+
+    public static final String USER_AGENT = AmazonSNSBufferedAsyncClient.class.getSimpleName()
+            + "/" + VersionInfoUtils.getVersion();
+
+    private final CachingMap buffers = new CachingMap(16, (float) 0.75, true);
+    private final AmazonSNSAsync realSNS;
+    private final PublishBufferConfig bufferConfigExemplar;
+
+    public AmazonSNSBufferedAsyncClient(AmazonSNSAsync paramRealSNS) {
+        this(paramRealSNS, new PublishBufferConfig());
+    }
+
+    // route all future constructors to the most general one, because validation
+    // happens here
+    public AmazonSNSBufferedAsyncClient(AmazonSNSAsync paramRealSNS, PublishBufferConfig config) {
+        config.validate();
+        realSNS = paramRealSNS;
+        bufferConfigExemplar = new PublishBufferConfig(config);
+    }
+
+    /**
+     * Sends all buffered publish calls. The call returns when all calls
+     * submitted before it have been processed by SNS.
+     */
+    public void flush() {
+        List<TopicPublishBuffer> toFlush;
+        synchronized (this) {
+            toFlush = new ArrayList<TopicPublishBuffer>(buffers.values());
+        }
+        for (TopicPublishBuffer buffer : toFlush) {
+            buffer.flush();
+        }
+    }
+
+    private boolean isBufferable(PublishRequest request) {
+        return request.getTopicArn() != null
+                && request.getTargetArn() == null
+                && request.getPhoneNumber() == null
+                && TopicPublishBuffer.sizeOf(request) <= bufferConfigExemplar
+                        .getMaxBatchSizeBytes();
+    }
+
+    private synchronized TopicPublishBuffer getBuffer(String topicArn) {
+        TopicPublishBuffer toReturn = buffers.get(topicArn);
+        if (null == toReturn) {
+            PublishBufferConfig config = new PublishBufferConfig(bufferConfigExemplar);
+            toReturn = new TopicPublishBuffer(realSNS, config, topicArn);
+            buffers.put(topicArn, toReturn);
+        }
+        return toReturn;
+    }
+
+    class CachingMap extends LinkedHashMap<String, TopicPublishBuffer> {
+        private static final long serialVersionUID = 1;
+        private static final int MAX_ENTRIES = 100;
+
+        public CachingMap(int initial, float loadFactor, boolean accessOrder) {
+            super(initial, loadFactor, accessOrder);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, TopicPublishBuffer> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    }
+
+    @Override
+    public void addPermission(AddPermissionRequest addPermissionRequest)
+            throws AmazonClientException, AmazonServiceException {
+        realSNS.addPermission(addPermissionRequest);
+    }
+
+    @Override
+    public void addPermission(
+            String topicArn,
+            String label,
+            List<String> aWSAccountIds,
+            List<String> actionNames)
+            throws AmazonClientException, AmazonServiceException {
+        realSNS.addPermission(topicArn, label, aWSAccountIds, actionNames);
+    }
+
+    @Override
+    public Future<Void> addPermissionAsync(AddPermissionRequest addPermissionRequest)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.addPermissionAsync(addPermissionRequest);
+    }
+
+    @Override
+    public Future<Void> addPermissionAsync(
+            AddPermissionRequest addPermissionRequest,
+            AsyncHandler<AddPermissionRequest, Void> asyncHandler)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.addPermissionAsync(addPermissionRequest, asyncHandler);
+    }
+
+    @Override
+    public CheckIfPhoneNumberIsOptedOutResult checkIfPhoneNumberIsOptedOut(
+            CheckIfPhoneNumberIsOptedOutRequest checkIfPhoneNumberIsOptedOutRequest)
+            throws AmazonClientException, AmazonServiceException {
+        return realSNS.checkIfPhoneNumberIsOptedOut(checkIfPhoneNumberIsOptedOutRequest);
+    }
+
+    @Override
+    public Future<CheckIfPhoneNumberIsOptedOutResult> checkIfPhoneNumberIsOptedOutAsync(
+            CheckIfPhoneNumberIsOptedOutRequest checkIfPhoneNumberIsOptedOutRequest)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.checkIfPhoneNumberIsOptedOutAsync(checkIfPhoneNumberIsOptedOutRequest);
+    }
+
+    @Override
+    public Future<CheckIfPhoneNumberIsOptedOutResult> checkIfPhoneNumberIsOptedOutAsync(
+            CheckIfPhoneNumberIsOptedOutRequest checkIfPhoneNumberIsOptedOutRequest,
+            AsyncHandler<CheckIfPhoneNumberIsOptedOutRequest, CheckIfPhoneNumberIsOptedOutResult> asyncHandler)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.checkIfPhoneNumberIsOptedOutAsync(
+                checkIfPhoneNumberIsOptedOutRequest, asyncHandler);
+    }
+
+    @Override
+    public ConfirmSubscriptionResult confirmSubscription(
+            ConfirmSubscriptionRequest confirmSubscriptionRequest)
+            throws AmazonClientException, AmazonServiceException {
+        return realSNS.confirmSubscription(confirmSubscriptionRequest);
+    }
+
+    @Override
+    public ConfirmSubscriptionResult confirmSubscription(String topicArn, String token)
+            throws AmazonClientException, AmazonServiceException {
+        return realSNS.confirmSubscription(topicArn, token);
+    }
+
+    @Override
+    public ConfirmSubscriptionResult confirmSubscription(
+            String topicArn,
+            String token,
+            String authenticateOnUnsubscribe)
+            throws AmazonClientException, AmazonServiceException {
+        return realSNS.confirmSubscription(topicArn, token, authenticateOnUnsubscribe);
+    }
+
+    @Override
+    public Future<ConfirmSubscriptionResult> confirmSubscriptionAsync(
+            ConfirmSubscriptionRequest confirmSubscriptionRequest)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.confirmSubscriptionAsync(confirmSubscriptionRequest);
+    }
+
+    @Override
+    public Future<ConfirmSubscriptionResult> confirmSubscriptionAsync(
+            ConfirmSubscriptionRequest confirmSubscriptionRequest,
+            AsyncHandler<ConfirmSubscriptionRequest, ConfirmSubscriptionResult> asyncHandler)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.confirmSubscriptionAsync(confirmSubscriptionRequest, asyncHandler);
+    }
+
+    @Override
+    public CreatePlatformApplicationResult createPlatformApplication(
+            CreatePlatformApplicationRequest createPlatformApplicationRequest)
+            throws AmazonClientException, AmazonServiceException {
+        return realSNS.createPlatformApplication(createPlatformApplicationRequest);
+    }
+
+    @Override
+    public Future<CreatePlatformApplicationResult> createPlatformApplicationAsync(
+            CreatePlatformApplicationRequest createPlatformApplicationRequest)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.createPlatformApplicationAsync(createPlatformApplicationRequest);
+    }
+
+    @Override
+    public Future<CreatePlatformApplicationResult> createPlatformApplicationAsync(
+            CreatePlatformApplicationRequest createPlatformApplicationRequest,
+            AsyncHandler<CreatePlatformApplicationRequest, CreatePlatformApplicationResult> asyncHandler)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.createPlatformApplicationAsync(
+                createPlatformApplicationRequest, asyncHandler);
+    }
+
+    @Override
+    public CreatePlatformEndpointResult createPlatformEndpoint(
+            CreatePlatformEndpointRequest createPlatformEndpointRequest)
+            throws AmazonClientException, AmazonServiceException {
+        return realSNS.createPlatformEndpoint(createPlatformEndpointRequest);
+    }
+
+    @Override
+    public Future<CreatePlatformEndpointResult> createPlatformEndpointAsync(
+            CreatePlatformEndpointRequest createPlatformEndpointRequest)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.createPlatformEndpointAsync(createPlatformEndpointRequest);
+    }
+
+    @Override
+    public Future<CreatePlatformEndpointResult> createPlatformEndpointAsync(
+            CreatePlatformEndpointRequest createPlatformEndpointRequest,
+            AsyncHandler<CreatePlatformEndpointRequest, CreatePlatformEndpointResult> asyncHandler)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.createPlatformEndpointAsync(createPlatformEndpointRequest, asyncHandler);
+    }
+
+    @Override
+    public CreateSMSSandboxPhoneNumberResult createSMSSandboxPhoneNumber(
+            CreateSMSSandboxPhoneNumberRequest createSMSSandboxPhoneNumberRequest)
+            throws AmazonClientException, AmazonServiceException {
+        return realSNS.createSMSSandboxPhoneNumber(createSMSSandboxPhoneNumberRequest);
+    }
+
+    @Override
+    public Future<CreateSMSSandboxPhoneNumberResult> createSMSSandboxPhoneNumberAsync(
+            CreateSMSSandboxPhoneNumberRequest createSMSSandboxPhoneNumberRequest)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.createSMSSandboxPhoneNumberAsync(createSMSSandboxPhoneNumberRequest);
+    }
+
+    @Override
+    public Future<CreateSMSSandboxPhoneNumberResult> createSMSSandboxPhoneNumberAsync(
+            CreateSMSSandboxPhoneNumberRequest createSMSSandboxPhoneNumberRequest,
+            AsyncHandler<CreateSMSSandboxPhoneNumberRequest, CreateSMSSandboxPhoneNumberResult> asyncHandler)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.createSMSSandboxPhoneNumberAsync(
+                createSMSSandboxPhoneNumberRequest, asyncHandler);
+    }
+
+    @Override
+    public CreateTopicResult createTopic(String name)
+            throws AmazonClientException, AmazonServiceException {
+        return realSNS.createTopic(name);
+    }
+
+    @Override
+    public CreateTopicResult createTopic(CreateTopicRequest createTopicRequest)
+            throws AmazonClientException, AmazonServiceException {
+        return realSNS.createTopic(createTopicRequest);
+    }
+
+    @Override
+    public Future<CreateTopicResult> createTopicAsync(CreateTopicRequest createTopicRequest)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.createTopicAsync(createTopicRequest);
+    }
+
+    @Override
+    public Future<CreateTopicResult> createTopicAsync(
+            CreateTopicRequest createTopicRequest,
+            AsyncHandler<CreateTopicRequest, CreateTopicResult> asyncHandler)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.createTopicAsync(createTopicRequest, asyncHandler);
+    }
+
+    @Override
+    public void deleteEndpoint(DeleteEndpointRequest deleteEndpointRequest)
+            throws AmazonClientException, AmazonServiceException {
+        realSNS.deleteEndpoint(deleteEndpointRequest);
+    }
+
+    @Override
+    public Future<Void> deleteEndpointAsync(DeleteEndpointRequest deleteEndpointRequest)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.deleteEndpointAsync(deleteEndpointRequest);
+    }
+
+    @Override
+    public Future<Void> deleteEndpointAsync(
+            DeleteEndpointRequest deleteEndpointRequest,
+            AsyncHandler<DeleteEndpointRequest, Void> asyncHandler)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.deleteEndpointAsync(deleteEndpointRequest, asyncHandler);
+    }
+
+    @Override
+    public void deletePlatformApplication(
+            DeletePlatformApplicationRequest deletePlatformApplicationRequest)
+            throws AmazonClientException, AmazonServiceException {
+        realSNS.deletePlatformApplication(deletePlatformApplicationRequest);
+    }
+
+    @Override
+    public Future<Void> deletePlatformApplicationAsync(
+            DeletePlatformApplicationRequest deletePlatformApplicationRequest)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.deletePlatformApplicationAsync(deletePlatformApplicationRequest);
+    }
+
+    @Override
+    public Future<Void> deletePlatformApplicationAsync(
+            DeletePlatformApplicationRequest deletePlatformApplicationRequest,
+            AsyncHandler<DeletePlatformApplicationRequest, Void> asyncHandler)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.deletePlatformApplicationAsync(
+                deletePlatformApplicationRequest, asyncHandler);
+    }
+
+    @Override
+    public DeleteSMSSandboxPhoneNumberResult deleteSMSSandboxPhoneNumber(
+            DeleteSMSSandboxPhoneNumberRequest deleteSMSSandboxPhoneNumberRequest)
+            throws AmazonClientException, AmazonServiceException {
+        return realSNS.deleteSMSSandboxPhoneNumber(deleteSMSSandboxPhoneNumberRequest);
+    }
+
+    @Override
+    public Future<DeleteSMSSandboxPhoneNumberResult> deleteSMSSandboxPhoneNumberAsync(
+            DeleteSMSSandboxPhoneNumberRequest deleteSMSSandboxPhoneNumberRequest)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.deleteSMSSandboxPhoneNumberAsync(deleteSMSSandboxPhoneNumberRequest);
+    }
+
+    @Override
+    public Future<DeleteSMSSandboxPhoneNumberResult> deleteSMSSandboxPhoneNumberAsync(
+            DeleteSMSSandboxPhoneNumberRequest deleteSMSSandboxPhoneNumberRequest,
+            AsyncHandler<DeleteSMSSandboxPhoneNumberRequest, DeleteSMSSandboxPhoneNumberResult> asyncHandler)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.deleteSMSSandboxPhoneNumberAsync(
+                deleteSMSSandboxPhoneNumberRequest, asyncHandler);
+    }
+
+    @Override
+    public void deleteTopic(String topicArn)
+            throws AmazonClientException, AmazonServiceException {
+        realSNS.deleteTopic(topicArn);
+    }
+
+    @Override
+    public void deleteTopic(DeleteTopicRequest deleteTopicRequest)
+            throws AmazonClientException, AmazonServiceException {
+        realSNS.deleteTopic(deleteTopicRequest);
+    }
+
+    @Override
+    public Future<Void> deleteTopicAsync(DeleteTopicRequest deleteTopicRequest)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.deleteTopicAsync(deleteTopicRequest);
+    }
+
+    @Override
+    public Future<Void> deleteTopicAsync(
+            DeleteTopicRequest deleteTopicRequest,
+            AsyncHandler<DeleteTopicRequest, Void> asyncHandler)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.deleteTopicAsync(deleteTopicRequest, asyncHandler);
+    }
+
+    @Override
+    public ResponseMetadata getCachedResponseMetadata(AmazonWebServiceRequest request) {
+        return realSNS.getCachedResponseMetadata(request);
+    }
+
+    @Override
+    public GetDataProtectionPolicyResult getDataProtectionPolicy(
+            GetDataProtectionPolicyRequest getDataProtectionPolicyRequest)
+            throws AmazonClientException, AmazonServiceException {
+        return realSNS.getDataProtectionPolicy(getDataProtectionPolicyRequest);
+    }
+
+    @Override
+    public Future<GetDataProtectionPolicyResult> getDataProtectionPolicyAsync(
+            GetDataProtectionPolicyRequest getDataProtectionPolicyRequest)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.getDataProtectionPolicyAsync(getDataProtectionPolicyRequest);
+    }
+
+    @Override
+    public Future<GetDataProtectionPolicyResult> getDataProtectionPolicyAsync(
+            GetDataProtectionPolicyRequest getDataProtectionPolicyRequest,
+            AsyncHandler<GetDataProtectionPolicyRequest, GetDataProtectionPolicyResult> asyncHandler)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.getDataProtectionPolicyAsync(getDataProtectionPolicyRequest, asyncHandler);
+    }
+
+    @Override
+    public GetEndpointAttributesResult getEndpointAttributes(
+            GetEndpointAttributesRequest getEndpointAttributesRequest)
+            throws AmazonClientException, AmazonServiceException {
+        return realSNS.getEndpointAttributes(getEndpointAttributesRequest);
+    }
+
+    @Override
+    public Future<GetEndpointAttributesResult> getEndpointAttributesAsync(
+            GetEndpointAttributesRequest getEndpointAttributesRequest)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.getEndpointAttributesAsync(getEndpointAttributesRequest);
+    }
+
+    @Override
+    public Future<GetEndpointAttributesResult> getEndpointAttributesAsync(
+            GetEndpointAttributesRequest getEndpointAttributesRequest,
+            AsyncHandler<GetEndpointAttributesRequest, GetEndpointAttributesResult> asyncHandler)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.getEndpointAttributesAsync(getEndpointAttributesRequest, asyncHandler);
+    }
+
+    @Override
+    public GetPlatformApplicationAttributesResult getPlatformApplicationAttributes(
+            GetPlatformApplicationAttributesRequest getPlatformApplicationAttributesRequest)
+            throws AmazonClientException, AmazonServiceException {
+        return realSNS.getPlatformApplicationAttributes(getPlatformApplicationAttributesRequest);
+    }
+
+    @Override
+    public Future<GetPlatformApplicationAttributesResult> getPlatformApplicationAttributesAsync(
+            GetPlatformApplicationAttributesRequest getPlatformApplicationAttributesRequest)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.getPlatformApplicationAttributesAsync(
+                getPlatformApplicationAttributesRequest);
+    }
+
+    @Override
+    public Future<GetPlatformApplicationAttributesResult> getPlatformApplicationAttributesAsync(
+            GetPlatformApplicationAttributesRequest getPlatformApplicationAttributesRequest,
+            AsyncHandler<GetPlatformApplicationAttributesRequest, GetPlatformApplicationAttributesResult> asyncHandler)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.getPlatformApplicationAttributesAsync(
+                getPlatformApplicationAttributesRequest, asyncHandler);
+    }
+
+    @Override
+    public GetSMSAttributesResult getSMSAttributes(GetSMSAttributesRequest getSMSAttributesRequest)
+            throws AmazonClientException, AmazonServiceException {
+        return realSNS.getSMSAttributes(getSMSAttributesRequest);
+    }
+
+    @Override
+    public Future<GetSMSAttributesResult> getSMSAttributesAsync(
+            GetSMSAttributesRequest getSMSAttributesRequest)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.getSMSAttributesAsync(getSMSAttributesRequest);
+    }
+
+    @Override
+    public Future<GetSMSAttributesResult> getSMSAttributesAsync(
+            GetSMSAttributesRequest getSMSAttributesRequest,
+            AsyncHandler<GetSMSAttributesRequest, GetSMSAttributesResult> asyncHandler)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.getSMSAttributesAsync(getSMSAttributesRequest, asyncHandler);
+    }
+
+    @Override
+    public GetSMSSandboxAccountStatusResult getSMSSandboxAccountStatus(
+            GetSMSSandboxAccountStatusRequest getSMSSandboxAccountStatusRequest)
+            throws AmazonClientException, AmazonServiceException {
+        return realSNS.getSMSSandboxAccountStatus(getSMSSandboxAccountStatusRequest);
+    }
+
+    @Override
+    public Future<GetSMSSandboxAccountStatusResult> getSMSSandboxAccountStatusAsync(
+            GetSMSSandboxAccountStatusRequest getSMSSandboxAccountStatusRequest)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.getSMSSandboxAccountStatusAsync(getSMSSandboxAccountStatusRequest);
+    }
+
+    @Override
+    public Future<GetSMSSandboxAccountStatusResult> getSMSSandboxAccountStatusAsync(
+            GetSMSSandboxAccountStatusRequest getSMSSandboxAccountStatusRequest,
+            AsyncHandler<GetSMSSandboxAccountStatusRequest, GetSMSSandboxAccountStatusResult> asyncHandler)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.getSMSSandboxAccountStatusAsync(
+                getSMSSandboxAccountStatusRequest, asyncHandler);
+    }
+
+    @Override
+    public GetSubscriptionAttributesResult getSubscriptionAttributes(
+            GetSubscriptionAttributesRequest getSubscriptionAttributesRequest)
+            throws AmazonClientException, AmazonServiceException {
+        return realSNS.getSubscriptionAttributes(getSubscriptionAttributesRequest);
+    }
+
+    @Override
+    public GetSubscriptionAttributesResult getSubscriptionAttributes(String subscriptionArn)
+            throws AmazonClientException, AmazonServiceException {
+        return realSNS.getSubscriptionAttributes(subscriptionArn);
+    }
+
+    @Override
+    public Future<GetSubscriptionAttributesResult> getSubscriptionAttributesAsync(
+            GetSubscriptionAttributesRequest getSubscriptionAttributesRequest)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.getSubscriptionAttributesAsync(getSubscriptionAttributesRequest);
+    }
+
+    @Override
+    public Future<GetSubscriptionAttributesResult> getSubscriptionAttributesAsync(
+            GetSubscriptionAttributesRequest getSubscriptionAttributesRequest,
+            AsyncHandler<GetSubscriptionAttributesRequest, GetSubscriptionAttributesResult> asyncHandler)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.getSubscriptionAttributesAsync(
+                getSubscriptionAttributesRequest, asyncHandler);
+    }
+
+    @Override
+    public GetTopicAttributesResult getTopicAttributes(String topicArn)
+            throws AmazonClientException, AmazonServiceException {
+        return realSNS.getTopicAttributes(topicArn);
+    }
+
+    @Override
+    public GetTopicAttributesResult getTopicAttributes(
+            GetTopicAttributesRequest getTopicAttributesRequest)
+            throws AmazonClientException, AmazonServiceException {
+        return realSNS.getTopicAttributes(getTopicAttributesRequest);
+    }
+
+    @Override
+    public Future<GetTopicAttributesResult> getTopicAttributesAsync(
+            GetTopicAttributesRequest getTopicAttributesRequest)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.getTopicAttributesAsync(getTopicAttributesRequest);
+    }
+
+    @Override
+    public Future<GetTopicAttributesResult> getTopicAttributesAsync(
+            GetTopicAttributesRequest getTopicAttributesRequest,
+            AsyncHandler<GetTopicAttributesRequest, GetTopicAttributesResult> asyncHandler)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.getTopicAttributesAsync(getTopicAttributesRequest, asyncHandler);
+    }
+
+    @Override
+    public ListEndpointsByPlatformApplicationResult listEndpointsByPlatformApplication(
+            ListEndpointsByPlatformApplicationRequest listEndpointsByPlatformApplicationRequest)
+            throws AmazonClientException, AmazonServiceException {
+        return realSNS.listEndpointsByPlatformApplication(
+                listEndpointsByPlatformApplicationRequest);
+    }
+
+    @Override
+    public Future<ListEndpointsByPlatformApplicationResult> listEndpointsByPlatformApplicationAsync(
+            ListEndpointsByPlatformApplicationRequest listEndpointsByPlatformApplicationRequest)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.listEndpointsByPlatformApplicationAsync(
+                listEndpointsByPlatformApplicationRequest);
+    }
+
+    @Override
+    public Future<ListEndpointsByPlatformApplicationResult> listEndpointsByPlatformApplicationAsync(
+            ListEndpointsByPlatformApplicationRequest listEndpointsByPlatformApplicationRequest,
+            AsyncHandler<ListEndpointsByPlatformApplicationRequest, ListEndpointsByPlatformApplicationResult> asyncHandler)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.listEndpointsByPlatformApplicationAsync(
+                listEndpointsByPlatformApplicationRequest, asyncHandler);
+    }
+
+    @Override
+    public ListOriginationNumbersResult listOriginationNumbers(
+            ListOriginationNumbersRequest listOriginationNumbersRequest)
+            throws AmazonClientException, AmazonServiceException {
+        return realSNS.listOriginationNumbers(listOriginationNumbersRequest);
+    }
+
+    @Override
+    public Future<ListOriginationNumbersResult> listOriginationNumbersAsync(
+            ListOriginationNumbersRequest listOriginationNumbersRequest)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.listOriginationNumbersAsync(listOriginationNumbersRequest);
+    }
+
+    @Override
+    public Future<ListOriginationNumbersResult> listOriginationNumbersAsync(
+            ListOriginationNumbersRequest listOriginationNumbersRequest,
+            AsyncHandler<ListOriginationNumbersRequest, ListOriginationNumbersResult> asyncHandler)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.listOriginationNumbersAsync(listOriginationNumbersRequest, asyncHandler);
+    }
+
+    @Override
+    public ListPhoneNumbersOptedOutResult listPhoneNumbersOptedOut(
+            ListPhoneNumbersOptedOutRequest listPhoneNumbersOptedOutRequest)
+            throws AmazonClientException, AmazonServiceException {
+        return realSNS.listPhoneNumbersOptedOut(listPhoneNumbersOptedOutRequest);
+    }
+
+    @Override
+    public Future<ListPhoneNumbersOptedOutResult> listPhoneNumbersOptedOutAsync(
+            ListPhoneNumbersOptedOutRequest listPhoneNumbersOptedOutRequest)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.listPhoneNumbersOptedOutAsync(listPhoneNumbersOptedOutRequest);
+    }
+
+    @Override
+    public Future<ListPhoneNumbersOptedOutResult> listPhoneNumbersOptedOutAsync(
+            ListPhoneNumbersOptedOutRequest listPhoneNumbersOptedOutRequest,
+            AsyncHandler<ListPhoneNumbersOptedOutRequest, ListPhoneNumbersOptedOutResult> asyncHandler)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.listPhoneNumbersOptedOutAsync(listPhoneNumbersOptedOutRequest, asyncHandler);
+    }
+
+    @Override
+    public ListPlatformApplicationsResult listPlatformApplications()
+            throws AmazonClientException, AmazonServiceException {
+        return realSNS.listPlatformApplications();
+    }
+
+    @Override
+    public ListPlatformApplicationsResult listPlatformApplications(
+            ListPlatformApplicationsRequest listPlatformApplicationsRequest)
+            throws AmazonClientException, AmazonServiceException {
+        return realSNS.listPlatformApplications(listPlatformApplicationsRequest);
+    }
+
+    @Override
+    public Future<ListPlatformApplicationsResult> listPlatformApplicationsAsync(
+            ListPlatformApplicationsRequest listPlatformApplicationsRequest)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.listPlatformApplicationsAsync(listPlatformApplicationsRequest);
+    }
+
+    @Override
+    public Future<ListPlatformApplicationsResult> listPlatformApplicationsAsync(
+            ListPlatformApplicationsRequest listPlatformApplicationsRequest,
+            AsyncHandler<ListPlatformApplicationsRequest, ListPlatformApplicationsResult> asyncHandler)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.listPlatformApplicationsAsync(listPlatformApplicationsRequest, asyncHandler);
+    }
+
+    @Override
+    public ListSMSSandboxPhoneNumbersResult listSMSSandboxPhoneNumbers(
+            ListSMSSandboxPhoneNumbersRequest listSMSSandboxPhoneNumbersRequest)
+            throws AmazonClientException, AmazonServiceException {
+        return realSNS.listSMSSandboxPhoneNumbers(listSMSSandboxPhoneNumbersRequest);
+    }
+
+    @Override
+    public Future<ListSMSSandboxPhoneNumbersResult> listSMSSandboxPhoneNumbersAsync(
+            ListSMSSandboxPhoneNumbersRequest listSMSSandboxPhoneNumbersRequest)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.listSMSSandboxPhoneNumbersAsync(listSMSSandboxPhoneNumbersRequest);
+    }
+
+    @Override
+    public Future<ListSMSSandboxPhoneNumbersResult> listSMSSandboxPhoneNumbersAsync(
+            ListSMSSandboxPhoneNumbersRequest listSMSSandboxPhoneNumbersRequest,
+            AsyncHandler<ListSMSSandboxPhoneNumbersRequest, ListSMSSandboxPhoneNumbersResult> asyncHandler)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.listSMSSandboxPhoneNumbersAsync(
+                listSMSSandboxPhoneNumbersRequest, asyncHandler);
+    }
+
+    @Override
+    public ListSubscriptionsResult listSubscriptions()
+            throws AmazonClientException, AmazonServiceException {
+        return realSNS.listSubscriptions();
+    }
+
+    @Override
+    public ListSubscriptionsResult listSubscriptions(
+            ListSubscriptionsRequest listSubscriptionsRequest)
+            throws AmazonClientException, AmazonServiceException {
+        return realSNS.listSubscriptions(listSubscriptionsRequest);
+    }
+
+    @Override
+    public ListSubscriptionsResult listSubscriptions(String nextToken)
+            throws AmazonClientException, AmazonServiceException {
+        return realSNS.listSubscriptions(nextToken);
+    }
+
+    @Override
+    public Future<ListSubscriptionsResult> listSubscriptionsAsync(
+            ListSubscriptionsRequest listSubscriptionsRequest)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.listSubscriptionsAsync(listSubscriptionsRequest);
+    }
+
+    @Override
+    public Future<ListSubscriptionsResult> listSubscriptionsAsync(
+            ListSubscriptionsRequest listSubscriptionsRequest,
+            AsyncHandler<ListSubscriptionsRequest, ListSubscriptionsResult> asyncHandler)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.listSubscriptionsAsync(listSubscriptionsRequest, asyncHandler);
+    }
+
+    @Override
+    public ListSubscriptionsByTopicResult listSubscriptionsByTopic(
+            ListSubscriptionsByTopicRequest listSubscriptionsByTopicRequest)
+            throws AmazonClientException, AmazonServiceException {
+        return realSNS.listSubscriptionsByTopic(listSubscriptionsByTopicRequest);
+    }
+
+    @Override
+    public ListSubscriptionsByTopicResult listSubscriptionsByTopic(String topicArn)
+            throws AmazonClientException, AmazonServiceException {
+        return realSNS.listSubscriptionsByTopic(topicArn);
+    }
+
+    @Override
+    public ListSubscriptionsByTopicResult listSubscriptionsByTopic(
+            String topicArn,
+            String nextToken)
+            throws AmazonClientException, AmazonServiceException {
+        return realSNS.listSubscriptionsByTopic(topicArn, nextToken);
+    }
+
+    @Override
+    public Future<ListSubscriptionsByTopicResult> listSubscriptionsByTopicAsync(
+            ListSubscriptionsByTopicRequest listSubscriptionsByTopicRequest)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.listSubscriptionsByTopicAsync(listSubscriptionsByTopicRequest);
+    }
+
+    @Override
+    public Future<ListSubscriptionsByTopicResult> listSubscriptionsByTopicAsync(
+            ListSubscriptionsByTopicRequest listSubscriptionsByTopicRequest,
+            AsyncHandler<ListSubscriptionsByTopicRequest, ListSubscriptionsByTopicResult> asyncHandler)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.listSubscriptionsByTopicAsync(listSubscriptionsByTopicRequest, asyncHandler);
+    }
+
+    @Override
+    public ListTagsForResourceResult listTagsForResource(
+            ListTagsForResourceRequest listTagsForResourceRequest)
+            throws AmazonClientException, AmazonServiceException {
+        return realSNS.listTagsForResource(listTagsForResourceRequest);
+    }
+
+    @Override
+    public Future<ListTagsForResourceResult> listTagsForResourceAsync(
+            ListTagsForResourceRequest listTagsForResourceRequest)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.listTagsForResourceAsync(listTagsForResourceRequest);
+    }
+
+    @Override
+    public Future<ListTagsForResourceResult> listTagsForResourceAsync(
+            ListTagsForResourceRequest listTagsForResourceRequest,
+            AsyncHandler<ListTagsForResourceRequest, ListTagsForResourceResult> asyncHandler)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.listTagsForResourceAsync(listTagsForResourceRequest, asyncHandler);
+    }
+
+    @Override
+    public ListTopicsResult listTopics()
+            throws AmazonClientException, AmazonServiceException {
+        return realSNS.listTopics();
+    }
+
+    @Override
+    public ListTopicsResult listTopics(String nextToken)
+            throws AmazonClientException, AmazonServiceException {
+        return realSNS.listTopics(nextToken);
+    }
+
+    @Override
+    public ListTopicsResult listTopics(ListTopicsRequest listTopicsRequest)
+            throws AmazonClientException, AmazonServiceException {
+        return realSNS.listTopics(listTopicsRequest);
+    }
+
+    @Override
+    public Future<ListTopicsResult> listTopicsAsync(ListTopicsRequest listTopicsRequest)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.listTopicsAsync(listTopicsRequest);
+    }
+
+    @Override
+    public Future<ListTopicsResult> listTopicsAsync(
+            ListTopicsRequest listTopicsRequest,
+            AsyncHandler<ListTopicsRequest, ListTopicsResult> asyncHandler)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.listTopicsAsync(listTopicsRequest, asyncHandler);
+    }
+
+    @Override
+    public OptInPhoneNumberResult optInPhoneNumber(OptInPhoneNumberRequest optInPhoneNumberRequest)
+            throws AmazonClientException, AmazonServiceException {
+        return realSNS.optInPhoneNumber(optInPhoneNumberRequest);
+    }
+
+    @Override
+    public Future<OptInPhoneNumberResult> optInPhoneNumberAsync(
+            OptInPhoneNumberRequest optInPhoneNumberRequest)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.optInPhoneNumberAsync(optInPhoneNumberRequest);
+    }
+
+    @Override
+    public Future<OptInPhoneNumberResult> optInPhoneNumberAsync(
+            OptInPhoneNumberRequest optInPhoneNumberRequest,
+            AsyncHandler<OptInPhoneNumberRequest, OptInPhoneNumberResult> asyncHandler)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.optInPhoneNumberAsync(optInPhoneNumberRequest, asyncHandler);
+    }
+
+    @Override
+    public PublishResult publish(PublishRequest publishRequest)
+            throws AmazonClientException, AmazonServiceException {
+        publishRequest.getRequestClientOptions().appendUserAgent(USER_AGENT);
+        if (!isBufferable(publishRequest)) {
+            return realSNS.publish(publishRequest);
+        }
+        return getBuffer(publishRequest.getTopicArn()).publishSync(publishRequest);
+    }
+
+    @Override
+    public PublishResult publish(String topicArn, String message)
+            throws AmazonClientException, AmazonServiceException {
+        return publish(new PublishRequest(topicArn, message));
+    }
+
+    @Override
+    public PublishResult publish(String topicArn, String message, String subject)
+            throws AmazonClientException, AmazonServiceException {
+        return publish(new PublishRequest(topicArn, message, subject));
+    }
+
+    @Override
+    public Future<PublishResult> publishAsync(PublishRequest publishRequest)
+            throws AmazonServiceException, AmazonClientException {
+        return publishAsync(publishRequest, null);
+    }
+
+    @Override
+    public Future<PublishResult> publishAsync(
+            PublishRequest publishRequest,
+            AsyncHandler<PublishRequest, PublishResult> asyncHandler)
+            throws AmazonServiceException, AmazonClientException {
+        publishRequest.getRequestClientOptions().appendUserAgent(USER_AGENT);
+        if (!isBufferable(publishRequest)) {
+            return realSNS.publishAsync(publishRequest, asyncHandler);
+        }
+        return getBuffer(publishRequest.getTopicArn()).publish(publishRequest, asyncHandler);
+    }
+
+    @Override
+    public PublishBatchResult publishBatch(PublishBatchRequest publishBatchRequest)
+            throws AmazonClientException, AmazonServiceException {
+        return realSNS.publishBatch(publishBatchRequest);
+    }
+
+    @Override
+    public Future<PublishBatchResult> publishBatchAsync(PublishBatchRequest publishBatchRequest)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.publishBatchAsync(publishBatchRequest);
+    }
+
+    @Override
+    public Future<PublishBatchResult> publishBatchAsync(
+            PublishBatchRequest publishBatchRequest,
+            AsyncHandler<PublishBatchRequest, PublishBatchResult> asyncHandler)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.publishBatchAsync(publishBatchRequest, asyncHandler);
+    }
+
+    @Override
+    public void putDataProtectionPolicy(
+            PutDataProtectionPolicyRequest putDataProtectionPolicyRequest)
+            throws AmazonClientException, AmazonServiceException {
+        realSNS.putDataProtectionPolicy(putDataProtectionPolicyRequest);
+    }
+
+    @Override
+    public Future<Void> putDataProtectionPolicyAsync(
+            PutDataProtectionPolicyRequest putDataProtectionPolicyRequest)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.putDataProtectionPolicyAsync(putDataProtectionPolicyRequest);
+    }
+
+    @Override
+    public Future<Void> putDataProtectionPolicyAsync(
+            PutDataProtectionPolicyRequest putDataProtectionPolicyRequest,
+            AsyncHandler<PutDataProtectionPolicyRequest, Void> asyncHandler)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.putDataProtectionPolicyAsync(putDataProtectionPolicyRequest, asyncHandler);
+    }
+
+    @Override
+    public void removePermission(RemovePermissionRequest removePermissionRequest)
+            throws AmazonClientException, AmazonServiceException {
+        realSNS.removePermission(removePermissionRequest);
+    }
+
+    @Override
+    public void removePermission(String topicArn, String label)
+            throws AmazonClientException, AmazonServiceException {
+        realSNS.removePermission(topicArn, label);
+    }
+
+    @Override
+    public Future<Void> removePermissionAsync(RemovePermissionRequest removePermissionRequest)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.removePermissionAsync(removePermissionRequest);
+    }
+
+    @Override
+    public Future<Void> removePermissionAsync(
+            RemovePermissionRequest removePermissionRequest,
+            AsyncHandler<RemovePermissionRequest, Void> asyncHandler)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.removePermissionAsync(removePermissionRequest, asyncHandler);
+    }
+
+    @Override
+    public void setEndpoint(String endpoint)
+            throws IllegalArgumentException {
+        realSNS.setEndpoint(endpoint);
+    }
+
+    @Override
+    public void setEndpointAttributes(SetEndpointAttributesRequest setEndpointAttributesRequest)
+            throws AmazonClientException, AmazonServiceException {
+        realSNS.setEndpointAttributes(setEndpointAttributesRequest);
+    }
+
+    @Override
+    public Future<Void> setEndpointAttributesAsync(
+            SetEndpointAttributesRequest setEndpointAttributesRequest)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.setEndpointAttributesAsync(setEndpointAttributesRequest);
+    }
+
+    @Override
+    public Future<Void> setEndpointAttributesAsync(
+            SetEndpointAttributesRequest setEndpointAttributesRequest,
+            AsyncHandler<SetEndpointAttributesRequest, Void> asyncHandler)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.setEndpointAttributesAsync(setEndpointAttributesRequest, asyncHandler);
+    }
+
+    @Override
+    public void setPlatformApplicationAttributes(
+            SetPlatformApplicationAttributesRequest setPlatformApplicationAttributesRequest)
+            throws AmazonClientException, AmazonServiceException {
+        realSNS.setPlatformApplicationAttributes(setPlatformApplicationAttributesRequest);
+    }
+
+    @Override
+    public Future<Void> setPlatformApplicationAttributesAsync(
+            SetPlatformApplicationAttributesRequest setPlatformApplicationAttributesRequest)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.setPlatformApplicationAttributesAsync(
+                setPlatformApplicationAttributesRequest);
+    }
+
+    @Override
+    public Future<Void> setPlatformApplicationAttributesAsync(
+            SetPlatformApplicationAttributesRequest setPlatformApplicationAttributesRequest,
+            AsyncHandler<SetPlatformApplicationAttributesRequest, Void> asyncHandler)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.setPlatformApplicationAttributesAsync(
+                setPlatformApplicationAttributesRequest, asyncHandler);
+    }
+
+    @Override
+    public void setRegion(Region region)
+            throws IllegalArgumentException {
+        realSNS.setRegion(region);
+    }
+
+    @Override
+    public SetSMSAttributesResult setSMSAttributes(SetSMSAttributesRequest setSMSAttributesRequest)
+            throws AmazonClientException, AmazonServiceException {
+        return realSNS.setSMSAttributes(setSMSAttributesRequest);
+    }
+
+    @Override
+    public Future<SetSMSAttributesResult> setSMSAttributesAsync(
+            SetSMSAttributesRequest setSMSAttributesRequest)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.setSMSAttributesAsync(setSMSAttributesRequest);
+    }
+
+    @Override
+    public Future<SetSMSAttributesResult> setSMSAttributesAsync(
+            SetSMSAttributesRequest setSMSAttributesRequest,
+            AsyncHandler<SetSMSAttributesRequest, SetSMSAttributesResult> asyncHandler)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.setSMSAttributesAsync(setSMSAttributesRequest, asyncHandler);
+    }
+
+    @Override
+    public void setSubscriptionAttributes(
+            SetSubscriptionAttributesRequest setSubscriptionAttributesRequest)
+            throws AmazonClientException, AmazonServiceException {
+        realSNS.setSubscriptionAttributes(setSubscriptionAttributesRequest);
+    }
+
+    @Override
+    public void setSubscriptionAttributes(
+            String subscriptionArn,
+            String attributeName,
+            String attributeValue)
+            throws AmazonClientException, AmazonServiceException {
+        realSNS.setSubscriptionAttributes(subscriptionArn, attributeName, attributeValue);
+    }
+
+    @Override
+    public Future<Void> setSubscriptionAttributesAsync(
+            SetSubscriptionAttributesRequest setSubscriptionAttributesRequest)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.setSubscriptionAttributesAsync(setSubscriptionAttributesRequest);
+    }
+
+    @Override
+    public Future<Void> setSubscriptionAttributesAsync(
+            SetSubscriptionAttributesRequest setSubscriptionAttributesRequest,
+            AsyncHandler<SetSubscriptionAttributesRequest, Void> asyncHandler)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.setSubscriptionAttributesAsync(
+                setSubscriptionAttributesRequest, asyncHandler);
+    }
+
+    @Override
+    public void setTopicAttributes(SetTopicAttributesRequest setTopicAttributesRequest)
+            throws AmazonClientException, AmazonServiceException {
+        realSNS.setTopicAttributes(setTopicAttributesRequest);
+    }
+
+    @Override
+    public void setTopicAttributes(String topicArn, String attributeName, String attributeValue)
+            throws AmazonClientException, AmazonServiceException {
+        realSNS.setTopicAttributes(topicArn, attributeName, attributeValue);
+    }
+
+    @Override
+    public Future<Void> setTopicAttributesAsync(
+            SetTopicAttributesRequest setTopicAttributesRequest)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.setTopicAttributesAsync(setTopicAttributesRequest);
+    }
+
+    @Override
+    public Future<Void> setTopicAttributesAsync(
+            SetTopicAttributesRequest setTopicAttributesRequest,
+            AsyncHandler<SetTopicAttributesRequest, Void> asyncHandler)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.setTopicAttributesAsync(setTopicAttributesRequest, asyncHandler);
+    }
+
+    @Override
+    public void shutdown() {
+        flush();
+        realSNS.shutdown();
+    }
+
+    @Override
+    public SubscribeResult subscribe(SubscribeRequest subscribeRequest)
+            throws AmazonClientException, AmazonServiceException {
+        return realSNS.subscribe(subscribeRequest);
+    }
+
+    @Override
+    public SubscribeResult subscribe(String topicArn, String protocol, String endpoint)
+            throws AmazonClientException, AmazonServiceException {
+        return realSNS.subscribe(topicArn, protocol, endpoint);
+    }
+
+    @Override
+    public Future<SubscribeResult> subscribeAsync(SubscribeRequest subscribeRequest)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.subscribeAsync(subscribeRequest);
+    }
+
+    @Override
+    public Future<SubscribeResult> subscribeAsync(
+            SubscribeRequest subscribeRequest,
+            AsyncHandler<SubscribeRequest, SubscribeResult> asyncHandler)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.subscribeAsync(subscribeRequest, asyncHandler);
+    }
+
+    @Override
+    public TagResourceResult tagResource(TagResourceRequest tagResourceRequest)
+            throws AmazonClientException, AmazonServiceException {
+        return realSNS.tagResource(tagResourceRequest);
+    }
+
+    @Override
+    public Future<TagResourceResult> tagResourceAsync(TagResourceRequest tagResourceRequest)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.tagResourceAsync(tagResourceRequest);
+    }
+
+    @Override
+    public Future<TagResourceResult> tagResourceAsync(
+            TagResourceRequest tagResourceRequest,
+            AsyncHandler<TagResourceRequest, TagResourceResult> asyncHandler)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.tagResourceAsync(tagResourceRequest, asyncHandler);
+    }
+
+    @Override
+    public void unsubscribe(UnsubscribeRequest unsubscribeRequest)
+            throws AmazonClientException, AmazonServiceException {
+        realSNS.unsubscribe(unsubscribeRequest);
+    }
+
+    @Override
+    public void unsubscribe(String subscriptionArn)
+            throws AmazonClientException, AmazonServiceException {
+        realSNS.unsubscribe(subscriptionArn);
+    }
+
+    @Override
+    public Future<Void> unsubscribeAsync(UnsubscribeRequest unsubscribeRequest)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.unsubscribeAsync(unsubscribeRequest);
+    }
+
+    @Override
+    public Future<Void> unsubscribeAsync(
+            UnsubscribeRequest unsubscribeRequest,
+            AsyncHandler<UnsubscribeRequest, Void> asyncHandler)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.unsubscribeAsync(unsubscribeRequest, asyncHandler);
+    }
+
+    @Override
+    public UntagResourceResult untagResource(UntagResourceRequest untagResourceRequest)
+            throws AmazonClientException, AmazonServiceException {
+        return realSNS.untagResource(untagResourceRequest);
+    }
+
+    @Override
+    public Future<UntagResourceResult> untagResourceAsync(
+            UntagResourceRequest untagResourceRequest)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.untagResourceAsync(untagResourceRequest);
+    }
+
+    @Override
+    public Future<UntagResourceResult> untagResourceAsync(
+            UntagResourceRequest untagResourceRequest,
+            AsyncHandler<UntagResourceRequest, UntagResourceResult> asyncHandler)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.untagResourceAsync(untagResourceRequest, asyncHandler);
+    }
+
+    @Override
+    public VerifySMSSandboxPhoneNumberResult verifySMSSandboxPhoneNumber(
+            VerifySMSSandboxPhoneNumberRequest verifySMSSandboxPhoneNumberRequest)
+            throws AmazonClientException, AmazonServiceException {
+        return realSNS.verifySMSSandboxPhoneNumber(verifySMSSandboxPhoneNumberRequest);
+    }
+
+    @Override
+    public Future<VerifySMSSandboxPhoneNumberResult> verifySMSSandboxPhoneNumberAsync(
+            VerifySMSSandboxPhoneNumberRequest verifySMSSandboxPhoneNumberRequest)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.verifySMSSandboxPhoneNumberAsync(verifySMSSandboxPhoneNumberRequest);
+    }
+
+    @Override
+    public Future<VerifySMSSandboxPhoneNumberResult> verifySMSSandboxPhoneNumberAsync(
+            VerifySMSSandboxPhoneNumberRequest verifySMSSandboxPhoneNumberRequest,
+            AsyncHandler<VerifySMSSandboxPhoneNumberRequest, VerifySMSSandboxPhoneNumberResult> asyncHandler)
+            throws AmazonServiceException, AmazonClientException {
+        return realSNS.verifySMSSandboxPhoneNumberAsync(
+                verifySMSSandboxPhoneNumberRequest, asyncHandler);
+    }
+}
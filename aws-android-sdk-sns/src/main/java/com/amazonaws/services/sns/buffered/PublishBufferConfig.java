@@ -0,0 +1,198 @@
+/*
+ * Copyright 2010-2022 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.services.sns.buffered;
+
+import com.amazonaws.AmazonClientException;
+
+/**
+ * Settings for the per-topic publish buffers of an
+ * {@link AmazonSNSBufferedAsyncClient}.
+ */
+public class PublishBufferConfig {
+
+    /** The maximum number of entries in a PublishBatch request */
+    public static final int SERVICE_MAX_BATCH_SIZE = 10;
+
+    /** The maximum total size of the messages in a PublishBatch request */
+    public static final long SERVICE_MAX_BATCH_SIZE_BYTES = 256 * 1024;
+
+    /** 10 entries */
+    public static final int MAX_BATCH_SIZE_DEFAULT = SERVICE_MAX_BATCH_SIZE;
+
+    /** 256 kilobytes */
+    public static final long MAX_BATCH_SIZE_BYTES_DEFAULT = SERVICE_MAX_BATCH_SIZE_BYTES;
+
+    /** 200 milliseconds */
+    public static final long MAX_BATCH_OPEN_MS_DEFAULT = 200;
+
+    /** 5 batches */
+    public static final int MAX_INFLIGHT_OUTBOUND_BATCHES_DEFAULT = 5;
+
+    /**
+     * The maximum time (milliseconds) a batch is held open for additional
+     * publish calls. The longer this timeout, the longer messages wait for
+     * other messages to be added to the batch. Increasing this timeout reduces
+     * the number of calls made and increases throughput, but also increases
+     * average message latency.
+     */
+    private long maxBatchOpenMs;
+
+    /**
+     * The maximum number of concurrent batches for each topic. The greater the
+     * number, the greater the throughput that can be achieved (at the expense
+     * of consuming more threads).
+     */
+    private int maxInflightOutboundBatches;
+
+    /** The maximum number of entries in a batch */
+    private int maxBatchSize;
+
+    /** The maximum total size of the messages in a batch, in bytes */
+    private long maxBatchSizeBytes;
+
+    public PublishBufferConfig(long maxBatchOpenMs,
+            int maxInflightOutboundBatches,
+            int maxBatchSize,
+            long maxBatchSizeBytes) {
+        this.maxBatchOpenMs = maxBatchOpenMs;
+        this.maxInflightOutboundBatches = maxInflightOutboundBatches;
+        this.maxBatchSize = maxBatchSize;
+        this.maxBatchSizeBytes = maxBatchSizeBytes;
+    }
+
+    public PublishBufferConfig() {
+        this(MAX_BATCH_OPEN_MS_DEFAULT,
+                MAX_INFLIGHT_OUTBOUND_BATCHES_DEFAULT,
+                MAX_BATCH_SIZE_DEFAULT,
+                MAX_BATCH_SIZE_BYTES_DEFAULT);
+    }
+
+    /** copy constructor */
+    public PublishBufferConfig(PublishBufferConfig other) {
+        maxBatchOpenMs = other.maxBatchOpenMs;
+        maxInflightOutboundBatches = other.maxInflightOutboundBatches;
+        maxBatchSize = other.maxBatchSize;
+        maxBatchSizeBytes = other.maxBatchSizeBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "PublishBufferConfig [maxBatchSize=" + maxBatchSize
+                + ", maxBatchOpenMs=" + maxBatchOpenMs
+                + ", maxInflightOutboundBatches=" + maxInflightOutboundBatches
+                + ", maxBatchSizeBytes=" + maxBatchSizeBytes + "]";
+    }
+
+    /**
+     * The maximum time (milliseconds) a batch is held open for additional
+     * publish calls.
+     */
+    public long getMaxBatchOpenMs() {
+        return maxBatchOpenMs;
+    }
+
+    /**
+     * The maximum time (milliseconds) a batch is held open for additional
+     * publish calls.
+     */
+    public void setMaxBatchOpenMs(long maxBatchOpenMs) {
+        this.maxBatchOpenMs = maxBatchOpenMs;
+    }
+
+    public PublishBufferConfig withMaxBatchOpenMs(long maxBatchOpenMs) {
+        this.maxBatchOpenMs = maxBatchOpenMs;
+        return this;
+    }
+
+    /**
+     * The maximum number of concurrent batches for each topic.
+     */
+    public int getMaxInflightOutboundBatches() {
+        return maxInflightOutboundBatches;
+    }
+
+    /**
+     * The maximum number of concurrent batches for each topic.
+     */
+    public void setMaxInflightOutboundBatches(int maxInflightOutboundBatches) {
+        this.maxInflightOutboundBatches = maxInflightOutboundBatches;
+    }
+
+    public PublishBufferConfig withMaxInflightOutboundBatches(int maxInflightOutboundBatches) {
+        this.maxInflightOutboundBatches = maxInflightOutboundBatches;
+        return this;
+    }
+
+    /**
+     * The maximum number of entries the buffering client will put in a single
+     * PublishBatch request.
+     */
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * The maximum number of entries the buffering client will put in a single
+     * PublishBatch request.
+     */
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public PublishBufferConfig withMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+        return this;
+    }
+
+    /**
+     * The maximum total size, in bytes, of the messages and message
+     * attributes in a single PublishBatch request.
+     */
+    public long getMaxBatchSizeBytes() {
+        return maxBatchSizeBytes;
+    }
+
+    /**
+     * The maximum total size, in bytes, of the messages and message
+     * attributes in a single PublishBatch request.
+     */
+    public void setMaxBatchSizeBytes(long maxBatchSizeBytes) {
+        this.maxBatchSizeBytes = maxBatchSizeBytes;
+    }
+
+    public PublishBufferConfig withMaxBatchSizeBytes(long maxBatchSizeBytes) {
+        this.maxBatchSizeBytes = maxBatchSizeBytes;
+        return this;
+    }
+
+    /**
+     * this method checks the config for validity. If the config is deemed to be
+     * invalid, an informative exception is thrown.
+     *
+     * @throws AmazonClientException with a message explaining why the config
+     *             was invalid
+     */
+    void validate() {
+        if (maxBatchSize < 1 || maxBatchSize > SERVICE_MAX_BATCH_SIZE) {
+            throw new AmazonClientException("Maximum batch size must be between 1 and "
+                    + SERVICE_MAX_BATCH_SIZE);
+        }
+        if (maxBatchSizeBytes < 1 || maxBatchSizeBytes > SERVICE_MAX_BATCH_SIZE_BYTES) {
+            throw new AmazonClientException("Maximum batch size in bytes must be between 1 and "
+                    + SERVICE_MAX_BATCH_SIZE_BYTES);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2010-2022 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.services.sns.buffered;
+
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.sns.model.PublishRequest;
+import com.amazonaws.services.sns.model.PublishResult;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * PublishBufferFuture is used to deliver the result of a buffered publish
+ * call. PublishBufferFutures are not cancellable.
+ */
+class PublishBufferFuture implements Future<PublishResult> {
+    private PublishResult result = null;
+    private Exception e = null;
+    private boolean done = false;
+
+    private final PublishRequest request;
+
+    /**
+     * handler we should call after the future is done. may be null
+     */
+    private final AsyncHandler<PublishRequest, PublishResult> handler;
+
+    /**
+     * executor the handler is called on
+     */
+    private final Executor executor;
+
+    /**
+     * every future holds a reference to the buffer that issued it, so that the
+     * buffer is not garbage collected while at least one future it issued is
+     * still outstanding.
+     */
+    private final TopicPublishBuffer issuingBuffer;
+
+    PublishBufferFuture(PublishRequest request,
+            AsyncHandler<PublishRequest, PublishResult> handler,
+            Executor executor,
+            TopicPublishBuffer issuingBuffer) {
+        this.request = request;
+        this.handler = handler;
+        this.executor = executor;
+        this.issuingBuffer = issuingBuffer;
+    }
+
+    PublishRequest getRequest() {
+        return request;
+    }
+
+    /**
+     * Report that the publish call this future represents has succeeded.
+     */
+    synchronized void setSuccess(PublishResult paramResult) {
+        if (done)
+            return; // can't mark done twice
+        result = paramResult;
+        done = true;
+        notifyAll();
+
+        // call the handler on a different thread, who knows what this thread
+        // is doing.
+        if (handler != null) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    handler.onSuccess(request, result);
+                }
+            });
+        }
+    }
+
+    /**
+     * Report that the publish call this future represents has failed.
+     */
+    synchronized void setFailure(Exception paramE) {
+        if (done)
+            return; // can't mark done twice
+        e = paramE;
+        done = true;
+        notifyAll();
+
+        if (handler != null) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    handler.onError(e);
+                }
+            });
+        }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        // not cancellable
+        return false;
+    }
+
+    @Override
+    public PublishResult get() throws InterruptedException, ExecutionException {
+        while (true) {
+            try {
+                return get(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException te) {
+                // not expected given the very long wait; just wait more.
+            }
+        }
+    }
+
+    @Override
+    public synchronized PublishResult get(long timeout, TimeUnit tu)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        long waitStartMs = TimeUnit.MILLISECONDS.convert(System.nanoTime(), TimeUnit.NANOSECONDS);
+        long timeoutMs = TimeUnit.MILLISECONDS.convert(timeout, tu);
+        long timeToWaitMs = timeoutMs;
+
+        while (!done) {
+            // wait(0) means "wait forever", which is the opposite of what we
+            // want.
+            if (timeToWaitMs <= 0) {
+                throw new TimeoutException("Timed out waiting for results after " + timeout + " "
+                        + tu);
+            }
+
+            wait(timeToWaitMs);
+
+            long nowMs = TimeUnit.MILLISECONDS.convert(System.nanoTime(), TimeUnit.NANOSECONDS);
+            timeToWaitMs = timeoutMs - (nowMs - waitStartMs);
+        }
+
+        if (e != null) {
+            throw new ExecutionException(e);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        // not cancellable
+        return false;
+    }
+
+    @Override
+    public synchronized boolean isDone() {
+        return done;
+    }
+}
@@ -0,0 +1,392 @@
+/*
+ * Copyright 2010-2022 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.services.sns.buffered;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.AmazonServiceException.ErrorType;
+import com.amazonaws.async.SdkExecutors;
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.logging.Log;
+import com.amazonaws.logging.LogFactory;
+import com.amazonaws.services.sns.AmazonSNS;
+import com.amazonaws.services.sns.model.BatchResultErrorEntry;
+import com.amazonaws.services.sns.model.MessageAttributeValue;
+import com.amazonaws.services.sns.model.PublishBatchRequest;
+import com.amazonaws.services.sns.model.PublishBatchRequestEntry;
+import com.amazonaws.services.sns.model.PublishBatchResult;
+import com.amazonaws.services.sns.model.PublishBatchResultEntry;
+import com.amazonaws.services.sns.model.PublishRequest;
+import com.amazonaws.services.sns.model.PublishResult;
+import com.amazonaws.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Buffers the publish calls for a single topic. <br>
+ * When a call arrives, the buffer adds it to the open batch (creating one if
+ * there currently isn't one outstanding). When the batch becomes full, either
+ * by number of entries or by size, or when {@code maxBatchOpenMs} expires, the
+ * buffer sends the batch to SNS with a single PublishBatch call and completes
+ * the futures of the calls in it from the batch result entries.
+ * <p>
+ * For a FIFO topic only one batch is open or in flight at a time, and its
+ * failed entries are retried in the order they were published before the
+ * next batch is sent, so messages reach the topic in publish order.
+ */
+class TopicPublishBuffer {
+    private static Log log = LogFactory.getLog(TopicPublishBuffer.class);
+
+    /** Maximum number of batches and handlers of all topics running at once */
+    private static final int MAX_CONCURRENCY = 10;
+
+    /** Suffix of the name of a FIFO topic */
+    private static final String FIFO_TOPIC_SUFFIX = ".fifo";
+
+    /**
+     * Executor shared among all topic buffers, so that many topics don't each
+     * spin up their own threads. It runs on the SDK's shared daemon threads,
+     * so it doesn't keep the process alive.
+     */
+    static ExecutorService executor = SdkExecutors.newClientExecutor(MAX_CONCURRENCY);
+
+    /** Config settings for this buffer */
+    private final PublishBufferConfig config;
+
+    /** ARN of our topic */
+    private final String topicArn;
+
+    /** The client that makes the batched and retried calls */
+    private final AmazonSNS snsClient;
+
+    /** Object used to serialize publish calls. */
+    private final Object publishLock = new Object();
+
+    /**
+     * Current batching task. Synchronized by {@code publishLock}.
+     */
+    private PublishBatchTask openBatchTask = null;
+
+    /** Permits controlling the number of in flight batches. */
+    private final Semaphore inflightBatches;
+
+    /** Number of permits of {@code inflightBatches} */
+    private final int maxInflightBatches;
+
+    TopicPublishBuffer(AmazonSNS snsClient, PublishBufferConfig config, String topicArn) {
+        this.snsClient = snsClient;
+        this.config = config;
+        this.topicArn = topicArn;
+        boolean fifo = topicArn != null && topicArn.endsWith(FIFO_TOPIC_SUFFIX);
+        // must allow at least one outbound batch, and only one for a FIFO
+        // topic so that batches can't overtake each other.
+        maxInflightBatches = fifo ? 1 : Math.max(1, config.getMaxInflightOutboundBatches());
+        inflightBatches = new Semaphore(maxInflightBatches);
+    }
+
+    PublishBufferConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Adds the request to the open batch, opening a new one when there is no
+     * open batch or the request does not fit into it.
+     *
+     * @return never null
+     * @throws AmazonClientException if the request is too large for any batch,
+     *             or the thread was interrupted waiting for a batch slot.
+     */
+    PublishBufferFuture publish(PublishRequest request,
+            AsyncHandler<PublishRequest, PublishResult> handler) {
+        PublishBufferFuture future = new PublishBufferFuture(request, handler, executor, this);
+        long size = sizeOf(request);
+        if (size > config.getMaxBatchSizeBytes()) {
+            throw new AmazonClientException("Message of " + size
+                    + " bytes is larger than the maximum batch size of "
+                    + config.getMaxBatchSizeBytes() + " bytes");
+        }
+
+        try {
+            synchronized (publishLock) {
+                if (openBatchTask == null || !openBatchTask.add(future, size)) {
+                    inflightBatches.acquire();
+                    openBatchTask = new PublishBatchTask();
+                    if (log.isTraceEnabled()) {
+                        log.trace("Topic " + topicArn + " created new batch, "
+                                + inflightBatches.availablePermits() + " free slots remain");
+                    }
+                    openBatchTask.add(future, size);
+                    openBatchTask.start();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            AmazonClientException toThrow = new AmazonClientException(
+                    "Interrupted while waiting for lock.");
+            toThrow.initCause(e);
+            throw toThrow;
+        }
+        return future;
+    }
+
+    /**
+     * Publishes a message and waits for the batch it was added to.
+     */
+    PublishResult publishSync(PublishRequest request) {
+        Future<PublishResult> future = publish(request, null);
+        try {
+            return future.get();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            AmazonClientException ce = new AmazonClientException(
+                    "Thread interrupted while waiting for execution result");
+            ce.initCause(ie);
+            throw ce;
+        } catch (ExecutionException ee) {
+            Throwable cause = ee.getCause();
+            if (cause instanceof AmazonClientException) {
+                throw (AmazonClientException) cause;
+            }
+            AmazonClientException ce = new AmazonClientException(
+                    "Caught an exception while waiting for request to complete...");
+            ce.initCause(ee);
+            throw ce;
+        }
+    }
+
+    /**
+     * Flushes all outstanding publish calls in this buffer. The call returns
+     * when all calls submitted before it have been processed by SNS.
+     */
+    void flush() {
+        try {
+            synchronized (publishLock) {
+                if (openBatchTask != null) {
+                    openBatchTask.close();
+                }
+                inflightBatches.acquire(maxInflightBatches);
+                inflightBatches.release(maxInflightBatches);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return the number of bytes the request counts against the batch size:
+     *         the UTF-8 encoded message and subject, and the names, types and
+     *         values of its message attributes.
+     */
+    static long sizeOf(PublishRequest request) {
+        long size = utf8Length(request.getMessage()) + utf8Length(request.getSubject());
+        Map<String, MessageAttributeValue> attributes = request.getMessageAttributes();
+        if (attributes != null) {
+            for (Map.Entry<String, MessageAttributeValue> attribute : attributes.entrySet()) {
+                MessageAttributeValue value = attribute.getValue();
+                size += utf8Length(attribute.getKey());
+                if (value != null) {
+                    size += utf8Length(value.getDataType()) + utf8Length(value.getStringValue());
+                    if (value.getBinaryValue() != null) {
+                        size += value.getBinaryValue().remaining();
+                    }
+                }
+            }
+        }
+        return size;
+    }
+
+    private static int utf8Length(String s) {
+        return s == null ? 0 : s.getBytes(StringUtils.UTF8).length;
+    }
+
+    static Exception convert(BatchResultErrorEntry be) {
+        AmazonServiceException toReturn = new AmazonServiceException(be.getMessage());
+        toReturn.setErrorCode(be.getCode());
+        toReturn.setErrorType(Boolean.TRUE.equals(be.getSenderFault())
+                ? ErrorType.Client : ErrorType.Service);
+        toReturn.setServiceName("AmazonSNS");
+        return toReturn;
+    }
+
+    /**
+     * Task that sends a batch of publish calls to SNS.
+     * <p>
+     * The task is constructed open and accepts calls until full, or until
+     * {@code maxBatchOpenMs} elapses. It then closes and runs on the executor
+     * to send the collected calls as a single PublishBatch request, so no
+     * thread is held while the batch is open.
+     */
+    private class PublishBatchTask implements Runnable {
+        private final List<PublishBufferFuture> futures =
+                new ArrayList<PublishBufferFuture>(config.getMaxBatchSize());
+        private long batchSizeBytes = 0;
+        private boolean open = true;
+        private ScheduledFuture<?> timeout;
+
+        /**
+         * Adds a call to the batch if it is still open and has capacity.
+         *
+         * @return false if the call was not added.
+         */
+        synchronized boolean add(PublishBufferFuture future, long size) {
+            if (!open || futures.size() >= config.getMaxBatchSize()
+                    || batchSizeBytes + size > config.getMaxBatchSizeBytes()) {
+                return false;
+            }
+            futures.add(future);
+            batchSizeBytes += size;
+            // the batch is as full as it will ever be, no need to wait for
+            // the timeout.
+            if (futures.size() >= config.getMaxBatchSize()
+                    || batchSizeBytes >= config.getMaxBatchSizeBytes()) {
+                close();
+            }
+            return true;
+        }
+
+        /**
+         * Closes the batch once {@code maxBatchOpenMs} elapses, unless it is
+         * closed before. Called after the first call was added.
+         */
+        synchronized void start() {
+            if (open) {
+                timeout = SdkExecutors.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        close();
+                    }
+                }, config.getMaxBatchOpenMs(), TimeUnit.MILLISECONDS);
+            }
+        }
+
+        /**
+         * Stops accepting calls and hands the batch to the executor to send,
+         * the first time it is called.
+         */
+        synchronized void close() {
+            if (!open) {
+                return;
+            }
+            open = false;
+            if (timeout != null) {
+                timeout.cancel(false);
+            }
+            executor.execute(this);
+        }
+
+        @Override
+        public void run() {
+            try {
+                process();
+            } catch (AmazonClientException e) {
+                failAll(e);
+            } catch (RuntimeException e) {
+                failAll(e);
+                throw e;
+            } catch (Error e) {
+                failAll(new AmazonClientException("Error encountered", e));
+                throw e;
+            } finally {
+                inflightBatches.release();
+            }
+        }
+
+        private void failAll(Exception e) {
+            for (PublishBufferFuture f : futures) {
+                f.setFailure(e);
+            }
+        }
+
+        private void process() {
+            if (futures.isEmpty())
+                return;
+
+            List<PublishBatchRequestEntry> entries = new ArrayList<PublishBatchRequestEntry>(
+                    futures.size());
+            for (int i = 0, n = futures.size(); i < n; i++) {
+                PublishRequest request = futures.get(i).getRequest();
+                entries.add(new PublishBatchRequestEntry()
+                        .withId(Integer.toString(i))
+                        .withMessage(request.getMessage())
+                        .withSubject(request.getSubject())
+                        .withMessageStructure(request.getMessageStructure())
+                        .withMessageAttributes(request.getMessageAttributes())
+                        .withMessageDeduplicationId(request.getMessageDeduplicationId())
+                        .withMessageGroupId(request.getMessageGroupId()));
+            }
+            PublishBatchRequest batchRequest = new PublishBatchRequest()
+                    .withTopicArn(topicArn)
+                    .withPublishBatchRequestEntries(entries);
+            batchRequest.getRequestClientOptions().appendUserAgent(
+                    AmazonSNSBufferedAsyncClient.USER_AGENT);
+
+            PublishBatchResult batchResult = snsClient.publishBatch(batchRequest);
+
+            if (batchResult.getSuccessful() != null) {
+                for (PublishBatchResultEntry entry : batchResult.getSuccessful()) {
+                    int index = Integer.parseInt(entry.getId());
+                    futures.get(index).setSuccess(new PublishResult()
+                            .withMessageId(entry.getMessageId())
+                            .withSequenceNumber(entry.getSequenceNumber()));
+                }
+            }
+
+            if (batchResult.getFailed() != null) {
+                // retry in publish order, which a FIFO topic relies on.
+                List<BatchResultErrorEntry> failed =
+                        new ArrayList<BatchResultErrorEntry>(batchResult.getFailed());
+                Collections.sort(failed, new Comparator<BatchResultErrorEntry>() {
+                    @Override
+                    public int compare(BatchResultErrorEntry a, BatchResultErrorEntry b) {
+                        return Integer.parseInt(a.getId()) - Integer.parseInt(b.getId());
+                    }
+                });
+                for (BatchResultErrorEntry errorEntry : failed) {
+                    PublishBufferFuture future = futures.get(Integer.parseInt(errorEntry.getId()));
+                    if (Boolean.TRUE.equals(errorEntry.getSenderFault())) {
+                        future.setFailure(convert(errorEntry));
+                    } else {
+                        // retry on its own; the client retries internally.
+                        try {
+                            future.setSuccess(snsClient.publish(future.getRequest()));
+                        } catch (AmazonClientException ace) {
+                            future.setFailure(ace);
+                        }
+                    }
+                }
+            }
+
+            // an entry missing from both lists would otherwise leave its
+            // caller waiting forever.
+            for (PublishBufferFuture future : futures) {
+                if (!future.isDone()) {
+                    future.setFailure(new AmazonClientException(
+                            "PublishBatch returned no result for the message"));
+                }
+            }
+        }
+    }
+}
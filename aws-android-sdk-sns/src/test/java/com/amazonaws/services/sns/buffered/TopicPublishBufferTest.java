@@ -0,0 +1,156 @@
+/*
+ * Copyright 2010-2022 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.services.sns.buffered;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.amazonaws.services.sns.AmazonSNS;
+import com.amazonaws.services.sns.model.BatchResultErrorEntry;
+import com.amazonaws.services.sns.model.PublishBatchRequest;
+import com.amazonaws.services.sns.model.PublishBatchRequestEntry;
+import com.amazonaws.services.sns.model.PublishBatchResult;
+import com.amazonaws.services.sns.model.PublishBatchResultEntry;
+import com.amazonaws.services.sns.model.PublishRequest;
+import com.amazonaws.services.sns.model.PublishResult;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TopicPublishBufferTest {
+    private static final String TOPIC_ARN = "arn:aws:sns:us-east-1:123456789012:topic";
+    private static final String FIFO_TOPIC_ARN = TOPIC_ARN + ".fifo";
+
+    private AmazonSNS sns;
+    private final List<String> sent = Collections.synchronizedList(new ArrayList<String>());
+    private final AtomicInteger inflight = new AtomicInteger();
+    private final AtomicInteger maxInflight = new AtomicInteger();
+
+    @Before
+    public void setup() {
+        sns = mock(AmazonSNS.class);
+        when(sns.publish(any(PublishRequest.class))).thenAnswer(new Answer<PublishResult>() {
+            @Override
+            public PublishResult answer(InvocationOnMock invocation) {
+                final PublishRequest request = (PublishRequest) invocation.getArguments()[0];
+                sent.add(request.getMessage());
+                return new PublishResult().withMessageId(request.getMessage());
+            }
+        });
+    }
+
+    @Test
+    public void testFifoTopicSendsOneBatchAtATime() throws Exception {
+        succeedBatchesSlowly();
+        final TopicPublishBuffer buffer = new TopicPublishBuffer(sns, config(1), FIFO_TOPIC_ARN);
+
+        final List<Future<PublishResult>> futures = new ArrayList<Future<PublishResult>>();
+        for (int i = 0; i < 4; i++) {
+            futures.add(buffer.publish(new PublishRequest(FIFO_TOPIC_ARN, "m" + i), null));
+        }
+        buffer.flush();
+
+        for (final Future<PublishResult> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(1, maxInflight.get());
+        assertEquals(Arrays.asList("m0", "m1", "m2", "m3"), sent);
+    }
+
+    @Test
+    public void testStandardTopicSendsBatchesConcurrently() throws Exception {
+        succeedBatchesSlowly();
+        final TopicPublishBuffer buffer = new TopicPublishBuffer(sns, config(1), TOPIC_ARN);
+
+        for (int i = 0; i < 4; i++) {
+            buffer.publish(new PublishRequest(TOPIC_ARN, "m" + i), null);
+        }
+        buffer.flush();
+
+        assertEquals(4, sent.size());
+        assertTrue(maxInflight.get() > 1);
+    }
+
+    @Test
+    public void testFailedEntriesAreRetriedInPublishOrder() throws Exception {
+        when(sns.publishBatch(any(PublishBatchRequest.class))).thenReturn(new PublishBatchResult()
+                .withSuccessful(new PublishBatchResultEntry().withId("1").withMessageId("m1"))
+                .withFailed(failure("3"), failure("0"), failure("2")));
+        final TopicPublishBuffer buffer = new TopicPublishBuffer(sns, config(4), FIFO_TOPIC_ARN);
+
+        final List<Future<PublishResult>> futures = new ArrayList<Future<PublishResult>>();
+        for (int i = 0; i < 4; i++) {
+            futures.add(buffer.publish(new PublishRequest(FIFO_TOPIC_ARN, "m" + i), null));
+        }
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals("m" + i, futures.get(i).get(5, TimeUnit.SECONDS).getMessageId());
+        }
+        assertEquals(Arrays.asList("m0", "m2", "m3"), sent);
+    }
+
+    private void succeedBatchesSlowly() {
+        when(sns.publishBatch(any(PublishBatchRequest.class))).thenAnswer(
+                new Answer<PublishBatchResult>() {
+                    @Override
+                    public PublishBatchResult answer(InvocationOnMock invocation)
+                            throws Exception {
+                        final int running = inflight.incrementAndGet();
+                        synchronized (maxInflight) {
+                            maxInflight.set(Math.max(maxInflight.get(), running));
+                        }
+                        Thread.sleep(50);
+                        final PublishBatchRequest request =
+                                (PublishBatchRequest) invocation.getArguments()[0];
+                        final PublishBatchResult result = new PublishBatchResult();
+                        for (final PublishBatchRequestEntry entry
+                                : request.getPublishBatchRequestEntries()) {
+                            sent.add(entry.getMessage());
+                            result.withSuccessful(new PublishBatchResultEntry()
+                                    .withId(entry.getId())
+                                    .withMessageId(entry.getMessage()));
+                        }
+                        inflight.decrementAndGet();
+                        return result;
+                    }
+                });
+    }
+
+    private static PublishBufferConfig config(int maxBatchSize) {
+        return new PublishBufferConfig()
+                .withMaxBatchSize(maxBatchSize)
+                .withMaxBatchOpenMs(10000)
+                .withMaxInflightOutboundBatches(4);
+    }
+
+    private static BatchResultErrorEntry failure(String id) {
+        return new BatchResultErrorEntry().withId(id).withCode("InternalError")
+                .withSenderFault(false);
+    }
+}
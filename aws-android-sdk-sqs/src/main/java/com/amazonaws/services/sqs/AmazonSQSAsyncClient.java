@@ -17,11 +17,11 @@ package com.amazonaws.services.sqs;
 
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.AmazonServiceException;
+import com.amazonaws.async.SdkExecutors;
 import com.amazonaws.handlers.AsyncHandler;
 import com.amazonaws.ClientConfiguration;
 import com.amazonaws.auth.AWSCredentials;
@@ -179,14 +179,14 @@ public class AmazonSQSAsyncClient extends AmazonSQSClient implements AmazonSQSAs
      */
     @Deprecated
     public AmazonSQSAsyncClient(ClientConfiguration clientConfiguration) {
-        this(new DefaultAWSCredentialsProviderChain(), clientConfiguration, Executors
-                .newFixedThreadPool(clientConfiguration.getMaxConnections()));
+        this(new DefaultAWSCredentialsProviderChain(), clientConfiguration, SdkExecutors
+                .newClientExecutor(clientConfiguration.getMaxConnections()));
     }
 
     /**
      * Constructs a new asynchronous client to invoke service methods on Amazon
      * SQS using the specified AWS account credentials. Default client settings
-     * will be used, and a fixed size thread pool will be created for executing
+     * will be used, and a shared SDK thread pool will be used for executing
      * the asynchronous tasks.
      * <p>
      * All calls made using this new client object are non-blocking, and will
@@ -197,7 +197,7 @@ public class AmazonSQSAsyncClient extends AmazonSQSClient implements AmazonSQSAs
      *            to use when authenticating with AWS services.
      */
     public AmazonSQSAsyncClient(AWSCredentials awsCredentials) {
-        this(awsCredentials, Executors.newFixedThreadPool(DEFAULT_THREAD_POOL_SIZE));
+        this(awsCredentials, SdkExecutors.newClientExecutor(DEFAULT_THREAD_POOL_SIZE));
     }
 
     /**
@@ -244,7 +244,7 @@ public class AmazonSQSAsyncClient extends AmazonSQSClient implements AmazonSQSAs
     /**
      * Constructs a new asynchronous client to invoke service methods on Amazon
      * SQS using the specified AWS account credentials provider. Default client
-     * settings will be used, and a fixed size thread pool will be created for
+     * settings will be used, and a shared SDK thread pool will be used for
      * executing the asynchronous tasks.
      * <p>
      * All calls made using this new client object are non-blocking, and will
@@ -256,7 +256,7 @@ public class AmazonSQSAsyncClient extends AmazonSQSClient implements AmazonSQSAs
      *            services.
      */
     public AmazonSQSAsyncClient(AWSCredentialsProvider awsCredentialsProvider) {
-        this(awsCredentialsProvider, Executors.newFixedThreadPool(DEFAULT_THREAD_POOL_SIZE));
+        this(awsCredentialsProvider, SdkExecutors.newClientExecutor(DEFAULT_THREAD_POOL_SIZE));
     }
 
     /**
@@ -296,8 +296,8 @@ public class AmazonSQSAsyncClient extends AmazonSQSClient implements AmazonSQSAs
      */
     public AmazonSQSAsyncClient(AWSCredentialsProvider awsCredentialsProvider,
             ClientConfiguration clientConfiguration) {
-        this(awsCredentialsProvider, clientConfiguration, Executors
-                .newFixedThreadPool(clientConfiguration.getMaxConnections()));
+        this(awsCredentialsProvider, clientConfiguration, SdkExecutors
+                .newClientExecutor(clientConfiguration.getMaxConnections()));
     }
 
     /**